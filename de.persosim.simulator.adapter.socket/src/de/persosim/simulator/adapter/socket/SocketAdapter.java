@@ -8,11 +8,16 @@ import java.io.PrintStream;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.globaltester.simulator.Simulator;
 
 import de.persosim.simulator.CommandParser;
+import de.persosim.simulator.PersoSim;
+import de.persosim.simulator.metrics.Counter;
+import de.persosim.simulator.metrics.SimulatorMetrics;
 import de.persosim.simulator.platform.Iso7816;
+import de.persosim.simulator.recording.ApduRecorder;
 import de.persosim.simulator.utils.HexString;
 import de.persosim.simulator.utils.Utils;
 
@@ -23,7 +28,8 @@ import de.persosim.simulator.utils.Utils;
  * kernel and mediates commands/responses between those two. It is also in
  * charge of simulating behavior "outside" the card, like power on/off or reset
  * of the card. Therefore it provides it's own APDU handler that handles some
- * special control APDUs
+ * special control APDUs, e.g. FF10 and FF11 to record the current card state
+ * and to roll back to it.
  * 
  * @author amay
  * 
@@ -33,6 +39,16 @@ public class SocketAdapter implements Runnable {
 	private static final byte[] ACK = Utils.toUnsignedByteArray(Iso7816.SW_9000_NO_ERROR);
 	private static final byte[] NACK = Utils.toUnsignedByteArray(Iso7816.SW_6F00_UNKNOWN);
 
+	private static final Counter CONNECTIONS = SimulatorMetrics.getCounter(SimulatorMetrics.COUNTER_SOCKET_CONNECTIONS,
+			"Connections accepted by the socket adapters");
+	private static final AtomicInteger OPEN_CONNECTIONS = new AtomicInteger();
+	private static final AtomicInteger NEXT_CONNECTION_ID = new AtomicInteger();
+
+	static {
+		SimulatorMetrics.setGauge(SimulatorMetrics.GAUGE_OPEN_SOCKET_CONNECTIONS,
+				"Currently open connections of the socket adapters", OPEN_CONNECTIONS::get);
+	}
+
 	private int port;
 	private Thread simThread = null;
 	private boolean isRunning;
@@ -170,8 +186,13 @@ public class SocketAdapter implements Runnable {
 		}
 
 		clientSocket = null;
+		boolean accepted = false;
 		try {
 			clientSocket = server.accept();
+			accepted = true;
+			CONNECTIONS.increment();
+			OPEN_CONNECTIONS.incrementAndGet();
+			ApduRecorder.setConnection(NEXT_CONNECTION_ID.incrementAndGet());
 
 			BufferedReader in = new BufferedReader(new InputStreamReader(clientSocket.getInputStream()));
 			PrintStream out = new PrintStream(clientSocket.getOutputStream());
@@ -215,6 +236,12 @@ public class SocketAdapter implements Runnable {
 					case 0xFF01:
 						response = sim.cardPowerUp();
 						break;
+					case 0xFF10:
+						response = (sim instanceof PersoSim) ? ((PersoSim) sim).cardSnapshot() : NACK;
+						break;
+					case 0xFF11:
+						response = (sim instanceof PersoSim) ? ((PersoSim) sim).cardRollback() : NACK;
+						break;
 					case 0xFF6F:
 						response = NACK;
 						break;
@@ -245,6 +272,10 @@ public class SocketAdapter implements Runnable {
 				CommandParser.showExceptionToUser(e);
 			}
 		} finally {
+			if (accepted) {
+				OPEN_CONNECTIONS.decrementAndGet();
+				ApduRecorder.setConnection(ApduRecorder.NO_CONNECTION);
+			}
 			if (clientSocket != null) {
 				try {
 					clientSocket.close();
@@ -0,0 +1,109 @@
+package de.persosim.simulator.benchmark;
+
+import java.security.GeneralSecurityException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.persosim.simulator.platform.PersoSimKernel;
+import de.persosim.simulator.protocols.pace.Pace;
+import de.persosim.simulator.utils.HexString;
+
+/**
+ * Processing time of single APDUs through all layers of the kernel, without
+ * secure messaging, with pseudo secure messaging after the PACE bypass and
+ * with secure messaging after PACE respectively EAC.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ApduProcessingBenchmark {
+
+	private static final byte[] SELECT_MF = HexString.toByteArray("00A4000C023F00");
+	private static final byte[] READ_BINARY_EF_DIR = HexString.toByteArray("00B09E0000");
+	private static final byte[] SELECT_EID = HexString.toByteArray("00A4040C09E80704007F00070302");
+	private static final byte[] READ_BINARY_DG4 = HexString.toByteArray("00B0840000");
+
+	@State(Scope.Thread)
+	public static class PlainCard {
+		PersoSimKernel kernel;
+		EacTerminal terminal;
+
+		@Setup(Level.Trial)
+		public void createCard() throws GeneralSecurityException {
+			BenchmarkPersonalization perso = new BenchmarkPersonalization();
+			kernel = Benchmarks.createKernel(perso);
+			terminal = new EacTerminal(kernel, perso);
+			prepare();
+		}
+
+		/**
+		 * Establish the channel used for the measured APDUs.
+		 */
+		protected void prepare() throws GeneralSecurityException {
+			// plain APDUs only
+		}
+	}
+
+	public static class PaceBypassCard extends PlainCard {
+		@Override
+		protected void prepare() throws GeneralSecurityException {
+			terminal.performPaceBypass(Pace.PWD_CAN, BenchmarkPersonalization.CAN);
+		}
+	}
+
+	public static class PaceCard extends PlainCard {
+		@Override
+		protected void prepare() throws GeneralSecurityException {
+			terminal.performPace(Pace.PWD_CAN, BenchmarkPersonalization.CAN);
+		}
+	}
+
+	public static class EacCard extends PlainCard {
+		@Override
+		protected void prepare() throws GeneralSecurityException {
+			terminal.performPace(Pace.PWD_CAN, BenchmarkPersonalization.CAN);
+			terminal.performTa();
+			terminal.performCa();
+			terminal.transmit(SELECT_EID);
+		}
+	}
+
+	@Benchmark
+	public byte[] selectPlain(PlainCard card) {
+		return card.kernel.process(SELECT_MF);
+	}
+
+	@Benchmark
+	public byte[] readBinaryPlain(PlainCard card) {
+		return card.kernel.process(READ_BINARY_EF_DIR);
+	}
+
+	@Benchmark
+	public byte[] selectPseudoSecureMessaging(PaceBypassCard card) throws GeneralSecurityException {
+		return card.terminal.transmit(SELECT_MF);
+	}
+
+	@Benchmark
+	public byte[] selectSecureMessaging(PaceCard card) throws GeneralSecurityException {
+		return card.terminal.transmit(SELECT_MF);
+	}
+
+	@Benchmark
+	public byte[] readBinarySecureMessaging(EacCard card) throws GeneralSecurityException {
+		return card.terminal.transmit(READ_BINARY_DG4);
+	}
+
+}
@@ -0,0 +1,93 @@
+package de.persosim.simulator.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.persosim.simulator.apdu.CommandApdu;
+import de.persosim.simulator.apdu.CommandApduFactory;
+import de.persosim.simulator.apdumatching.ApduSpecification;
+import de.persosim.simulator.apdumatching.ApduSpecificationConstants;
+import de.persosim.simulator.apdumatching.TlvSpecification;
+import de.persosim.simulator.platform.Iso7816;
+import de.persosim.simulator.tlv.TlvConstants;
+import de.persosim.simulator.utils.HexString;
+
+/**
+ * Matching of command APDUs against the specifications registered by the
+ * protocols, which happens for every APDU and every protocol on the stack.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ApduSpecificationBenchmark implements Iso7816, ApduSpecificationConstants, TlvConstants {
+
+	private ApduSpecification setAtSpecification;
+	private ApduSpecification readBinarySpecification;
+	private CommandApdu setAt;
+	private CommandApdu readBinary;
+
+	@Setup
+	public void setUp() {
+		// as registered by PACE
+		setAtSpecification = new ApduSpecification("Set AT");
+		setAtSpecification.getTags().setStrictOrder(ARBITRARY_ORDER);
+		setAtSpecification.setIsoFormat(ISO_FORMAT_FIRSTINTERINDUSTRY);
+		setAtSpecification.setIsoCase(ISO_CASE_3);
+		setAtSpecification.setChaining(false);
+		setAtSpecification.setIns(INS_22_MANAGE_SECURITY_ENVIRONMENT);
+		setAtSpecification.setP1((byte) 0xC1);
+		setAtSpecification.setP2((byte) 0xA4);
+		setAtSpecification.addTag(new TlvSpecification(TAG_80));
+		setAtSpecification.addTag(new TlvSpecification(TAG_83));
+		TlvSpecification chat = new TlvSpecification(TAG_7F4C, REQ_OPTIONAL);
+		chat.setAllowUnspecifiedSubTags(true);
+		setAtSpecification.addTag(chat);
+		TlvSpecification certificateDescription = new TlvSpecification(TAG_65, REQ_OPTIONAL);
+		certificateDescription.setAllowUnspecifiedSubTags(true);
+		setAtSpecification.addTag(certificateDescription);
+		setAtSpecification.addTag(new TlvSpecification(TAG_84, REQ_OPTIONAL));
+		setAtSpecification.setInitialApdu();
+
+		// as registered by the file protocol
+		readBinarySpecification = new ApduSpecification("Read Binary");
+		readBinarySpecification.getTags().setStrictOrder(ARBITRARY_ORDER);
+		readBinarySpecification.setReqIsoCase(REQ_OPTIONAL);
+		readBinarySpecification.setReqP1(REQ_OPTIONAL);
+		readBinarySpecification.setReqP2(REQ_OPTIONAL);
+		readBinarySpecification.setIns(INS_B0_READ_BINARY);
+
+		setAt = CommandApduFactory.createCommandApdu(HexString.toByteArray(
+				"0022C1A424" + "800A04007F00070202040202" + "830102"
+				+ "7F4C12060904007F00070301020253053FFFFFFFFF"));
+		readBinary = CommandApduFactory.createCommandApdu(HexString.toByteArray("00B0810000"));
+	}
+
+	@Benchmark
+	public boolean matchSetAt() {
+		return setAtSpecification.matchesFullApdu(setAt);
+	}
+
+	@Benchmark
+	public boolean mismatchSetAt() {
+		return setAtSpecification.matchesFullApdu(readBinary);
+	}
+
+	@Benchmark
+	public boolean matchReadBinary() {
+		return readBinarySpecification.matchesFullApdu(readBinary);
+	}
+
+}
@@ -0,0 +1,43 @@
+package de.persosim.simulator.benchmark;
+
+import java.security.interfaces.ECPublicKey;
+
+import de.persosim.simulator.cardobjects.KeyIdentifier;
+import de.persosim.simulator.cardobjects.KeyPairObject;
+import de.persosim.simulator.cardobjects.MasterFile;
+import de.persosim.simulator.cardobjects.TrustPointCardObject;
+import de.persosim.simulator.cardobjects.TrustPointIdentifier;
+import de.persosim.simulator.exception.AccessDeniedException;
+import de.persosim.simulator.perso.DefaultPersoTestPki;
+import de.persosim.simulator.platform.CommandProcessor;
+import de.persosim.simulator.platform.PersonalizationHelper;
+import de.persosim.simulator.protocols.ta.TerminalType;
+
+/**
+ * The default test personalization, trusting the authentication terminal
+ * CVCA of {@link BenchmarkPki} instead of the one from the test PKI.
+ */
+public class BenchmarkPersonalization extends DefaultPersoTestPki {
+
+	public static final String CAN = "500540";
+	public static final String PIN = "123456";
+
+	public static final int CHIP_AUTHENTICATION_KEY_ID = 2;
+
+	@Override
+	protected void addTaTrustPoints(MasterFile mf) throws AccessDeniedException {
+		mf.addChild(new TrustPointCardObject(new TrustPointIdentifier(TerminalType.AT),
+				BenchmarkPki.getInstance().getCvcaCertificate()));
+	}
+
+	/**
+	 * @return the static public key used for chip authentication
+	 */
+	public ECPublicKey getChipAuthenticationPublicKey() {
+		MasterFile mf = PersonalizationHelper.getUniqueCompatibleLayer(getLayerList(), CommandProcessor.class)
+				.getMasterFile();
+		KeyPairObject caKey = (KeyPairObject) mf.findChildren(new KeyIdentifier(CHIP_AUTHENTICATION_KEY_ID)).iterator().next();
+		return (ECPublicKey) caKey.getKeyPair().getPublic();
+	}
+
+}
@@ -0,0 +1,203 @@
+package de.persosim.simulator.benchmark;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.interfaces.ECPublicKey;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.globaltester.cryptoprovider.Crypto;
+
+import de.persosim.simulator.crypto.CryptoUtil;
+import de.persosim.simulator.crypto.DomainParameterSet;
+import de.persosim.simulator.crypto.StandardizedDomainParameters;
+import de.persosim.simulator.crypto.certificates.CardVerifiableCertificate;
+import de.persosim.simulator.crypto.certificates.CertificateBody;
+import de.persosim.simulator.crypto.certificates.CertificateExtension;
+import de.persosim.simulator.crypto.certificates.CvEcPublicKey;
+import de.persosim.simulator.crypto.certificates.ExtensionOid;
+import de.persosim.simulator.crypto.certificates.GenericExtension;
+import de.persosim.simulator.crypto.certificates.PublicKeyReference;
+import de.persosim.simulator.exception.CarParameterInvalidException;
+import de.persosim.simulator.protocols.Tr03110Utils;
+import de.persosim.simulator.protocols.ri.Ri;
+import de.persosim.simulator.protocols.ta.CertificateHolderAuthorizationTemplate;
+import de.persosim.simulator.protocols.ta.CertificateRole;
+import de.persosim.simulator.protocols.ta.RelativeAuthorization;
+import de.persosim.simulator.protocols.ta.TaOid;
+import de.persosim.simulator.protocols.ta.TerminalType;
+import de.persosim.simulator.tlv.ConstructedTlvDataObject;
+import de.persosim.simulator.tlv.PrimitiveTlvDataObject;
+import de.persosim.simulator.tlv.TlvConstants;
+import de.persosim.simulator.tlv.TlvDataObject;
+import de.persosim.simulator.utils.BitField;
+import de.persosim.simulator.utils.HexString;
+
+/**
+ * Authentication terminal PKI with all access rights and a sector key for
+ * restricted identification.
+ * <p/>
+ * No terminal keys are available for the test PKI of the simulator, so the
+ * shared instance generates a CVCA, a domestic DV and a terminal certificate
+ * once per JVM. {@link BenchmarkPersonalization} uses the CVCA as trust point,
+ * {@link EacTerminal} the remaining certificates and keys. Alternatively the
+ * DV and terminal certificates can be issued by an existing CVCA whose private
+ * key is known, e.g. the one bundled in {@link GtCertificates}.
+ */
+public final class BenchmarkPki implements TerminalCredentials, TlvConstants {
+
+	private static final int DOMAIN_PARAMETERS = 13;
+
+	private final CardVerifiableCertificate cvcaCertificate;
+	private final CardVerifiableCertificate dvCertificate;
+	private final CardVerifiableCertificate terminalCertificate;
+	private final KeyPair terminalKeyPair;
+	private final ConstructedTlvDataObject sectorPublicKeyData;
+
+	private static class Holder {
+		static final BenchmarkPki INSTANCE = create();
+
+		private static BenchmarkPki create() {
+			try {
+				DomainParameterSet domainParameters = StandardizedDomainParameters
+						.getDomainParameterSetById(DOMAIN_PARAMETERS);
+				KeyPair cvcaKeyPair = CryptoUtil.generateKeyPair(domainParameters, new SecureRandom());
+				PublicKeyReference cvcaReference = getReference("BENCHCVCA");
+				CardVerifiableCertificate cvcaCertificate = createCertificate(TaOid.id_TA_ECDSA_SHA_256,
+						cvcaReference, cvcaKeyPair.getPrivate(), cvcaReference, cvcaKeyPair.getPublic(),
+						getChat(CertificateRole.CVCA), Collections.<CertificateExtension> emptyList());
+				return new BenchmarkPki(cvcaCertificate, cvcaKeyPair.getPrivate());
+			} catch (GeneralSecurityException e) {
+				throw new IllegalStateException("Unable to generate the benchmark PKI", e);
+			}
+		}
+	}
+
+	private BenchmarkPki(CardVerifiableCertificate cvcaCertificate, PrivateKey cvcaPrivateKey)
+			throws GeneralSecurityException {
+		this.cvcaCertificate = cvcaCertificate;
+		TaOid taOid = (TaOid) cvcaCertificate.getPublicKey().getCvOid();
+		SecureRandom secureRandom = new SecureRandom();
+		DomainParameterSet domainParameters = Tr03110Utils.getDomainParameterSetFromKey(cvcaCertificate.getPublicKey());
+
+		KeyPair dvKeyPair = CryptoUtil.generateKeyPair(domainParameters, secureRandom);
+		terminalKeyPair = CryptoUtil.generateKeyPair(domainParameters, secureRandom);
+		KeyPair sectorKeyPair = CryptoUtil.generateKeyPair(domainParameters, secureRandom);
+
+		PublicKeyReference dvReference = getReference("BENCHDV");
+
+		// the sector public key as sent during RI and its hash as contained in the terminal certificate
+		ConstructedTlvDataObject sectorKeyEncoding = new CvEcPublicKey(taOid,
+				(ECPublicKey) sectorKeyPair.getPublic()).toTlvDataObject(true);
+		sectorPublicKeyData = new ConstructedTlvDataObject(Ri.RI_FIRST_SECTOR_KEY_TAG);
+		ConstructedTlvDataObject sectorKeyHashInput = new ConstructedTlvDataObject(TAG_7F49);
+		for (TlvDataObject current : sectorKeyEncoding.getTlvDataObjectContainer()) {
+			TlvDataObject component = current.getTlvTag().equals(TAG_06)
+					? new PrimitiveTlvDataObject(TAG_06, Ri.id_RI_ECDH_SHA_256) : current;
+			sectorPublicKeyData.addTlvDataObject(component);
+			sectorKeyHashInput.addTlvDataObject(component);
+		}
+		byte[] sectorKeyHash = MessageDigest.getInstance(taOid.getHashAlgorithmName(), Crypto.getCryptoProvider())
+				.digest(sectorKeyHashInput.toByteArray());
+		List<CertificateExtension> terminalExtensions = new ArrayList<>();
+		terminalExtensions.add(new GenericExtension(new ConstructedTlvDataObject(TAG_73,
+				new PrimitiveTlvDataObject(TAG_06, ExtensionOid.id_Sector.toByteArray()),
+				new PrimitiveTlvDataObject(TAG_80, sectorKeyHash))));
+
+		dvCertificate = createCertificate(taOid, cvcaCertificate.getCertificateHolderReference(), cvcaPrivateKey,
+				dvReference, dvKeyPair.getPublic(), getChat(CertificateRole.DV_TYPE_1),
+				Collections.<CertificateExtension> emptyList());
+		terminalCertificate = createCertificate(taOid, dvReference, dvKeyPair.getPrivate(),
+				getReference("BENCHTERM"), terminalKeyPair.getPublic(), getChat(CertificateRole.TERMINAL),
+				terminalExtensions);
+	}
+
+	/**
+	 * @return the instance shared by all benchmarks, generated on first use
+	 */
+	public static BenchmarkPki getInstance() {
+		return Holder.INSTANCE;
+	}
+
+	/**
+	 * Issue new DV and terminal certificates using an existing CVCA.
+	 *
+	 * @param cvcaCertificate
+	 *            the CVCA certificate trusted by the card
+	 * @param cvcaPrivateKey
+	 *            the private key of the CVCA
+	 * @return the PKI containing the new certificates
+	 * @throws GeneralSecurityException
+	 *             if the keys can not be generated or used
+	 */
+	public static BenchmarkPki issuedBy(CardVerifiableCertificate cvcaCertificate, PrivateKey cvcaPrivateKey)
+			throws GeneralSecurityException {
+		return new BenchmarkPki(cvcaCertificate, cvcaPrivateKey);
+	}
+
+	private static CardVerifiableCertificate createCertificate(TaOid taOid, PublicKeyReference car,
+			PrivateKey issuerPrivateKey, PublicKeyReference chr, PublicKey holderPublicKey,
+			CertificateHolderAuthorizationTemplate chat, List<CertificateExtension> extensions)
+			throws GeneralSecurityException {
+		CertificateBody body = new CertificateBody(0, car, new CvEcPublicKey(taOid, (ECPublicKey) holderPublicKey),
+				chr, chat, getDate(2013, Calendar.JANUARY, 1), getDate(2040, Calendar.DECEMBER, 31), extensions);
+		return new CardVerifiableCertificate(body, EacTerminal.sign(taOid, issuerPrivateKey, body.getEncoded()));
+	}
+
+	private static PublicKeyReference getReference(String holderMnemonic) {
+		try {
+			return new PublicKeyReference("DE", holderMnemonic, "00001");
+		} catch (CarParameterInvalidException e) {
+			throw new IllegalArgumentException("Invalid holder mnemonic " + holderMnemonic, e);
+		}
+	}
+
+	private static CertificateHolderAuthorizationTemplate getChat(CertificateRole role) {
+		BitField allAccessRights = BitField.buildFromBigEndian(38, HexString.toByteArray("FFFFFFFFFF"));
+		return new CertificateHolderAuthorizationTemplate(TerminalType.AT.getAsOid(), TerminalType.AT,
+				new RelativeAuthorization(role, allAccessRights));
+	}
+
+	private static Date getDate(int year, int month, int day) {
+		Calendar calendar = Calendar.getInstance();
+		calendar.clear();
+		calendar.set(year, month, day);
+		return calendar.getTime();
+	}
+
+	public CardVerifiableCertificate getCvcaCertificate() {
+		return cvcaCertificate;
+	}
+
+	public CardVerifiableCertificate getDvCertificate() {
+		return dvCertificate;
+	}
+
+	public CardVerifiableCertificate getTerminalCertificate() {
+		return terminalCertificate;
+	}
+
+	@Override
+	public List<CardVerifiableCertificate> getCertificateChain() {
+		return Arrays.asList(cvcaCertificate, dvCertificate, terminalCertificate);
+	}
+
+	@Override
+	public PrivateKey getTerminalPrivateKey() {
+		return terminalKeyPair.getPrivate();
+	}
+
+	@Override
+	public ConstructedTlvDataObject getSectorPublicKeyData() {
+		return sectorPublicKeyData;
+	}
+
+}
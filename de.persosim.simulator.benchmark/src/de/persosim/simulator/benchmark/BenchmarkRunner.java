@@ -0,0 +1,44 @@
+package de.persosim.simulator.benchmark;
+
+import java.io.File;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point running the benchmarks of this bundle.
+ * <p/>
+ * Run as plain Java application with the bundle project as working directory
+ * (see launch/BenchmarkRunner.launch). All arguments are passed to JMH as
+ * command line options, e.g. <code>EacBenchmark -f 3</code> restricts the run
+ * to the EAC benchmarks using three forks. Without further options all
+ * benchmarks of this package are run, allocation rates are reported and the
+ * results are written as JSON to target/jmh-result.json.
+ */
+public class BenchmarkRunner {
+
+	public static final String DEFAULT_RESULT_FILE = "target/jmh-result.json";
+
+	public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+		CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+
+		ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLineOptions);
+		if (commandLineOptions.getIncludes().isEmpty()) {
+			options.include(BenchmarkRunner.class.getPackage().getName() + ".*");
+		}
+		options.addProfiler(GCProfiler.class);
+		if (!commandLineOptions.getResult().hasValue()) {
+			new File(DEFAULT_RESULT_FILE).getParentFile().mkdirs();
+			options.resultFormat(ResultFormatType.JSON).result(DEFAULT_RESULT_FILE);
+		}
+
+		new Runner(options.build()).run();
+	}
+
+}
@@ -0,0 +1,85 @@
+package de.persosim.simulator.benchmark;
+
+import java.io.File;
+
+import org.globaltester.cryptoprovider.Crypto;
+import org.globaltester.cryptoprovider.bc.ProviderBc;
+
+import de.persosim.simulator.exception.AccessDeniedException;
+import de.persosim.simulator.perso.Personalization;
+import de.persosim.simulator.platform.PersoSimKernel;
+
+/**
+ * Helper methods shared by the benchmarks, which run outside of an OSGi
+ * framework.
+ */
+public final class Benchmarks {
+
+	/**
+	 * System property overriding the folder containing the profiles, relative
+	 * paths are resolved against the working directory
+	 */
+	public static final String PROPERTY_PROFILE_FOLDER = "persosim.benchmark.profiles";
+
+	/**
+	 * System property overriding the folder containing the GlobalTester
+	 * certificates, relative paths are resolved against the working directory
+	 */
+	public static final String PROPERTY_CERTIFICATE_FOLDER = "persosim.benchmark.certificates";
+
+	private static final String DEFAULT_PROFILE_FOLDER = "../de.persosim.simulator/personalization/profiles";
+	private static final String DEFAULT_CERTIFICATE_FOLDER = "../de.persosim.simulator/personalization/gtCertificates";
+
+	private Benchmarks() {
+		// static access only
+	}
+
+	/**
+	 * Register the crypto provider, which is otherwise done by the OSGi
+	 * framework.
+	 */
+	public static void initCryptoProvider() {
+		Crypto.setCryptoProvider(new ProviderBc().getCryptoProviderObject());
+	}
+
+	/**
+	 * Create a kernel initialized with the given personalization and power it
+	 * on.
+	 *
+	 * @param perso
+	 *            the personalization to use
+	 * @return the powered kernel
+	 */
+	public static PersoSimKernel createKernel(Personalization perso) {
+		initCryptoProvider();
+		try {
+			PersoSimKernel kernel = new PersoSimKernel();
+			kernel.init(perso);
+			kernel.powerOn();
+			return kernel;
+		} catch (AccessDeniedException e) {
+			throw new IllegalStateException("Unable to create the kernel", e);
+		}
+	}
+
+	/**
+	 * @param fileName
+	 *            path of the profile file relative to the profile folder, e.g.
+	 *            "Profile01.perso"
+	 * @return the profile file in the configured profile folder
+	 */
+	public static File getProfile(String fileName) {
+		return new File(System.getProperty(PROPERTY_PROFILE_FOLDER, DEFAULT_PROFILE_FOLDER), fileName);
+	}
+
+	/**
+	 * @param configurationName
+	 *            name of the certificate configuration, e.g. "CFG.DFLT.EAC.AT"
+	 * @return the folder of the configuration in the configured certificate
+	 *         folder
+	 */
+	public static File getCertificateFolder(String configurationName) {
+		return new File(System.getProperty(PROPERTY_CERTIFICATE_FOLDER, DEFAULT_CERTIFICATE_FOLDER), configurationName);
+	}
+
+}
@@ -0,0 +1,127 @@
+package de.persosim.simulator.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.persosim.simulator.utils.BitField;
+
+/**
+ * Operations on CHAT relative authorizations, i.e. parsing the big endian
+ * encoding of DO'53', merging authorizations along a certificate chain and
+ * testing required authorizations. The word based {@link BitField} is
+ * compared with the previous implementation storing one boolean per bit.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BitFieldBenchmark {
+
+	private static final int CHAT_BITS = 38;
+	private static final int NUMBER_OF_CHATS = 64;
+
+	/**
+	 * Copy of the previous boolean based implementation restricted to the
+	 * operations used for CHAT processing.
+	 */
+	static class BooleanBitField {
+		private final boolean[] storedBits;
+
+		BooleanBitField(boolean[] bits) {
+			storedBits = bits;
+		}
+
+		static BooleanBitField buildFromBigEndian(int numberOfBits, byte[] bitsToStore) {
+			boolean[] result = new boolean[numberOfBits];
+			boolean[] sourceBits = new boolean[bitsToStore.length * 8];
+
+			for (int i = 0; i < sourceBits.length; i++) {
+				sourceBits[i] = ((bitsToStore[i / 8] >>> 7 - (i % 8)) & 0b00000001) == 1;
+			}
+
+			int offset = bitsToStore.length * 8 - numberOfBits;
+			for (int i = offset; i < sourceBits.length; i++) {
+				result[numberOfBits - 1 - (i - offset)] = sourceBits[i];
+			}
+
+			return new BooleanBitField(result);
+		}
+
+		BooleanBitField and(BooleanBitField field) {
+			boolean[] result = new boolean[Math.max(storedBits.length, field.storedBits.length)];
+			for (int i = 0; i < result.length; i++) {
+				result[i] = getZeroPaddedBit(i) & field.getZeroPaddedBit(i);
+			}
+			return new BooleanBitField(result);
+		}
+
+		BooleanBitField or(BooleanBitField field) {
+			boolean[] result = new boolean[Math.max(storedBits.length, field.storedBits.length)];
+			for (int i = 0; i < result.length; i++) {
+				result[i] = getZeroPaddedBit(i) | field.getZeroPaddedBit(i);
+			}
+			return new BooleanBitField(result);
+		}
+
+		boolean containsAll(BooleanBitField field) {
+			for (int i = 0; i < field.storedBits.length; i++) {
+				if (field.storedBits[i] && !getZeroPaddedBit(i)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private boolean getZeroPaddedBit(int index) {
+			return index < storedBits.length && storedBits[index];
+		}
+	}
+
+	private byte[][] chats;
+
+	@Setup
+	public void setUp() {
+		Random random = new Random(0);
+		chats = new byte[NUMBER_OF_CHATS][5];
+		for (byte[] chat : chats) {
+			random.nextBytes(chat);
+		}
+	}
+
+	@Benchmark
+	public BitField wordBased(Blackhole blackhole) {
+		BitField effective = BitField.buildFromBigEndian(CHAT_BITS, chats[0]);
+		for (int i = 1; i < chats.length; i++) {
+			BitField chat = BitField.buildFromBigEndian(CHAT_BITS, chats[i]);
+			effective = effective.and(chat.or(effective));
+			blackhole.consume(chat.containsAll(effective));
+		}
+		return effective;
+	}
+
+	@Benchmark
+	public BooleanBitField booleanBased(Blackhole blackhole) {
+		BooleanBitField effective = BooleanBitField.buildFromBigEndian(CHAT_BITS, chats[0]);
+		for (int i = 1; i < chats.length; i++) {
+			BooleanBitField chat = BooleanBitField.buildFromBigEndian(CHAT_BITS, chats[i]);
+			effective = effective.and(chat.or(effective));
+			blackhole.consume(chat.containsAll(effective));
+		}
+		return effective;
+	}
+
+}
@@ -0,0 +1,119 @@
+package de.persosim.simulator.benchmark;
+
+import java.security.GeneralSecurityException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.persosim.simulator.platform.PersoSimKernel;
+import de.persosim.simulator.protocols.pace.Pace;
+
+/**
+ * Latency of the EAC protocols as seen by a terminal, each measured on its
+ * own with the card prepared by the preceding protocols.
+ * <p/>
+ * The PACE bypass serves as baseline for the processing overhead of the
+ * simulator without any cryptographic operations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EacBenchmark {
+
+	/**
+	 * Card reset before each invocation.
+	 */
+	@State(Scope.Thread)
+	public static class ResetCard {
+		PersoSimKernel kernel;
+		EacTerminal terminal;
+
+		@Setup(Level.Trial)
+		public void createCard() {
+			BenchmarkPersonalization perso = new BenchmarkPersonalization();
+			kernel = Benchmarks.createKernel(perso);
+			terminal = new EacTerminal(kernel, perso);
+		}
+
+		@Setup(Level.Invocation)
+		public void resetCard() throws GeneralSecurityException {
+			kernel.reset();
+			terminal.reset();
+			prepare();
+		}
+
+		/**
+		 * Perform the protocols preceding the measured one.
+		 */
+		protected void prepare() throws GeneralSecurityException {
+			// fresh card only
+		}
+	}
+
+	/**
+	 * Card with PACE performed before each invocation.
+	 */
+	public static class PacedCard extends ResetCard {
+		@Override
+		protected void prepare() throws GeneralSecurityException {
+			terminal.performPace(Pace.PWD_CAN, BenchmarkPersonalization.CAN);
+		}
+	}
+
+	/**
+	 * Card with PACE and TA performed before each invocation.
+	 */
+	public static class AuthenticatedTerminalCard extends ResetCard {
+		@Override
+		protected void prepare() throws GeneralSecurityException {
+			terminal.performPace(Pace.PWD_CAN, BenchmarkPersonalization.CAN);
+			terminal.performTa();
+		}
+	}
+
+	@Benchmark
+	public void pace(ResetCard card) throws GeneralSecurityException {
+		card.terminal.performPace(Pace.PWD_CAN, BenchmarkPersonalization.CAN);
+	}
+
+	@Benchmark
+	public void paceBypass(ResetCard card) throws GeneralSecurityException {
+		card.terminal.performPaceBypass(Pace.PWD_CAN, BenchmarkPersonalization.CAN);
+	}
+
+	@Benchmark
+	public void terminalAuthentication(PacedCard card) throws GeneralSecurityException {
+		card.terminal.performTa();
+	}
+
+	@Benchmark
+	public void chipAuthentication(AuthenticatedTerminalCard card) throws GeneralSecurityException {
+		card.terminal.performCa();
+	}
+
+	@Benchmark
+	public byte[] restrictedIdentification(AuthenticatedTerminalCard card) throws GeneralSecurityException {
+		return card.terminal.performRi();
+	}
+
+	@Benchmark
+	public byte[] eac(ResetCard card) throws GeneralSecurityException {
+		card.terminal.performPace(Pace.PWD_CAN, BenchmarkPersonalization.CAN);
+		card.terminal.performTa();
+		card.terminal.performCa();
+		return card.terminal.performRi();
+	}
+
+}
@@ -0,0 +1,589 @@
+package de.persosim.simulator.benchmark;
+
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.Signature;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+import javax.crypto.KeyAgreement;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.globaltester.cryptoprovider.Crypto;
+
+import de.persosim.simulator.crypto.CryptoSupport;
+import de.persosim.simulator.crypto.CryptoUtil;
+import de.persosim.simulator.crypto.DomainParameterSet;
+import de.persosim.simulator.crypto.DomainParameterSetEcdh;
+import de.persosim.simulator.crypto.KeyDerivationFunction;
+import de.persosim.simulator.crypto.StandardizedDomainParameters;
+import de.persosim.simulator.crypto.certificates.CardVerifiableCertificate;
+import de.persosim.simulator.platform.PersoSimKernel;
+import de.persosim.simulator.protocols.Oid;
+import de.persosim.simulator.protocols.Tr03110;
+import de.persosim.simulator.protocols.Tr03110Utils;
+import de.persosim.simulator.protocols.ca.Ca;
+import de.persosim.simulator.protocols.ca.CaOid;
+import de.persosim.simulator.protocols.pace.GenericMappingEcdh;
+import de.persosim.simulator.protocols.pace.Pace;
+import de.persosim.simulator.protocols.pace.PaceOid;
+import de.persosim.simulator.protocols.ri.Ri;
+import de.persosim.simulator.protocols.ta.CertificateHolderAuthorizationTemplate;
+import de.persosim.simulator.protocols.ta.TaOid;
+import de.persosim.simulator.tlv.ConstructedTlvDataObject;
+import de.persosim.simulator.tlv.PrimitiveTlvDataObject;
+import de.persosim.simulator.tlv.TlvConstants;
+import de.persosim.simulator.tlv.TlvDataObject;
+import de.persosim.simulator.tlv.TlvDataObjectContainer;
+import de.persosim.simulator.tlv.TlvTag;
+import de.persosim.simulator.utils.HexString;
+import de.persosim.simulator.utils.Utils;
+
+/**
+ * Minimal terminal performing the EAC protocols (PACE, TA, CA and RI) against
+ * a simulated card, using the given {@link TerminalCredentials}.
+ * <p/>
+ * The terminal only implements the algorithms used by the bundled profiles
+ * and {@link BenchmarkPersonalization} (ECDH on standardized domain
+ * parameters with AES-128 session keys). The chip authentication key is
+ * either known in advance or read from EF.CardAccess and EF.CardSecurity like
+ * a real terminal does. APDUs are exchanged through a plain function, so the
+ * same terminal can drive a {@link PersoSimKernel} directly or any other
+ * transport. Instances are not thread safe, each thread is expected to use
+ * its own terminal and card.
+ */
+public class EacTerminal implements TlvConstants {
+
+	private static final int PACE_DOMAIN_PARAMETERS = 13;
+	private static final int TOKEN_LENGTH = 8;
+	private static final int READ_BINARY_CHUNK_LENGTH = 0xDF;
+
+	private static final byte SFI_CARD_ACCESS = 0x1C;
+	private static final byte SFI_CARD_SECURITY = 0x1D;
+	private static final byte[] id_CA_ECDH = Utils.appendBytes(Ca.id_CA, Ca.ECDH);
+	private static final byte[] id_PK_ECDH = Utils.appendBytes(Tr03110.id_PK, Ca.ECDH);
+
+	// own instances, the crypto support cached by the OIDs is not thread safe
+	private final PaceOid paceOid = new PaceOid(Pace.id_PACE_ECDH_GM_AES_CBC_CMAC_128);
+	private final CaOid caOid = new CaOid(Ca.id_CA_ECDH_AES_CBC_CMAC_128);
+
+	private final UnaryOperator<byte[]> card;
+	private final TerminalCredentials credentials;
+	private final CardVerifiableCertificate terminalCertificate;
+	private final TaOid taOid;
+	private final SecureRandom secureRandom = new SecureRandom();
+
+	private byte[] chipAuthenticationKeyId;
+	private DomainParameterSet chipAuthenticationDomainParameters;
+	private ECPublicKey chipAuthenticationKey;
+
+	private TerminalSecureMessaging secureMessaging;
+	private boolean pseudoSecureMessaging;
+	private byte[] idPicc;
+	private KeyPair ephemeralKeyPairCa;
+
+	/**
+	 * Create a terminal that reads the chip authentication key from the card,
+	 * see {@link #readCardAccess()} and {@link #readChipAuthenticationKey()}.
+	 *
+	 * @param card
+	 *            function transmitting a command APDU to the card and
+	 *            returning its response APDU
+	 * @param credentials
+	 *            the certificates and keys of the terminal
+	 */
+	public EacTerminal(UnaryOperator<byte[]> card, TerminalCredentials credentials) {
+		this.card = card;
+		this.credentials = credentials;
+		List<CardVerifiableCertificate> chain = credentials.getCertificateChain();
+		terminalCertificate = chain.get(chain.size() - 1);
+		taOid = (TaOid) terminalCertificate.getPublicKey().getCvOid();
+	}
+
+	/**
+	 * Create a terminal directly driving the given kernel, which is expected to
+	 * be initialized with a {@link BenchmarkPersonalization}. The chip
+	 * authentication key is taken from the personalization.
+	 *
+	 * @param kernel
+	 *            the kernel to process the APDUs
+	 * @param perso
+	 *            the personalization the kernel was initialized with
+	 */
+	public EacTerminal(PersoSimKernel kernel, BenchmarkPersonalization perso) {
+		this(kernel::process, BenchmarkPki.getInstance());
+		chipAuthenticationKeyId = Utils.toUnsignedByteArray((byte) BenchmarkPersonalization.CHIP_AUTHENTICATION_KEY_ID);
+		chipAuthenticationKey = perso.getChipAuthenticationPublicKey();
+		chipAuthenticationDomainParameters = Tr03110Utils.getDomainParameterSetFromKey(chipAuthenticationKey);
+	}
+
+	/**
+	 * Forget all session state, to be called whenever the card is reset. The
+	 * information about the chip authentication key is kept.
+	 */
+	public void reset() {
+		secureMessaging = null;
+		pseudoSecureMessaging = false;
+		idPicc = null;
+		ephemeralKeyPairCa = null;
+	}
+
+	/**
+	 * Transmit a plain command APDU, protected by the currently established
+	 * secure messaging if any.
+	 *
+	 * @param apdu
+	 *            the plain command APDU
+	 * @return the plain response data followed by the status word
+	 * @throws GeneralSecurityException
+	 *             if the response can not be verified
+	 */
+	public byte[] transmit(byte[] apdu) throws GeneralSecurityException {
+		if (secureMessaging != null) {
+			return secureMessaging.unwrap(card.apply(secureMessaging.wrap(apdu)));
+		}
+		if (pseudoSecureMessaging) {
+			byte[] pseudoApdu = apdu.clone();
+			pseudoApdu[0] |= 0x03;
+			return card.apply(pseudoApdu);
+		}
+		return card.apply(apdu);
+	}
+
+	/**
+	 * Perform PACE with generic mapping and establish secure messaging.
+	 *
+	 * @param passwordReference
+	 *            the password reference, e.g. {@link Pace#PWD_CAN}
+	 * @param password
+	 *            the password
+	 * @throws GeneralSecurityException
+	 *             if the cryptographic operations fail
+	 */
+	public void performPace(byte passwordReference, String password) throws GeneralSecurityException {
+		performPace(passwordReference, password.getBytes());
+	}
+
+	/**
+	 * Perform PACE with generic mapping and establish secure messaging.
+	 *
+	 * @param passwordReference
+	 *            the password reference, e.g. {@link Pace#PWD_MRZ}
+	 * @param password
+	 *            the password as used for key derivation, i.e. the hash of the
+	 *            MRZ information for {@link Pace#PWD_MRZ}
+	 * @throws GeneralSecurityException
+	 *             if the cryptographic operations fail
+	 */
+	public void performPace(byte passwordReference, byte[] password) throws GeneralSecurityException {
+		reset();
+		transmitExpectSuccess(buildApdu("0022C1A4",
+				new PrimitiveTlvDataObject(TAG_80, paceOid.toByteArray()),
+				new PrimitiveTlvDataObject(TAG_83, new byte[] { passwordReference }),
+				getTerminalChat().toTlv()));
+
+		CryptoSupport cryptoSupport = paceOid.getCryptoSupport();
+		KeyDerivationFunction kdf = new KeyDerivationFunction(paceOid.getSymmetricCipherKeyLengthInBytes());
+		DomainParameterSet domainParameters = StandardizedDomainParameters
+				.getDomainParameterSetById(PACE_DOMAIN_PARAMETERS);
+
+		// get and decrypt the nonce
+		byte[] response = transmitExpectSuccess(buildGeneralAuthenticate("10860000", null));
+		byte[] encryptedNonce = getDynamicAuthenticationData(response, TAG_80);
+		SecretKeySpec keyPi = cryptoSupport.generateSecretKeySpecCipher(kdf.derivePI(password));
+		byte[] nonce = cryptoSupport.decryptWithIvZero(encryptedNonce, keyPi);
+
+		// map the nonce
+		GenericMappingEcdh mapping = new GenericMappingEcdh(secureRandom);
+		KeyPair mappingKeyPair = CryptoUtil.generateKeyPair(domainParameters, secureRandom);
+		response = transmitExpectSuccess(buildGeneralAuthenticate("10860000",
+				new PrimitiveTlvDataObject(TAG_81, domainParameters.encodePublicKey(mappingKeyPair.getPublic()))));
+		PublicKey mappingPublicKeyPicc = domainParameters
+				.reconstructPublicKey(getDynamicAuthenticationData(response, TAG_82));
+		DomainParameterSet mappedDomainParameters = mapping.performMappingOfDomainParameters(domainParameters, nonce,
+				mapping.performKeyAgreement(domainParameters, mappingKeyPair.getPrivate(), mappingPublicKeyPicc));
+
+		// perform key agreement
+		KeyPair ephemeralKeyPair = CryptoUtil.generateKeyPair(mappedDomainParameters, secureRandom);
+		response = transmitExpectSuccess(buildGeneralAuthenticate("10860000", new PrimitiveTlvDataObject(TAG_83,
+				mappedDomainParameters.encodePublicKey(ephemeralKeyPair.getPublic()))));
+		PublicKey ephemeralPublicKeyPicc = mappedDomainParameters
+				.reconstructPublicKey(getDynamicAuthenticationData(response, TAG_84));
+
+		KeyAgreement keyAgreement = KeyAgreement.getInstance(paceOid.getKeyAgreementName(), Crypto.getCryptoProvider());
+		keyAgreement.init(ephemeralKeyPair.getPrivate());
+		keyAgreement.doPhase(ephemeralPublicKeyPicc, true);
+		byte[] sharedSecret = keyAgreement.generateSecret();
+		byte[] keyMaterialMac = kdf.deriveMAC(sharedSecret);
+		byte[] keyMaterialEnc = kdf.deriveENC(sharedSecret);
+		SecretKeySpec keyMac = cryptoSupport.generateSecretKeySpecMac(keyMaterialMac);
+
+		// mutual authentication
+		byte[] pcdToken = computeToken(cryptoSupport, keyMac, ephemeralPublicKeyPicc, mappedDomainParameters, paceOid);
+		response = transmitExpectSuccess(
+				buildGeneralAuthenticate("00860000", new PrimitiveTlvDataObject(TAG_85, pcdToken)));
+		byte[] expectedPiccToken = computeToken(cryptoSupport, keyMac, ephemeralKeyPair.getPublic(),
+				mappedDomainParameters, paceOid);
+		if (!Arrays.equals(expectedPiccToken, getDynamicAuthenticationData(response, TAG_86))) {
+			throw new GeneralSecurityException("PICC authentication token does not match");
+		}
+
+		idPicc = mappedDomainParameters.comp(ephemeralPublicKeyPicc);
+		secureMessaging = new TerminalSecureMessaging(cryptoSupport, keyMaterialEnc, keyMaterialMac);
+	}
+
+	/**
+	 * Establish the security status of PACE through the PACE bypass, i.e.
+	 * without any cryptographic operations. Subsequent APDUs are sent using
+	 * pseudo secure messaging.
+	 *
+	 * @param passwordReference
+	 *            the password reference, e.g. {@link Pace#PWD_CAN}
+	 * @param password
+	 *            the password
+	 * @throws GeneralSecurityException
+	 *             never, declared for symmetry with
+	 *             {@link #performPace(byte, String)}
+	 */
+	public void performPaceBypass(byte passwordReference, String password) throws GeneralSecurityException {
+		reset();
+		byte[] response = transmitExpectSuccess(buildApdu("FF860000",
+				new PrimitiveTlvDataObject(TAG_83, new byte[] { passwordReference }),
+				new PrimitiveTlvDataObject(TAG_92, password.getBytes()),
+				getTerminalChat().toTlv()));
+		idPicc = new TlvDataObjectContainer(response, 0, response.length - 2).getTlvDataObject(TAG_86).getValueField();
+		pseudoSecureMessaging = true;
+	}
+
+	/**
+	 * Read EF.CardAccess and extract the chip authentication key reference
+	 * and domain parameters needed for terminal authentication.
+	 *
+	 * @throws GeneralSecurityException
+	 *             if the card does not support the implemented chip
+	 *             authentication algorithm
+	 */
+	public void readCardAccess() throws GeneralSecurityException {
+		ConstructedTlvDataObject securityInfos = new ConstructedTlvDataObject(readBinary(SFI_CARD_ACCESS));
+
+		byte[] keyId = null;
+		boolean supported = false;
+		for (TlvDataObject securityInfo : securityInfos.getTlvDataObjectContainer()) {
+			ConstructedTlvDataObject info = (ConstructedTlvDataObject) securityInfo;
+			if (Arrays.equals(info.getTlvDataObject(TAG_06).getValueField(), caOid.toByteArray())) {
+				supported = true;
+				keyId = getKeyId(info, 2);
+				break;
+			}
+		}
+		if (!supported) {
+			throw new GeneralSecurityException("Card does not support " + caOid);
+		}
+
+		for (TlvDataObject securityInfo : securityInfos.getTlvDataObjectContainer()) {
+			ConstructedTlvDataObject info = (ConstructedTlvDataObject) securityInfo;
+			if (Arrays.equals(info.getTlvDataObject(TAG_06).getValueField(), id_CA_ECDH)
+					&& (keyId == null || Arrays.equals(keyId, getKeyId(info, 2)))) {
+				chipAuthenticationKeyId = keyId;
+				chipAuthenticationDomainParameters = getStandardizedDomainParameters(
+						(ConstructedTlvDataObject) info.getTlvDataObject(TAG_SEQUENCE));
+				return;
+			}
+		}
+		throw new GeneralSecurityException("No chip authentication domain parameters found");
+	}
+
+	/**
+	 * Read EF.CardSecurity and extract the chip authentication key referenced
+	 * in EF.CardAccess. Requires a preceding {@link #readCardAccess()} and
+	 * usually terminal authentication.
+	 *
+	 * @throws GeneralSecurityException
+	 *             if the key is not contained
+	 */
+	public void readChipAuthenticationKey() throws GeneralSecurityException {
+		// ContentInfo, SignedData, EncapsulatedContentInfo, eContent
+		ConstructedTlvDataObject signedData = (ConstructedTlvDataObject) ((ConstructedTlvDataObject) new ConstructedTlvDataObject(
+				readBinary(SFI_CARD_SECURITY)).getTlvDataObject(TAG_A0)).getTlvDataObject(TAG_SEQUENCE);
+		ConstructedTlvDataObject encapsulatedContent = (ConstructedTlvDataObject) signedData.getTlvDataObjectContainer()
+				.getTlvObjects().get(2);
+		byte[] content = ((ConstructedTlvDataObject) encapsulatedContent.getTlvDataObject(TAG_A0))
+				.getTlvDataObject(TAG_OCTET_STRING).getValueField();
+
+		for (TlvDataObject securityInfo : new ConstructedTlvDataObject(content).getTlvDataObjectContainer()) {
+			ConstructedTlvDataObject info = (ConstructedTlvDataObject) securityInfo;
+			if (Arrays.equals(info.getTlvDataObject(TAG_06).getValueField(), id_PK_ECDH)
+					&& (chipAuthenticationKeyId == null || Arrays.equals(chipAuthenticationKeyId, getKeyId(info, 2)))) {
+				ConstructedTlvDataObject subjectPublicKeyInfo = (ConstructedTlvDataObject) info.getTlvDataObject(TAG_SEQUENCE);
+				DomainParameterSet domainParameters = getStandardizedDomainParameters(
+						(ConstructedTlvDataObject) subjectPublicKeyInfo.getTlvDataObject(TAG_SEQUENCE));
+				byte[] publicKey = subjectPublicKeyInfo.getTlvDataObject(TAG_BIT_STRING).getValueField();
+				chipAuthenticationKey = (ECPublicKey) domainParameters
+						.reconstructPublicKey(Arrays.copyOfRange(publicKey, 1, publicKey.length));
+				return;
+			}
+		}
+		throw new GeneralSecurityException("No chip authentication public key found");
+	}
+
+	/**
+	 * Perform terminal authentication using the certificate chain of the
+	 * terminal credentials. Requires a preceding PACE and knowledge of the chip
+	 * authentication domain parameters.
+	 *
+	 * @throws GeneralSecurityException
+	 *             if the cryptographic operations fail
+	 */
+	public void performTa() throws GeneralSecurityException {
+		if (idPicc == null) {
+			throw new IllegalStateException("PACE is required before terminal authentication");
+		}
+		if (chipAuthenticationDomainParameters == null) {
+			throw new IllegalStateException("EF.CardAccess must be read before terminal authentication");
+		}
+
+		List<CardVerifiableCertificate> chain = credentials.getCertificateChain();
+		for (int i = 1; i < chain.size(); i++) {
+			verifyCertificate(chain.get(i - 1), chain.get(i));
+		}
+
+		ephemeralKeyPairCa = CryptoUtil.generateKeyPair(chipAuthenticationDomainParameters, secureRandom);
+		byte[] compressedEphemeralPublicKey = chipAuthenticationDomainParameters.comp(ephemeralKeyPairCa.getPublic());
+
+		transmitExpectSuccess(buildApdu("002281A4",
+				new PrimitiveTlvDataObject(TAG_80, taOid.toByteArray()),
+				new PrimitiveTlvDataObject(TAG_83, terminalCertificate.getCertificateHolderReference().getBytes()),
+				new PrimitiveTlvDataObject(TAG_91, compressedEphemeralPublicKey)));
+
+		byte[] challenge = transmitExpectSuccess(HexString.toByteArray("0084000008"));
+		challenge = Arrays.copyOf(challenge, challenge.length - 2);
+
+		byte[] signature = sign(taOid, credentials.getTerminalPrivateKey(),
+				Utils.concatByteArrays(idPicc, challenge, compressedEphemeralPublicKey));
+		transmitExpectSuccess(Utils.concatByteArrays(HexString.toByteArray("00820000"),
+				new byte[] { (byte) signature.length }, signature));
+	}
+
+	/**
+	 * Perform chip authentication and switch secure messaging to the new
+	 * session keys. Requires a preceding terminal authentication and knowledge
+	 * of the chip authentication key.
+	 *
+	 * @throws GeneralSecurityException
+	 *             if the cryptographic operations fail
+	 */
+	public void performCa() throws GeneralSecurityException {
+		if (ephemeralKeyPairCa == null) {
+			throw new IllegalStateException("TA is required before chip authentication");
+		}
+		if (chipAuthenticationKey == null) {
+			throw new IllegalStateException("EF.CardSecurity must be read before chip authentication");
+		}
+
+		TlvDataObject caOidData = new PrimitiveTlvDataObject(TAG_80, caOid.toByteArray());
+		if (chipAuthenticationKeyId == null) {
+			transmitExpectSuccess(buildApdu("002241A4", caOidData));
+		} else {
+			transmitExpectSuccess(buildApdu("002241A4", caOidData,
+					new PrimitiveTlvDataObject(TAG_84, chipAuthenticationKeyId)));
+		}
+
+		DomainParameterSetEcdh caDomainParameters = (DomainParameterSetEcdh) chipAuthenticationDomainParameters;
+		byte[] response = transmitExpectSuccess(buildGeneralAuthenticate("00860000", new PrimitiveTlvDataObject(
+				TAG_80, caDomainParameters.encodePublicKey(ephemeralKeyPairCa.getPublic()))));
+		byte[] nonce = getDynamicAuthenticationData(response, TAG_81);
+
+		KeyAgreement keyAgreement = KeyAgreement.getInstance(caOid.getKeyAgreementName(), Crypto.getCryptoProvider());
+		keyAgreement.init(ephemeralKeyPairCa.getPrivate());
+		keyAgreement.doPhase(chipAuthenticationKey, true);
+		byte[] sharedSecret = keyAgreement.generateSecret();
+
+		CryptoSupport cryptoSupport = caOid.getCryptoSupport();
+		KeyDerivationFunction kdf = new KeyDerivationFunction(caOid.getSymmetricCipherKeyLengthInBytes());
+		byte[] keyMaterialMac = kdf.deriveMAC(sharedSecret, nonce);
+		byte[] keyMaterialEnc = kdf.deriveENC(sharedSecret, nonce);
+
+		byte[] expectedToken = computeToken(cryptoSupport, cryptoSupport.generateSecretKeySpecMac(keyMaterialMac),
+				ephemeralKeyPairCa.getPublic(), caDomainParameters, caOid);
+		if (!Arrays.equals(expectedToken, getDynamicAuthenticationData(response, TAG_82))) {
+			throw new GeneralSecurityException("CA authentication token does not match");
+		}
+
+		secureMessaging = new TerminalSecureMessaging(cryptoSupport, keyMaterialEnc, keyMaterialMac);
+		ephemeralKeyPairCa = null;
+	}
+
+	/**
+	 * Perform restricted identification using the sector key of the terminal
+	 * credentials. Requires a preceding terminal authentication.
+	 *
+	 * @return the sector specific identifier
+	 * @throws GeneralSecurityException
+	 *             if the response can not be verified
+	 */
+	public byte[] performRi() throws GeneralSecurityException {
+		if (credentials.getSectorPublicKeyData() == null) {
+			throw new IllegalStateException("The terminal credentials do not provide a sector key");
+		}
+		transmitExpectSuccess(buildApdu("002241A4",
+				new PrimitiveTlvDataObject(TAG_80, Ri.id_RI_ECDH_SHA_256),
+				new PrimitiveTlvDataObject(TAG_84, new byte[] { 0x01 })));
+
+		byte[] response = transmitExpectSuccess(buildGeneralAuthenticate("00860000", credentials.getSectorPublicKeyData()));
+		return getDynamicAuthenticationData(response, TAG_81);
+	}
+
+	/**
+	 * Select an application by its AID.
+	 *
+	 * @param aid
+	 *            the application identifier
+	 * @throws GeneralSecurityException
+	 *             if the response can not be verified
+	 */
+	public void selectApplication(byte[] aid) throws GeneralSecurityException {
+		transmitExpectSuccess(Utils.concatByteArrays(HexString.toByteArray("00A4040C"), encodeData(aid)));
+	}
+
+	/**
+	 * Read the complete content of an elementary file of the current
+	 * application using READ BINARY with short file identifier and offsets.
+	 *
+	 * @param shortFileIdentifier
+	 *            the short file identifier of the file
+	 * @return the file content
+	 * @throws GeneralSecurityException
+	 *             if the response can not be verified
+	 */
+	public byte[] readBinary(byte shortFileIdentifier) throws GeneralSecurityException {
+		byte[] content = new byte[0];
+		byte[] command = new byte[] { 0x00, (byte) 0xB0, (byte) (0x80 | shortFileIdentifier), 0x00,
+				(byte) READ_BINARY_CHUNK_LENGTH };
+		while (true) {
+			byte[] response = transmit(command);
+			int sw = getStatusWord(response);
+			if (sw == 0x6B00 && content.length > 0) {
+				// file length is a multiple of the chunk length
+				return content;
+			}
+			if (sw != 0x9000 && sw != 0x6282) {
+				throw new IllegalStateException(getErrorMessage(sw, command));
+			}
+			content = Utils.concatByteArrays(content, Arrays.copyOf(response, response.length - 2));
+			if (sw == 0x6282 || response.length - 2 < READ_BINARY_CHUNK_LENGTH) {
+				return content;
+			}
+			command = new byte[] { 0x00, (byte) 0xB0, (byte) (content.length >>> 8), (byte) content.length,
+					(byte) READ_BINARY_CHUNK_LENGTH };
+		}
+	}
+
+	private CertificateHolderAuthorizationTemplate getTerminalChat() {
+		return terminalCertificate.getCertificateHolderAuthorizationTemplate();
+	}
+
+	private static byte[] getKeyId(ConstructedTlvDataObject securityInfo, int defaultPosition) {
+		List<TlvDataObject> elements = securityInfo.getTlvDataObjectContainer().getTlvObjects();
+		TlvDataObject last = elements.get(elements.size() - 1);
+		if (elements.size() > defaultPosition && last.getTlvTag().equals(TAG_INTEGER)) {
+			return last.getValueField();
+		}
+		return null;
+	}
+
+	private static DomainParameterSet getStandardizedDomainParameters(ConstructedTlvDataObject algorithmIdentifier)
+			throws GeneralSecurityException {
+		if (!Arrays.equals(algorithmIdentifier.getTlvDataObject(TAG_06).getValueField(),
+				StandardizedDomainParameters.OID)) {
+			throw new GeneralSecurityException("Only standardized domain parameters are supported");
+		}
+		int id = Utils.getIntFromUnsignedByteArray(algorithmIdentifier.getTlvDataObject(TAG_INTEGER).getValueField());
+		return StandardizedDomainParameters.getDomainParameterSetById(id);
+	}
+
+	private void verifyCertificate(CardVerifiableCertificate issuer, CardVerifiableCertificate certificate)
+			throws GeneralSecurityException {
+		transmitExpectSuccess(buildApdu("002281B6",
+				new PrimitiveTlvDataObject(TAG_83, issuer.getCertificateHolderReference().getBytes())));
+		transmitExpectSuccess(Utils.concatByteArrays(HexString.toByteArray("002A00BE"),
+				encodeData(certificate.getEncoded().getValueField())));
+	}
+
+	private byte[] transmitExpectSuccess(byte[] apdu) throws GeneralSecurityException {
+		byte[] response = transmit(apdu);
+		int sw = getStatusWord(response);
+		if (sw != 0x9000) {
+			throw new IllegalStateException(getErrorMessage(sw, apdu));
+		}
+		return response;
+	}
+
+	private static int getStatusWord(byte[] response) {
+		return ((response[response.length - 2] & 0xFF) << 8) | (response[response.length - 1] & 0xFF);
+	}
+
+	private static String getErrorMessage(int sw, byte[] apdu) {
+		return "Card returned " + HexString.encode(Utils.toUnsignedByteArray((short) sw)) + " for APDU "
+				+ HexString.encode(Arrays.copyOf(apdu, 4));
+	}
+
+	private static byte[] computeToken(CryptoSupport cryptoSupport, SecretKeySpec keyMac, PublicKey publicKey,
+			DomainParameterSet domainParameters, Oid oid) {
+		byte[] tokenInput = Tr03110Utils.buildAuthenticationTokenInput(publicKey, domainParameters, oid)
+				.toByteArray();
+		return Arrays.copyOf(cryptoSupport.macAuthenticationToken(tokenInput, keyMac), TOKEN_LENGTH);
+	}
+
+	/**
+	 * Sign the given data and convert the signature to the plain format used
+	 * by TA.
+	 */
+	static byte[] sign(TaOid taOid, PrivateKey privateKey, byte[] data) throws GeneralSecurityException {
+		Signature signature = taOid.getSignature();
+		signature.initSign(privateKey);
+		signature.update(data);
+		ConstructedTlvDataObject asn1Signature = new ConstructedTlvDataObject(signature.sign());
+
+		int length = (((ECPrivateKey) privateKey).getParams().getOrder().bitLength() + 7) / 8;
+		byte[] plainSignature = new byte[0];
+		for (TlvDataObject integer : asn1Signature.getTlvDataObjectContainer()) {
+			byte[] value = Utils.toUnsignedByteArray(new BigInteger(integer.getValueField()));
+			plainSignature = Utils.concatByteArrays(plainSignature, Utils.padWithLeadingZeroes(value, length));
+		}
+		return plainSignature;
+	}
+
+	private static byte[] buildApdu(String header, TlvDataObject... dataObjects) {
+		return Utils.concatByteArrays(HexString.toByteArray(header),
+				encodeData(new TlvDataObjectContainer(dataObjects).toByteArray()));
+	}
+
+	private static byte[] buildGeneralAuthenticate(String header, TlvDataObject dataObject) {
+		ConstructedTlvDataObject dynamicAuthenticationData = new ConstructedTlvDataObject(TAG_7C);
+		if (dataObject != null) {
+			dynamicAuthenticationData.addTlvDataObject(dataObject);
+		}
+		return Utils.concatByteArrays(buildApdu(header, dynamicAuthenticationData), new byte[] { 0 });
+	}
+
+	private static byte[] encodeData(byte[] data) {
+		if (data.length <= 0xFF) {
+			return Utils.concatByteArrays(new byte[] { (byte) data.length }, data);
+		}
+		return Utils.concatByteArrays(new byte[] { 0 }, Utils.toUnsignedByteArray((short) data.length), data);
+	}
+
+	private static byte[] getDynamicAuthenticationData(byte[] response, TlvTag tag) {
+		ConstructedTlvDataObject dynamicAuthenticationData = new ConstructedTlvDataObject(
+				Arrays.copyOf(response, response.length - 2));
+		return dynamicAuthenticationData.getTlvDataObject(tag).getValueField();
+	}
+
+}
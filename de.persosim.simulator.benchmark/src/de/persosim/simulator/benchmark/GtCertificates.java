@@ -0,0 +1,108 @@
+package de.persosim.simulator.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.globaltester.cryptoprovider.Crypto;
+
+import de.persosim.simulator.crypto.certificates.CardVerifiableCertificate;
+import de.persosim.simulator.exception.CertificateNotParseableException;
+import de.persosim.simulator.protocols.ta.TerminalType;
+import de.persosim.simulator.tlv.ConstructedTlvDataObject;
+
+/**
+ * Terminal credentials bundled with the simulator in
+ * personalization/gtCertificates, i.e. the default EAC configurations
+ * CFG.DFLT.EAC.AT, CFG.DFLT.EAC.IS and CFG.DFLT.EAC.ST of GlobalTester.
+ * <p/>
+ * The CVCAs are trust points of DefaultPersoGt. The sector public key
+ * referenced by the AT certificate is not bundled, so these credentials can
+ * not be used for restricted identification. The bundled CVCA private key can
+ * be used to issue additional certificates instead, see
+ * {@link BenchmarkPki#issuedBy(CardVerifiableCertificate, PrivateKey)}.
+ */
+public final class GtCertificates implements TerminalCredentials {
+
+	private final List<CardVerifiableCertificate> certificateChain;
+	private final PrivateKey terminalPrivateKey;
+	private final PrivateKey cvcaPrivateKey;
+
+	private GtCertificates(List<CardVerifiableCertificate> certificateChain, PrivateKey terminalPrivateKey,
+			PrivateKey cvcaPrivateKey) {
+		this.certificateChain = Collections.unmodifiableList(certificateChain);
+		this.terminalPrivateKey = terminalPrivateKey;
+		this.cvcaPrivateKey = cvcaPrivateKey;
+	}
+
+	/**
+	 * Load the default configuration for the given terminal type from the
+	 * folder returned by {@link Benchmarks#getCertificateFolder(String)}.
+	 *
+	 * @param terminalType
+	 *            the type of the terminal
+	 * @return the loaded credentials
+	 * @throws IOException
+	 *             if the files can not be read
+	 * @throws GeneralSecurityException
+	 *             if the certificates or the key can not be parsed
+	 */
+	public static GtCertificates load(TerminalType terminalType) throws IOException, GeneralSecurityException {
+		String type = terminalType.name();
+		File folder = Benchmarks.getCertificateFolder("CFG.DFLT.EAC." + type);
+
+		CardVerifiableCertificate cvca = readCertificate(new File(folder, "CVCA_Cert_01.cvcert"));
+		CardVerifiableCertificate dv = readCertificate(new File(folder, "dv_" + type.toLowerCase() + "_cert_1.cvcert"));
+		CardVerifiableCertificate terminal = readCertificate(new File(folder, type.toLowerCase() + "_cert_1.cvcert"));
+
+		PrivateKey terminalPrivateKey = readPrivateKey(new File(folder, type + "_Key_01_default.pkcs8"));
+		PrivateKey cvcaPrivateKey = readPrivateKey(new File(folder, "CVCA_KEY_01.pkcs8"));
+
+		return new GtCertificates(Arrays.asList(cvca, dv, terminal), terminalPrivateKey, cvcaPrivateKey);
+	}
+
+	private static PrivateKey readPrivateKey(File file) throws IOException, GeneralSecurityException {
+		byte[] keyEncoding = Files.readAllBytes(file.toPath());
+		return KeyFactory.getInstance("EC", Crypto.getCryptoProvider())
+				.generatePrivate(new PKCS8EncodedKeySpec(keyEncoding));
+	}
+
+	private static CardVerifiableCertificate readCertificate(File file) throws IOException, GeneralSecurityException {
+		try {
+			return new CardVerifiableCertificate(new ConstructedTlvDataObject(Files.readAllBytes(file.toPath())));
+		} catch (CertificateNotParseableException e) {
+			throw new GeneralSecurityException("Unable to parse certificate " + file, e);
+		}
+	}
+
+	@Override
+	public List<CardVerifiableCertificate> getCertificateChain() {
+		return certificateChain;
+	}
+
+	@Override
+	public PrivateKey getTerminalPrivateKey() {
+		return terminalPrivateKey;
+	}
+
+	/**
+	 * @return the private key of the CVCA, i.e. the first certificate of the
+	 *         chain
+	 */
+	public PrivateKey getCvcaPrivateKey() {
+		return cvcaPrivateKey;
+	}
+
+	@Override
+	public ConstructedTlvDataObject getSectorPublicKeyData() {
+		return null;
+	}
+
+}
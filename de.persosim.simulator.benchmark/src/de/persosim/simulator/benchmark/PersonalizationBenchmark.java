@@ -0,0 +1,50 @@
+package de.persosim.simulator.benchmark;
+
+import java.io.FileNotFoundException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.persosim.simulator.perso.PersonalizationFactory;
+
+/**
+ * Unmarshalling of the shipped profiles, which dominates the time needed to
+ * load a card.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PersonalizationBenchmark {
+
+	@Param({ "DefaultPersoGt.perso", "Profile01.perso", "Profile02.perso", "Profile03.perso", "Profile04.perso",
+			"Profile05.perso", "Profile06.perso", "Profile07.perso", "Profile08.perso", "Profile09.perso",
+			"Profile10.perso", "TR-03124/Profile01Tr03124.perso" })
+	public String profile;
+
+	private String path;
+
+	@Setup
+	public void setUp() {
+		Benchmarks.initCryptoProvider();
+		path = Benchmarks.getProfile(profile).getPath();
+	}
+
+	@Benchmark
+	public Object unmarshal() throws FileNotFoundException {
+		return PersonalizationFactory.unmarshal(path);
+	}
+
+}
@@ -0,0 +1,56 @@
+package de.persosim.simulator.benchmark;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.security.spec.ECPoint;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.persosim.simulator.crypto.CryptoUtil;
+import de.persosim.simulator.crypto.DomainParameterSetEcdh;
+import de.persosim.simulator.crypto.StandardizedDomainParameters;
+
+/**
+ * Scalar point multiplication as used by the generic mapping of PACE, for all
+ * standardized elliptic curve domain parameters.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ScalarMultiplicationBenchmark {
+
+	@Param({ "8", "9", "10", "11", "12", "13", "14", "15", "16", "17", "18" })
+	public int domainParameterId;
+
+	private DomainParameterSetEcdh domainParameters;
+	private BigInteger scalar;
+
+	@Setup
+	public void setUp() {
+		domainParameters = (DomainParameterSetEcdh) StandardizedDomainParameters
+				.getDomainParameterSetById(domainParameterId);
+		BigInteger order = domainParameters.getOrder();
+		scalar = new BigInteger(order.bitLength(), new SecureRandom()).mod(order);
+	}
+
+	@Benchmark
+	public ECPoint multiplyGenerator() {
+		return CryptoUtil.scalarPointMultiplication(domainParameters.getCurve(), domainParameters.getOrder(),
+				domainParameters.getGenerator(), scalar);
+	}
+
+}
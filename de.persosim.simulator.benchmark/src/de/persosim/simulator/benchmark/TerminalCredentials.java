@@ -0,0 +1,32 @@
+package de.persosim.simulator.benchmark;
+
+import java.security.PrivateKey;
+import java.util.List;
+
+import de.persosim.simulator.crypto.certificates.CardVerifiableCertificate;
+import de.persosim.simulator.tlv.ConstructedTlvDataObject;
+
+/**
+ * Certificates and keys an {@link EacTerminal} uses for terminal
+ * authentication and restricted identification.
+ */
+public interface TerminalCredentials {
+
+	/**
+	 * @return the certificate chain starting with the CVCA certificate trusted
+	 *         by the card and ending with the terminal certificate
+	 */
+	List<CardVerifiableCertificate> getCertificateChain();
+
+	/**
+	 * @return the private key matching the terminal certificate
+	 */
+	PrivateKey getTerminalPrivateKey();
+
+	/**
+	 * @return the first sector public key as sent during RI (tag A0) or null
+	 *         if the terminal is not able to perform RI
+	 */
+	ConstructedTlvDataObject getSectorPublicKeyData();
+
+}
@@ -0,0 +1,160 @@
+package de.persosim.simulator.benchmark;
+
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import de.persosim.simulator.crypto.CryptoSupport;
+import de.persosim.simulator.crypto.CryptoUtil;
+import de.persosim.simulator.tlv.PrimitiveTlvDataObject;
+import de.persosim.simulator.tlv.TlvConstants;
+import de.persosim.simulator.tlv.TlvDataObject;
+import de.persosim.simulator.tlv.TlvDataObjectContainer;
+import de.persosim.simulator.utils.HexString;
+import de.persosim.simulator.utils.Utils;
+
+/**
+ * Terminal side of secure messaging according to TR-03110 with AES session
+ * keys, i.e. the counterpart of the simulator's SecureMessaging.
+ * <p/>
+ * Commands are protected using DO'87', DO'97' and DO'8E' (short or extended
+ * length as needed), responses are verified and decrypted. The send sequence
+ * counter starts at zero and is incremented for every command and response.
+ */
+class TerminalSecureMessaging implements TlvConstants {
+
+	private static final int MAC_LENGTH = 8;
+
+	private final CryptoSupport cryptoSupport;
+	private final SecretKeySpec keyEnc;
+	private final SecretKeySpec keyMac;
+	private final byte[] ssc;
+
+	TerminalSecureMessaging(CryptoSupport cryptoSupport, byte[] keyMaterialEnc, byte[] keyMaterialMac) {
+		this.cryptoSupport = cryptoSupport;
+		keyEnc = cryptoSupport.generateSecretKeySpecCipher(keyMaterialEnc);
+		keyMac = cryptoSupport.generateSecretKeySpecMac(keyMaterialMac);
+		ssc = new byte[cryptoSupport.getBlockSize()];
+	}
+
+	/**
+	 * Protect a plain command APDU.
+	 *
+	 * @param apdu
+	 *            plain command APDU in short or extended length encoding
+	 * @return the protected command APDU
+	 */
+	byte[] wrap(byte[] apdu) {
+		incrementSsc();
+
+		byte[] header = Arrays.copyOf(apdu, 4);
+		header[0] |= 0x0C;
+
+		byte[] data = null;
+		byte[] le = null;
+		if (apdu.length == 5) {
+			le = new byte[] { apdu[4] };
+		} else if (apdu.length > 5 && apdu[4] == 0) {
+			if (apdu.length == 7) {
+				le = Arrays.copyOfRange(apdu, 5, 7);
+			} else {
+				int lc = ((apdu[5] & 0xFF) << 8) | (apdu[6] & 0xFF);
+				data = Arrays.copyOfRange(apdu, 7, 7 + lc);
+				if (apdu.length > 7 + lc) {
+					le = Arrays.copyOfRange(apdu, 7 + lc, apdu.length);
+				}
+			}
+		} else if (apdu.length > 5) {
+			int lc = apdu[4] & 0xFF;
+			data = Arrays.copyOfRange(apdu, 5, 5 + lc);
+			if (apdu.length > 5 + lc) {
+				le = new byte[] { apdu[5 + lc] };
+			}
+		}
+
+		TlvDataObjectContainer body = new TlvDataObjectContainer();
+		if (data != null && data.length > 0) {
+			byte[] cryptogram = cryptoSupport.encrypt(CryptoUtil.padData(data, ssc.length), keyEnc, getIv());
+			body.addTlvDataObject(new PrimitiveTlvDataObject(TAG_87, Utils.concatByteArrays(new byte[] { 0x01 }, cryptogram)));
+		}
+		if (le != null) {
+			body.addTlvDataObject(new PrimitiveTlvDataObject(TAG_97, le));
+		}
+
+		byte[] macInput = CryptoUtil.padData(header, ssc.length);
+		if (body.getNoOfElements() > 0) {
+			macInput = CryptoUtil.padData(Utils.concatByteArrays(macInput, body.toByteArray()), ssc.length);
+		}
+		body.addTlvDataObject(new PrimitiveTlvDataObject(TAG_8E, mac(macInput)));
+
+		byte[] bodyData = body.toByteArray();
+		if (bodyData.length <= 0xFF) {
+			return Utils.concatByteArrays(header, new byte[] { (byte) bodyData.length }, bodyData, new byte[] { 0 });
+		}
+		return Utils.concatByteArrays(header, new byte[] { 0 }, Utils.toUnsignedByteArray((short) bodyData.length),
+				bodyData, new byte[] { 0, 0 });
+	}
+
+	/**
+	 * Verify and decrypt a protected response APDU. Plain responses (e.g.
+	 * reporting secure messaging errors) are returned unchanged.
+	 *
+	 * @param response
+	 *            the response APDU as received from the card
+	 * @return the plain response data followed by the status word
+	 * @throws GeneralSecurityException
+	 *             if the MAC of the response does not match
+	 */
+	byte[] unwrap(byte[] response) throws GeneralSecurityException {
+		incrementSsc();
+		if (response.length <= 2) {
+			return response;
+		}
+
+		TlvDataObjectContainer body = new TlvDataObjectContainer(response, 0, response.length - 2);
+		TlvDataObject cryptogram = body.getTlvDataObject(TAG_87);
+		TlvDataObject statusWord = body.getTlvDataObject(TAG_99);
+		TlvDataObject receivedMac = body.getTlvDataObject(TAG_8E);
+
+		TlvDataObjectContainer macInput = new TlvDataObjectContainer();
+		if (cryptogram != null) {
+			macInput.addTlvDataObject(cryptogram);
+		}
+		macInput.addTlvDataObject(statusWord);
+		byte[] expectedMac = mac(CryptoUtil.padData(macInput.toByteArray(), ssc.length));
+		if (receivedMac == null || !Arrays.equals(expectedMac, receivedMac.getValueField())) {
+			throw new GeneralSecurityException("MAC of response does not match, SSC " + HexString.encode(ssc));
+		}
+
+		byte[] data = new byte[0];
+		if (cryptogram != null) {
+			byte[] encrypted = cryptogram.getValueField();
+			byte[] padded = cryptoSupport.decrypt(Arrays.copyOfRange(encrypted, 1, encrypted.length), keyEnc, getIv());
+			int end = padded.length - 1;
+			while (padded[end] == 0) {
+				end--;
+			}
+			data = Arrays.copyOf(padded, end);
+		}
+		return Utils.concatByteArrays(data, statusWord.getValueField());
+	}
+
+	private IvParameterSpec getIv() {
+		return new IvParameterSpec(cryptoSupport.encryptWithIvZero(ssc, keyEnc));
+	}
+
+	private byte[] mac(byte[] paddedInput) {
+		return Arrays.copyOf(cryptoSupport.macPlain(Utils.concatByteArrays(ssc, paddedInput), keyMac), MAC_LENGTH);
+	}
+
+	private void incrementSsc() {
+		for (int i = ssc.length - 1; i >= 0; i--) {
+			if (++ssc[i] != 0) {
+				return;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,70 @@
+package de.persosim.simulator.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.persosim.simulator.tlv.ConstructedTlvDataObject;
+import de.persosim.simulator.tlv.PrimitiveTlvDataObject;
+import de.persosim.simulator.tlv.TlvConstants;
+import de.persosim.simulator.tlv.TlvDataObjectContainer;
+
+/**
+ * Parsing and encoding of TLV structures, using a CV certificate as a
+ * typical nested structure.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TlvBenchmark implements TlvConstants {
+
+	private byte[] certificateEncoding;
+	private ConstructedTlvDataObject certificate;
+	private byte[] token;
+	private byte[] car;
+
+	@Setup
+	public void setUp() {
+		Benchmarks.initCryptoProvider();
+		certificate = BenchmarkPki.getInstance().getCvcaCertificate().getEncoded();
+		certificateEncoding = certificate.toByteArray();
+		token = new byte[8];
+		car = BenchmarkPki.getInstance().getCvcaCertificate().getCertificateHolderReference().getBytes();
+	}
+
+	@Benchmark
+	public ConstructedTlvDataObject parseConstructed() {
+		return new ConstructedTlvDataObject(certificateEncoding);
+	}
+
+	@Benchmark
+	public TlvDataObjectContainer parseContainer() {
+		return new TlvDataObjectContainer(certificateEncoding);
+	}
+
+	@Benchmark
+	public byte[] encode() {
+		return certificate.toByteArray();
+	}
+
+	@Benchmark
+	public byte[] buildAndEncode() {
+		ConstructedTlvDataObject dynamicAuthenticationData = new ConstructedTlvDataObject(TAG_7C,
+				new PrimitiveTlvDataObject(TAG_86, token),
+				new PrimitiveTlvDataObject(TAG_87, car));
+		return new TlvDataObjectContainer(dynamicAuthenticationData).toByteArray();
+	}
+
+}
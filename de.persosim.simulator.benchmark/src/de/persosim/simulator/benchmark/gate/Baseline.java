@@ -0,0 +1,322 @@
+package de.persosim.simulator.benchmark.gate;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Scores of the benchmarks checked by the {@link RegressionGate} together with
+ * the JVM they were measured on, stored as JSON:
+ * 
+ * <pre>
+ * {
+ *   "jvm": "Oracle Corporation Java HotSpot(TM) 64-Bit Server VM 1.8.0_392",
+ *   "benchmarks": {
+ *     "EacBenchmark.pace": { "throughput": 41.7, "throughputError": 0.8, "allocation": 1893456.0 },
+ *     ...
+ *   }
+ * }
+ * </pre>
+ * 
+ * Throughput is given in operations per second, allocation in bytes per
+ * operation. A missing allocation means it was not measured.
+ */
+public class Baseline {
+
+	/**
+	 * Scores of a single benchmark.
+	 */
+	public static class Score {
+
+		private final double throughput;
+		private final double throughputError;
+		private final double allocation;
+
+		/**
+		 * @param throughput
+		 *            operations per second
+		 * @param throughputError
+		 *            error of the throughput, i.e. half the width of the
+		 *            confidence interval
+		 * @param allocation
+		 *            bytes allocated per operation or {@link Double#NaN} if
+		 *            not measured
+		 */
+		public Score(double throughput, double throughputError, double allocation) {
+			this.throughput = throughput;
+			this.throughputError = throughputError;
+			this.allocation = allocation;
+		}
+
+		public double getThroughput() {
+			return throughput;
+		}
+
+		public double getThroughputError() {
+			return throughputError;
+		}
+
+		public double getAllocation() {
+			return allocation;
+		}
+
+	}
+
+	private final String jvm;
+	private final Map<String, Score> scores = new TreeMap<>();
+
+	/**
+	 * @param jvm
+	 *            description of the JVM the scores are measured on, see
+	 *            {@link #getCurrentJvm()}
+	 */
+	public Baseline(String jvm) {
+		this.jvm = jvm;
+	}
+
+	/**
+	 * @return vendor, name and version of the running JVM
+	 */
+	public static String getCurrentJvm() {
+		return System.getProperty("java.vm.vendor") + " " + System.getProperty("java.vm.name") + " "
+				+ System.getProperty("java.version");
+	}
+
+	public String getJvm() {
+		return jvm;
+	}
+
+	public void put(String benchmark, Score score) {
+		scores.put(benchmark, score);
+	}
+
+	/**
+	 * @return the scores by benchmark name, sorted by name
+	 */
+	public Map<String, Score> getScores() {
+		return Collections.unmodifiableMap(scores);
+	}
+
+	/**
+	 * Write this baseline as JSON.
+	 * 
+	 * @param file
+	 *            the file to write, parent directories are created
+	 * @throws IOException
+	 *             if writing fails
+	 */
+	public void save(File file) throws IOException {
+		File parent = file.getAbsoluteFile().getParentFile();
+		if (parent != null) {
+			parent.mkdirs();
+		}
+		try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+			writer.write("{\n  \"jvm\": " + quote(jvm) + ",\n  \"benchmarks\": {");
+			Iterator<Map.Entry<String, Score>> iterator = scores.entrySet().iterator();
+			while (iterator.hasNext()) {
+				Map.Entry<String, Score> entry = iterator.next();
+				Score score = entry.getValue();
+				writer.write("\n    " + quote(entry.getKey()) + ": { \"throughput\": " + format(score.throughput)
+						+ ", \"throughputError\": " + format(score.throughputError));
+				if (!Double.isNaN(score.allocation)) {
+					writer.write(", \"allocation\": " + format(score.allocation));
+				}
+				writer.write(iterator.hasNext() ? " }," : " }");
+			}
+			writer.write("\n  }\n}\n");
+		}
+	}
+
+	/**
+	 * Read a baseline written by {@link #save(File)}.
+	 * 
+	 * @param file
+	 *            the file to read
+	 * @return the baseline
+	 * @throws IOException
+	 *             if reading fails or the file is malformed
+	 */
+	public static Baseline load(File file) throws IOException {
+		String json = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+		try {
+			Map<?, ?> root = (Map<?, ?>) new JsonParser(json).parse();
+			Baseline baseline = new Baseline((String) root.get("jvm"));
+			Map<?, ?> benchmarks = (Map<?, ?>) root.get("benchmarks");
+			if (benchmarks != null) {
+				for (Map.Entry<?, ?> entry : benchmarks.entrySet()) {
+					Map<?, ?> score = (Map<?, ?>) entry.getValue();
+					Number allocation = (Number) score.get("allocation");
+					baseline.put((String) entry.getKey(),
+							new Score(((Number) score.get("throughput")).doubleValue(),
+									((Number) score.get("throughputError")).doubleValue(),
+									allocation != null ? allocation.doubleValue() : Double.NaN));
+				}
+			}
+			return baseline;
+		} catch (ClassCastException | NullPointerException | IllegalArgumentException e) {
+			throw new IOException("Malformed baseline " + file + ": " + e.getMessage(), e);
+		}
+	}
+
+	private static String format(double value) {
+		return String.format(Locale.ROOT, "%.3f", value);
+	}
+
+	private static String quote(String value) {
+		StringBuilder result = new StringBuilder("\"");
+		for (char c : value.toCharArray()) {
+			if (c == '"' || c == '\\') {
+				result.append('\\');
+				result.append(c);
+			} else if (c < 0x20) {
+				result.append(String.format("\\u%04x", (int) c));
+			} else {
+				result.append(c);
+			}
+		}
+		return result.append('"').toString();
+	}
+
+	/**
+	 * Parser for the subset of JSON used by baselines: objects, strings and
+	 * numbers.
+	 */
+	private static class JsonParser {
+
+		private final String json;
+		private int position;
+
+		JsonParser(String json) {
+			this.json = json;
+		}
+
+		Object parse() {
+			Object value = parseValue();
+			skipWhitespace();
+			if (position != json.length()) {
+				throw error("unexpected content");
+			}
+			return value;
+		}
+
+		private Object parseValue() {
+			skipWhitespace();
+			if (position >= json.length()) {
+				throw error("unexpected end");
+			}
+			char c = json.charAt(position);
+			if (c == '{') {
+				return parseObject();
+			}
+			if (c == '"') {
+				return parseString();
+			}
+			return parseNumber();
+		}
+
+		private Map<String, Object> parseObject() {
+			Map<String, Object> result = new LinkedHashMap<>();
+			position++;
+			skipWhitespace();
+			if (peek() == '}') {
+				position++;
+				return result;
+			}
+			while (true) {
+				skipWhitespace();
+				String key = parseString();
+				skipWhitespace();
+				expect(':');
+				result.put(key, parseValue());
+				skipWhitespace();
+				if (peek() == ',') {
+					position++;
+				} else {
+					expect('}');
+					return result;
+				}
+			}
+		}
+
+		private String parseString() {
+			expect('"');
+			StringBuilder result = new StringBuilder();
+			while (true) {
+				char c = next();
+				if (c == '"') {
+					return result.toString();
+				}
+				if (c == '\\') {
+					c = next();
+					switch (c) {
+					case 'u':
+						if (position + 4 > json.length()) {
+							throw error("unexpected end");
+						}
+						result.append((char) Integer.parseInt(json.substring(position, position + 4), 16));
+						position += 4;
+						break;
+					case 'n':
+						result.append('\n');
+						break;
+					case 't':
+						result.append('\t');
+						break;
+					default:
+						result.append(c);
+					}
+				} else {
+					result.append(c);
+				}
+			}
+		}
+
+		private Double parseNumber() {
+			int start = position;
+			while (position < json.length() && "+-.0123456789eE".indexOf(json.charAt(position)) >= 0) {
+				position++;
+			}
+			if (start == position) {
+				throw error("unexpected character");
+			}
+			return Double.valueOf(json.substring(start, position));
+		}
+
+		private void skipWhitespace() {
+			while (position < json.length() && Character.isWhitespace(json.charAt(position))) {
+				position++;
+			}
+		}
+
+		private char peek() {
+			return position < json.length() ? json.charAt(position) : 0;
+		}
+
+		private char next() {
+			if (position >= json.length()) {
+				throw error("unexpected end");
+			}
+			return json.charAt(position++);
+		}
+
+		private void expect(char expected) {
+			if (next() != expected) {
+				throw error("expected '" + expected + "'");
+			}
+		}
+
+		private IllegalArgumentException error(String message) {
+			return new IllegalArgumentException(message + " at position " + position);
+		}
+
+	}
+
+}
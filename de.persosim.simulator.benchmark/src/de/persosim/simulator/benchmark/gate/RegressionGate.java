@@ -0,0 +1,279 @@
+package de.persosim.simulator.benchmark.gate;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import de.persosim.simulator.benchmark.ApduProcessingBenchmark;
+import de.persosim.simulator.benchmark.BenchmarkRunner;
+import de.persosim.simulator.benchmark.EacBenchmark;
+import de.persosim.simulator.benchmark.PersonalizationBenchmark;
+import de.persosim.simulator.benchmark.TlvBenchmark;
+
+/**
+ * Performance regression gate running a fixed subset of the benchmarks and
+ * comparing the results with a baseline stored in this bundle.
+ * <p/>
+ * The benchmarks cover PACE, TA with certificate chain, READ BINARY with
+ * secure messaging, loading a profile and parsing TLV structures. They are run
+ * in throughput mode with allocation profiling and a fixed fork, iteration and
+ * heap configuration. The gate fails if the throughput of a benchmark drops or
+ * its allocation per operation grows beyond the configured thresholds. Scores
+ * depend on the machine and JVM, so the baseline is recorded on the build
+ * machine with -update and comparisons with baselines of another JVM fail.
+ * <p/>
+ * Run as plain Java application with the bundle project as working directory
+ * (see launch/RegressionGate.launch). The exit code is 1 on regressions and 2
+ * if the gate could not be evaluated.
+ * <p/>
+ * Bootstrap: as long as no baseline has been recorded the gate exits with 2.
+ * Record the baseline once on the machine running the gate with
+ * launch/RegressionGateRecordBaseline.launch (i.e. -update) and commit the
+ * resulting {@value #DEFAULT_BASELINE}. Repeat this after intended performance
+ * changes or when the JVM of that machine changes.
+ */
+public class RegressionGate {
+
+	public static final String DEFAULT_BASELINE = "baselines/regression-gate.json";
+	public static final double DEFAULT_THROUGHPUT_THRESHOLD = 10;
+	public static final double DEFAULT_ALLOCATION_THRESHOLD = 5;
+
+	/**
+	 * Benchmarks checked by the gate
+	 */
+	public static final List<String> BENCHMARKS = Arrays.asList(
+			EacBenchmark.class.getName() + ".pace",
+			EacBenchmark.class.getName() + ".terminalAuthentication",
+			ApduProcessingBenchmark.class.getName() + ".readBinarySecureMessaging",
+			PersonalizationBenchmark.class.getName() + ".unmarshal",
+			TlvBenchmark.class.getName() + ".parseConstructed");
+
+	static final String PROFILE = "Profile01.perso";
+	static final int FORKS = 2;
+	static final int ITERATIONS = 5;
+	static final int ITERATION_SECONDS = 2;
+	static final String[] JVM_ARGS = { "-Xms1g", "-Xmx1g", "-XX:+UseParallelGC" };
+
+	/**
+	 * Allocation differences below this number of bytes per operation are
+	 * never reported, they are caused by JIT and profiling noise
+	 */
+	static final double ALLOCATION_TOLERANCE = 64;
+
+	private static final String ALLOCATION_RESULT = "\u00b7gc.alloc.rate.norm";
+	private static final String PACKAGE_PREFIX = EacBenchmark.class.getPackage().getName() + ".";
+
+	private static final List<String> OPTIONS = Arrays.asList("baseline", "update", "throughput", "allocation");
+	private static final String USAGE = "Arguments:\n"
+			+ "  -baseline <file>            baseline to compare with or update, default " + DEFAULT_BASELINE + "\n"
+			+ "  -update                     store the results as new baseline instead of comparing\n"
+			+ "  -throughput <percent>       tolerated throughput decrease, default " + DEFAULT_THROUGHPUT_THRESHOLD + "\n"
+			+ "  -allocation <percent>       tolerated allocation increase, default " + DEFAULT_ALLOCATION_THRESHOLD;
+
+	private final double throughputThreshold;
+	private final double allocationThreshold;
+
+	/**
+	 * @param throughputThreshold
+	 *            tolerated decrease of the throughput in percent
+	 * @param allocationThreshold
+	 *            tolerated increase of the allocation per operation in percent
+	 */
+	public RegressionGate(double throughputThreshold, double allocationThreshold) {
+		if (throughputThreshold < 0 || allocationThreshold < 0) {
+			throw new IllegalArgumentException("thresholds must not be negative");
+		}
+		this.throughputThreshold = throughputThreshold;
+		this.allocationThreshold = allocationThreshold;
+	}
+
+	/**
+	 * Run the benchmarks of the gate.
+	 * 
+	 * @return the scores of the running JVM
+	 * @throws RunnerException
+	 *             if a benchmark fails
+	 */
+	public static Baseline run() throws RunnerException {
+		ChainedOptionsBuilder options = new OptionsBuilder()
+				.mode(Mode.Throughput)
+				.timeUnit(TimeUnit.SECONDS)
+				.forks(FORKS)
+				.threads(1)
+				.warmupIterations(ITERATIONS)
+				.warmupTime(TimeValue.seconds(ITERATION_SECONDS))
+				.measurementIterations(ITERATIONS)
+				.measurementTime(TimeValue.seconds(ITERATION_SECONDS))
+				.jvmArgs(JVM_ARGS)
+				.param("profile", PROFILE)
+				.addProfiler(GCProfiler.class)
+				.shouldFailOnError(true);
+		for (String benchmark : BENCHMARKS) {
+			options.include(Pattern.quote(benchmark) + "$");
+		}
+		new File(BenchmarkRunner.DEFAULT_RESULT_FILE).getParentFile().mkdirs();
+		options.resultFormat(ResultFormatType.JSON).result("target/regression-gate-result.json");
+
+		Collection<RunResult> results = new Runner(options.build()).run();
+		Baseline current = new Baseline(Baseline.getCurrentJvm());
+		for (RunResult result : results) {
+			Result<?> allocation = result.getSecondaryResults().get(ALLOCATION_RESULT);
+			current.put(getName(result.getParams()),
+					new Baseline.Score(result.getPrimaryResult().getScore(), result.getPrimaryResult().getScoreError(),
+							allocation != null ? allocation.getScore() : Double.NaN));
+		}
+		return current;
+	}
+
+	private static String getName(BenchmarkParams params) {
+		String name = params.getBenchmark();
+		if (name.startsWith(PACKAGE_PREFIX)) {
+			name = name.substring(PACKAGE_PREFIX.length());
+		}
+		return name;
+	}
+
+	/**
+	 * Compare the current scores with the baseline.
+	 * 
+	 * @param baseline
+	 *            the expected scores
+	 * @param current
+	 *            the measured scores
+	 * @param out
+	 *            the stream to print the comparison to
+	 * @return the regressions, empty if the gate passed
+	 */
+	public List<String> compare(Baseline baseline, Baseline current, PrintStream out) {
+		List<String> regressions = new ArrayList<>();
+		if (!baseline.getJvm().equals(current.getJvm())) {
+			regressions.add("baseline was recorded on " + baseline.getJvm() + ", not on " + current.getJvm());
+		}
+
+		out.printf("%-50s %14s %14s %8s %14s %14s %8s%n", "Benchmark", "base ops/s", "ops/s", "change",
+				"base B/op", "B/op", "change");
+		for (Map.Entry<String, Baseline.Score> entry : baseline.getScores().entrySet()) {
+			String name = entry.getKey();
+			Baseline.Score expected = entry.getValue();
+			Baseline.Score actual = current.getScores().get(name);
+			if (actual == null) {
+				regressions.add(name + " was not run");
+				continue;
+			}
+			out.printf("%-50s %14.3f %14.3f %7.1f%% %14.1f %14.1f %7.1f%%%n", name, expected.getThroughput(),
+					actual.getThroughput(), change(expected.getThroughput(), actual.getThroughput()),
+					expected.getAllocation(), actual.getAllocation(),
+					change(expected.getAllocation(), actual.getAllocation()));
+
+			if (actual.getThroughput() < expected.getThroughput() * (1 - throughputThreshold / 100)) {
+				regressions.add(String.format("%s throughput decreased by %.1f%% (%.3f -> %.3f ops/s)", name,
+						-change(expected.getThroughput(), actual.getThroughput()), expected.getThroughput(),
+						actual.getThroughput()));
+			}
+			if (!Double.isNaN(expected.getAllocation()) && !Double.isNaN(actual.getAllocation())
+					&& actual.getAllocation() > expected.getAllocation() * (1 + allocationThreshold / 100)
+					&& actual.getAllocation() - expected.getAllocation() > ALLOCATION_TOLERANCE) {
+				regressions.add(String.format("%s allocation increased by %.1f%% (%.1f -> %.1f B/op)", name,
+						change(expected.getAllocation(), actual.getAllocation()), expected.getAllocation(),
+						actual.getAllocation()));
+			}
+		}
+		for (String name : current.getScores().keySet()) {
+			if (!baseline.getScores().containsKey(name)) {
+				out.println(name + " has no baseline, run with -update to add it");
+			}
+		}
+		return regressions;
+	}
+
+	private static double change(double expected, double actual) {
+		return expected == 0 ? 0 : (actual - expected) * 100 / expected;
+	}
+
+	public static void main(String[] args) throws RunnerException, IOException {
+		Map<String, String> options;
+		RegressionGate gate;
+		try {
+			options = parseOptions(args);
+			gate = new RegressionGate(
+					Double.parseDouble(options.getOrDefault("throughput", Double.toString(DEFAULT_THROUGHPUT_THRESHOLD))),
+					Double.parseDouble(options.getOrDefault("allocation", Double.toString(DEFAULT_ALLOCATION_THRESHOLD))));
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.err.println(USAGE);
+			System.exit(2);
+			return;
+		}
+
+		File baselineFile = new File(options.getOrDefault("baseline", DEFAULT_BASELINE));
+		if (!options.containsKey("update") && !baselineFile.isFile()) {
+			System.err.println("Baseline " + baselineFile + " not found. Record it on this machine with -update"
+					+ " (launch/RegressionGateRecordBaseline.launch) and commit it.");
+			System.exit(2);
+		}
+
+		Baseline current = run();
+		if (options.containsKey("update")) {
+			current.save(baselineFile);
+			System.out.println("Baseline written to " + baselineFile.getAbsolutePath());
+			return;
+		}
+
+		List<String> regressions = gate.compare(Baseline.load(baselineFile), current, System.out);
+		System.out.println();
+		if (regressions.isEmpty()) {
+			System.out.println("Regression gate passed");
+		} else {
+			System.out.println("Regression gate failed:");
+			for (String regression : regressions) {
+				System.out.println("  " + regression);
+			}
+			System.exit(1);
+		}
+	}
+
+	private static Map<String, String> parseOptions(String[] args) {
+		Map<String, String> options = new HashMap<>();
+		for (int i = 0; i < args.length; i++) {
+			if (!args[i].startsWith("-")) {
+				throw new IllegalArgumentException("Unexpected argument " + args[i]);
+			}
+			String name = args[i].substring(1);
+			if (name.equals("help")) {
+				throw new IllegalArgumentException("Performance regression gate comparing benchmarks with a baseline");
+			}
+			if (!OPTIONS.contains(name)) {
+				throw new IllegalArgumentException("Unknown option " + args[i]);
+			}
+			if (name.equals("update")) {
+				options.put(name, "");
+			} else if (i + 1 < args.length) {
+				options.put(name, args[++i]);
+			} else {
+				throw new IllegalArgumentException("Missing value for " + args[i]);
+			}
+		}
+		return options;
+	}
+
+}
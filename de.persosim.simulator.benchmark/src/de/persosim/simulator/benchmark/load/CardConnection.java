@@ -0,0 +1,24 @@
+package de.persosim.simulator.benchmark.load;
+
+import java.io.Closeable;
+
+/**
+ * Connection of a virtual terminal to its card.
+ */
+public interface CardConnection extends Closeable {
+
+	/**
+	 * Transmit a command APDU to the card.
+	 *
+	 * @param apdu
+	 *            the command APDU
+	 * @return the response APDU
+	 */
+	byte[] transmit(byte[] apdu);
+
+	/**
+	 * Reset the card, i.e. terminate all sessions.
+	 */
+	void reset();
+
+}
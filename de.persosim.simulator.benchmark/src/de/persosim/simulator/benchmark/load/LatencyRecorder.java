@@ -0,0 +1,180 @@
+package de.persosim.simulator.benchmark.load;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Records latency samples grouped by name, e.g. by APDU type or protocol
+ * step, and computes percentiles from them.
+ * <p/>
+ * All samples are kept, so percentiles are exact. Instances are not thread
+ * safe, each virtual terminal records into its own instance and the
+ * instances are merged after the run.
+ */
+public class LatencyRecorder {
+
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private final Map<String, Samples> samples = new LinkedHashMap<>();
+	private final Map<String, Long> errors = new LinkedHashMap<>();
+
+	private static class Samples {
+		long[] values = new long[INITIAL_CAPACITY];
+		int size;
+		boolean sorted = true;
+
+		void add(long value) {
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			values[size++] = value;
+			sorted = false;
+		}
+
+		void addAll(Samples other) {
+			if (size + other.size > values.length) {
+				values = Arrays.copyOf(values, Math.max(size + other.size, size * 2));
+			}
+			System.arraycopy(other.values, 0, values, size, other.size);
+			size += other.size;
+			sorted = false;
+		}
+
+		long percentile(double percentile) {
+			if (!sorted) {
+				Arrays.sort(values, 0, size);
+				sorted = true;
+			}
+			// nearest rank
+			int rank = (int) Math.ceil(percentile / 100 * size);
+			return values[Math.max(rank, 1) - 1];
+		}
+
+		long sum() {
+			long sum = 0;
+			for (int i = 0; i < size; i++) {
+				sum += values[i];
+			}
+			return sum;
+		}
+	}
+
+	/**
+	 * Record a single sample.
+	 *
+	 * @param name
+	 *            name of the measured operation
+	 * @param nanos
+	 *            the latency in nanoseconds
+	 */
+	public void record(String name, long nanos) {
+		Samples current = samples.get(name);
+		if (current == null) {
+			current = new Samples();
+			samples.put(name, current);
+		}
+		current.add(nanos);
+	}
+
+	/**
+	 * Record a failed operation, which does not contribute to the latency
+	 * samples.
+	 *
+	 * @param name
+	 *            name of the failed operation
+	 */
+	public void recordError(String name) {
+		Long count = errors.get(name);
+		errors.put(name, count == null ? 1 : count + 1);
+	}
+
+	/**
+	 * Add all samples and errors of the given recorder to this one.
+	 *
+	 * @param other
+	 *            the recorder to merge
+	 */
+	public void merge(LatencyRecorder other) {
+		for (Map.Entry<String, Samples> entry : other.samples.entrySet()) {
+			Samples current = samples.get(entry.getKey());
+			if (current == null) {
+				current = new Samples();
+				samples.put(entry.getKey(), current);
+			}
+			current.addAll(entry.getValue());
+		}
+		for (Map.Entry<String, Long> entry : other.errors.entrySet()) {
+			Long count = errors.get(entry.getKey());
+			errors.put(entry.getKey(), count == null ? entry.getValue() : count + entry.getValue());
+		}
+	}
+
+	/**
+	 * @return the names of all operations with samples or errors, operations
+	 *         with samples first, each in order of their first occurrence
+	 */
+	public Set<String> getNames() {
+		Set<String> names = new LinkedHashSet<>(samples.keySet());
+		names.addAll(errors.keySet());
+		return Collections.unmodifiableSet(names);
+	}
+
+	/**
+	 * @param name
+	 *            name of the operation
+	 * @return the number of samples recorded for the operation
+	 */
+	public int getCount(String name) {
+		Samples current = samples.get(name);
+		return current == null ? 0 : current.size;
+	}
+
+	/**
+	 * @param name
+	 *            name of the operation
+	 * @return the number of errors recorded for the operation
+	 */
+	public long getErrorCount(String name) {
+		Long count = errors.get(name);
+		return count == null ? 0 : count;
+	}
+
+	/**
+	 * @return the number of errors recorded for all operations
+	 */
+	public long getErrorCount() {
+		long sum = 0;
+		for (Long count : errors.values()) {
+			sum += count;
+		}
+		return sum;
+	}
+
+	/**
+	 * @param name
+	 *            name of the operation
+	 * @return the mean latency in nanoseconds
+	 */
+	public long getMean(String name) {
+		Samples current = samples.get(name);
+		return current == null || current.size == 0 ? 0 : current.sum() / current.size;
+	}
+
+	/**
+	 * @param name
+	 *            name of the operation
+	 * @param percentile
+	 *            the percentile in the range (0, 100]
+	 * @return the latency in nanoseconds below or equal to which the given
+	 *         percentage of the samples lies
+	 */
+	public long getPercentile(String name, double percentile) {
+		Samples current = samples.get(name);
+		return current == null || current.size == 0 ? 0 : current.percentile(percentile);
+	}
+
+}
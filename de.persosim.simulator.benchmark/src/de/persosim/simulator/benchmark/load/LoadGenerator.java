@@ -0,0 +1,399 @@
+package de.persosim.simulator.benchmark.load;
+
+import java.io.File;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import de.persosim.simulator.PersoSim;
+import de.persosim.simulator.benchmark.BenchmarkPki;
+import de.persosim.simulator.benchmark.Benchmarks;
+import de.persosim.simulator.benchmark.GtCertificates;
+import de.persosim.simulator.benchmark.TerminalCredentials;
+import de.persosim.simulator.cardobjects.AuthObjectIdentifier;
+import de.persosim.simulator.cardobjects.MrzAuthObject;
+import de.persosim.simulator.perso.Personalization;
+import de.persosim.simulator.perso.PersonalizationFactory;
+import de.persosim.simulator.protocols.pace.Pace;
+import de.persosim.simulator.protocols.ta.TerminalType;
+import de.persosim.simulator.recording.ApduRecorder;
+import de.persosim.simulator.utils.HexString;
+
+/**
+ * Load generator running the EAC flow of an eID terminal with a number of
+ * concurrent virtual terminals, each connected to its own simulator.
+ * <p/>
+ * Each flow consists of reading EF.CardAccess, PACE, TA, reading
+ * EF.CardSecurity, CA, optionally RI and reading data groups of an application
+ * under secure messaging. The report contains the throughput and the latency
+ * percentiles per protocol step and per APDU type.
+ * <p/>
+ * When run as application the simulators are either started in process, each
+ * with its own instance of the profile, or reached through their socket
+ * adapters. The credentials are those of {@link GtCertificates}, matching the
+ * trust points of DefaultPersoGt. Call with -help for usage information.
+ */
+public class LoadGenerator {
+
+	public static final String STEP_CARD_ACCESS = "EF.CardAccess";
+	public static final String STEP_PACE = "PACE";
+	public static final String STEP_TA = "TA";
+	public static final String STEP_CARD_SECURITY = "EF.CardSecurity";
+	public static final String STEP_CA = "CA";
+	public static final String STEP_RI = "RI";
+	public static final String STEP_SELECT = "Select application";
+	public static final String STEP_DATA_GROUPS = "Read data groups";
+	public static final String STEP_FLOW = "EAC flow";
+
+	public static final byte[] AID_EID = HexString.toByteArray("E80704007F00070302");
+	public static final byte[] AID_EPASS = HexString.toByteArray("A0000002471001");
+
+	public static final String DEFAULT_PROFILE = "DefaultPersoGt.perso";
+	private static final String DEFAULT_CAN = "500540";
+	private static final String DEFAULT_PIN = "123456";
+	private static final String DEFAULT_MRZ = "IDD<<0000000011<<<<<<<<<<<<<<<6408125F2010315D<<<<<<<<<<<<<8MUSTERMANN<<ERIKA<<<<<<<<<<<<<";
+
+	private static final List<String> OPTIONS = Arrays.asList("profile", "socket", "terminals", "warmup", "duration",
+			"password", "secret", "terminalType", "dataGroups", "ri", "seed", "record");
+	private static final String USAGE = "Arguments:\n"
+			+ "  -profile <file>             profile for in process simulators, default " + DEFAULT_PROFILE + "\n"
+			+ "  -socket <host:port>[,...]   socket adapters of running simulators, one per terminal\n"
+			+ "  -terminals <n>              number of concurrent terminals, default 1\n"
+			+ "  -warmup <s>                 warmup period in seconds, default 5\n"
+			+ "  -duration <s>               measurement period in seconds, default 30\n"
+			+ "  -password <CAN|PIN|MRZ>     PACE password, default CAN\n"
+			+ "  -secret <value>             value of the PACE password, defaults match DefaultPersoGt\n"
+			+ "  -terminalType <AT|IS|ST>    GlobalTester credentials to use, default AT\n"
+			+ "  -dataGroups <n>[,...]       data groups to read, default depends on the terminal type\n"
+			+ "  -ri                         perform RI, requires terminal type AT\n"
+			+ "  -seed <n>                   deterministic randomness of in process simulators, for replays\n"
+			+ "  -record <directory>         record the APDUs of in process simulators";
+
+	/**
+	 * Opens the connection to the card of a virtual terminal.
+	 */
+	@FunctionalInterface
+	public interface ConnectionFactory {
+		/**
+		 * @param terminalIndex
+		 *            index of the virtual terminal, starting at 0
+		 * @return a connection to a powered card exclusively used by the
+		 *         terminal
+		 * @throws IOException
+		 *             if the connection can not be established
+		 */
+		CardConnection open(int terminalIndex) throws IOException;
+	}
+
+	private final ConnectionFactory connectionFactory;
+	private final TerminalCredentials credentials;
+	private final byte passwordReference;
+	private final byte[] password;
+	private byte[] application;
+	private int[] dataGroups = new int[0];
+	private boolean restrictedIdentification;
+
+	/**
+	 * @param connectionFactory
+	 *            factory for the connections of the virtual terminals
+	 * @param credentials
+	 *            the certificates and keys used by all virtual terminals
+	 * @param passwordReference
+	 *            the PACE password reference, e.g. {@link Pace#PWD_CAN}
+	 * @param password
+	 *            the PACE password as used for key derivation
+	 */
+	public LoadGenerator(ConnectionFactory connectionFactory, TerminalCredentials credentials,
+			byte passwordReference, byte[] password) {
+		this.connectionFactory = connectionFactory;
+		this.credentials = credentials;
+		this.passwordReference = passwordReference;
+		this.password = password.clone();
+	}
+
+	/**
+	 * Read data groups as last step of each flow.
+	 *
+	 * @param application
+	 *            AID of the application containing the data groups or null to
+	 *            skip the selection and reading
+	 * @param dataGroups
+	 *            numbers of the data groups, i.e. their short file identifiers
+	 */
+	public void setDataGroups(byte[] application, int... dataGroups) {
+		this.application = application == null ? null : application.clone();
+		this.dataGroups = dataGroups.clone();
+	}
+
+	/**
+	 * @param restrictedIdentification
+	 *            whether to perform RI after CA, which requires credentials
+	 *            providing a sector key
+	 */
+	public void setRestrictedIdentification(boolean restrictedIdentification) {
+		this.restrictedIdentification = restrictedIdentification;
+	}
+
+	byte getPasswordReference() {
+		return passwordReference;
+	}
+
+	byte[] getPassword() {
+		return password;
+	}
+
+	byte[] getApplication() {
+		return application;
+	}
+
+	int[] getDataGroups() {
+		return dataGroups;
+	}
+
+	boolean isRestrictedIdentification() {
+		return restrictedIdentification;
+	}
+
+	/**
+	 * Run the flow with the given number of virtual terminals. All
+	 * connections are opened before the warmup starts.
+	 *
+	 * @param terminals
+	 *            number of concurrent virtual terminals
+	 * @param warmup
+	 *            warmup period, flows started within are not reported
+	 * @param duration
+	 *            measurement period
+	 * @param unit
+	 *            unit of the periods
+	 * @return the report of the measurement period
+	 * @throws IOException
+	 *             if a connection can not be opened or closed
+	 * @throws InterruptedException
+	 *             if interrupted while waiting for the terminals
+	 */
+	public LoadReport run(int terminals, long warmup, long duration, TimeUnit unit)
+			throws IOException, InterruptedException {
+		List<CardConnection> connections = new ArrayList<>();
+		try {
+			for (int i = 0; i < terminals; i++) {
+				connections.add(connectionFactory.open(i));
+			}
+		} catch (IOException | RuntimeException e) {
+			for (CardConnection connection : connections) {
+				connection.close();
+			}
+			throw e;
+		}
+
+		long measurementStart = System.nanoTime() + unit.toNanos(warmup);
+		long deadline = measurementStart + unit.toNanos(duration);
+		List<VirtualTerminal> virtualTerminals = new ArrayList<>();
+		for (CardConnection connection : connections) {
+			virtualTerminals.add(new VirtualTerminal(connection, credentials, this, measurementStart, deadline));
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(terminals);
+		try {
+			List<Future<Void>> futures = executor.invokeAll(virtualTerminals);
+			long measured = System.nanoTime() - measurementStart;
+			for (Future<Void> future : futures) {
+				try {
+					future.get();
+				} catch (ExecutionException e) {
+					throw new IllegalStateException("Virtual terminal aborted", e.getCause());
+				}
+			}
+
+			LatencyRecorder steps = new LatencyRecorder();
+			LatencyRecorder apdus = new LatencyRecorder();
+			Exception firstFailure = null;
+			for (VirtualTerminal current : virtualTerminals) {
+				steps.merge(current.getSteps());
+				apdus.merge(current.getApdus());
+				if (firstFailure == null) {
+					firstFailure = current.getFirstFailure();
+				}
+			}
+			return new LoadReport(terminals, measured, steps, apdus, firstFailure);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	public static void main(String[] args) throws IOException, GeneralSecurityException, InterruptedException {
+		Benchmarks.initCryptoProvider();
+		LoadGenerator generator;
+		int terminals;
+		long warmup;
+		long duration;
+		Map<String, String> options;
+		try {
+			options = parseOptions(args);
+			terminals = Integer.parseInt(options.getOrDefault("terminals", "1"));
+			warmup = Long.parseLong(options.getOrDefault("warmup", "5"));
+			duration = Long.parseLong(options.getOrDefault("duration", "30"));
+			generator = create(options, terminals);
+			if (options.containsKey("socket") && (options.containsKey("seed") || options.containsKey("record"))) {
+				throw new IllegalArgumentException("-seed and -record apply to in process simulators only");
+			}
+			if (options.containsKey("seed")) {
+				System.setProperty(PersoSim.PROPERTY_RANDOM_SEED, Long.toString(Long.parseLong(options.get("seed"))));
+			}
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.err.println(USAGE);
+			return;
+		}
+
+		ApduRecorder recorder = null;
+		if (options.containsKey("record")) {
+			recorder = new ApduRecorder(new File(options.get("record")));
+			recorder.start();
+		}
+		try {
+			generator.run(terminals, warmup, duration, TimeUnit.SECONDS).print(System.out);
+		} finally {
+			if (recorder != null) {
+				recorder.stop();
+			}
+		}
+	}
+
+	private static LoadGenerator create(Map<String, String> options, int terminals)
+			throws IOException, GeneralSecurityException {
+		TerminalType terminalType = TerminalType.valueOf(options.getOrDefault("terminalType", "AT"));
+		boolean restrictedIdentification = options.containsKey("ri");
+
+		GtCertificates gtCertificates = GtCertificates.load(terminalType);
+		TerminalCredentials credentials = gtCertificates;
+		if (restrictedIdentification) {
+			if (terminalType != TerminalType.AT) {
+				throw new IllegalArgumentException("RI requires terminal type AT");
+			}
+			// the sector key of the bundled AT certificate is not available
+			credentials = BenchmarkPki.issuedBy(gtCertificates.getCertificateChain().get(0),
+					gtCertificates.getCvcaPrivateKey());
+		}
+
+		LoadGenerator generator = new LoadGenerator(getConnectionFactory(options, terminals), credentials,
+				getPasswordReference(options), getPassword(options));
+		generator.setRestrictedIdentification(restrictedIdentification);
+		generator.setDataGroups(getApplication(terminalType), getDataGroups(options, terminalType));
+		return generator;
+	}
+
+	private static Map<String, String> parseOptions(String[] args) {
+		Map<String, String> options = new HashMap<>();
+		for (int i = 0; i < args.length; i++) {
+			if (!args[i].startsWith("-")) {
+				throw new IllegalArgumentException("Unexpected argument " + args[i]);
+			}
+			String name = args[i].substring(1);
+			if (name.equals("help")) {
+				throw new IllegalArgumentException("Load generator running the EAC flow against simulators");
+			}
+			if (!OPTIONS.contains(name)) {
+				throw new IllegalArgumentException("Unknown option " + args[i]);
+			}
+			if (name.equals("ri")) {
+				options.put(name, "");
+			} else if (i + 1 < args.length) {
+				options.put(name, args[++i]);
+			} else {
+				throw new IllegalArgumentException("Missing value for " + args[i]);
+			}
+		}
+		return options;
+	}
+
+	private static ConnectionFactory getConnectionFactory(Map<String, String> options, int terminals) {
+		if (options.containsKey("socket")) {
+			String[] endpoints = options.get("socket").split(",");
+			if (endpoints.length < terminals) {
+				throw new IllegalArgumentException("Each terminal needs its own socket adapter");
+			}
+			return terminalIndex -> {
+				String[] endpoint = endpoints[terminalIndex].trim().split(":");
+				return new SocketConnection(endpoint[0], Integer.parseInt(endpoint[1]));
+			};
+		}
+
+		File profile = options.containsKey("profile") ? new File(options.get("profile"))
+				: Benchmarks.getProfile(DEFAULT_PROFILE);
+		return terminalIndex -> SimulatorConnection
+				.start((Personalization) PersonalizationFactory.unmarshal(profile.getPath()));
+	}
+
+	private static byte getPasswordReference(Map<String, String> options) {
+		switch (options.getOrDefault("password", Pace.PWD_CAN_STRING)) {
+		case Pace.PWD_MRZ_STRING:
+			return Pace.PWD_MRZ;
+		case Pace.PWD_CAN_STRING:
+			return Pace.PWD_CAN;
+		case Pace.PWD_PIN_STRING:
+			return Pace.PWD_PIN;
+		default:
+			throw new IllegalArgumentException("Unsupported password " + options.get("password"));
+		}
+	}
+
+	private static byte[] getPassword(Map<String, String> options) throws GeneralSecurityException, IOException {
+		switch (getPasswordReference(options)) {
+		case Pace.PWD_MRZ:
+			return new MrzAuthObject(new AuthObjectIdentifier(Pace.PWD_MRZ),
+					options.getOrDefault("secret", DEFAULT_MRZ)).getPassword();
+		case Pace.PWD_PIN:
+			return options.getOrDefault("secret", DEFAULT_PIN).getBytes();
+		default:
+			return options.getOrDefault("secret", DEFAULT_CAN).getBytes();
+		}
+	}
+
+	private static byte[] getApplication(TerminalType terminalType) {
+		switch (terminalType) {
+		case AT:
+			return AID_EID;
+		case IS:
+			return AID_EPASS;
+		default:
+			return null;
+		}
+	}
+
+	private static int[] getDataGroups(Map<String, String> options, TerminalType terminalType) {
+		String dataGroups = options.get("dataGroups");
+		if (dataGroups == null) {
+			switch (terminalType) {
+			case AT:
+				// all data groups readable with the CHAT of the bundled certificate
+				dataGroups = "1,2,3,4,5,6,7,8,9,13,17,18";
+				break;
+			case IS:
+				dataGroups = "1,2,3,4";
+				break;
+			default:
+				dataGroups = "";
+			}
+		}
+		if (dataGroups.trim().isEmpty()) {
+			return new int[0];
+		}
+		String[] numbers = dataGroups.split(",");
+		int[] result = new int[numbers.length];
+		for (int i = 0; i < numbers.length; i++) {
+			result[i] = Integer.parseInt(numbers[i].trim());
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,115 @@
+package de.persosim.simulator.benchmark.load;
+
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Result of a load generator run, i.e. the merged samples of all virtual
+ * terminals recorded during the measurement period.
+ */
+public class LoadReport {
+
+	private static final double[] PERCENTILES = { 50, 95, 99 };
+
+	private final int terminals;
+	private final long durationNanos;
+	private final LatencyRecorder steps;
+	private final LatencyRecorder apdus;
+	private final Exception firstFailure;
+
+	LoadReport(int terminals, long durationNanos, LatencyRecorder steps, LatencyRecorder apdus,
+			Exception firstFailure) {
+		this.terminals = terminals;
+		this.durationNanos = durationNanos;
+		this.steps = steps;
+		this.apdus = apdus;
+		this.firstFailure = firstFailure;
+	}
+
+	/**
+	 * @return the latencies of the protocol steps, the complete flow is
+	 *         recorded as {@link LoadGenerator#STEP_FLOW}
+	 */
+	public LatencyRecorder getSteps() {
+		return steps;
+	}
+
+	/**
+	 * @return the latencies of the APDUs, named by their instruction
+	 */
+	public LatencyRecorder getApdus() {
+		return apdus;
+	}
+
+	/**
+	 * @return the first failure of any virtual terminal or null if all flows
+	 *         succeeded
+	 */
+	public Exception getFirstFailure() {
+		return firstFailure;
+	}
+
+	/**
+	 * @return the number of completed flows per second
+	 */
+	public double getFlowThroughput() {
+		return getThroughput(steps.getCount(LoadGenerator.STEP_FLOW));
+	}
+
+	/**
+	 * @return the number of processed APDUs per second
+	 */
+	public double getApduThroughput() {
+		long count = 0;
+		for (String name : apdus.getNames()) {
+			count += apdus.getCount(name);
+		}
+		return getThroughput(count);
+	}
+
+	private double getThroughput(long count) {
+		return count * (double) TimeUnit.SECONDS.toNanos(1) / durationNanos;
+	}
+
+	/**
+	 * Print throughput and latency tables.
+	 *
+	 * @param out
+	 *            the stream to print to
+	 */
+	public void print(PrintStream out) {
+		out.printf("%d terminals, %.1f s measured, %d flows (%.1f/s), %d failed%n", terminals,
+				durationNanos / (double) TimeUnit.SECONDS.toNanos(1), steps.getCount(LoadGenerator.STEP_FLOW),
+				getFlowThroughput(), steps.getErrorCount(LoadGenerator.STEP_FLOW));
+		out.printf("%.1f APDUs/s%n", getApduThroughput());
+		out.println();
+		printTable(out, "Protocol step", steps);
+		out.println();
+		printTable(out, "APDU", apdus);
+		if (firstFailure != null) {
+			out.println();
+			out.println("First failure: " + firstFailure);
+		}
+	}
+
+	private static void printTable(PrintStream out, String title, LatencyRecorder recorder) {
+		out.printf("%-28s %8s %7s %9s", title, "count", "errors", "mean ms");
+		for (double percentile : PERCENTILES) {
+			out.printf(" %9s", "p" + (int) percentile + " ms");
+		}
+		out.println();
+		for (String name : recorder.getNames()) {
+			out.printf("%-28s %8d %7d %9.3f", name, recorder.getCount(name), recorder.getErrorCount(name),
+					toMillis(recorder.getMean(name)));
+			for (double percentile : PERCENTILES) {
+				out.printf(" %9.3f", toMillis(recorder.getPercentile(name, percentile)));
+			}
+			out.println();
+		}
+	}
+
+	private static double toMillis(long nanos) {
+		return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+	}
+
+}
@@ -0,0 +1,55 @@
+package de.persosim.simulator.benchmark.load;
+
+import org.globaltester.simulator.Simulator;
+
+import de.persosim.simulator.PersoSim;
+import de.persosim.simulator.perso.Personalization;
+
+/**
+ * Connection to a simulator running in the same JVM.
+ */
+public class SimulatorConnection implements CardConnection {
+
+	private final Simulator simulator;
+
+	/**
+	 * @param simulator
+	 *            the running and powered simulator
+	 */
+	public SimulatorConnection(Simulator simulator) {
+		this.simulator = simulator;
+	}
+
+	/**
+	 * Start a new simulator with the given personalization and power it on.
+	 *
+	 * @param personalization
+	 *            the personalization, not to be shared with other simulators
+	 * @return the connection to the new simulator
+	 */
+	public static SimulatorConnection start(Personalization personalization) {
+		PersoSim simulator = new PersoSim();
+		if (!simulator.loadPersonalization(personalization)) {
+			throw new IllegalStateException("Unable to load the personalization");
+		}
+		simulator.startSimulator();
+		simulator.cardPowerUp();
+		return new SimulatorConnection(simulator);
+	}
+
+	@Override
+	public byte[] transmit(byte[] apdu) {
+		return simulator.processCommand(apdu);
+	}
+
+	@Override
+	public void reset() {
+		simulator.cardReset();
+	}
+
+	@Override
+	public void close() {
+		simulator.stopSimulator();
+	}
+
+}
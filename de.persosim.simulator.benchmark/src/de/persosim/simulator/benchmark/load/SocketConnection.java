@@ -0,0 +1,71 @@
+package de.persosim.simulator.benchmark.load;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.net.Socket;
+
+import de.persosim.simulator.utils.HexString;
+
+/**
+ * Connection to a simulator through the socket adapter, i.e. exchanging hex
+ * encoded APDUs line by line.
+ * <p/>
+ * The socket adapter serves one connection at a time, so concurrent virtual
+ * terminals need one simulator instance each.
+ */
+public class SocketConnection implements CardConnection {
+
+	private static final byte[] POWER_UP = HexString.toByteArray("FF010000");
+	private static final byte[] RESET = HexString.toByteArray("FFFF0000");
+
+	private final Socket socket;
+	private final BufferedReader in;
+	private final PrintStream out;
+
+	/**
+	 * Connect to the socket adapter and power up the card.
+	 *
+	 * @param host
+	 *            host the socket adapter is listening on
+	 * @param port
+	 *            port the socket adapter is listening on
+	 * @throws IOException
+	 *             if the connection can not be established
+	 */
+	public SocketConnection(String host, int port) throws IOException {
+		socket = new Socket(host, port);
+		socket.setTcpNoDelay(true);
+		in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+		out = new PrintStream(socket.getOutputStream());
+		transmit(POWER_UP);
+	}
+
+	@Override
+	public byte[] transmit(byte[] apdu) {
+		out.println(HexString.encode(apdu));
+		out.flush();
+		try {
+			String response = in.readLine();
+			if (response == null) {
+				throw new IOException("Connection closed by the simulator");
+			}
+			return HexString.toByteArray(response);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void reset() {
+		transmit(RESET);
+	}
+
+	@Override
+	public void close() throws IOException {
+		socket.close();
+	}
+
+}
@@ -0,0 +1,172 @@
+package de.persosim.simulator.benchmark.load;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.Callable;
+
+import de.persosim.simulator.benchmark.EacTerminal;
+import de.persosim.simulator.benchmark.TerminalCredentials;
+import de.persosim.simulator.platform.Iso7816;
+import de.persosim.simulator.utils.HexString;
+
+/**
+ * Terminal repeatedly running the EAC flow against its own card until a
+ * deadline is reached, recording the latency of each protocol step and each
+ * APDU.
+ * <p/>
+ * After each flow, successful or not, the card is reset.
+ */
+class VirtualTerminal implements Callable<Void>, Iso7816 {
+
+	private final CardConnection connection;
+	private final EacTerminal terminal;
+	private final LoadGenerator configuration;
+	private final long measurementStart;
+	private final long deadline;
+
+	private LatencyRecorder steps = new LatencyRecorder();
+	private LatencyRecorder apdus = new LatencyRecorder();
+	private boolean measuring;
+	private Exception firstFailure;
+
+	/**
+	 * @param connection
+	 *            connection to the card exclusively used by this terminal
+	 * @param credentials
+	 *            the certificates and keys of the terminal
+	 * @param configuration
+	 *            the flow to run
+	 * @param measurementStart
+	 *            value of {@link System#nanoTime()} from which on flows are
+	 *            measured, flows started before are considered warmup
+	 * @param deadline
+	 *            value of {@link System#nanoTime()} after which no further
+	 *            flow is started
+	 */
+	VirtualTerminal(CardConnection connection, TerminalCredentials credentials, LoadGenerator configuration,
+			long measurementStart, long deadline) {
+		this.connection = connection;
+		this.terminal = new EacTerminal(this::transmit, credentials);
+		this.configuration = configuration;
+		this.measurementStart = measurementStart;
+		this.deadline = deadline;
+	}
+
+	@Override
+	public Void call() throws IOException {
+		try {
+			long start;
+			while ((start = System.nanoTime()) < deadline) {
+				if (!measuring && start >= measurementStart) {
+					// discard the warmup samples
+					steps = new LatencyRecorder();
+					apdus = new LatencyRecorder();
+					measuring = true;
+				}
+				if (runFlow()) {
+					steps.record(LoadGenerator.STEP_FLOW, System.nanoTime() - start);
+				} else {
+					steps.recordError(LoadGenerator.STEP_FLOW);
+				}
+				connection.reset();
+				terminal.reset();
+			}
+			if (!measuring) {
+				// no flow was started within the measurement period
+				steps = new LatencyRecorder();
+				apdus = new LatencyRecorder();
+			}
+		} finally {
+			connection.close();
+		}
+		return null;
+	}
+
+	private boolean runFlow() {
+		if (!runStep(LoadGenerator.STEP_CARD_ACCESS, terminal::readCardAccess)
+				|| !runStep(LoadGenerator.STEP_PACE, () -> terminal.performPace(configuration.getPasswordReference(),
+						configuration.getPassword()))
+				|| !runStep(LoadGenerator.STEP_TA, terminal::performTa)
+				|| !runStep(LoadGenerator.STEP_CARD_SECURITY, terminal::readChipAuthenticationKey)
+				|| !runStep(LoadGenerator.STEP_CA, terminal::performCa)) {
+			return false;
+		}
+		if (configuration.isRestrictedIdentification() && !runStep(LoadGenerator.STEP_RI, terminal::performRi)) {
+			return false;
+		}
+		if (configuration.getApplication() == null) {
+			return true;
+		}
+		return runStep(LoadGenerator.STEP_SELECT, () -> terminal.selectApplication(configuration.getApplication()))
+				&& runStep(LoadGenerator.STEP_DATA_GROUPS, () -> {
+					for (int dataGroup : configuration.getDataGroups()) {
+						terminal.readBinary((byte) dataGroup);
+					}
+				});
+	}
+
+	private boolean runStep(String name, Step step) {
+		long start = System.nanoTime();
+		try {
+			step.run();
+		} catch (GeneralSecurityException | RuntimeException e) {
+			steps.recordError(name);
+			if (firstFailure == null) {
+				firstFailure = e;
+			}
+			return false;
+		}
+		steps.record(name, System.nanoTime() - start);
+		return true;
+	}
+
+	private byte[] transmit(byte[] apdu) {
+		String name = getApduName(apdu);
+		long start = System.nanoTime();
+		byte[] response = connection.transmit(apdu);
+		apdus.record(name, System.nanoTime() - start);
+		return response;
+	}
+
+	static String getApduName(byte[] apdu) {
+		switch (apdu[1]) {
+		case INS_A4_SELECT:
+			return "SELECT";
+		case INS_B0_READ_BINARY:
+			return "READ BINARY";
+		case INS_22_MANAGE_SECURITY_ENVIRONMENT:
+			return "MANAGE SECURITY ENVIRONMENT";
+		case INS_86_GENERAL_AUTHENTICATE:
+			return "GENERAL AUTHENTICATE";
+		case INS_2A_PERFORM_SECURITY_OPERATION:
+			return "PERFORM SECURITY OPERATION";
+		case INS_84_GET_CHALLENGE:
+			return "GET CHALLENGE";
+		case INS_82_EXTERNAL_AUTHENTICATE:
+			return "EXTERNAL AUTHENTICATE";
+		default:
+			return "INS " + HexString.hexifyByte(apdu[1]);
+		}
+	}
+
+	LatencyRecorder getSteps() {
+		return steps;
+	}
+
+	LatencyRecorder getApdus() {
+		return apdus;
+	}
+
+	/**
+	 * @return the first exception thrown by any step, including the warmup,
+	 *         or null
+	 */
+	Exception getFirstFailure() {
+		return firstFailure;
+	}
+
+	private interface Step {
+		void run() throws GeneralSecurityException;
+	}
+
+}
@@ -0,0 +1,162 @@
+package de.persosim.simulator.benchmark.replay;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import de.persosim.simulator.recording.ApduRecord;
+import de.persosim.simulator.utils.HexString;
+
+/**
+ * Result of a {@link SessionReplay}, i.e. the number of replayed APDUs, the
+ * responses differing from the capture and the processing time.
+ */
+public class ReplayReport {
+
+	/**
+	 * A response differing from the recorded one.
+	 */
+	public static class Mismatch {
+
+		private final int slot;
+		private final int index;
+		private final ApduRecord record;
+		private final byte[] actual;
+
+		Mismatch(int slot, int index, ApduRecord record, byte[] actual) {
+			this.slot = slot;
+			this.index = index;
+			this.record = record;
+			this.actual = actual;
+		}
+
+		/**
+		 * @return the slot of the capture
+		 */
+		public int getSlot() {
+			return slot;
+		}
+
+		/**
+		 * @return the position of the record within its slot
+		 */
+		public int getIndex() {
+			return index;
+		}
+
+		/**
+		 * @return the recorded exchange
+		 */
+		public ApduRecord getRecord() {
+			return record;
+		}
+
+		/**
+		 * @return the response of the replay
+		 */
+		public byte[] getActual() {
+			return actual;
+		}
+
+		@Override
+		public String toString() {
+			return "slot " + slot + " #" + index + "\n> " + HexString.encode(record.getCommand()) + "\nexpected < "
+					+ HexString.encode(record.getResponse()) + "\nactual   < " + HexString.encode(actual);
+		}
+
+	}
+
+	private final int maxMismatches;
+	private final List<Mismatch> mismatches = new ArrayList<>();
+	private long apdus;
+	private long mismatchCount;
+	private long processingNanos;
+
+	/**
+	 * @param maxMismatches
+	 *            the number of mismatches kept for reporting, all are counted
+	 */
+	ReplayReport(int maxMismatches) {
+		this.maxMismatches = maxMismatches;
+	}
+
+	void add(int slot, int index, ApduRecord record, byte[] actual, long nanos) {
+		if (!record.isPowerOn() && !record.isPowerOff()) {
+			apdus++;
+			processingNanos += nanos;
+		}
+		if (!Arrays.equals(record.getResponse(), actual)) {
+			mismatchCount++;
+			if (mismatches.size() < maxMismatches) {
+				mismatches.add(new Mismatch(slot, index, record, actual));
+			}
+		}
+	}
+
+	/**
+	 * @return the number of replayed APDUs, power events are not counted
+	 */
+	public long getApdus() {
+		return apdus;
+	}
+
+	/**
+	 * @return the number of responses differing from the capture
+	 */
+	public long getMismatchCount() {
+		return mismatchCount;
+	}
+
+	/**
+	 * @return the first mismatches
+	 */
+	public List<Mismatch> getMismatches() {
+		return Collections.unmodifiableList(mismatches);
+	}
+
+	/**
+	 * @return true iff all responses matched the capture
+	 */
+	public boolean isPassed() {
+		return mismatchCount == 0;
+	}
+
+	/**
+	 * @return the time spent processing the replayed APDUs in nanoseconds
+	 */
+	public long getProcessingNanos() {
+		return processingNanos;
+	}
+
+	/**
+	 * @return the number of APDUs processed per second of processing time
+	 */
+	public double getApduThroughput() {
+		return processingNanos == 0 ? 0 : apdus * (double) TimeUnit.SECONDS.toNanos(1) / processingNanos;
+	}
+
+	/**
+	 * Print the summary and the first mismatches.
+	 *
+	 * @param out
+	 *            the stream to print to
+	 */
+	public void print(PrintStream out) {
+		out.printf("%d APDUs replayed, %d mismatches%n", apdus, mismatchCount);
+		out.printf("%.1f ms processing, %.1f APDUs/s, %.3f ms mean%n",
+				processingNanos / (double) TimeUnit.MILLISECONDS.toNanos(1), getApduThroughput(),
+				apdus == 0 ? 0 : processingNanos / (double) apdus / TimeUnit.MILLISECONDS.toNanos(1));
+		for (Mismatch mismatch : mismatches) {
+			out.println();
+			out.println(mismatch);
+		}
+		if (mismatchCount > mismatches.size()) {
+			out.println();
+			out.println((mismatchCount - mismatches.size()) + " more mismatches");
+		}
+	}
+
+}
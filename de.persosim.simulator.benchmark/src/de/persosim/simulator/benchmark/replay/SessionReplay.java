@@ -0,0 +1,198 @@
+package de.persosim.simulator.benchmark.replay;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import de.persosim.simulator.benchmark.Benchmarks;
+import de.persosim.simulator.benchmark.load.LoadGenerator;
+import de.persosim.simulator.exception.AccessDeniedException;
+import de.persosim.simulator.perso.Personalization;
+import de.persosim.simulator.perso.PersonalizationFactory;
+import de.persosim.simulator.platform.PersoSimKernel;
+import de.persosim.simulator.recording.ApduRecord;
+import de.persosim.simulator.recording.ApduRecordReader;
+import de.persosim.simulator.recording.ApduRecorder;
+
+/**
+ * Replays captures of the {@link ApduRecorder} against fresh simulators and
+ * compares the responses byte for byte with the recorded ones.
+ * <p/>
+ * Each slot of the capture is replayed in order on its own kernel, initialized
+ * with a new instance of the personalization. Responses depending on random
+ * values, e.g. of PACE, TA and CA, only match if the capture was recorded with
+ * the same personalization and random seed, see
+ * {@link PersoSimKernel#setRandomSeed(long)}. Such captures are created by the
+ * {@link LoadGenerator} with -seed and -record.
+ * <p/>
+ * The report contains the processing time of the replayed APDUs, so a replay
+ * serves as regression test as well as benchmark of a recorded traffic mix.
+ * When run as application the exit code is 1 if any response differs and 2 on
+ * invalid arguments.
+ */
+public class SessionReplay {
+
+	private static final int MAX_REPORTED_MISMATCHES = 10;
+
+	private static final String USAGE = "Arguments: [options] <capture file or directory>...\n"
+			+ "  -profile <file>             profile used for recording, default " + LoadGenerator.DEFAULT_PROFILE
+			+ "\n"
+			+ "  -seed <n>                   random seed used for recording, randomness is not fixed if omitted\n"
+			+ "  -iterations <n>             number of replays, default 1";
+
+	private final Supplier<Personalization> personalizations;
+	private final Long seed;
+
+	/**
+	 * @param personalizations
+	 *            supplies a new instance of the recorded personalization for
+	 *            each slot
+	 * @param seed
+	 *            the random seed used for recording or null if the randomness
+	 *            is not to be fixed
+	 */
+	public SessionReplay(Supplier<Personalization> personalizations, Long seed) {
+		this.personalizations = personalizations;
+		this.seed = seed;
+	}
+
+	/**
+	 * Replay the given records.
+	 *
+	 * @param records
+	 *            the records in capture order
+	 * @return the report
+	 */
+	public ReplayReport replay(List<ApduRecord> records) {
+		ReplayReport report = new ReplayReport(MAX_REPORTED_MISMATCHES);
+		replay(records, report);
+		return report;
+	}
+
+	private void replay(List<ApduRecord> records, ReplayReport report) {
+		Map<Integer, List<ApduRecord>> slots = new LinkedHashMap<>();
+		for (ApduRecord record : records) {
+			slots.computeIfAbsent(record.getSlot(), slot -> new ArrayList<>()).add(record);
+		}
+
+		for (Map.Entry<Integer, List<ApduRecord>> slot : slots.entrySet()) {
+			PersoSimKernel kernel = createKernel();
+			List<ApduRecord> slotRecords = slot.getValue();
+			if (slotRecords.isEmpty() || !slotRecords.get(0).isPowerOn()) {
+				// recording started while the card was already powered
+				kernel.powerOn();
+			}
+
+			int index = 0;
+			for (ApduRecord record : slotRecords) {
+				long start = System.nanoTime();
+				byte[] actual;
+				if (record.isPowerOff()) {
+					kernel.powerOff();
+					actual = ApduRecorder.NO_DATA;
+				} else if (record.isPowerOn()) {
+					actual = kernel.powerOn();
+				} else {
+					actual = kernel.process(record.getCommand());
+				}
+				report.add(slot.getKey(), index++, record, actual, System.nanoTime() - start);
+			}
+		}
+	}
+
+	private PersoSimKernel createKernel() {
+		try {
+			PersoSimKernel kernel = new PersoSimKernel();
+			kernel.init(personalizations.get());
+			if (seed != null) {
+				kernel.setRandomSeed(seed);
+			}
+			return kernel;
+		} catch (AccessDeniedException e) {
+			throw new IllegalStateException("Unable to create the kernel", e);
+		}
+	}
+
+	/**
+	 * Read the given captures.
+	 *
+	 * @param files
+	 *            capture files or directories containing them
+	 * @return all records in capture order
+	 * @throws IOException
+	 *             if reading a capture fails
+	 */
+	public static List<ApduRecord> read(List<File> files) throws IOException {
+		List<ApduRecord> records = new ArrayList<>();
+		for (File file : files) {
+			File[] captures = file.isDirectory() ? ApduRecorder.getCaptureFiles(file) : new File[] { file };
+			for (File capture : captures) {
+				try (ApduRecordReader reader = new ApduRecordReader(new FileInputStream(capture))) {
+					records.addAll(reader.readAll());
+				}
+			}
+		}
+		return records;
+	}
+
+	public static void main(String[] args) throws IOException {
+		Benchmarks.initCryptoProvider();
+		File profile = Benchmarks.getProfile(LoadGenerator.DEFAULT_PROFILE);
+		Long seed = null;
+		int iterations = 1;
+		List<File> captures = new ArrayList<>();
+		try {
+			for (int i = 0; i < args.length; i++) {
+				if (!args[i].startsWith("-")) {
+					captures.add(new File(args[i]));
+					continue;
+				}
+				if (i + 1 >= args.length) {
+					throw new IllegalArgumentException("Missing value for " + args[i]);
+				}
+				switch (args[i]) {
+				case "-profile":
+					profile = new File(args[++i]);
+					break;
+				case "-seed":
+					seed = Long.parseLong(args[++i]);
+					break;
+				case "-iterations":
+					iterations = Integer.parseInt(args[++i]);
+					break;
+				default:
+					throw new IllegalArgumentException("Unknown option " + args[i]);
+				}
+			}
+			if (captures.isEmpty()) {
+				throw new IllegalArgumentException("No capture given");
+			}
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.err.println(USAGE);
+			System.exit(2);
+			return;
+		}
+
+		List<ApduRecord> records = read(captures);
+		byte[] profileXml = Files.readAllBytes(profile.toPath());
+		SessionReplay replay = new SessionReplay(
+				() -> (Personalization) PersonalizationFactory.unmarshal(new ByteArrayInputStream(profileXml)), seed);
+		ReplayReport report = new ReplayReport(MAX_REPORTED_MISMATCHES);
+		for (int i = 0; i < iterations; i++) {
+			replay.replay(records, report);
+		}
+		report.print(System.out);
+		if (!report.isPassed()) {
+			System.exit(1);
+		}
+	}
+
+}
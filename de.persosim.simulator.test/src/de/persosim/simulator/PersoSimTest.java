@@ -1,21 +1,26 @@
 package de.persosim.simulator;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.io.ByteArrayOutputStream;
 import java.io.FileNotFoundException;
 import java.io.PrintStream;
 import java.io.UnsupportedEncodingException;
+import java.nio.file.Paths;
 
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
 import de.persosim.simulator.perso.Personalization;
+import de.persosim.simulator.perso.PersonalizationCache;
 import de.persosim.simulator.perso.Profile01;
 import de.persosim.simulator.platform.Iso7816;
+import de.persosim.simulator.platform.PersoSimKernel;
 import de.persosim.simulator.test.PersoSimTestCase;
 import de.persosim.simulator.utils.HexString;
 import de.persosim.simulator.utils.Utils;
@@ -25,6 +30,7 @@ public class PersoSimTest extends PersoSimTestCase {
 	PersoSim persoSim;
 	
 	public static final String SELECT_APDU = "00A4020C02011C";
+	public static final String READ_BINARY_APDU = "00B0000000";
 	public static final String SW_NO_ERROR = "9000"; //FIXME why this constant?
 	
 	static PrintStream	origOut;
@@ -223,6 +229,80 @@ public class PersoSimTest extends PersoSimTestCase {
 		assertArrayEquals(Utils.toUnsignedByteArray((short)(Iso7816.SW_6F00_UNKNOWN+0x85)), responseSelect);
 	}
 	
+	/**
+	 * Positive test case: the card state is rolled back to the last snapshot.
+	 * @throws Exception
+	 */
+	@Test
+	public void testCardRollback() throws Exception {
+		persoSim = new PersoSim();
+		persoSim.loadPersonalization(getDefaultPerso());
+		persoSim.startSimulator();
+		persoSim.cardPowerUp();
+		
+		byte[] responseReadNoFile = persoSim.processCommand(HexString.toByteArray(READ_BINARY_APDU));
+		assertArrayEquals(Utils.toUnsignedByteArray(Iso7816.SW_6986_COMMAND_NOT_ALLOWED_NO_EF), responseReadNoFile);
+		assertArrayEquals(Utils.toUnsignedByteArray(Iso7816.SW_9000_NO_ERROR), persoSim.cardSnapshot());
+		
+		persoSim.processCommand(HexString.toByteArray(SELECT_APDU));
+		byte[] responseRead = persoSim.processCommand(HexString.toByteArray(READ_BINARY_APDU));
+		assertEquals(SW_NO_ERROR, extractStatusWord(HexString.encode(responseRead)));
+		
+		assertArrayEquals(Utils.toUnsignedByteArray(Iso7816.SW_9000_NO_ERROR), persoSim.cardRollback());
+		assertArrayEquals(responseReadNoFile, persoSim.processCommand(HexString.toByteArray(READ_BINARY_APDU)));
+		
+		persoSim.processCommand(HexString.toByteArray(SELECT_APDU));
+		assertArrayEquals(responseRead, persoSim.processCommand(HexString.toByteArray(READ_BINARY_APDU)));
+	}
+	
+	/**
+	 * Negative test case: roll back without previous snapshot.
+	 * @throws Exception
+	 */
+	@Test
+	public void testCardRollback_noSnapshot() throws Exception {
+		persoSim = new PersoSim();
+		persoSim.loadPersonalization(getDefaultPerso());
+		persoSim.startSimulator();
+		
+		assertArrayEquals(Utils.toUnsignedByteArray(Iso7816.SW_6985_CONDITIONS_OF_USE_NOT_SATISFIED), persoSim.cardRollback());
+	}
+	
+	/**
+	 * Positive test case: a kernel loaded from the cache is handed back for
+	 * reuse when another card is loaded.
+	 * @throws Exception
+	 */
+	@Test
+	public void testLoadKernel_releasesPrevious() throws Exception {
+		String path = Paths.get("../de.persosim.simulator/personalization/profiles/Profile01.perso").toAbsolutePath()
+				.normalize().toString();
+		PersonalizationCache cache = CommandParser.getPersonalizationCache();
+		PersoSimKernel kernel = cache.getKernel(path);
+		
+		persoSim = new PersoSim();
+		persoSim.loadKernel(kernel);
+		persoSim.loadPersonalization(getDefaultPerso());
+		
+		assertSame(kernel, cache.getKernel(path));
+	}
+	
+	/**
+	 * Negative test case: an invalid random seed is ignored.
+	 * @throws Exception
+	 */
+	@Test
+	public void testLoadPersonalization_invalidRandomSeed() throws Exception {
+		System.setProperty(PersoSim.PROPERTY_RANDOM_SEED, "invalid");
+		try {
+			persoSim = new PersoSim();
+		} finally {
+			System.clearProperty(PersoSim.PROPERTY_RANDOM_SEED);
+		}
+		
+		assertTrue(persoSim.loadPersonalization(getDefaultPerso()));
+	}
+	
 	/**
 	 * Positive test case: check behavior of PersoSim constructor when called with unknown argument.
 	 */
@@ -1,9 +1,14 @@
 package de.persosim.simulator.cardobjects;
 
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+
 import org.junit.Before;
 import org.junit.Test;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -219,4 +224,56 @@ public class ElementaryFileTest extends PersoSimTestCase {
 		assertTrue(fcp.containsTlvDataObject(new TlvTag((byte) 0x80)));
 		assertTrue(fcp.containsTlvDataObject(new TlvTag((byte) 0x88)));
 	}
+	
+	/**
+	 * Positive test: sidecar contents are read from the file and copied on
+	 * update, leaving the file unchanged.
+	 */
+	@Test
+	public void testUpdateSidecarContent() throws Exception {
+		File blob = new File(getTmpFolder(), "ElementaryFileTest.content");
+		Files.write(blob.toPath(), new byte[] { 9, 1, 2, 3, 4 });
+		
+		ElementaryFile file = new ElementaryFile(new FileIdentifier(0), new ShortFileIdentifier(1), null,
+				SecCondition.ALLOWED, SecCondition.ALLOWED, SecCondition.ALLOWED);
+		file.setContent(new SidecarContent(blob.getAbsolutePath(), 1, 4));
+		file.setSecStatus(securityStatus);
+		file.updateLifeCycleState(Iso7816LifeCycleState.OPERATIONAL_ACTIVATED);
+		
+		assertEquals(4, file.getContentLength());
+		assertArrayEquals(new byte[] { 1, 2, 3, 4 }, file.getContent());
+		
+		file.update(1, new byte[] { 7 });
+		
+		assertArrayEquals(new byte[] { 1, 7, 3, 4 }, file.getContent());
+		assertArrayEquals(new byte[] { 9, 1, 2, 3, 4 }, Files.readAllBytes(blob.toPath()));
+	}
+	
+	/**
+	 * Positive test: parts of the contents are read without copying them,
+	 * reads beyond the end of the file are shortened.
+	 */
+	@Test
+	public void testGetContentPart() throws Exception {
+		File blob = new File(getTmpFolder(), "ElementaryFileTest.part");
+		Files.write(blob.toPath(), new byte[] { 9, 1, 2, 3, 4 });
+		
+		ElementaryFile heapFile = new ElementaryFile(new FileIdentifier(0), new ShortFileIdentifier(1),
+				new byte[] { 1, 2, 3, 4 }, SecCondition.ALLOWED, SecCondition.ALLOWED, SecCondition.ALLOWED);
+		ElementaryFile sidecarFile = new ElementaryFile(new FileIdentifier(0), new ShortFileIdentifier(1), null,
+				SecCondition.ALLOWED, SecCondition.ALLOWED, SecCondition.ALLOWED);
+		sidecarFile.setContent(new SidecarContent(blob.getAbsolutePath(), 1, 4));
+		
+		for (ElementaryFile file : new ElementaryFile[] { heapFile, sidecarFile }) {
+			file.setSecStatus(securityStatus);
+			file.updateLifeCycleState(Iso7816LifeCycleState.OPERATIONAL_ACTIVATED);
+			
+			ByteBuffer part = file.getContent(1, 2);
+			assertTrue(part.isReadOnly());
+			assertEquals(ByteBuffer.wrap(new byte[] { 2, 3 }), part);
+			assertEquals(ByteBuffer.wrap(new byte[] { 3, 4 }), file.getContent(2, 10));
+			assertEquals(0, file.getContent(4, 10).remaining());
+			assertEquals(0, file.getContent(7, 10).remaining());
+		}
+	}
 }
@@ -0,0 +1,60 @@
+package de.persosim.simulator.crypto;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import de.persosim.simulator.test.PersoSimTestCase;
+
+public class DeterministicRandomProviderTest extends PersoSimTestCase {
+
+	/**
+	 * Positive test: generators of the same seed and stream return the same
+	 * values.
+	 */
+	@Test
+	public void testGetSecureRandom() {
+		assertArrayEquals(nextBytes(new DeterministicRandomProvider(42), 0),
+				nextBytes(new DeterministicRandomProvider(42), 0));
+	}
+
+	/**
+	 * Positive test: different streams of the same seed return different
+	 * values.
+	 */
+	@Test
+	public void testGetSecureRandomDifferentStreams() {
+		DeterministicRandomProvider provider = new DeterministicRandomProvider(42);
+		assertFalse(Arrays.equals(nextBytes(provider, 0), nextBytes(provider, 1)));
+	}
+
+	/**
+	 * Positive test: different seeds return different values.
+	 */
+	@Test
+	public void testGetSecureRandomDifferentSeeds() {
+		assertFalse(Arrays.equals(nextBytes(new DeterministicRandomProvider(42), 0),
+				nextBytes(new DeterministicRandomProvider(43), 0)));
+	}
+
+	/**
+	 * Positive test: the provider is labelled as deterministic, the default
+	 * provider is not.
+	 */
+	@Test
+	public void testIsDeterministic() {
+		assertTrue(new DeterministicRandomProvider(42).isDeterministic());
+		assertFalse(new DrbgRandomProvider().isDeterministic());
+	}
+
+	private static byte[] nextBytes(RandomProvider provider, int stream) {
+		byte[] bytes = new byte[32];
+		provider.getSecureRandom(stream).nextBytes(bytes);
+		return bytes;
+	}
+
+}
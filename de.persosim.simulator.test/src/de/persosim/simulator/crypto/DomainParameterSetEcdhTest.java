@@ -460,7 +460,7 @@ public class DomainParameterSetEcdhTest extends PersoSimTestCase {
 	@Test
 	public void testPerformEcdhKeyAgreement() throws InvalidKeySpecException, NoSuchAlgorithmException {
 //		DomainParameterSetEcdh domainParameterSetUnMapped = (DomainParameterSetEcdh) StandardizedDomainParameters.getDomainParameterSetById(13);
-		GenericMappingEcdh mapping = new GenericMappingEcdh();
+		GenericMappingEcdh mapping = new GenericMappingEcdh(new SecureRandom());
 		
 		byte[] privateKeyDataPicc = HexString.toByteArray("7FC3DE0EDE951E6181392527612FF2A50D4E6C6FE00F7A92E66CB3D7B7D23044");
 		byte[] publicKeyDataPcd = HexString.toByteArray("0424EF5B5C5D5F085783357C34C01660C6A062005BA1E347EB5E890DC34A305085161950814AE4D7BF20137D5C425E039CCC250835D69E8FEE92E302F468F39394");
@@ -485,7 +485,7 @@ public class DomainParameterSetEcdhTest extends PersoSimTestCase {
 	@Test
 	public void testPerformEcdhKeyAgreement_wrongPublicKey() throws InvalidKeySpecException, NoSuchAlgorithmException, NoSuchProviderException, InvalidAlgorithmParameterException {
 //		DomainParameterSetEcdh domainParameterSetUnMapped = (DomainParameterSetEcdh) StandardizedDomainParameters.getDomainParameterSetById(13);
-		GenericMappingEcdh mapping = new GenericMappingEcdh();
+		GenericMappingEcdh mapping = new GenericMappingEcdh(new SecureRandom());
 		
 		byte[] privateKeyDataPicc = HexString.toByteArray("7FC3DE0EDE951E6181392527612FF2A50D4E6C6FE00F7A92E66CB3D7B7D23044");
 		byte[] publicKeyDataPcd = HexString.toByteArray("047307AED59C716B4328E974EC2460104E013E93B9826A47CB9DB8A104F493F685094776A48D5B6746058D2B0FB206B69E4AA16E8E893BB4908285482BC4B82232");
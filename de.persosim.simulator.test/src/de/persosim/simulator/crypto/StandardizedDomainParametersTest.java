@@ -31,6 +31,18 @@ public class StandardizedDomainParametersTest extends PersoSimTestCase {
 		}
 	}
 	
+	/**
+	 * Positive test case: the domain parameters are parsed only once and the
+	 * same instance is returned for later requests
+	 */
+	@Test
+	public void testGetDomainParameterSetByIdMemoized() {
+		DomainParameterSet domParams = StandardizedDomainParameters.getDomainParameterSetById(13);
+		
+		assertNotNull(domParams);
+		assertSame(domParams, StandardizedDomainParameters.getDomainParameterSetById(13));
+	}
+	
 	/**
 	 * Negative test: check that an unknown AlgorithmIdentifier (syntactically correct) is returned without any modifications
 	 */
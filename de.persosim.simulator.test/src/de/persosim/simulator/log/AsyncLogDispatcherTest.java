@@ -0,0 +1,153 @@
+package de.persosim.simulator.log;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+import org.osgi.service.log.LogEntry;
+import org.osgi.service.log.LogListener;
+
+import de.persosim.simulator.test.PersoSimTestCase;
+import mockit.Mocked;
+
+public class AsyncLogDispatcherTest extends PersoSimTestCase {
+
+	@Mocked
+	LogEntry first;
+	@Mocked
+	LogEntry second;
+	@Mocked
+	LogEntry third;
+
+	private AsyncLogDispatcher dispatcher;
+
+	@After
+	public void tearDown() {
+		if (dispatcher != null) {
+			dispatcher.stop();
+		}
+	}
+
+	/**
+	 * Positive test: entries are dispatched in order to single entry and batch
+	 * listeners.
+	 */
+	@Test
+	public void testDispatch() {
+		List<LogEntry> received = Collections.synchronizedList(new ArrayList<>());
+		List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+		List<LogEntry> receivedInBatches = Collections.synchronizedList(new ArrayList<>());
+		dispatcher = new AsyncLogDispatcher();
+		dispatcher.addListener(received::add);
+		dispatcher.addListener(new BatchLogListener() {
+
+			@Override
+			public void logged(LogEntry entry) {
+				throw new UnsupportedOperationException();
+			}
+
+			@Override
+			public void logged(List<LogEntry> entries) {
+				batchSizes.add(entries.size());
+				receivedInBatches.addAll(entries);
+			}
+		});
+
+		dispatcher.logged(first);
+		dispatcher.logged(second);
+		dispatcher.start();
+		dispatcher.logged(third);
+		dispatcher.stop();
+
+		assertEntries(received);
+		assertEntries(receivedInBatches);
+		assertTrue(batchSizes.size() <= 2);
+		assertEquals(0, dispatcher.getQueued());
+	}
+
+	/**
+	 * Negative test: entries exceeding the capacity are dropped and counted.
+	 */
+	@Test
+	public void testLoggedQueueFull() {
+		List<LogEntry> received = Collections.synchronizedList(new ArrayList<>());
+		dispatcher = new AsyncLogDispatcher(2, 1);
+		dispatcher.addListener(received::add);
+
+		dispatcher.logged(first);
+		dispatcher.logged(second);
+		dispatcher.logged(third);
+		assertEquals(2, dispatcher.getQueued());
+		assertEquals(1, dispatcher.getDropped());
+
+		dispatcher.start();
+		dispatcher.stop();
+		assertEquals(2, received.size());
+		assertSame(first, received.get(0));
+		assertSame(second, received.get(1));
+	}
+
+	/**
+	 * Negative test: a failing listener does not prevent dispatching to the
+	 * other listeners.
+	 */
+	@Test
+	public void testDispatchFailingListener() {
+		List<LogEntry> received = Collections.synchronizedList(new ArrayList<>());
+		dispatcher = new AsyncLogDispatcher();
+		dispatcher.addListener(entry -> {
+			throw new IllegalStateException("expected by test");
+		});
+		dispatcher.addListener(received::add);
+		dispatcher.start();
+
+		dispatcher.logged(first);
+		dispatcher.logged(second);
+		dispatcher.logged(third);
+		dispatcher.stop();
+
+		assertEntries(received);
+	}
+
+	/**
+	 * Positive test: a listener added twice receives each entry once.
+	 */
+	@Test
+	public void testAddListenerTwice() {
+		List<LogEntry> received = Collections.synchronizedList(new ArrayList<>());
+		LogListener listener = received::add;
+		dispatcher = new AsyncLogDispatcher();
+		dispatcher.addListener(listener);
+		dispatcher.addListener(listener);
+		dispatcher.start();
+
+		dispatcher.logged(first);
+		dispatcher.logged(second);
+		dispatcher.logged(third);
+		dispatcher.stop();
+
+		assertEntries(received);
+	}
+
+	/**
+	 * Negative test: the capacity must be positive.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructorInvalidCapacity() {
+		new AsyncLogDispatcher(0, 1);
+	}
+
+	private void assertEntries(List<LogEntry> received) {
+		assertEquals(3, received.size());
+		assertSame(first, received.get(0));
+		assertSame(second, received.get(1));
+		assertSame(third, received.get(2));
+	}
+
+}
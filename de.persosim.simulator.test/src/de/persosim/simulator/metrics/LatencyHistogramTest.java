@@ -0,0 +1,74 @@
+package de.persosim.simulator.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import de.persosim.simulator.test.PersoSimTestCase;
+
+public class LatencyHistogramTest extends PersoSimTestCase {
+
+	/**
+	 * Positive test: small values are recorded exactly.
+	 */
+	@Test
+	public void testGetPercentile_SmallValues() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 1; i <= 10; i++) {
+			histogram.record(i);
+		}
+
+		assertEquals(10, histogram.getCount());
+		assertEquals(55, histogram.getSum());
+		assertEquals(5, histogram.getPercentile(50));
+		assertEquals(10, histogram.getPercentile(99));
+		assertEquals(10, histogram.getMax());
+	}
+
+	/**
+	 * Positive test: percentiles of large values are within the bucket
+	 * precision.
+	 */
+	@Test
+	public void testGetPercentile_LargeValues() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 1; i <= 1000; i++) {
+			histogram.record(i * 1000L);
+		}
+
+		long p95 = histogram.getPercentile(95);
+		assertTrue(p95 >= 950000);
+		assertTrue(p95 <= 950000 + 950000 / 16);
+		assertEquals(1000000, histogram.getPercentile(100));
+	}
+
+	/**
+	 * Positive test: every value lies within the bounds of its bucket.
+	 */
+	@Test
+	public void testGetBucketIndex() {
+		long[] values = { 0, 15, 16, 17, 31, 32, 1000, 123456789, (1L << 41) - 1 };
+		for (long value : values) {
+			int index = LatencyHistogram.getBucketIndex(value);
+			assertTrue(value <= LatencyHistogram.getBucketUpperBound(index));
+			assertTrue(index == 0 || value > LatencyHistogram.getBucketUpperBound(index - 1));
+		}
+		assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.getBucketIndex(Long.MAX_VALUE));
+	}
+
+	/**
+	 * Positive test: reset discards all values.
+	 */
+	@Test
+	public void testReset() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(1000);
+		histogram.reset();
+
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getMax());
+		assertEquals(0, histogram.getPercentile(50));
+	}
+
+}
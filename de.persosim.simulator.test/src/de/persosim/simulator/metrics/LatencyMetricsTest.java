@@ -0,0 +1,52 @@
+package de.persosim.simulator.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+import de.persosim.simulator.test.PersoSimTestCase;
+
+public class LatencyMetricsTest extends PersoSimTestCase {
+
+	/**
+	 * Positive test: latencies are recorded per instruction byte and status
+	 * word, unknown values are named accordingly.
+	 */
+	@Test
+	public void testGetByCommand() {
+		LatencyMetrics metrics = new LatencyMetrics();
+		metrics.record(0xB0, 0x9000, 10);
+		metrics.record(0xB0, 0x9000, 20);
+		metrics.record(0xB0, 0x6982, 30);
+		metrics.record(LatencyMetrics.UNKNOWN, LatencyMetrics.UNKNOWN, 40);
+
+		Map<String, LatencySummary> byCommand = metrics.getByCommand();
+		assertEquals(3, byCommand.size());
+		assertEquals(2, byCommand.get("B0 9000").getCount());
+		assertEquals(1, byCommand.get("B0 6982").getCount());
+		assertEquals(1, byCommand.get("??").getCount());
+		assertEquals(4, metrics.getTotal().getCount());
+	}
+
+	/**
+	 * Positive test: the same histogram is used for later records of a
+	 * command and reset removes all of them.
+	 */
+	@Test
+	public void testReset() {
+		LatencyMetrics metrics = new LatencyMetrics();
+		metrics.record(0xA4, 0x9000, 10);
+		LatencyHistogram histogram = metrics.getCommandHistograms().get("A4 9000");
+		metrics.record(0xA4, 0x9000, 10);
+		assertSame(histogram, metrics.getCommandHistograms().get("A4 9000"));
+
+		metrics.reset();
+		assertTrue(metrics.getByCommand().isEmpty());
+		assertEquals(0, metrics.getTotal().getCount());
+	}
+
+}
@@ -0,0 +1,143 @@
+package de.persosim.simulator.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.persosim.simulator.perso.DefaultPersoTestPki;
+import de.persosim.simulator.platform.PersoSimKernel;
+import de.persosim.simulator.test.PersoSimTestCase;
+import de.persosim.simulator.utils.HexString;
+
+public class MetricsHttpServerTest extends PersoSimTestCase {
+
+	private MetricsHttpServer server;
+
+	@Before
+	public void setUp() throws Exception {
+		SimulatorMetrics.setEnabled(true);
+		SimulatorMetrics.reset();
+		server = new MetricsHttpServer();
+		server.start(MetricsHttpServer.DEFAULT_HOST, 0);
+	}
+
+	@After
+	public void tearDown() {
+		server.stop();
+	}
+
+	/**
+	 * Positive test: processed APDUs are published in Prometheus text format.
+	 */
+	@Test
+	public void testGetMetrics() throws Exception {
+		PersoSimKernel kernel = new PersoSimKernel();
+		kernel.init(new DefaultPersoTestPki());
+		kernel.powerOn();
+		kernel.process(HexString.toByteArray("00A4000C023F00"));
+
+		HttpURLConnection connection = open(MetricsHttpServer.PATH);
+		assertEquals(200, connection.getResponseCode());
+		assertEquals(PrometheusFormat.CONTENT_TYPE, connection.getContentType());
+		String body = read(connection.getInputStream());
+
+		assertTrue(body.contains("# TYPE persosim_apdus gauge\n"));
+		assertTrue(body.contains("persosim_apdus{ins=\"A4\",sw=\"9000\"} 1\n"));
+		assertTrue(body.contains("persosim_apdu_duration_seconds_count 1\n"));
+		assertTrue(body.contains("persosim_protocol_apdus{protocol=\"FM\",result=\"success\"} 1\n"));
+		assertTrue(body.contains("persosim_protocol_apdus{protocol=\"FM\",result=\"failure\"} 0\n"));
+		assertTrue(body.contains("persosim_layer_duration_seconds_count{layer=\"IoManager\",direction=\"ascending\"} 1\n"));
+	}
+
+	/**
+	 * Positive test: the numbers of processed APDUs are discarded by a reset.
+	 */
+	@Test
+	public void testReset() throws Exception {
+		PersoSimKernel kernel = new PersoSimKernel();
+		kernel.init(new DefaultPersoTestPki());
+		kernel.powerOn();
+		kernel.process(HexString.toByteArray("00A4000C023F00"));
+
+		SimulatorMetrics.reset();
+		String body = PrometheusFormat.render();
+
+		assertFalse(body.contains("persosim_apdus{"));
+		assertTrue(body.contains("persosim_protocol_apdus{protocol=\"FM\",result=\"success\"} 0\n"));
+	}
+
+	/**
+	 * Negative test: other paths are not served.
+	 */
+	@Test
+	public void testGetUnknownPath() throws Exception {
+		assertEquals(404, open(MetricsHttpServer.PATH + "/other").getResponseCode());
+	}
+
+	/**
+	 * Positive test: counters and gauges are published with their help text.
+	 */
+	@Test
+	public void testCounterAndGauge() {
+		SimulatorMetrics.getCounter("test_events", "Events counted by the test").increment();
+		SimulatorMetrics.setGauge("test_level", "Level set by the test", () -> 42);
+
+		String body = PrometheusFormat.render();
+
+		assertTrue(body.contains("# HELP persosim_test_events_total Events counted by the test\n"));
+		assertTrue(body.contains("persosim_test_events_total 1\n"));
+		assertTrue(body.contains("# TYPE persosim_test_level gauge\n"));
+		assertTrue(body.contains("persosim_test_level 42\n"));
+	}
+
+	/**
+	 * Positive test: stopping the server releases it.
+	 */
+	@Test
+	public void testStop() {
+		assertTrue(server.isRunning());
+		server.stop();
+		assertFalse(server.isRunning());
+	}
+
+	/**
+	 * Positive test: 9000 and 61XX are successful, all other status words are
+	 * failures.
+	 */
+	@Test
+	public void testIsSuccess() {
+		assertTrue(PrometheusFormat.isSuccess(0x9000));
+		assertTrue(PrometheusFormat.isSuccess(0x6110));
+		assertFalse(PrometheusFormat.isSuccess(0x6982));
+		assertFalse(PrometheusFormat.isSuccess(LatencyMetrics.UNKNOWN));
+	}
+
+	private HttpURLConnection open(String path) throws IOException {
+		URL url = new URL("http", MetricsHttpServer.DEFAULT_HOST, server.getPort(), path);
+		return (HttpURLConnection) url.openConnection();
+	}
+
+	private static String read(InputStream in) throws IOException {
+		try (InputStream stream = in) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			int read;
+			while ((read = stream.read(buffer)) != -1) {
+				out.write(buffer, 0, read);
+			}
+			return new String(out.toByteArray(), StandardCharsets.UTF_8);
+		}
+	}
+
+}
@@ -0,0 +1,85 @@
+package de.persosim.simulator.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.persosim.simulator.perso.DefaultPersoTestPki;
+import de.persosim.simulator.platform.IoManager;
+import de.persosim.simulator.platform.PersoSimKernel;
+import de.persosim.simulator.securemessaging.SecureMessaging;
+import de.persosim.simulator.test.PersoSimTestCase;
+import de.persosim.simulator.utils.HexString;
+
+public class SimulatorMetricsTest extends PersoSimTestCase {
+
+	private PersoSimKernel kernel;
+
+	@Before
+	public void setUp() throws Exception {
+		kernel = new PersoSimKernel();
+		kernel.init(new DefaultPersoTestPki());
+		kernel.powerOn();
+		SimulatorMetrics.setEnabled(true);
+		SimulatorMetrics.reset();
+	}
+
+	@After
+	public void tearDown() {
+		SimulatorMetrics.setEnabled(true);
+	}
+
+	/**
+	 * Positive test: processing an APDU is recorded by the kernel, each layer
+	 * and the file protocol, keyed by instruction and status word.
+	 */
+	@Test
+	public void testProcess() {
+		kernel.process(HexString.toByteArray("00A4000C023F00"));
+
+		assertEquals(1, SimulatorMetrics.getKernel().getTotal().getCount());
+		assertEquals(1, SimulatorMetrics.getKernel().getByCommand().get("A4 9000").getCount());
+		assertEquals(1, SimulatorMetrics.getLayer(IoManager.IOMANAGER, true).getTotal().getCount());
+		assertEquals(1, SimulatorMetrics.getLayer(SecureMessaging.SECUREMESSAGING, false).getTotal().getCount());
+		assertEquals(1, SimulatorMetrics.getProtocol("FM").getTotal().getCount());
+	}
+
+	/**
+	 * Positive test: nothing is recorded while the metrics are disabled.
+	 */
+	@Test
+	public void testProcess_Disabled() {
+		SimulatorMetrics.setEnabled(false);
+		kernel.process(HexString.toByteArray("00A4000C023F00"));
+
+		assertEquals(0, SimulatorMetrics.getKernel().getTotal().getCount());
+	}
+
+	/**
+	 * Positive test: the metrics are exposed as platform MBeans with a reset
+	 * operation.
+	 */
+	@Test
+	public void testMBean() throws Exception {
+		kernel.process(HexString.toByteArray("00A4000C023F00"));
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName kernelName = new ObjectName(SimulatorMetrics.DOMAIN + ":type=Kernel");
+
+		CompositeData total = (CompositeData) server.getAttribute(kernelName, "Total");
+		assertEquals(1L, total.get("count"));
+		assertTrue(server.isRegistered(new ObjectName(SimulatorMetrics.DOMAIN + ":type=Protocol,name=\"FM\"")));
+
+		server.invoke(kernelName, "reset", null, null);
+		assertEquals(0, SimulatorMetrics.getKernel().getTotal().getCount());
+	}
+
+}
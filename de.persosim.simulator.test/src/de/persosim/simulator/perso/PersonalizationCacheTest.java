@@ -0,0 +1,183 @@
+package de.persosim.simulator.perso;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import mockit.Deencapsulation;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.persosim.simulator.cardobjects.AuthObjectIdentifier;
+import de.persosim.simulator.cardobjects.PasswordAuthObjectWithRetryCounter;
+import de.persosim.simulator.platform.CommandProcessor;
+import de.persosim.simulator.platform.Layer;
+import de.persosim.simulator.platform.PersoSimKernel;
+import de.persosim.simulator.platform.PersonalizationHelper;
+import de.persosim.simulator.test.PersoSimTestCase;
+
+public class PersonalizationCacheTest extends PersoSimTestCase {
+
+	private PersonalizationCache cache;
+
+	private static Path getProfilePath(String profile) {
+		return Paths.get("../de.persosim.simulator/personalization/profiles/" + profile + ".perso").toAbsolutePath()
+				.normalize();
+	}
+
+	private static String toXml(Object object) {
+		StringWriter writer = new StringWriter();
+		PersonalizationFactory.marshal(object, writer);
+		return writer.toString();
+	}
+
+	private Path copyProfile(String profile, String fileName) throws Exception {
+		Path target = getTmpFolder().toPath().resolve(fileName);
+		Files.copy(getProfilePath(profile), target, StandardCopyOption.REPLACE_EXISTING);
+		return target;
+	}
+
+	private static PasswordAuthObjectWithRetryCounter getPin(PersoSimKernel kernel) {
+		List<Layer> layers = Deencapsulation.getField(kernel, "layers");
+		return (PasswordAuthObjectWithRetryCounter) PersonalizationHelper
+				.getUniqueCompatibleLayer(layers, CommandProcessor.class).getMasterFile()
+				.findChildren(new AuthObjectIdentifier(3)).iterator().next();
+	}
+
+	@Before
+	public void setUp() {
+		cache = new PersonalizationCache(2);
+	}
+
+	/**
+	 * Positive test: a cached personalization is returned as a new copy
+	 * without parsing the file again.
+	 */
+	@Test
+	public void testGetPersonalizationCached() throws Exception {
+		String path = getProfilePath("Profile01").toString();
+
+		Personalization first = cache.getPersonalization(path);
+		Personalization second = cache.getPersonalization(path);
+
+		assertNotSame(first, second);
+		assertEquals(toXml(first), toXml(second));
+		assertEquals(1, cache.getMissCount());
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getSize());
+	}
+
+	/**
+	 * Positive test: a modified file is parsed again.
+	 */
+	@Test
+	public void testGetPersonalizationModifiedFile() throws Exception {
+		Path file = copyProfile("Profile01", "PersonalizationCacheTest.perso");
+		cache.getPersonalization(file.toString());
+
+		Files.copy(getProfilePath("Profile02"), file, StandardCopyOption.REPLACE_EXISTING);
+		Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 2000));
+		Personalization perso = cache.getPersonalization(file.toString());
+
+		assertEquals(toXml(PersonalizationFactory.unmarshal(getProfilePath("Profile02").toString())), toXml(perso));
+		assertEquals(2, cache.getMissCount());
+		assertEquals(0, cache.getHitCount());
+	}
+
+	/**
+	 * Positive test: the least recently used personalization is evicted when
+	 * the capacity is exceeded.
+	 */
+	@Test
+	public void testGetPersonalizationEvictsLeastRecentlyUsed() throws Exception {
+		String profile01 = getProfilePath("Profile01").toString();
+		String profile02 = getProfilePath("Profile02").toString();
+		String profile03 = getProfilePath("Profile03").toString();
+
+		cache.getPersonalization(profile01);
+		cache.getPersonalization(profile02);
+		cache.getPersonalization(profile01);
+		cache.getPersonalization(profile03);
+		assertEquals(2, cache.getSize());
+
+		cache.getPersonalization(profile01);
+		assertEquals(2, cache.getHitCount());
+		cache.getPersonalization(profile02);
+		assertEquals(4, cache.getMissCount());
+	}
+
+	/**
+	 * Positive test: a released kernel is reused in the state after its
+	 * initialization.
+	 */
+	@Test
+	public void testGetKernelReusesReleasedKernel() throws Exception {
+		String path = getProfilePath("Profile01").toString();
+		PersoSimKernel kernel = cache.getKernel(path);
+		int retryCounter = getPin(kernel).getRetryCounterCurrentValue();
+		getPin(kernel).decrementRetryCounter();
+
+		cache.releaseKernel(kernel);
+
+		assertSame(kernel, cache.getKernel(path));
+		assertEquals(retryCounter, getPin(kernel).getRetryCounterCurrentValue());
+		assertEquals(1, cache.getMissCount());
+		assertEquals(1, cache.getHitCount());
+	}
+
+	/**
+	 * Positive test: kernels in use are not handed out again.
+	 */
+	@Test
+	public void testGetKernelInUse() throws Exception {
+		String path = getProfilePath("Profile01").toString();
+
+		PersoSimKernel kernel = cache.getKernel(path);
+
+		assertNotSame(kernel, cache.getKernel(path));
+	}
+
+	/**
+	 * Positive test: a kernel released after its file was modified is not
+	 * reused.
+	 */
+	@Test
+	public void testGetKernelModifiedFile() throws Exception {
+		Path file = copyProfile("Profile01", "PersonalizationCacheTest.perso");
+		PersoSimKernel kernel = cache.getKernel(file.toString());
+
+		Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 2000));
+		cache.releaseKernel(kernel);
+
+		assertNotSame(kernel, cache.getKernel(file.toString()));
+		assertEquals(2, cache.getMissCount());
+	}
+
+	/**
+	 * Negative test: missing files are reported as such.
+	 */
+	@Test(expected = FileNotFoundException.class)
+	public void testGetPersonalizationMissingFile() throws Exception {
+		cache.getPersonalization(getTmpFolder().getAbsolutePath() + File.separator + "missing.perso");
+	}
+
+	/**
+	 * Negative test: the capacity must be positive.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testSetCapacityZero() {
+		cache.setCapacity(0);
+	}
+
+}
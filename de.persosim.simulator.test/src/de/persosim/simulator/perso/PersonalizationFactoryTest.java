@@ -0,0 +1,142 @@
+package de.persosim.simulator.perso;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.spec.ECParameterSpec;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import com.thoughtworks.xstream.converters.ConversionException;
+
+import de.persosim.simulator.crypto.DomainParameterSetEcdh;
+import de.persosim.simulator.crypto.StandardizedDomainParameters;
+import de.persosim.simulator.perso.xstream.KeyConverter;
+import de.persosim.simulator.platform.PersonalizationHelper;
+import de.persosim.simulator.test.PersoSimTestCase;
+
+public class PersonalizationFactoryTest extends PersoSimTestCase {
+
+	private static String getProfilePath(String profile) {
+		return Paths.get("../de.persosim.simulator/personalization/profiles/" + profile + ".perso").toAbsolutePath()
+				.normalize().toString();
+	}
+
+	private static String toXml(Object object) {
+		StringWriter writer = new StringWriter();
+		PersonalizationFactory.marshal(object, writer);
+		return writer.toString();
+	}
+
+	/**
+	 * Positive test: several profiles are unmarshalled concurrently with the
+	 * same result as when unmarshalled sequentially.
+	 */
+	@Test
+	public void testUnmarshalConcurrently() throws Exception {
+		String[] profiles = { "Profile01", "Profile02", "Profile03", "Profile04", "Profile05", "Profile06" };
+
+		List<String> expected = new ArrayList<>();
+		for (String profile : profiles) {
+			expected.add(toXml(PersonalizationFactory.unmarshal(getProfilePath(profile))));
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(profiles.length);
+		try {
+			List<Future<String>> results = new ArrayList<>();
+			for (final String profile : profiles) {
+				results.add(executor.submit(new Callable<String>() {
+					@Override
+					public String call() throws Exception {
+						return toXml(PersonalizationFactory.unmarshal(getProfilePath(profile)));
+					}
+				}));
+			}
+
+			for (int i = 0; i < profiles.length; i++) {
+				assertEquals(profiles[i], expected.get(i), results.get(i).get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Negative test: values of a previously unmarshalled object must not be
+	 * used to complete an invalid one.
+	 */
+	@Test(expected = ConversionException.class)
+	public void testUnmarshalIncompleteAfterComplete() {
+		ECParameterSpec spec = ((DomainParameterSetEcdh) StandardizedDomainParameters.getDomainParameterSetById(13))
+				.getKeySpec();
+		String xml = toXml(spec);
+		PersonalizationFactory.unmarshal(new StringReader(xml));
+
+		String incompleteXml = xml.replaceAll("<n>[0-9]*</n>", "");
+		PersonalizationFactory.unmarshal(new StringReader(incompleteXml));
+	}
+
+	/**
+	 * Positive test: a personalization is streamed to a file and read back
+	 * without changes.
+	 */
+	@Test
+	public void testMarshalUnmarshalFile() throws Exception {
+		Object perso = PersonalizationFactory.unmarshal(getProfilePath("Profile01"));
+		String file = getTmpFolder().getAbsolutePath() + File.separator + "PersonalizationFactoryTest.perso";
+
+		PersonalizationFactory.marshal(perso, file);
+
+		assertEquals(toXml(perso), toXml(PersonalizationFactory.unmarshal(file)));
+	}
+
+	/**
+	 * Positive test: the class attribute of keys restored by the
+	 * {@link KeyConverter} is not written.
+	 */
+	@Test
+	public void testMarshalOmitsKeyClassAttribute() throws Exception {
+		String xml = toXml(new Profile01());
+
+		assertFalse(xml.contains("class=\"org.bouncycastle"));
+		assertTrue(xml.contains("<key id="));
+	}
+
+	/**
+	 * Positive test: large file contents are moved into a sidecar file and
+	 * read from it when the personalization is loaded again.
+	 */
+	@Test
+	public void testMarshalSidecar() throws Exception {
+		Personalization perso = (Personalization) PersonalizationFactory.unmarshal(getProfilePath("Profile01"));
+		String file = getTmpFolder().getAbsolutePath() + File.separator + "PersonalizationFactoryTestSidecar.perso";
+		String expectedXml = toXml(perso);
+		
+		PersonalizationFactory.marshal(perso, file, 256);
+		
+		assertEquals(expectedXml, toXml(perso));
+		File sidecar = new File(file + PersonalizationFactory.SIDECAR_SUFFIX);
+		assertTrue(sidecar.length() > 0);
+		assertTrue(new String(Files.readAllBytes(Paths.get(file)), StandardCharsets.UTF_8)
+				.contains("<file>" + sidecar.getName() + "</file>"));
+		
+		Personalization restored = (Personalization) PersonalizationFactory.unmarshal(file);
+		assertArrayEquals(PersonalizationHelper.getFileFromPerso(perso, 0x011D, null),
+				PersonalizationHelper.getFileFromPerso(restored, 0x011D, null));
+	}
+
+}
@@ -0,0 +1,145 @@
+package de.persosim.simulator.perso;
+
+import static mockit.Deencapsulation.getField;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.persosim.simulator.cardobjects.DedicatedFileIdentifier;
+import de.persosim.simulator.cardobjects.ElementaryFile;
+import de.persosim.simulator.cardobjects.FileIdentifier;
+import de.persosim.simulator.cardobjects.MasterFile;
+import de.persosim.simulator.cardobjects.ShortFileIdentifier;
+import de.persosim.simulator.platform.CommandProcessor;
+import de.persosim.simulator.platform.PersonalizationHelper;
+import de.persosim.simulator.protocols.ta.CertificateRole;
+import de.persosim.simulator.protocols.ta.RelativeAuthorization;
+import de.persosim.simulator.protocols.ta.TerminalType;
+import de.persosim.simulator.seccondition.OrSecCondition;
+import de.persosim.simulator.seccondition.SecCondition;
+import de.persosim.simulator.seccondition.TaSecurityCondition;
+import de.persosim.simulator.test.PersoSimTestCase;
+import de.persosim.simulator.utils.BitField;
+
+public class PersonalizationInternerTest extends PersoSimTestCase {
+
+	private static final String PROFILE_FOLDER = "../de.persosim.simulator/personalization/profiles";
+
+	private PersonalizationInterner interner;
+
+	@Before
+	public void setUp() {
+		interner = new PersonalizationInterner();
+	}
+
+	/**
+	 * Positive test: structurally identical values are replaced by a single
+	 * instance, different values are kept.
+	 */
+	@Test
+	public void testInternValues() throws Exception {
+		MasterFile mf = new MasterFile(new FileIdentifier(0x3F00), new DedicatedFileIdentifier(new byte[] { 1 }));
+		ElementaryFile first = createFile(0x0101, 5);
+		ElementaryFile second = createFile(0x0102, 5);
+		ElementaryFile third = createFile(0x0103, 6);
+		mf.addChild(first);
+		mf.addChild(second);
+		mf.addChild(third);
+
+		assertTrue(interner.intern(mf) > 0);
+
+		SecCondition firstCondition = getReadingConditions(first);
+		assertSame(firstCondition, getReadingConditions(second));
+		assertNotSame(firstCondition, getReadingConditions(third));
+	}
+
+	/**
+	 * Positive test: copies of the constant access conditions are replaced by
+	 * the constants.
+	 */
+	@Test
+	public void testInternConstants() throws Exception {
+		Personalization perso = (Personalization) PersonalizationFactory
+				.unmarshal(new File(PROFILE_FOLDER, "Profile01.perso").getPath());
+		ElementaryFile cardAccess = getFile(perso, 0x011C);
+		assertNotSame(SecCondition.DENIED, (Object) getField(cardAccess, "writingConditions"));
+
+		interner.intern(perso);
+
+		assertSame(SecCondition.DENIED, (Object) getField(cardAccess, "writingConditions"));
+	}
+
+	/**
+	 * Positive test: values and file contents are shared between
+	 * personalizations, modifying the contents of one does not affect the
+	 * other.
+	 */
+	@Test
+	public void testInternSharedContents() throws Exception {
+		String path = new File(PROFILE_FOLDER, "Profile01.perso").getPath();
+		Personalization first = (Personalization) PersonalizationFactory.unmarshal(path);
+		Personalization second = (Personalization) PersonalizationFactory.unmarshal(path);
+		interner.intern(first);
+		int size = interner.getSize();
+		interner.intern(second);
+		assertEquals(size, interner.getSize());
+
+		ElementaryFile firstFile = getFile(first, 0x011C);
+		ElementaryFile secondFile = getFile(second, 0x011C);
+		assertSame(getField(firstFile, "content"), (Object) getField(secondFile, "content"));
+		assertSame(getReadingConditions(firstFile), getReadingConditions(secondFile));
+
+		byte[] expected = secondFile.getContent();
+		firstFile.update(0, new byte[] { 0x00 });
+
+		assertArrayEquals(expected, secondFile.getContent());
+		assertEquals(0x00, firstFile.getContent()[0]);
+	}
+
+	/**
+	 * Positive test: values no longer referenced by any personalization are
+	 * forgotten after they have been garbage collected.
+	 */
+	@Test
+	public void testInternReleasesUnusedValues() throws Exception {
+		int size = interner.getSize();
+		MasterFile mf = new MasterFile(new FileIdentifier(0x3F00), new DedicatedFileIdentifier(new byte[] { 1 }));
+		mf.addChild(createFile(0x0101, 5));
+		interner.intern(mf);
+		assertTrue(interner.getSize() > size);
+
+		mf = null;
+		for (int i = 0; i < 50 && interner.getSize() > size; i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+
+		assertEquals(size, interner.getSize());
+	}
+
+	private static ElementaryFile createFile(int fid, int bit) {
+		SecCondition readingConditions = new OrSecCondition(new TaSecurityCondition(TerminalType.IS, null),
+				new TaSecurityCondition(TerminalType.AT,
+						new RelativeAuthorization(CertificateRole.TERMINAL, new BitField(38).flipBit(bit))));
+		return new ElementaryFile(new FileIdentifier(fid), new ShortFileIdentifier(fid & 0x1F), new byte[] { 1, 2 },
+				readingConditions, SecCondition.DENIED, SecCondition.DENIED);
+	}
+
+	private static SecCondition getReadingConditions(ElementaryFile file) {
+		return getField(file, "readingConditions");
+	}
+
+	private static ElementaryFile getFile(Personalization perso, int fid) {
+		MasterFile mf = PersonalizationHelper.getUniqueCompatibleLayer(perso.getLayerList(), CommandProcessor.class)
+				.getMasterFile();
+		return (ElementaryFile) mf.findChildren(new FileIdentifier(fid)).iterator().next();
+	}
+
+}
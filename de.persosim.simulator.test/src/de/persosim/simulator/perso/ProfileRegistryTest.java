@@ -0,0 +1,134 @@
+package de.persosim.simulator.perso;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.persosim.simulator.cardobjects.MasterFile;
+import de.persosim.simulator.cardobjects.TrustPointCardObject;
+import de.persosim.simulator.cardobjects.TrustPointIdentifier;
+import de.persosim.simulator.perso.ProfileRegistry.ProfileInfo;
+import de.persosim.simulator.platform.CommandProcessor;
+import de.persosim.simulator.platform.PersonalizationHelper;
+import de.persosim.simulator.protocols.ta.TerminalType;
+import de.persosim.simulator.recording.ApduRecordReader;
+import de.persosim.simulator.recording.ApduRecorder;
+import de.persosim.simulator.test.PersoSimTestCase;
+
+public class ProfileRegistryTest extends PersoSimTestCase {
+
+	private static final File PROFILE_FOLDER = new File("../de.persosim.simulator/personalization/profiles")
+			.getAbsoluteFile();
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private PersonalizationCache cache;
+	private ProfileRegistry registry;
+
+	@Before
+	public void setUp() {
+		cache = new PersonalizationCache();
+		registry = new ProfileRegistry(cache);
+	}
+
+	/**
+	 * Positive test: all bundled profiles are loaded concurrently, validated
+	 * and served from the cache afterwards.
+	 */
+	@Test
+	public void testPreloadFolder() throws Exception {
+		List<ProfileInfo> results = registry.preloadFolder(PROFILE_FOLDER, 4);
+
+		assertEquals(12, results.size());
+		for (ProfileInfo result : results) {
+			assertTrue(result.toString(), result.isValid());
+			assertSame(result, registry.getProfile(result.getPath()));
+		}
+		assertEquals(12, cache.getMissCount());
+
+		registry.getPersonalization(new File(PROFILE_FOLDER, "Profile01.perso").getPath());
+		assertEquals(1, cache.getHitCount());
+	}
+
+	/**
+	 * Negative test: profiles that can not be parsed are reported as invalid
+	 * without affecting other profiles.
+	 */
+	@Test
+	public void testPreloadInvalidProfile() throws Exception {
+		File invalid = new File(getTmpFolder(), "ProfileRegistryTest.perso");
+		Files.write(invalid.toPath(), "<invalid/>".getBytes(StandardCharsets.UTF_8));
+		String valid = new File(PROFILE_FOLDER, "Profile02.perso").getPath();
+
+		List<ProfileInfo> results = registry.preload(Arrays.asList(invalid.getPath(), valid), 2);
+
+		assertFalse(results.get(0).isValid());
+		assertTrue(results.get(1).isValid());
+		assertEquals(2, registry.getProfiles().size());
+	}
+
+	/**
+	 * Positive test: validating profiles does not power on a simulator, so
+	 * nothing is recorded while preloading.
+	 */
+	@Test
+	public void testPreloadNotRecorded() throws Exception {
+		ApduRecorder recorder = new ApduRecorder(folder.getRoot());
+		recorder.start();
+		try {
+			registry.preload(Arrays.asList(new File(PROFILE_FOLDER, "Profile01.perso").getPath()), 1);
+		} finally {
+			recorder.stop();
+		}
+
+		for (File file : ApduRecorder.getCaptureFiles(folder.getRoot())) {
+			try (ApduRecordReader reader = new ApduRecordReader(new FileInputStream(file))) {
+				assertTrue(reader.readAll().isEmpty());
+			}
+		}
+	}
+
+	/**
+	 * Positive test: personalizations returned by the registry share their
+	 * immutable values.
+	 */
+	@Test
+	public void testGetPersonalizationSharesValues() throws Exception {
+		Personalization first = registry.getPersonalization(new File(PROFILE_FOLDER, "Profile01.perso").getPath());
+		Personalization second = registry.getPersonalization(new File(PROFILE_FOLDER, "Profile02.perso").getPath());
+
+		assertNotSame(first, second);
+		assertSame(getTrustPoint(first).getCurrentCertificate(), getTrustPoint(second).getCurrentCertificate());
+	}
+
+	private static TrustPointCardObject getTrustPoint(Personalization perso) {
+		MasterFile mf = PersonalizationHelper.getUniqueCompatibleLayer(perso.getLayerList(), CommandProcessor.class)
+				.getMasterFile();
+		return (TrustPointCardObject) mf.findChildren(new TrustPointIdentifier(TerminalType.AT)).iterator().next();
+	}
+
+	/**
+	 * Negative test: profiles not loaded are unknown to the registry.
+	 */
+	@Test
+	public void testGetProfileUnknown() {
+		assertNull(registry.getProfile(new File(PROFILE_FOLDER, "Profile01.perso").getPath()));
+	}
+
+}
@@ -0,0 +1,182 @@
+package de.persosim.simulator.perso;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.security.KeyPair;
+import java.security.PublicKey;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import de.persosim.simulator.cardobjects.CardObject;
+import de.persosim.simulator.cardobjects.DedicatedFileIdentifier;
+import de.persosim.simulator.cardobjects.KeyIdentifier;
+import de.persosim.simulator.cardobjects.KeyPairObject;
+import de.persosim.simulator.cardobjects.MasterFile;
+import de.persosim.simulator.documents.Mrz;
+import de.persosim.simulator.perso.SyntheticPersonalizationGenerator.Identity;
+import de.persosim.simulator.perso.SyntheticPersonalizationGenerator.Sink;
+import de.persosim.simulator.platform.CommandProcessor;
+import de.persosim.simulator.platform.PersoSimKernel;
+import de.persosim.simulator.platform.PersonalizationHelper;
+import de.persosim.simulator.test.PersoSimTestCase;
+import de.persosim.simulator.utils.HexString;
+
+public class SyntheticPersonalizationGeneratorTest extends PersoSimTestCase {
+
+	/**
+	 * Positive test: identities are derived deterministically from the seed.
+	 */
+	@Test
+	public void testGetIdentityDeterministic() {
+		Identity expected = new SyntheticPersonalizationGenerator(42).getIdentity(7);
+		Identity actual = new SyntheticPersonalizationGenerator(42).getIdentity(7);
+
+		assertEquals(expected.toString(), actual.toString());
+		assertEquals(expected.getPin(), actual.getPin());
+		assertEquals(expected.getCan(), actual.getCan());
+		assertEquals(expected.getDateOfBirth(), actual.getDateOfBirth());
+		assertNotEquals(expected.getDocumentNumber(),
+				new SyntheticPersonalizationGenerator(43).getIdentity(7).getDocumentNumber());
+	}
+
+	/**
+	 * Positive test: names and document numbers are unique and valid for the
+	 * MRZ.
+	 */
+	@Test
+	public void testGetIdentityUnique() {
+		SyntheticPersonalizationGenerator generator = new SyntheticPersonalizationGenerator(1);
+		Set<String> names = new HashSet<>();
+		Set<String> documentNumbers = new HashSet<>();
+
+		for (int i = 0; i < 5000; i++) {
+			Identity identity = generator.getIdentity(i);
+			assertTrue(names.add(identity.getFamilyName()));
+			assertTrue(documentNumbers.add(identity.getDocumentNumber()));
+			assertEquals(9, identity.getDocumentNumber().length());
+			assertEquals(30, identity.getMrzLine3().length());
+			assertEquals(6, identity.getPin().length());
+		}
+	}
+
+	/**
+	 * Positive test: the personalization contains the identity and can be
+	 * used by the simulator.
+	 */
+	@Test
+	public void testGenerate() throws Exception {
+		SyntheticPersonalizationGenerator generator = new SyntheticPersonalizationGenerator(42);
+		SyntheticProfile profile = generator.generate(3);
+		Identity identity = profile.getIdentity();
+
+		byte[] dg1 = PersonalizationHelper.getFileFromPerso(profile, 0x0101,
+				new DedicatedFileIdentifier(HexString.toByteArray("A0000002471001")));
+		String mrz = new String(dg1, dg1.length - 90, 90, "US-ASCII");
+		String documentNumber = identity.getDocumentNumber();
+		assertEquals(documentNumber, mrz.substring(5, 14));
+		assertEquals((char) Mrz.computeChecksum(documentNumber.getBytes(), 0, 9), mrz.charAt(14));
+		assertEquals(identity.getMrzLine3(), mrz.substring(60));
+
+		PersoSimKernel kernel = new PersoSimKernel();
+		kernel.init(profile);
+		kernel.powerOn();
+	}
+
+	/**
+	 * Positive test: the passwords of an unmarshalled profile are still
+	 * available.
+	 */
+	@Test
+	public void testUnmarshalPasswords() throws Exception {
+		SyntheticPersonalizationGenerator generator = new SyntheticPersonalizationGenerator(42);
+		Identity identity = generator.getIdentity(5);
+		StringWriter writer = new StringWriter();
+		PersonalizationFactory.marshal(generator.generate(5), writer);
+
+		SyntheticProfile xml = (SyntheticProfile) PersonalizationFactory.unmarshal(new StringReader(writer.toString()));
+		SyntheticProfile binary = (SyntheticProfile) PersonalizationFactory.unmarshalBinary(
+				ByteBuffer.wrap(PersonalizationFactory.marshalBinary(generator.generate(5))));
+
+		for (SyntheticProfile profile : Arrays.asList(xml, binary)) {
+			assertEquals(identity.getPin(), profile.getPin());
+			assertEquals(identity.getCan(), profile.getCan());
+			assertEquals(identity.getPuk(), profile.getPuk());
+		}
+	}
+
+	/**
+	 * Positive test: personalizations created concurrently are written to
+	 * files which can be loaded again, RI keys are individual.
+	 */
+	@Test
+	public void testGenerateBinarySink() throws Exception {
+		File folder = new File(getTmpFolder(), "synthetic");
+		folder.mkdirs();
+		SyntheticPersonalizationGenerator generator = new SyntheticPersonalizationGenerator(42);
+
+		generator.generate(0, 4, 2, SyntheticPersonalizationGenerator.binarySink(folder));
+
+		String[] files = folder.list();
+		assertEquals(4, files.length);
+		Set<PublicKey> riKeys = new HashSet<>();
+		for (String file : files) {
+			Personalization perso = (Personalization) PersonalizationFactory
+					.unmarshal(new File(folder, file).getPath());
+			assertTrue(perso instanceof SyntheticProfile);
+			riKeys.add(getKeyPair(perso, 1).getPublic());
+		}
+		assertEquals(4, riKeys.size());
+
+		byte[] expected = PersonalizationFactory.marshalBinary(generator.generate(2));
+		assertArrayEquals(expected, PersonalizationFactory.marshalBinary(
+				PersonalizationFactory.unmarshal(new File(folder, "Synthetic00000002.perso").getPath())));
+	}
+
+	/**
+	 * Negative test: failures of the sink are reported.
+	 */
+	@Test(expected = IOException.class)
+	public void testGenerateSinkFailure() throws Exception {
+		new SyntheticPersonalizationGenerator(42).generate(0, 2, 1, new Sink() {
+			@Override
+			public void accept(Identity identity, Personalization personalization) throws IOException {
+				throw new IOException("card farm unavailable");
+			}
+		});
+	}
+
+	/**
+	 * Positive test: CA keys are shared with the template unless individual
+	 * keys are requested.
+	 */
+	@Test
+	public void testIndividualCaKeys() throws Exception {
+		SyntheticPersonalizationGenerator generator = new SyntheticPersonalizationGenerator(42);
+		assertEquals(getKeyPair(generator.generate(0), 41).getPublic(),
+				getKeyPair(generator.generate(1), 41).getPublic());
+
+		generator.setIndividualCaKeys(true);
+		assertNotEquals(getKeyPair(generator.generate(0), 41).getPublic(),
+				getKeyPair(generator.generate(1), 41).getPublic());
+	}
+
+	private static KeyPair getKeyPair(Personalization perso, int keyId) {
+		MasterFile mf = PersonalizationHelper.getUniqueCompatibleLayer(perso.getLayerList(), CommandProcessor.class)
+				.getMasterFile();
+		Collection<CardObject> keys = mf.findChildren(new KeyIdentifier(keyId));
+		return ((KeyPairObject) keys.iterator().next()).getKeyPair();
+	}
+
+}
@@ -0,0 +1,278 @@
+package de.persosim.simulator.perso.binary;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import de.persosim.simulator.perso.PersoCreationFailedException;
+import de.persosim.simulator.perso.Personalization;
+import de.persosim.simulator.perso.PersonalizationFactory;
+import de.persosim.simulator.test.PersoSimTestCase;
+
+public class BinaryPersonalizationFormatTest extends PersoSimTestCase {
+
+	private static final String PROFILE_01 = Paths.get("../de.persosim.simulator/personalization/profiles/Profile01.perso")
+			.toAbsolutePath().normalize().toString();
+
+	static class Node {
+		Node parent;
+		List<Node> children = new ArrayList<>();
+		int value;
+		transient int ignored;
+	}
+
+	static class Fixed {
+		static Node shared;
+		final int id = 1;
+	}
+
+	private static String toXml(Object object) {
+		StringWriter writer = new StringWriter();
+		PersonalizationFactory.marshal(object, writer);
+		return writer.toString();
+	}
+
+	/**
+	 * Returns a valid binary header followed by the given value bytes.
+	 */
+	private static ByteBuffer withHeader(byte... value) {
+		byte[] binary = PersonalizationFactory.marshalBinary(new Node());
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		out.write(binary, 0, BinaryPersonalizationFormat.HEADER_LENGTH);
+		out.write(value, 0, value.length);
+		return ByteBuffer.wrap(out.toByteArray());
+	}
+
+	/**
+	 * Returns the bytes of a value of type {@link Fixed} whose field layout
+	 * consists of the given field of the given class.
+	 */
+	private static byte[] fixedWithField(String definedIn, String fieldName) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		out.write(BinaryPersonalizationFormat.TAG_OBJECT);
+		out.write(0);
+		writeString(out, Fixed.class.getName());
+		out.write(1);
+		if (definedIn.equals(Fixed.class.getName())) {
+			out.write(0);
+		} else {
+			out.write(1);
+			writeString(out, definedIn);
+		}
+		writeString(out, fieldName);
+		out.write(BinaryPersonalizationFormat.TAG_NULL);
+		return out.toByteArray();
+	}
+
+	private static void writeString(ByteArrayOutputStream out, String value) {
+		byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+		out.write(bytes.length);
+		out.write(bytes, 0, bytes.length);
+	}
+
+	/**
+	 * Positive test: a personalization read from XML is restored from its
+	 * binary representation without any differences in its XML representation.
+	 */
+	@Test
+	public void testRoundtripProfile() throws Exception {
+		Object perso = PersonalizationFactory.unmarshal(PROFILE_01);
+
+		byte[] binary = PersonalizationFactory.marshalBinary(perso);
+		Object restored = PersonalizationFactory.unmarshalBinary(ByteBuffer.wrap(binary));
+
+		assertEquals(perso.getClass(), restored.getClass());
+		assertEquals(toXml(perso), toXml(restored));
+		assertTrue(binary.length < new File(PROFILE_01).length() / 2);
+	}
+
+	/**
+	 * Positive test: binary personalization files are detected when loading
+	 * personalizations from the file system.
+	 */
+	@Test
+	public void testUnmarshalFileDetectsBinaryFormat() throws Exception {
+		Object perso = PersonalizationFactory.unmarshal(PROFILE_01);
+		String binaryFile = getTmpFolder().getAbsolutePath() + File.separator + "Profile01.bin.perso";
+		PersonalizationFactory.marshalBinary(perso, binaryFile);
+
+		Object restored = PersonalizationFactory.unmarshal(binaryFile);
+
+		assertTrue(restored instanceof Personalization);
+		assertEquals(toXml(perso), toXml(restored));
+	}
+
+	/**
+	 * Positive test: shared and cyclic references are restored as such,
+	 * transient fields are not serialized.
+	 */
+	@Test
+	public void testReferencesPreserved() {
+		Node root = new Node();
+		Node child = new Node();
+		child.parent = root;
+		child.value = 42;
+		child.ignored = 17;
+		root.children.add(child);
+		root.children.add(child);
+
+		ByteBuffer buffer = ByteBuffer.wrap(PersonalizationFactory.marshalBinary(root));
+		Node restored = (Node) PersonalizationFactory.unmarshalBinary(buffer);
+
+		assertEquals(2, restored.children.size());
+		assertSame(restored.children.get(0), restored.children.get(1));
+		assertSame(restored, restored.children.get(0).parent);
+		assertEquals(42, restored.children.get(0).value);
+		assertEquals(0, restored.children.get(0).ignored);
+		assertEquals(0, buffer.position());
+	}
+
+	/**
+	 * Negative test: data without the binary header is rejected.
+	 */
+	@Test(expected = PersoCreationFailedException.class)
+	public void testUnmarshalBinaryMissingHeader() {
+		PersonalizationFactory.unmarshalBinary(ByteBuffer.wrap("<xml/>".getBytes()));
+	}
+
+	/**
+	 * Negative test: unsupported versions are rejected.
+	 */
+	@Test(expected = PersoCreationFailedException.class)
+	public void testUnmarshalBinaryUnsupportedVersion() {
+		byte[] binary = PersonalizationFactory.marshalBinary(new Node());
+		binary[BinaryPersonalizationFormat.MAGIC.length + 1]++;
+		PersonalizationFactory.unmarshalBinary(ByteBuffer.wrap(binary));
+	}
+
+	/**
+	 * Negative test: truncated data is rejected.
+	 */
+	@Test(expected = PersoCreationFailedException.class)
+	public void testUnmarshalBinaryTruncated() {
+		byte[] binary = PersonalizationFactory.marshalBinary(new Node());
+		ByteBuffer buffer = ByteBuffer.wrap(binary, 0, binary.length - 1);
+		PersonalizationFactory.unmarshalBinary(buffer);
+	}
+
+	/**
+	 * Negative test: lengths exceeding the remaining data are rejected before
+	 * allocating memory for them.
+	 */
+	@Test(expected = PersoCreationFailedException.class)
+	public void testUnmarshalBinaryLengthExceedsData() {
+		PersonalizationFactory.unmarshalBinary(withHeader(BinaryPersonalizationFormat.TAG_BYTE_ARRAY, (byte) 0xFF,
+				(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0x07));
+	}
+
+	/**
+	 * Negative test: variable length integers longer than 5 bytes are rejected.
+	 */
+	@Test(expected = PersoCreationFailedException.class)
+	public void testUnmarshalBinaryVarIntTooLong() {
+		byte[] value = new byte[16];
+		Arrays.fill(value, (byte) 0x80);
+		value[0] = BinaryPersonalizationFormat.TAG_BYTE_ARRAY;
+		PersonalizationFactory.unmarshalBinary(withHeader(value));
+	}
+
+	/**
+	 * Negative test: classes outside the simulator and the JDK types used by
+	 * the writer are not resolved.
+	 */
+	@Test(expected = PersoCreationFailedException.class)
+	public void testUnmarshalBinaryClassNotAllowed() {
+		byte[] name = "java.lang.ProcessBuilder".getBytes(StandardCharsets.US_ASCII);
+		byte[] value = new byte[3 + name.length];
+		value[0] = BinaryPersonalizationFormat.TAG_CLASS;
+		value[1] = 0;
+		value[2] = (byte) name.length;
+		System.arraycopy(name, 0, value, 3, name.length);
+		PersonalizationFactory.unmarshalBinary(withHeader(value));
+	}
+
+	/**
+	 * Negative test: bit fields exceeding the bits of their words are
+	 * rejected.
+	 */
+	@Test(expected = PersoCreationFailedException.class)
+	public void testUnmarshalBinaryBitFieldExceedsWords() {
+		byte[] value = new byte[11];
+		value[0] = BinaryPersonalizationFormat.TAG_BIT_FIELD;
+		value[1] = 65;
+		value[2] = 1;
+		PersonalizationFactory.unmarshalBinary(withHeader(value));
+	}
+
+	/**
+	 * Negative test: values nested deeper than the limit are rejected.
+	 */
+	@Test(expected = PersoCreationFailedException.class)
+	public void testUnmarshalBinaryNestedTooDeep() {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for (int i = 0; i <= BinaryPersonalizationReader.MAX_NESTING_DEPTH; i++) {
+			out.write(BinaryPersonalizationFormat.TAG_ARRAY);
+			out.write(0);
+			if (i == 0) {
+				writeString(out, Object[].class.getName());
+			}
+			out.write(1);
+		}
+		out.write(BinaryPersonalizationFormat.TAG_NULL);
+		PersonalizationFactory.unmarshalBinary(withHeader(out.toByteArray()));
+	}
+
+	/**
+	 * Negative test: static fields are not set.
+	 */
+	@Test(expected = PersoCreationFailedException.class)
+	public void testUnmarshalBinaryStaticField() {
+		PersonalizationFactory.unmarshalBinary(withHeader(fixedWithField(Fixed.class.getName(), "shared")));
+	}
+
+	/**
+	 * Negative test: final fields are not set.
+	 */
+	@Test(expected = PersoCreationFailedException.class)
+	public void testUnmarshalBinaryFinalField() {
+		PersonalizationFactory.unmarshalBinary(withHeader(fixedWithField(Fixed.class.getName(), "id")));
+	}
+
+	/**
+	 * Negative test: fields of classes outside the hierarchy of the object are
+	 * not set.
+	 */
+	@Test(expected = PersoCreationFailedException.class)
+	public void testUnmarshalBinaryFieldOfOtherClass() {
+		PersonalizationFactory.unmarshalBinary(withHeader(fixedWithField(Node.class.getName(), "value")));
+	}
+
+	/**
+	 * Positive test: simulator classes, the JDK types emitted by the writer
+	 * and arrays of those are allowed, other classes are not.
+	 */
+	@Test
+	public void testIsAllowedClass() {
+		assertTrue(BinaryPersonalizationReader.isAllowedClass(Node.class.getName()));
+		assertTrue(BinaryPersonalizationReader.isAllowedClass("java.util.ArrayList"));
+		assertTrue(BinaryPersonalizationReader.isAllowedClass("[Ljava.lang.Object;"));
+		assertTrue(BinaryPersonalizationReader.isAllowedClass("[[B"));
+		assertFalse(BinaryPersonalizationReader.isAllowedClass("java.lang.Runtime"));
+		assertFalse(BinaryPersonalizationReader.isAllowedClass("[Ljava.lang.ProcessBuilder;"));
+		assertFalse(BinaryPersonalizationReader.isAllowedClass("de.persosim.simulatorX.Foo"));
+	}
+
+}
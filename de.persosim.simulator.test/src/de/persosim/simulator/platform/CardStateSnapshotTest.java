@@ -0,0 +1,172 @@
+package de.persosim.simulator.platform;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import mockit.Deencapsulation;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.persosim.simulator.cardobjects.AuthObjectIdentifier;
+import de.persosim.simulator.cardobjects.DateTimeCardObject;
+import de.persosim.simulator.cardobjects.DedicatedFileIdentifier;
+import de.persosim.simulator.cardobjects.ElementaryFile;
+import de.persosim.simulator.cardobjects.ElementaryFileWithReadWriteCounter;
+import de.persosim.simulator.cardobjects.FileIdentifier;
+import de.persosim.simulator.cardobjects.Iso7816LifeCycleState;
+import de.persosim.simulator.cardobjects.MasterFile;
+import de.persosim.simulator.cardobjects.PasswordAuthObjectWithRetryCounter;
+import de.persosim.simulator.cardobjects.ShortFileIdentifier;
+import de.persosim.simulator.cardobjects.TrustPointCardObject;
+import de.persosim.simulator.cardobjects.TrustPointIdentifier;
+import de.persosim.simulator.crypto.certificates.CardVerifiableCertificate;
+import de.persosim.simulator.perso.DefaultPersoTestPki;
+import de.persosim.simulator.perso.Personalization;
+import de.persosim.simulator.protocols.file.CurrentFileSecMechanism;
+import de.persosim.simulator.protocols.ta.TerminalType;
+import de.persosim.simulator.seccondition.SecCondition;
+import de.persosim.simulator.secstatus.SecMechanism;
+import de.persosim.simulator.secstatus.SecStatus;
+import de.persosim.simulator.secstatus.SecStatus.SecContext;
+import de.persosim.simulator.secstatus.SecStatusMechanismUpdatePropagation;
+import de.persosim.simulator.test.PersoSimTestCase;
+
+public class CardStateSnapshotTest extends PersoSimTestCase {
+
+	private MasterFile mf;
+	private ElementaryFile file;
+	private PasswordAuthObjectWithRetryCounter pin;
+	private DateTimeCardObject date;
+	private SecStatus secStatus;
+
+	@Before
+	public void setUp() throws Exception {
+		mf = new MasterFile(new FileIdentifier(0x3F00), new DedicatedFileIdentifier(new byte[] { 1 }));
+		file = new ElementaryFile(new FileIdentifier(0x0101), new ShortFileIdentifier(1), new byte[] { 1, 2, 3 },
+				SecCondition.ALLOWED, SecCondition.ALLOWED, SecCondition.ALLOWED);
+		pin = new PasswordAuthObjectWithRetryCounter(new AuthObjectIdentifier(3), new byte[] { 1, 2, 3, 4, 5, 6 },
+				"PIN", 6, 6, 3, SecCondition.ALLOWED, SecCondition.DENIED, SecCondition.DENIED, SecCondition.DENIED);
+		date = new DateTimeCardObject(new Date(0));
+		mf.addChild(file);
+		mf.addChild(pin);
+		mf.addChild(date);
+
+		secStatus = new SecStatus();
+		mf.setSecStatus(secStatus);
+		file.updateLifeCycleState(Iso7816LifeCycleState.OPERATIONAL_ACTIVATED);
+		pin.updateLifeCycleState(Iso7816LifeCycleState.OPERATIONAL_ACTIVATED);
+	}
+
+	/**
+	 * Positive test: file contents, retry counters, life cycle states of
+	 * passwords, dates and security contexts are restored.
+	 */
+	@Test
+	public void testRestore() throws Exception {
+		CardStateSnapshot snapshot = new CardStateSnapshot(mf, mf, secStatus);
+
+		file.update(1, new byte[] { 42 });
+		pin.decrementRetryCounter();
+		pin.updateLifeCycleState(Iso7816LifeCycleState.OPERATIONAL_DEACTIVATED);
+		date.update(new Date(1000));
+		secStatus.updateMechanisms(
+				new SecStatusMechanismUpdatePropagation(SecContext.GLOBAL, new CurrentFileSecMechanism(file)));
+
+		assertEquals(4, snapshot.restore());
+
+		assertArrayEquals(new byte[] { 1, 2, 3 }, file.getContent());
+		assertEquals(3, pin.getRetryCounterCurrentValue());
+		assertEquals(Iso7816LifeCycleState.OPERATIONAL_ACTIVATED, pin.getLifeCycleState());
+		assertEquals(new Date(0), date.getDate());
+		assertTrue(secStatus.getCurrentMechanisms(SecContext.GLOBAL,
+				Arrays.<Class<? extends SecMechanism>> asList(CurrentFileSecMechanism.class)).isEmpty());
+	}
+
+	/**
+	 * Positive test: only changed objects are restored, contents recorded by
+	 * the snapshot are not modified and the snapshot can be restored
+	 * repeatedly.
+	 */
+	@Test
+	public void testRestoreOnlyChanges() throws Exception {
+		CardStateSnapshot snapshot = new CardStateSnapshot(mf, mf, secStatus);
+
+		assertEquals(0, snapshot.restore());
+
+		file.update(0, new byte[] { 7 });
+		assertEquals(1, snapshot.restore());
+		assertArrayEquals(new byte[] { 1, 2, 3 }, file.getContent());
+
+		file.update(0, new byte[] { 8 });
+		file.update(2, new byte[] { 9 });
+		pin.decrementRetryCounter();
+		assertEquals(2, snapshot.restore());
+		assertArrayEquals(new byte[] { 1, 2, 3 }, file.getContent());
+		assertEquals(3, pin.getRetryCounterCurrentValue());
+	}
+
+	/**
+	 * Positive test: session contexts stored after creating the snapshot are
+	 * discarded.
+	 */
+	@Test
+	public void testRestoreSessionContexts() throws Exception {
+		secStatus.storeSecStatus(1);
+		CardStateSnapshot snapshot = new CardStateSnapshot(mf, mf, secStatus);
+
+		secStatus.storeSecStatus(2);
+		assertEquals(2, secStatus.getSessionContextStore().getSize());
+
+		assertEquals(1, snapshot.restore());
+		assertEquals(1, secStatus.getSessionContextStore().getSize());
+	}
+
+	/**
+	 * Positive test: the access counters of a file are restored.
+	 */
+	@Test
+	public void testRestoreFileCounters() throws Exception {
+		ElementaryFileWithReadWriteCounter counterFile = new ElementaryFileWithReadWriteCounter(
+				new FileIdentifier(0x0102), new byte[] { 1, 2, 3 });
+		mf.addChild(counterFile);
+		counterFile.updateLifeCycleState(Iso7816LifeCycleState.OPERATIONAL_ACTIVATED);
+		CardStateSnapshot snapshot = new CardStateSnapshot(mf, mf, secStatus);
+
+		Deencapsulation.setField(counterFile, "readCounter", 2);
+		Deencapsulation.setField(counterFile, "writeCounter", 1);
+		assertEquals(1, snapshot.restore());
+		assertEquals(0, counterFile.getReadCounter());
+		assertEquals(0, counterFile.getWriteCounter());
+	}
+
+	/**
+	 * Positive test: the snapshot of a kernel covers the trust points of its
+	 * personalization.
+	 */
+	@Test
+	public void testRestoreKernel() throws Exception {
+		Personalization perso = new DefaultPersoTestPki();
+		PersoSimKernel kernel = new PersoSimKernel();
+		kernel.init(perso);
+		kernel.powerOn();
+		TrustPointCardObject trustPoint = (TrustPointCardObject) PersonalizationHelper
+				.getUniqueCompatibleLayer(perso.getLayerList(), CommandProcessor.class).getMasterFile()
+				.findChildren(new TrustPointIdentifier(TerminalType.AT)).iterator().next();
+		CardVerifiableCertificate certificate = trustPoint.getCurrentCertificate();
+
+		CardStateSnapshot snapshot = kernel.createSnapshot();
+		trustPoint.updateTrustpoint(certificate);
+		kernel.restoreSnapshot(snapshot);
+
+		assertSame(certificate, trustPoint.getCurrentCertificate());
+		assertNull(trustPoint.getPreviousCertificate());
+	}
+
+}
@@ -0,0 +1,62 @@
+package de.persosim.simulator.platform;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import de.persosim.simulator.crypto.DrbgRandomProvider;
+import de.persosim.simulator.perso.DefaultPersoTestPki;
+import de.persosim.simulator.test.PersoSimTestCase;
+import de.persosim.simulator.utils.HexString;
+
+public class PersoSimKernelTest extends PersoSimTestCase {
+
+	private static final byte[] MSE_SET_AT_PACE_PIN = HexString.toByteArray("0022C1A40F800A04007F00070202040202830103");
+	private static final byte[] GA_ENCRYPTED_NONCE = HexString.toByteArray("10860000027C0000");
+
+	/**
+	 * Positive test: kernels using the same random seed return the same
+	 * encrypted PACE nonce.
+	 */
+	@Test
+	public void testSetRandomSeed() throws Exception {
+		byte[] nonce = getEncryptedNonce(42);
+		assertEquals("9000", HexString.encode(Arrays.copyOfRange(nonce, nonce.length - 2, nonce.length)));
+		assertArrayEquals(nonce, getEncryptedNonce(42));
+	}
+
+	/**
+	 * Negative test: kernels using different random seeds return different
+	 * encrypted PACE nonces.
+	 */
+	@Test
+	public void testSetRandomSeedDifferentSeeds() throws Exception {
+		assertFalse(Arrays.equals(getEncryptedNonce(42), getEncryptedNonce(43)));
+	}
+
+	/**
+	 * Positive test: initialized kernels use a non deterministic provider.
+	 */
+	@Test
+	public void testInitRandomProvider() throws Exception {
+		PersoSimKernel kernel = new PersoSimKernel();
+		kernel.init(new DefaultPersoTestPki());
+		assertTrue(kernel.getRandomProvider() instanceof DrbgRandomProvider);
+		assertFalse(kernel.getRandomProvider().isDeterministic());
+	}
+
+	private static byte[] getEncryptedNonce(long seed) throws Exception {
+		PersoSimKernel kernel = new PersoSimKernel();
+		kernel.init(new DefaultPersoTestPki());
+		kernel.setRandomSeed(seed);
+		kernel.powerOn();
+		assertEquals("9000", HexString.encode(kernel.process(MSE_SET_AT_PACE_PIN)));
+		return kernel.process(GA_ENCRYPTED_NONCE);
+	}
+
+}
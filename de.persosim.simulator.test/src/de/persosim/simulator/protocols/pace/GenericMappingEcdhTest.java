@@ -94,7 +94,7 @@ public class GenericMappingEcdhTest extends PersoSimTestCase {
             }
         };
 		
-		GenericMappingEcdh mapping = new GenericMappingEcdh();	
+		GenericMappingEcdh mapping = new GenericMappingEcdh(new SecureRandom());	
 		
 		byte[] nonceSPlainExpected = HexString.toByteArray("1DD01F3933B57DA8EF4F07B5FDC46DC412C9E695707E9A391D804F24E683A305");
 		byte[] mappingDataExpected = HexString.toByteArray("04A983801181B4DF9262ED4D277711BF3AB3FE260E4A814439A80B424CD4A6090E6559F7AE3702AD5C16348B384E09B4B50E8FBD3DEEA081F2A5AB85E7748A8243");
@@ -120,7 +120,7 @@ public class GenericMappingEcdhTest extends PersoSimTestCase {
 	@Test
 	public void testPerformGenericMappingOfDomainParameters() {
 		DomainParameterSetEcdh domainParameterSetUnMapped = (DomainParameterSetEcdh) StandardizedDomainParameters.getDomainParameterSetById(13);
-		GenericMappingEcdh mapping = new GenericMappingEcdh();
+		GenericMappingEcdh mapping = new GenericMappingEcdh(new SecureRandom());
 		
 		byte[] nonceS = HexString.toByteArray("FA587945E9FE2AEB417DF0ADF951B7CBD9D5E476F8F6EF1B701C59C56B180204");
 		byte[] secretOfKeyAgreement = HexString.toByteArray("04326C2CE38AC366142735AFA4317A24BDE8F12AFAEE1575CE9756E3A8849F9AEF30103CF5396CBA2F4678572988513CFC0F0CBE116644A5B9E8C6B229E0C9E2FB");
@@ -144,7 +144,7 @@ public class GenericMappingEcdhTest extends PersoSimTestCase {
 	@Test
 	public void testPerformGenericMappingOfDomainParametersWrongNonceS() {
 		DomainParameterSetEcdh domainParameterSetUnMapped = (DomainParameterSetEcdh) StandardizedDomainParameters.getDomainParameterSetById(13);
-		GenericMappingEcdh mapping = new GenericMappingEcdh();
+		GenericMappingEcdh mapping = new GenericMappingEcdh(new SecureRandom());
 		
 		byte[] nonceS = HexString.toByteArray("FA587945E9FE2AEB417DF0ADF951B7CBD9D5E476F8F6EF1B701C59C56B180205"); // wrong nonce
 		byte[] secretOfKeyAgreement = HexString.toByteArray("04326C2CE38AC366142735AFA4317A24BDE8F12AFAEE1575CE9756E3A8849F9AEF30103CF5396CBA2F4678572988513CFC0F0CBE116644A5B9E8C6B229E0C9E2FB");
@@ -168,7 +168,7 @@ public class GenericMappingEcdhTest extends PersoSimTestCase {
 	@Test
 	public void testPerformGenericMappingOfDomainParametersWrongSecretOfKeyAgreement() {
 		DomainParameterSetEcdh domainParameterSetUnMapped = (DomainParameterSetEcdh) StandardizedDomainParameters.getDomainParameterSetById(13);
-		GenericMappingEcdh mapping = new GenericMappingEcdh();
+		GenericMappingEcdh mapping = new GenericMappingEcdh(new SecureRandom());
 		
 		byte[] nonceS = HexString.toByteArray("FA587945E9FE2AEB417DF0ADF951B7CBD9D5E476F8F6EF1B701C59C56B180204");
 		byte[] secretOfKeyAgreement = HexString.toByteArray("04326C2CE38AC366142735AFA4317A24BDE8F12AFAEE1575CE9756E3A8849F9AEF30103CF5396CBA2F4678572988513CFC0F0CBE116644A5B9E8C6B229E0C9E2FC"); // wrong secret of key agreement
@@ -194,7 +194,7 @@ public class GenericMappingEcdhTest extends PersoSimTestCase {
 	@Test
 	public void testPerformKeyAgreement() throws InvalidKeySpecException, NoSuchAlgorithmException {
 		DomainParameterSetEcdh domainParameterSetUnMapped = (DomainParameterSetEcdh) StandardizedDomainParameters.getDomainParameterSetById(13);
-		GenericMappingEcdh mapping = new GenericMappingEcdh();
+		GenericMappingEcdh mapping = new GenericMappingEcdh(new SecureRandom());
 		
 		byte[] privateKeyDataPicc = HexString.toByteArray("7FC3DE0EDE951E6181392527612FF2A50D4E6C6FE00F7A92E66CB3D7B7D23044");
 		byte[] publicKeyDataPcd = HexString.toByteArray("0424EF5B5C5D5F085783357C34C01660C6A062005BA1E347EB5E890DC34A305085161950814AE4D7BF20137D5C425E039CCC250835D69E8FEE92E302F468F39394");
@@ -217,7 +217,7 @@ public class GenericMappingEcdhTest extends PersoSimTestCase {
 	@Test
 	public void testPerformKeyAgreement_wrongPublicKey() throws InvalidKeySpecException, NoSuchAlgorithmException {
 		DomainParameterSetEcdh domainParameterSetUnMapped = (DomainParameterSetEcdh) StandardizedDomainParameters.getDomainParameterSetById(13);
-		GenericMappingEcdh mapping = new GenericMappingEcdh();
+		GenericMappingEcdh mapping = new GenericMappingEcdh(new SecureRandom());
 		
 		byte[] privateKeyDataPicc = HexString.toByteArray("7FC3DE0EDE951E6181392527612FF2A50D4E6C6FE00F7A92E66CB3D7B7D23044");
 		byte[] publicKeyDataPcd = HexString.toByteArray("047307AED59C716B4328E974EC2460104E013E93B9826A47CB9DB8A104F493F685094776A48D5B6746058D2B0FB206B69E4AA16E8E893BB4908285482BC4B82232");
@@ -0,0 +1,209 @@
+package de.persosim.simulator.recording;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.persosim.simulator.perso.DefaultPersoTestPki;
+import de.persosim.simulator.platform.PersoSimKernel;
+import de.persosim.simulator.test.PersoSimTestCase;
+import de.persosim.simulator.utils.HexString;
+
+public class ApduRecorderTest extends PersoSimTestCase {
+
+	private static final byte[] COMMAND = HexString.toByteArray("0CB0000000000E9701008E08D2A3B19E4A6C7F5300");
+	private static final byte[] RESPONSE = HexString.toByteArray("990290008E08F6A3C2D1E0B9A87F9000");
+	private static final byte[] PLAIN_COMMAND = HexString.toByteArray("00B0000000");
+	private static final byte[] PLAIN_RESPONSE = HexString.toByteArray("0102039000");
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private ApduRecorder recorder;
+
+	@After
+	public void tearDown() {
+		if (recorder != null) {
+			recorder.stop();
+		}
+	}
+
+	/**
+	 * Positive test: raw and plain APDUs are written and read back unchanged.
+	 */
+	@Test
+	public void testRecordAndRead() throws Exception {
+		recorder = new ApduRecorder(folder.getRoot());
+		recorder.start();
+		ApduRecorder.setConnection(7);
+		try {
+			recorder.record(3, System.nanoTime(), 123456, COMMAND, RESPONSE, PLAIN_COMMAND, PLAIN_RESPONSE);
+		} finally {
+			ApduRecorder.setConnection(ApduRecorder.NO_CONNECTION);
+		}
+		recorder.stop();
+
+		List<ApduRecord> records = readAll(folder.getRoot());
+		assertEquals(1, records.size());
+		ApduRecord record = records.get(0);
+		assertEquals(3, record.getSlot());
+		assertEquals(7, record.getConnection());
+		assertEquals(123456, record.getDuration());
+		assertTrue(Math.abs(record.getTimestamp() / 1000000 - System.currentTimeMillis()) < 60000);
+		assertArrayEquals(COMMAND, record.getCommand());
+		assertArrayEquals(RESPONSE, record.getResponse());
+		assertArrayEquals(PLAIN_COMMAND, record.getPlainCommand());
+		assertArrayEquals(PLAIN_RESPONSE, record.getPlainResponse());
+	}
+
+	/**
+	 * Positive test: APDUs processed by the kernel are recorded while the
+	 * recorder is active, unsecured APDUs without plain data.
+	 */
+	@Test
+	public void testKernelRecording() throws Exception {
+		PersoSimKernel kernel = new PersoSimKernel();
+		kernel.init(new DefaultPersoTestPki());
+		kernel.powerOn();
+		recorder = new ApduRecorder(folder.getRoot());
+		recorder.start();
+		assertSame(recorder, ApduRecorder.getActive());
+
+		byte[] response = kernel.process(HexString.toByteArray("00A4000C023F00"));
+		recorder.stop();
+		assertNull(ApduRecorder.getActive());
+
+		List<ApduRecord> records = readAll(folder.getRoot());
+		assertEquals(1, records.size());
+		assertEquals(kernel.getSlot(), records.get(0).getSlot());
+		assertEquals(ApduRecorder.NO_CONNECTION, records.get(0).getConnection());
+		assertArrayEquals(HexString.toByteArray("00A4000C023F00"), records.get(0).getCommand());
+		assertArrayEquals(response, records.get(0).getResponse());
+		assertNull(records.get(0).getPlainCommand());
+		assertNull(records.get(0).getPlainResponse());
+	}
+
+	/**
+	 * Positive test: a new file is started when the maximum size is exceeded
+	 * and only the configured number of files is kept.
+	 */
+	@Test
+	public void testRotation() throws Exception {
+		recorder = new ApduRecorder(folder.getRoot(), 1024, 100, 2);
+		recorder.start();
+		for (int i = 0; i < 5; i++) {
+			recorder.record(1, System.nanoTime(), i, COMMAND, RESPONSE, null, null);
+			// wait for the flush so every record ends up in its own file
+			Thread.sleep(300);
+		}
+		recorder.stop();
+
+		File[] files = ApduRecorder.getCaptureFiles(folder.getRoot());
+		assertEquals(2, files.length);
+		List<ApduRecord> records = readAll(folder.getRoot());
+		assertEquals(2, records.size());
+		assertEquals(3, records.get(0).getDuration());
+		assertEquals(4, records.get(1).getDuration());
+	}
+
+	/**
+	 * Negative test: records not fitting into the buffer are dropped.
+	 */
+	@Test
+	public void testRecordBufferFull() throws Exception {
+		recorder = new ApduRecorder(folder.getRoot(), 64, ApduRecorder.DEFAULT_MAX_FILE_SIZE, 1);
+		recorder.start();
+		recorder.record(1, System.nanoTime(), 0, COMMAND, RESPONSE, PLAIN_COMMAND, PLAIN_RESPONSE);
+		recorder.stop();
+
+		assertEquals(1, recorder.getDropped());
+		assertEquals(0, readAll(folder.getRoot()).size());
+	}
+
+	/**
+	 * Negative test: the buffer size must be a power of two.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructorInvalidBufferSize() {
+		new ApduRecorder(folder.getRoot(), 1000, ApduRecorder.DEFAULT_MAX_FILE_SIZE, 1);
+	}
+
+	/**
+	 * Positive test: without configured directory APDUs are recorded into the
+	 * default directory.
+	 */
+	@Test
+	public void testStartConfiguredDefault() throws Exception {
+		String tmpDir = System.getProperty("java.io.tmpdir");
+		System.clearProperty(ApduRecorder.PROPERTY_DIRECTORY);
+		System.setProperty("java.io.tmpdir", folder.getRoot().getAbsolutePath());
+		try {
+			recorder = ApduRecorder.startConfigured();
+		} finally {
+			System.setProperty("java.io.tmpdir", tmpDir);
+		}
+
+		assertSame(recorder, ApduRecorder.getActive());
+		assertEquals(new File(folder.getRoot(), ApduRecorder.DEFAULT_DIRECTORY_NAME), recorder.getDirectory());
+	}
+
+	/**
+	 * Positive test: recording is disabled by the configured directory.
+	 */
+	@Test
+	public void testStartConfiguredNone() throws Exception {
+		System.setProperty(ApduRecorder.PROPERTY_DIRECTORY, ApduRecorder.DIRECTORY_NONE);
+		try {
+			assertNull(ApduRecorder.startConfigured());
+		} finally {
+			System.clearProperty(ApduRecorder.PROPERTY_DIRECTORY);
+		}
+	}
+
+	/**
+	 * Positive test: captures are converted to CSV.
+	 */
+	@Test
+	public void testConvertCsv() throws Exception {
+		recorder = new ApduRecorder(folder.getRoot());
+		recorder.start();
+		recorder.record(2, System.nanoTime(), 1500, PLAIN_COMMAND, PLAIN_RESPONSE, null, null);
+		recorder.stop();
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ApduRecordReader.convert(Arrays.asList(ApduRecorder.getCaptureFiles(folder.getRoot())), true,
+				new PrintStream(out, true, "UTF-8"));
+
+		String[] lines = out.toString("UTF-8").split("\\r?\\n");
+		assertEquals(2, lines.length);
+		assertEquals(ApduRecordReader.CSV_HEADER, lines[0]);
+		assertTrue(lines[1].endsWith(",2,0,1500,00B0000000,0102039000,,"));
+	}
+
+	private static List<ApduRecord> readAll(File directory) throws IOException {
+		List<ApduRecord> records = new ArrayList<>();
+		for (File file : ApduRecorder.getCaptureFiles(directory)) {
+			try (ApduRecordReader reader = new ApduRecordReader(new FileInputStream(file))) {
+				records.addAll(reader.readAll());
+			}
+		}
+		return records;
+	}
+
+}
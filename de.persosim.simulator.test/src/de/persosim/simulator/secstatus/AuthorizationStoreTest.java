@@ -1,12 +1,15 @@
 package de.persosim.simulator.secstatus;
 
+import java.util.BitSet;
 import java.util.HashMap;
 
 import org.junit.Before;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
 
 import de.persosim.simulator.protocols.GenericOid;
 import de.persosim.simulator.protocols.Oid;
@@ -14,6 +17,7 @@ import de.persosim.simulator.protocols.ta.Authorization;
 import de.persosim.simulator.test.PersoSimTestCase;
 import de.persosim.simulator.utils.BitField;
 import de.persosim.simulator.utils.HexString;
+import mockit.Deencapsulation;
 
 public class AuthorizationStoreTest extends PersoSimTestCase {
 	
@@ -196,4 +200,61 @@ public class AuthorizationStoreTest extends PersoSimTestCase {
 		assertEquals(authStore3, authStore1);
 	}
 	
+	/**
+	 * This test checks single bits of the effective authorization after an update
+	 */
+	@Test
+	public void testIsAuthorizationBitSet_AfterUpdate(){
+		HashMap<Oid, Authorization> auths1 = new HashMap<>();
+		auths1.put(oid1, new Authorization(new BitField(70, 1, 5, 69)));
+		AuthorizationStore authStore1 = new AuthorizationStore(auths1);
+		
+		HashMap<Oid, Authorization> auths2 = new HashMap<>();
+		auths2.put(oid1, new Authorization(new BitField(70, 5, 69)));
+		authStore1.updateAuthorization(auths2);
+		
+		assertFalse(authStore1.isAuthorizationBitSet(oid1, 1));
+		assertTrue(authStore1.isAuthorizationBitSet(oid1, 5));
+		assertTrue(authStore1.isAuthorizationBitSet(oid1, 69));
+		assertEquals(new Authorization(new BitField(70, 5, 69)), authStore1.getAuthorization(oid1));
+	}
+	
+	/**
+	 * This test checks single bits for OIDs without registered authorization
+	 */
+	@Test
+	public void testIsAuthorizationBitSet_NotRegistered(){
+		HashMap<Oid, Authorization> auths1 = new HashMap<>();
+		auths1.put(oid1, auth1);
+		AuthorizationStore authStore1 = new AuthorizationStore(auths1);
+		
+		assertFalse(authStore1.isAuthorizationBitSet(oid2, 0));
+	}
+	
+	/**
+	 * This test checks that indices of OIDs no longer used by any store are released
+	 */
+	@Test
+	public void testOidIndicesReleased() throws Exception {
+		BitSet assignedIndices = Deencapsulation.getField(AuthorizationStore.class, "assignedIndices");
+		for (int i = 0; i < 1000; i++) {
+			createStore(0x10000 + i);
+		}
+		
+		for (int i = 0; i < 50 && assignedIndices.cardinality() >= 1000; i++) {
+			System.gc();
+			Thread.sleep(10);
+			// interning another OID releases the indices collected so far
+			createStore(0x20000 + i);
+		}
+		
+		assertTrue(assignedIndices.cardinality() < 1000);
+	}
+	
+	private AuthorizationStore createStore(int oidValue) {
+		HashMap<Oid, Authorization> auths = new HashMap<>();
+		auths.put(new GenericOid(new byte[] { 0x7F, (byte) (oidValue >>> 16), (byte) (oidValue >>> 8), (byte) oidValue }), auth1);
+		return new AuthorizationStore(auths);
+	}
+	
 }
@@ -72,10 +72,10 @@ public class SecStatusTest extends PersoSimTestCase{
 		securityStatus.updateSecStatus(processingData);
 
 		// check that a session context has been stored
-		assertEquals(securityStatus.storedSecStatusContents.size(), 1);
+		assertEquals(securityStatus.storedSecStatusContents.getSize(), 1);
 		
 		// get the current stored mechanism from the stored security status
-		EnumMap<SecContext, HashMap<Class<? extends SecMechanism>, SecMechanism>> contexts = securityStatus.storedSecStatusContents.values().iterator().next();
+		EnumMap<SecContext, HashMap<Class<? extends SecMechanism>, SecMechanism>> contexts = securityStatus.storedSecStatusContents.get(1);
 		Set<Entry<SecContext, HashMap<Class<? extends SecMechanism>, SecMechanism>>> contextSet = contexts.entrySet();
 		
 		SecMechanism storedMechanism = null;
@@ -107,7 +107,7 @@ public class SecStatusTest extends PersoSimTestCase{
 				new SecStatusStoreUpdatePropagation(SecurityEvent.RESTORE_SESSION_CONTEXT, 1));
 		securityStatus.updateSecStatus(processingData);
 		
-		assertEquals(securityStatus.storedSecStatusContents.size(), 0);
+		assertEquals(securityStatus.storedSecStatusContents.getSize(), 0);
 		assertEquals("Statusword is not 6A88", Iso7816.SW_6A88_REFERENCE_DATA_NOT_FOUND, processingData.getResponseApdu()
 				.getStatusWord());
 	}
@@ -381,6 +381,96 @@ public class SecStatusTest extends PersoSimTestCase{
 		assertEquals(0, mechanismsAfterStore.size());
 	}
 	
+	/**
+	 * Positive test case: check that an event only deletes the mechanisms that
+	 * need deletion in case of this event.
+	 */
+	@Test
+	public void testUpdateSecStatus_EventDeletesOnlySensitiveMechanisms() {
+		SecMechanism sensitive = new AbstractSecMechanism() {
+			@Override
+			public boolean needsDeletionInCaseOf(SecurityEvent event) {
+				return event == SecurityEvent.SECURE_MESSAGING_SESSION_ENDED;
+			}
+		};
+		SecMechanism insensitive = new AbstractSecMechanism() {
+			@Override
+			public boolean needsDeletionInCaseOf(SecurityEvent event) {
+				return false;
+			}
+		};
+		populateSecStatus(SecContext.APPLICATION, sensitive, insensitive);
+		populateSecStatus(SecContext.GLOBAL, sensitive);
+		
+		ProcessingData processingData = new ProcessingData();
+		processingData.addUpdatePropagation(this, "Inform the SecStatus about the ended session",
+				new SecStatusEventUpdatePropagation(SecurityEvent.SECURE_MESSAGING_SESSION_ENDED));
+		securityStatus.updateSecStatus(processingData);
+		
+		Collection<Class<? extends SecMechanism>> wanted = new HashSet<>();
+		wanted.add(sensitive.getClass());
+		wanted.add(insensitive.getClass());
+		
+		Collection<SecMechanism> foundMechanisms = securityStatus.getCurrentMechanisms(SecContext.APPLICATION, wanted);
+		assertEquals(1, foundMechanisms.size());
+		assertSame(insensitive, foundMechanisms.iterator().next());
+		assertTrue(securityStatus.getCurrentMechanisms(SecContext.GLOBAL, wanted).isEmpty());
+	}
+	
+	/**
+	 * Positive test case: check that a mechanism replacing a previously stored
+	 * one with the same key is not deleted by events only the replaced one was
+	 * sensitive to.
+	 */
+	@Test
+	public void testUpdateSecStatus_EventKeepsReplacedMechanism() {
+		SecMechanism sensitive = new ProtocolMechanism(FileProtocol.class);
+		SecMechanism replacement = new AbstractSecMechanism() {
+			@Override
+			public boolean needsDeletionInCaseOf(SecurityEvent event) {
+				return false;
+			}
+			
+			@Override
+			public Class<? extends SecMechanism> getKey() {
+				return ProtocolMechanism.class;
+			}
+		};
+		populateSecStatus(SecContext.APPLICATION, sensitive, replacement);
+		
+		ProcessingData processingData = new ProcessingData();
+		processingData.addUpdatePropagation(this, "Inform the SecStatus about the ended session",
+				new SecStatusEventUpdatePropagation(SecurityEvent.SECURE_MESSAGING_SESSION_ENDED));
+		securityStatus.updateSecStatus(processingData);
+		
+		Collection<Class<? extends SecMechanism>> wanted = new HashSet<>();
+		wanted.add(ProtocolMechanism.class);
+		Collection<SecMechanism> foundMechanisms = securityStatus.getCurrentMechanisms(SecContext.APPLICATION, wanted);
+		assertEquals(1, foundMechanisms.size());
+		assertSame(replacement, foundMechanisms.iterator().next());
+	}
+	
+	/**
+	 * Positive test case: check that storing the current state is not
+	 * affected by later modifications of the {@link SecStatus}.
+	 */
+	@Test
+	public void testStoreSecStatus_SnapshotUnaffectedByModification(){
+		SecMechanism stored = new ProtocolMechanism(FileProtocol.class);
+		populateSecStatus(SecContext.APPLICATION, stored);
+		int id = securityStatus.storeSecStatus();
+		
+		populateSecStatus(SecContext.APPLICATION, new ProtocolMechanism(FileProtocol.class));
+		
+		securityStatus.restoreSecStatus(id);
+		
+		Collection<Class<? extends SecMechanism>> wanted = new HashSet<>();
+		wanted.add(ProtocolMechanism.class);
+		Collection<SecMechanism> foundMechanisms = securityStatus.getCurrentMechanisms(SecContext.APPLICATION, wanted);
+		assertEquals(1, foundMechanisms.size());
+		assertSame(stored, foundMechanisms.iterator().next());
+	}
+	
 	/**
 	 * Positive test case checking the life cycle allowing access even if the
 	 * security conditions do not match.
@@ -0,0 +1,74 @@
+package de.persosim.simulator.secstatus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.persosim.simulator.test.PersoSimTestCase;
+
+public class SessionContextStoreTest extends PersoSimTestCase {
+
+	SessionContextStore<String> store;
+
+	@Before
+	public void setUp() {
+		store = new SessionContextStore<>(2);
+	}
+
+	/**
+	 * Positive test case: check that the least recently used content is
+	 * evicted when the capacity is exceeded.
+	 */
+	@Test
+	public void testPut_EvictsLeastRecentlyUsed() {
+		store.put(0, "zero");
+		store.put(1, "one");
+		store.get(0);
+		store.put(2, "two");
+
+		assertEquals(2, store.getSize());
+		assertEquals(1, store.getEvictionCount());
+		assertEquals("zero", store.get(0));
+		assertNull(store.get(1));
+		assertEquals("two", store.get(2));
+	}
+
+	/**
+	 * Positive test case: check that allocated ids are not in use.
+	 */
+	@Test
+	public void testAllocateId() {
+		store.put(0, "zero");
+		int id = store.allocateId();
+		assertNotEquals(0, id);
+		store.put(id, "allocated");
+
+		assertNotEquals(id, store.allocateId());
+	}
+
+	/**
+	 * Positive test case: check that reducing the capacity evicts contents.
+	 */
+	@Test
+	public void testSetCapacity_Evicts() {
+		store.put(0, "zero");
+		store.put(1, "one");
+		store.setCapacity(1);
+
+		assertEquals(1, store.getSize());
+		assertEquals(1, store.getEvictionCount());
+		assertEquals("one", store.get(1));
+	}
+
+	/**
+	 * Negative test case: check that the capacity must be positive.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testSetCapacity_NotPositive() {
+		store.setCapacity(0);
+	}
+
+}
@@ -0,0 +1,98 @@
+package de.persosim.simulator.tlv;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import de.persosim.simulator.utils.HexString;
+import de.persosim.simulator.utils.Utils;
+
+public class TlvEncoderTest {
+	
+	/**
+	 * Positive test case: nested constructed TLV data objects are encoded
+	 * with DER length fields of all sizes
+	 */
+	@Test
+	public void testEncodeNested() {
+		for (int valueLength : new int[] { 0, 127, 128, 255, 256, 65535, 65536 }) {
+			byte[] value = new byte[valueLength];
+			Arrays.fill(value, (byte) 0x5A);
+			PrimitiveTlvDataObject primitive = new PrimitiveTlvDataObject(new TlvTag((byte) 0x04), value);
+			ConstructedTlvDataObject inner = new ConstructedTlvDataObject(new TlvTag((byte) 0x30), primitive);
+			ConstructedTlvDataObject outer = new ConstructedTlvDataObject(new TlvTag((byte) 0x31), inner,
+					new PrimitiveTlvDataObject(new TlvTag((byte) 0x02), new byte[] { 0x01 }));
+			
+			byte[] primitiveEncoding = Utils.concatByteArrays(new byte[] { 0x04 }, TlvLength.getLengthEncoding(valueLength), value);
+			byte[] innerEncoding = Utils.concatByteArrays(new byte[] { 0x30 }, TlvLength.getLengthEncoding(primitiveEncoding.length), primitiveEncoding);
+			byte[] outerValue = Utils.concatByteArrays(innerEncoding, HexString.toByteArray("020101"));
+			byte[] expected = Utils.concatByteArrays(new byte[] { 0x31 }, TlvLength.getLengthEncoding(outerValue.length), outerValue);
+			
+			assertArrayEquals("length " + valueLength, expected, TlvEncoder.encode(outer));
+			assertEquals("length " + valueLength, expected.length, outer.getLength());
+		}
+	}
+	
+	/**
+	 * Positive test case: a container is encoded as concatenation of its
+	 * elements followed by the requested number of trailing bytes
+	 */
+	@Test
+	public void testEncodeContainerTrailingBytes() {
+		TlvDataObjectContainer container = new TlvDataObjectContainer(HexString.toByteArray("8001AAA1038101BB"));
+		
+		assertArrayEquals(HexString.toByteArray("8001AAA1038101BB0000"), TlvEncoder.encode(container, 2));
+	}
+	
+	/**
+	 * Positive test case: an explicitly set BER length field matching the
+	 * value field is kept
+	 */
+	@Test
+	public void testEncodeExplicitLength() {
+		ConstructedTlvDataObject constructed = new ConstructedTlvDataObject(HexString.toByteArray("A1820003800100"));
+		
+		assertArrayEquals(HexString.toByteArray("A1820003800100"), TlvEncoder.encode(constructed));
+	}
+	
+	/**
+	 * Positive test case: an explicitly set length field no longer matching
+	 * the value field is replaced by the DER encoding
+	 */
+	@Test
+	public void testEncodeExplicitLengthOutdated() {
+		ConstructedTlvDataObject constructed = new ConstructedTlvDataObject(HexString.toByteArray("A1820003800100"));
+		constructed.addTlvDataObject(new PrimitiveTlvDataObject(HexString.toByteArray("810101")));
+		
+		assertArrayEquals(HexString.toByteArray("A106800100810101"), TlvEncoder.encode(constructed));
+	}
+	
+	/**
+	 * Positive test case: a mismatching length field is kept if validity
+	 * checks are skipped
+	 */
+	@Test
+	public void testEncodeExplicitLengthSkipValidityChecks() {
+		PrimitiveTlvDataObject primitive = new PrimitiveTlvDataObject(HexString.toByteArray("8001AA"));
+		primitive.setLength(new TlvLength(new byte[] { 0x05 }), TlvElement.SKIP_VALIDITY_CHECKS);
+		ConstructedTlvDataObject constructed = new ConstructedTlvDataObject(new TlvTag((byte) 0xA1), primitive);
+		
+		assertArrayEquals(HexString.toByteArray("A1038005AA"), TlvEncoder.encode(constructed));
+	}
+	
+	/**
+	 * Positive test case: bogus TLV data objects are encoded by their own
+	 * encoding, i.e. without value field if requested
+	 */
+	@Test
+	public void testEncodeBogus() {
+		BogusPrimitiveTlvDataObject bogus = new BogusPrimitiveTlvDataObject(new TlvTag((byte) 0x80), new byte[] { 0x01, 0x02 }, true);
+		TlvDataObjectContainer container = new TlvDataObjectContainer(bogus, new PrimitiveTlvDataObject(HexString.toByteArray("810101")));
+		
+		assertArrayEquals(HexString.toByteArray("8002810101"), TlvEncoder.encode(container));
+	}
+	
+}
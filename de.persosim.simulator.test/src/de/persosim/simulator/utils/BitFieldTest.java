@@ -165,4 +165,56 @@ public class BitFieldTest extends PersoSimTestCase {
 		assertEquals(expected, result);
 	}
 	
+	@Test
+	public void testNot(){
+		BitField expected = new BitField(16, new byte []{0x00, (byte) 0b10101010});
+		
+		//call mut
+		BitField result = field1.not();
+		
+		assertEquals(expected, result);
+	}
+	
+	@Test
+	public void testCardinality(){
+		assertEquals(12, field1.cardinality());
+	}
+	
+	@Test
+	public void testContainsAll(){
+		assertTrue(field1.containsAll(new BitField(16, 0, 8)));
+		assertFalse(field1.containsAll(new BitField(16, 9)));
+	}
+	
+	@Test
+	public void testBigEndianMultipleWords(){
+		byte [] content = new byte []{(byte) 0x80, 0, 0, 0, 0, 0, 0, 0, 0, 0x01};
+		
+		//call mut
+		BitField field = BitField.buildFromBigEndian(80, content);
+		
+		assertTrue(field.getBit(79));
+		assertTrue(field.getBit(0));
+		assertEquals(2, field.cardinality());
+		assertArrayEquals(content, field.getAsZeroPaddedBigEndianByteArray());
+	}
+	
+	@Test
+	public void testConcatenateMultipleWords(){
+		BitField lower = new BitField(60, 59);
+		BitField upper = new BitField(10, 0, 9);
+		
+		//call mut
+		BitField result = lower.concatenate(upper);
+		
+		assertEquals(new BitField(70, 59, 60, 69), result);
+	}
+	
+	@Test
+	public void testLongArray(){
+		BitField field = new BitField(70, 3, 66);
+		
+		assertEquals(field, new BitField(70, field.toLongArray()));
+	}
+	
 }
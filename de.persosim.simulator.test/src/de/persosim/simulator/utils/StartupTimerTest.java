@@ -0,0 +1,55 @@
+package de.persosim.simulator.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.persosim.simulator.PersoSim;
+import de.persosim.simulator.perso.DefaultPersoTestPki;
+import de.persosim.simulator.test.PersoSimTestCase;
+
+public class StartupTimerTest extends PersoSimTestCase {
+
+	@Before
+	public void setUp() {
+		StartupTimer.start();
+	}
+
+	/**
+	 * Positive test: phases are recorded once, in order of their occurrence.
+	 */
+	@Test
+	public void testPhase() throws Exception {
+		StartupTimer.phase("first");
+		Thread.sleep(20);
+		StartupTimer.phase("second");
+		String report = StartupTimer.getReport();
+		StartupTimer.phase("first");
+
+		assertEquals(report, StartupTimer.getReport());
+		assertTrue(report.indexOf("first after") < report.indexOf("second after"));
+	}
+
+	/**
+	 * Positive test: the simulator records all phases up to the first APDU.
+	 */
+	@Test
+	public void testTimeToFirstApdu() throws Exception {
+		assertEquals(-1, StartupTimer.getTimeToFirstApdu());
+
+		PersoSim sim = new PersoSim();
+		sim.startSimulator();
+		sim.loadPersonalization(new DefaultPersoTestPki());
+		sim.cardPowerUp();
+		sim.processCommand(HexString.toByteArray("00A4020C02011C"));
+
+		assertTrue(StartupTimer.getTimeToFirstApdu() >= 0);
+		String report = StartupTimer.getReport();
+		assertTrue(report.contains(StartupTimer.PHASE_PERSONALIZATION_LOADED));
+		assertTrue(report.contains(StartupTimer.PHASE_FIRST_POWER_UP));
+		assertTrue(report.contains(StartupTimer.PHASE_FIRST_APDU));
+	}
+
+}
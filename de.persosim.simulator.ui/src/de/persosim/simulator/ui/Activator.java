@@ -20,8 +20,9 @@ import de.persosim.driver.connector.DriverConnectorFactory;
 import de.persosim.driver.connector.features.DefaultListener;
 import de.persosim.driver.connector.service.NativeDriverConnector;
 import de.persosim.simulator.CommandParser;
+import de.persosim.simulator.log.AsyncLogDispatcher;
 import de.persosim.simulator.ui.parts.PersoSimPart;
-import de.persosim.simulator.ui.utils.LinkedListLogListener;
+import de.persosim.simulator.ui.utils.RingBufferLogListener;
 
 /**
  * The activator for this bundle. It tracks the {@link Simulator} service and
@@ -34,7 +35,8 @@ public class Activator implements BundleActivator {
 
 	private static BundleContext context;
 	private LinkedList<LogReaderService> readers = new LinkedList<>();
-	private static LinkedListLogListener linkedListLogger = new LinkedListLogListener(PersoSimPart.MAXIMUM_CACHED_CONSOLE_LINES);
+	private static RingBufferLogListener logListener = new RingBufferLogListener(PersoSimPart.MAXIMUM_CACHED_CONSOLE_LINES);
+	private static AsyncLogDispatcher logDispatcher = new AsyncLogDispatcher();
 	private ServiceTracker<LogReaderService, LogReaderService> logReaderTracker;
 	private static ServiceTracker<DriverConnectorFactory, DriverConnectorFactory> serviceTrackerDriverConnectorFactory;
 	public static final int DEFAULT_PORT = 5678;
@@ -46,8 +48,8 @@ public class Activator implements BundleActivator {
 		return context;
 	}
 	
-	public static LinkedListLogListener getListLogListener(){
-		return linkedListLogger;
+	public static RingBufferLogListener getListLogListener(){
+		return logListener;
 	}
 	
 	public static void executeUserCommands(String command){
@@ -73,9 +75,9 @@ public class Activator implements BundleActivator {
 			if (readerService != null){
 				if (event.getType() == ServiceEvent.REGISTERED){
 					readers.add(readerService);
-					readerService.addLogListener(linkedListLogger);
+					readerService.addLogListener(logDispatcher);
 				} else if (event.getType() == ServiceEvent.UNREGISTERING){
-					readerService.removeLogListener(linkedListLogger);
+					readerService.removeLogListener(logDispatcher);
 					readers.remove(readerService);
 				}
 			}
@@ -94,7 +96,10 @@ public class Activator implements BundleActivator {
 	 */
 	public void start(final BundleContext context) throws Exception {
 		Activator.context = context;
-				
+		
+		// the console is updated asynchronously, so slow UI updates do not delay the simulator
+		logDispatcher.start();
+		
 
 		logReaderTracker = new ServiceTracker<>(context, LogReaderService.class.getName(), null);
 		logReaderTracker.open();
@@ -118,11 +123,13 @@ public class Activator implements BundleActivator {
 	}
 	
 	public static void removeLogListener() {
-		readerService.removeLogListener(linkedListLogger);
+		logDispatcher.removeListener(logListener);
+		readerService.removeLogListener(logDispatcher);
 	}
 	
 	public static void addLogListener() {
-		readerService.addLogListener(linkedListLogger);
+		logDispatcher.addListener(logListener);
+		readerService.addLogListener(logDispatcher);
 	}
 	
 
@@ -135,9 +142,10 @@ public class Activator implements BundleActivator {
         while (iterator.hasNext())
         {
             LogReaderService readerService = iterator.next();
-            readerService.removeLogListener(linkedListLogger);
+            readerService.removeLogListener(logDispatcher);
             iterator.remove();
         }
+		logDispatcher.stop();
 		
 		logReaderTracker.close();
 
@@ -23,6 +23,8 @@ import org.eclipse.e4.ui.model.application.ui.menu.MMenuFactory;
 import org.eclipse.e4.ui.workbench.modeling.EModelService;
 import org.osgi.framework.Bundle;
 
+import de.persosim.simulator.CommandParser;
+import de.persosim.simulator.perso.ProfileRegistry.ProfileInfo;
 import de.persosim.simulator.ui.utils.FileComparator;
 
 /**
@@ -122,6 +124,17 @@ public class DynamicPersoTemplateMenuItem {
 	        	
 	    	    String absolutePath = fileEntry.getAbsolutePath();
 	    	    
+	    	    // show the results of the preloading if already available
+	    	    ProfileInfo profile = CommandParser.getProfileRegistry().getProfile(absolutePath);
+	    	    if (profile != null) {
+	    	    	if (profile.isValid()) {
+	    	    		dynamicFileMenuItem.setTooltip("validated in " + profile.getLoadTimeMillis() + " ms");
+	    	    	} else {
+	    	    		dynamicFileMenuItem.setLabel(fileEntry.getName() + " (invalid)");
+	    	    		dynamicFileMenuItem.setTooltip(String.valueOf(profile.getFailure().getMessage()));
+	    	    	}
+	    	    }
+	    	    
 	    	    dynamicFileMenuItem.setCommand(command);
 	    	    
 	    	    MParameter parameter = MCommandsFactory.INSTANCE.createParameter();
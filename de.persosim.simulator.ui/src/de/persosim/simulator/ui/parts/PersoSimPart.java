@@ -5,6 +5,8 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
@@ -27,7 +29,6 @@ import org.eclipse.swt.layout.GridLayout;
 import org.eclipse.swt.widgets.Button;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
-import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Event;
 import org.eclipse.swt.widgets.Listener;
 import org.eclipse.swt.widgets.Menu;
@@ -38,7 +39,8 @@ import org.eclipse.swt.widgets.Text;
 import de.persosim.driver.connector.service.NativeDriverConnector;
 import de.persosim.simulator.ui.Activator;
 import de.persosim.simulator.ui.handlers.SelectPersoFromFileHandler;
-import de.persosim.simulator.ui.utils.LinkedListLogListener;
+import de.persosim.simulator.ui.utils.LogLineBuffer;
+import de.persosim.simulator.ui.utils.RingBufferLogListener;
 
 /**
  * @author slutters
@@ -56,8 +58,11 @@ public class PersoSimPart {
 	@Inject UISynchronize sync;
 	
 	private Text txtOutput;
-	private Thread uiThread = null;
-	private Thread updateThread = null;
+	//set while an update of the console output is scheduled but not yet executed
+	private final AtomicBoolean updateScheduled = new AtomicBoolean();
+	//sequence numbers of the first displayed line and the line after the last one
+	private long displayedFrom = -1;
+	private long displayedTo = -1;
 	//maximum amount of strings saved in the buffer
 	public static final int MAXIMUM_CACHED_CONSOLE_LINES = 2000;
 	
@@ -111,7 +116,7 @@ public class PersoSimPart {
 		txtOutput.addListener(SWT.Resize, new Listener() {
 			public void handleEvent(Event e) {
 				//if the size of the text field changes the shown output should be readjusted
-				final LinkedListLogListener listener = Activator.getListLogListener();
+				final RingBufferLogListener listener = Activator.getListLogListener();
 				if (listener == null) {
 					txtOutput.setText(
 							"The OSGi logging service can not be used.\nPlease check the availability and OSGi configuration"
@@ -135,68 +140,46 @@ public class PersoSimPart {
 				if(locked){
 					lockScroller.setText(" lock ");
 					locked=false;
+					// show the lines logged while locked
+					scheduleUpdate();
 				}else{
 					lockScroller.setText("unlock");
 					locked=true;
 				}
 			}
 		});
-		Activator.addLogListener();
-		updateThread = createUpdateThread();
-		updateThread.setDaemon(true);
-		updateThread.start();
-	}
-	
-	private Thread createUpdateThread() {
-		final LinkedListLogListener listener = Activator.getListLogListener();
+		final RingBufferLogListener listener = Activator.getListLogListener();
 		if (listener == null){
 			txtOutput.setText("The OSGi logging service can not be used.\nPlease check the availability and OSGi configuration" + System.lineSeparator());
-		}
-		
-		uiThread = Display.getCurrent().getThread();
-		final Thread updateThread = new Thread() {
-			public void run() {
-				while (!isInterrupted() && uiThread.isAlive()) {
-					sync.syncExec(new Runnable() {
-						@Override
-						public void run() {
-							try {
-								if (checkForRefresh(listener)) {
-									listener.resetRefreshState();
-									buildNewConsoleContent();
-									Thread.sleep(50);
-									showNewOutput();
-								} else {
-									Thread.sleep(50);
-								}
-							} catch (InterruptedException e) {
-								// sleep got interrupted
-							}
-						}
-					});
+		} else {
+			listener.setUpdateListener(new Runnable() {
+				@Override
+				public void run() {
+					scheduleUpdate();
 				}
-			}
-		};
-		return updateThread;
+			});
+		}
+		Activator.addLogListener();
+		// show the lines cached while the view was closed
+		scheduleUpdate();
 	}
 	
-	
 	/**
-	 * Checks if a refresh of the logging part is necessary.
-	 * 
-	 * @return true for refresh and false for no refresh
+	 * Schedules an update of the console output on the UI thread unless one is
+	 * already pending, so bursts of log messages result in a single update.
 	 */
-	private boolean checkForRefresh(LinkedListLogListener listener){
-
-		if(!txtOutput.isDisposed()){ //it is disposed when view not active
-			if(listener.isRefreshNeeded() && !locked){
-				return true;
-			} else if(txtOutput.getText().isEmpty() && listener.getNumberOfCachedLines()>0){
-				//empty log happens when view was closed and opened again -> force a refresh
-				return true;
-			}
+	private void scheduleUpdate() {
+		if (updateScheduled.compareAndSet(false, true)) {
+			sync.asyncExec(new Runnable() {
+				@Override
+				public void run() {
+					updateScheduled.set(false);
+					if (!txtOutput.isDisposed() && !locked) {
+						showNewOutput();
+					}
+				}
+			});
 		}
-		return false;
 	}
 	
 	/**
@@ -209,7 +192,7 @@ public class PersoSimPart {
 		slider.setIncrement(1);
 		slider.setPageIncrement(10);
 		if (Activator.getListLogListener() != null){
-			slider.setMaximum(Activator.getListLogListener().getNumberOfCachedLines()+slider.getThumb());	
+			slider.setMaximum(Activator.getListLogListener().getBuffer().size()+slider.getThumb());	
 		}
 		slider.setMinimum(0);
 		slider.setLayoutData(new GridData(GridData.FILL_VERTICAL));		
@@ -340,9 +323,9 @@ public class PersoSimPart {
 					logFileName = "PersoSim_" + new SimpleDateFormat("yyyyMMddHHmmss").format(Calendar.getInstance().getTime()) + ".log";
 					file = new File(logFileName);
 					writer = new PrintWriter(file);
-					for (int i = 0; i < Activator.getListLogListener()
-							.getNumberOfCachedLines(); i++) {
-						writer.write(Activator.getListLogListener().getLine(i)+"\n");
+					LogLineBuffer buffer = Activator.getListLogListener().getBuffer();
+					for (String line : buffer.getLines(buffer.getFirstSequence(), buffer.size())) {
+						writer.write(line+"\n");
 					}
 					
 					MessageDialog.openInformation(txtOutput.getShell(), "Info", "Logfile written to " + file.getAbsolutePath());
@@ -370,24 +353,18 @@ public class PersoSimPart {
 	 * new Maximum to display the latest log messages
 	 */
 	private void rebuildSlider(){
-		sync.syncExec(new Runnable() {
-			
-			@Override
-			public void run() {
-				if (Activator.getListLogListener() != null) {
-					slider.setMaximum(Activator.getListLogListener()
-							.getNumberOfCachedLines()
-							+ slider.getThumb()
-							- maxLineCount + 1);
-				}
-			}
-		});
+		if (Activator.getListLogListener() != null) {
+			slider.setMaximum(Activator.getListLogListener().getBuffer().size()
+					+ slider.getThumb()
+					- maxLineCount + 1);
+		}
 	}
 	
 	
 	/**
 	 * takes the selected value from the Slider and prints the fitting messages
-	 * from the LinkedList until the Text field is full
+	 * from the buffer until the Text field is full. Only new lines are
+	 * appended if the displayed lines did not change otherwise.
 	 */
 	private void buildNewConsoleContent() {
 		if (Activator.getListLogListener() == null){
@@ -395,61 +372,45 @@ public class PersoSimPart {
 			return;
 		}
 
-		// clean text field before filling it with the requested data
-		final StringBuilder strConsoleStrings = new StringBuilder();
-
 		// calculates how many lines can be shown without cutting
-		
 		maxLineCount = ( txtOutput.getBounds().height - txtOutput.getHorizontalBar().getThumbBounds().height ) / txtOutput.getLineHeight();
-
-			
-		//synchronized is used to avoid IndexOutOfBoundsExceptions
-		synchronized (Activator.getListLogListener()) {
-			int listSize = Activator.getListLogListener().getNumberOfCachedLines();
-			// value is needed to stop writing in the console when the end in
-			// the list is reached
-			try {
-				int linesToShow = listSize - slider.getMaximum() + slider.getThumb();
-				int sliderSelection = slider.getSelection();
-				// Fill text field with selected data
-				for (int i = 0; i < linesToShow; i++) {
-					
-					strConsoleStrings.append(Activator.getListLogListener().getLine(sliderSelection + i));
-					strConsoleStrings.append("\n");
-				}
-			} catch ( Exception e) {}//IMPL PokémonException
+		
+		LogLineBuffer buffer = Activator.getListLogListener().getBuffer();
+		long from = buffer.getFirstSequence() + slider.getSelection();
+		List<String> lines = buffer.getLines(from, maxLineCount - 1);
+		long to = from + lines.size();
+		
+		if (from == displayedFrom && to == displayedTo) {
+			return;
 		}
 		
-		// send the StringBuilder data to the console field
-		sync.syncExec(new Runnable() {
-
-			@Override
-			public void run() {
-				try {
-				txtOutput.setText(strConsoleStrings.toString());
-				} catch(Exception e) {
-					//IMPL PokémonException
-				}
-
+		final StringBuilder strConsoleStrings = new StringBuilder();
+		if (from == displayedFrom && to > displayedTo) {
+			// the lines already shown are unchanged, append the new ones
+			for (String line : lines.subList((int) (displayedTo - from), lines.size())) {
+				strConsoleStrings.append(line);
+				strConsoleStrings.append("\n");
 			}
-		});
-
+			txtOutput.append(strConsoleStrings.toString());
+		} else {
+			for (String line : lines) {
+				strConsoleStrings.append(line);
+				strConsoleStrings.append("\n");
+			}
+			txtOutput.setText(strConsoleStrings.toString());
+		}
+		displayedFrom = from;
+		displayedTo = to;
 	}
 		
 	/**
-	 * controls slider selection (auto scrolling)
+	 * controls slider selection (auto scrolling), must be called on the UI
+	 * thread
 	 */
 	public void showNewOutput() {
-		if (uiThread.isAlive() && !uiThread.isInterrupted()) {
-			sync.syncExec(new Runnable() {
-				@Override
-				public void run() {
-					rebuildSlider();
-					slider.setSelection(slider.getMaximum());
-				}
-			});
-		}
-
+		rebuildSlider();
+		slider.setSelection(slider.getMaximum());
+		buildNewConsoleContent();
 	}
 	
 	/**
@@ -457,8 +418,8 @@ public class PersoSimPart {
 	 */
 	@PreDestroy
 	public void closePersoSimView() {
-		if(updateThread.isAlive()) {
-			updateThread.interrupt();
+		if (Activator.getListLogListener() != null) {
+			Activator.getListLogListener().setUpdateListener(null);
 		}
 		Activator.removeLogListener();
 	}
@@ -0,0 +1,92 @@
+package de.persosim.simulator.ui.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed capacity ring buffer of log lines. Each line is identified by a
+ * sequence number that increases monotonically over the lifetime of the
+ * buffer, so views can track which lines they already show even after older
+ * lines have been overwritten. All accesses are constant time per line.
+ */
+public class LogLineBuffer {
+
+	private final String[] lines;
+	private long nextSequence;
+
+	/**
+	 * @param capacity
+	 *            the maximum number of lines kept
+	 */
+	public LogLineBuffer(int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("capacity must be positive");
+		}
+		lines = new String[capacity];
+	}
+
+	/**
+	 * Append a line, overwriting the oldest one if the buffer is full.
+	 * 
+	 * @param line
+	 *            the line to add
+	 */
+	public synchronized void add(String line) {
+		lines[(int) (nextSequence % lines.length)] = line;
+		nextSequence++;
+	}
+
+	/**
+	 * @return the sequence number of the oldest line still available
+	 */
+	public synchronized long getFirstSequence() {
+		return Math.max(0, nextSequence - lines.length);
+	}
+
+	/**
+	 * @return the sequence number the next added line will get
+	 */
+	public synchronized long getNextSequence() {
+		return nextSequence;
+	}
+
+	/**
+	 * @return the number of lines currently available
+	 */
+	public synchronized int size() {
+		return (int) Math.min(nextSequence, lines.length);
+	}
+
+	/**
+	 * @param sequence
+	 *            the sequence number of the line
+	 * @return the line or null if it was already overwritten or not added yet
+	 */
+	public synchronized String getLine(long sequence) {
+		if (sequence < getFirstSequence() || sequence >= nextSequence) {
+			return null;
+		}
+		return lines[(int) (sequence % lines.length)];
+	}
+
+	/**
+	 * Copy consecutive lines, starting at the given sequence number or the
+	 * oldest available line if that one was already overwritten.
+	 * 
+	 * @param fromSequence
+	 *            the sequence number of the first line
+	 * @param maxLines
+	 *            the maximum number of lines to return
+	 * @return the available lines in order
+	 */
+	public synchronized List<String> getLines(long fromSequence, int maxLines) {
+		long from = Math.max(fromSequence, getFirstSequence());
+		long to = Math.min(nextSequence, from + Math.max(maxLines, 0));
+		List<String> result = new ArrayList<>((int) Math.max(to - from, 0));
+		for (long sequence = from; sequence < to; sequence++) {
+			result.add(lines[(int) (sequence % lines.length)]);
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,121 @@
+package de.persosim.simulator.ui.utils;
+
+import java.util.List;
+
+import org.globaltester.logging.AbstractLogListener;
+import org.globaltester.logging.LogListenerConfig;
+import org.globaltester.logging.filter.AndFilter;
+import org.globaltester.logging.filter.BundleFilter;
+import org.globaltester.logging.filter.LevelFilter;
+import org.globaltester.logging.filter.LogFilter;
+import org.globaltester.logging.format.LogFormat;
+import org.osgi.service.log.LogEntry;
+import org.osgi.service.log.LogListener;
+
+import de.persosim.simulator.log.BatchLogListener;
+import de.persosim.simulator.ui.Activator;
+
+/**
+ * This {@link LogListener} implementation is used to write log entries by line
+ * into a {@link LogLineBuffer} using a maximum number of cached lines. The
+ * update listener is notified once per message or, if dispatched by an
+ * {@link de.persosim.simulator.log.AsyncLogDispatcher}, once per batch.
+ * 
+ * @author mboonk
+ *
+ */
+public class RingBufferLogListener extends AbstractLogListener implements BatchLogListener {
+
+	private final LogLineBuffer buffer;
+	private volatile Runnable updateListener;
+	private boolean inBatch;
+	
+	public RingBufferLogListener(int maxLines) {
+		LogListenerConfig lrc = new LogListenerConfig() {
+			
+			byte logLevels [] ={1,2,3,4,5,6,120};
+			String bundleList [] = {"org.globaltester"};
+			
+			public LogFormat format = new LogFormat();
+			public BundleFilter bundleFilter = new BundleFilter(bundleList);
+			public LevelFilter levelFilter = new LevelFilter(logLevels);
+			public LogFilter [] filters = {bundleFilter, levelFilter};	
+			public AndFilter filter = new AndFilter(filters);
+			
+			{
+				Activator.setLogLevelFilter(levelFilter);
+			}
+			
+			@Override
+			public LogFilter getFilter() {
+				return filter;
+			}
+
+			@Override
+			public LogFormat getFormat() {
+				return format;
+			}
+		};
+		buffer = new LogLineBuffer(maxLines);
+		setLrc(lrc);
+	}
+	
+	/**
+	 * @return the buffer holding the cached lines
+	 */
+	public LogLineBuffer getBuffer() {
+		return buffer;
+	}
+	
+	/**
+	 * @param updateListener
+	 *            called from the logging thread after new lines were added,
+	 *            null to not be notified anymore
+	 */
+	public void setUpdateListener(Runnable updateListener) {
+		this.updateListener = updateListener;
+	}
+	
+	@Override
+	public void logged(List<LogEntry> entries) {
+		inBatch = true;
+		try {
+			for (LogEntry entry : entries) {
+				logged(entry);
+			}
+		} finally {
+			inBatch = false;
+		}
+		notifyUpdateListener();
+	}
+
+	@Override
+	public void displayLogMessage(String msg) {
+		// cut at line breaks, a CR LF sequence counts as one break
+		int start = 0;
+		for (int i = 0; i < msg.length(); i++) {
+			char c = msg.charAt(i);
+			if (c == '\n' || c == '\r') {
+				buffer.add(msg.substring(start, i));
+				if (c == '\r' && i + 1 < msg.length() && msg.charAt(i + 1) == '\n') {
+					i++;
+				}
+				start = i + 1;
+			}
+		}
+		if (start < msg.length()) {
+			buffer.add(msg.substring(start));
+		}
+		
+		if (!inBatch) {
+			notifyUpdateListener();
+		}
+	}
+	
+	private void notifyUpdateListener() {
+		Runnable listener = updateListener;
+		if (listener != null) {
+			listener.run();
+		}
+	}
+}
@@ -1,7 +1,11 @@
 package de.persosim.simulator;
 
 import static org.globaltester.logging.BasicLogger.ERROR;
+import static org.globaltester.logging.BasicLogger.WARN;
 import static org.globaltester.logging.BasicLogger.log;
+import static org.globaltester.logging.BasicLogger.logException;
+
+import java.io.IOException;
 
 import org.globaltester.simulator.Simulator;
 import org.osgi.framework.BundleActivator;
@@ -9,6 +13,10 @@ import org.osgi.framework.BundleContext;
 import org.osgi.framework.InvalidSyntaxException;
 import org.osgi.framework.ServiceRegistration;
 
+import de.persosim.simulator.metrics.MetricsHttpServer;
+import de.persosim.simulator.recording.ApduRecorder;
+import de.persosim.simulator.utils.StartupTimer;
+
 public class Activator implements BundleActivator {
 
 	public static BundleContext context;
@@ -16,18 +24,69 @@ public class Activator implements BundleActivator {
 	private static Activator plugin;
 	private static PersoSim sim = null;
 	private ServiceRegistration<Simulator> simRegistration;
+	private MetricsHttpServer metricsServer;
+	private ApduRecorder recorder;
 	
 	@Override
 	public void start(BundleContext context) throws Exception {
+		StartupTimer.start();
 		Activator.context = context;
 		plugin = this;
-}
+		
+		// profiles are parsed and validated in the background, loading them later on is served from the cache
+		Thread preloader = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					CommandParser.preloadProfiles();
+				} catch (RuntimeException e) {
+					logException(Activator.class, e, ERROR);
+				}
+			}
+		}, "PersoSim profile preload");
+		preloader.setDaemon(true);
+		preloader.start();
+		
+		startMetricsServer();
+		try {
+			recorder = ApduRecorder.startConfigured();
+		} catch (IOException e) {
+			log(Activator.class, "APDU recording could not be started: " + e.getMessage(), WARN);
+		}
+		StartupTimer.phase(StartupTimer.PHASE_ACTIVATED);
+	}
 
 	@Override
 	public void stop(BundleContext context) throws Exception {
+		if (metricsServer != null) {
+			metricsServer.stop();
+			metricsServer = null;
+		}
+		if (recorder != null) {
+			recorder.stop();
+			recorder = null;
+		}
 		Activator.context = null;
 	}
 	
+	/**
+	 * Start the metrics endpoint if configured by system properties, see
+	 * {@link MetricsHttpServer#PROPERTY_PORT}. Failures are logged only, the
+	 * simulator is usable without the endpoint.
+	 */
+	private void startMetricsServer() {
+		try {
+			MetricsHttpServer server = new MetricsHttpServer();
+			if (server.startConfigured()) {
+				metricsServer = server;
+			}
+		} catch (IOException | RuntimeException e) {
+			log(Activator.class, "Metrics endpoint could not be started: " + e.getMessage(), WARN);
+		} catch (NoClassDefFoundError e) {
+			log(Activator.class, "Metrics endpoint not available, the JRE does not provide com.sun.net.httpserver", WARN);
+		}
+	}
+	
 	public static BundleContext getContext() {
 		return context;
 	}
@@ -11,6 +11,7 @@ import java.io.IOException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -22,7 +23,10 @@ import org.globaltester.simulator.Simulator;
 import org.osgi.framework.Bundle;
 
 import de.persosim.simulator.perso.Personalization;
-import de.persosim.simulator.perso.PersonalizationFactory;
+import de.persosim.simulator.perso.PersonalizationCache;
+import de.persosim.simulator.perso.ProfileRegistry;
+import de.persosim.simulator.perso.ProfileRegistry.ProfileInfo;
+import de.persosim.simulator.platform.PersoSimKernel;
 import de.persosim.simulator.utils.HexString;
 
 /**
@@ -55,10 +59,21 @@ public class CommandParser {
 	
 	private static boolean processingCommandLineArguments = false;
 	
+	private static PersonalizationCache personalizationCache = new PersonalizationCache();
+	private static ProfileRegistry profileRegistry = new ProfileRegistry(personalizationCache);
+	
 	public static final String PERSO_PATH = "personalization/profiles/";
 	public static final String PERSO_FILE_PREFIX = "Profile";
 	public static final String PERSO_FILE_POSTFIX = ".perso";
 	
+	/**
+	 * System property configuring the profiles preloaded on startup, either a
+	 * comma separated list of paths or {@link #PRELOAD_NONE}. If not set, all
+	 * profiles bundled with the simulator are preloaded.
+	 */
+	public static final String PROPERTY_PRELOAD = "de.persosim.simulator.preload";
+	public static final String PRELOAD_NONE = "none";
+	
 	/**
 	 * This method processes the command for starting the simulator.
 	 * @param args arguments that may contain a start command
@@ -203,12 +218,12 @@ public class CommandParser {
 				
 				args.remove(0);
     			args.remove(0);
-				Personalization perso = getPerso(arg);
+				PersoSimKernel kernel = getKernel(arg);
 				
-				if (perso != null) {
+				if (kernel != null) {
 					PersoSim sim = getPersoSim();
 					if (sim != null) {
-						if (sim.loadPersonalization(perso)){
+						if (sim.loadKernel(kernel)){
 							return true;
 						}
 					} else {
@@ -223,10 +238,11 @@ public class CommandParser {
 	
 	/**
 	 * This method parses the given identifier and loads the personalization
+	 * into a kernel, reusing a kernel previously initialized from the same file
 	 * @param identifier
-	 * @return a personalization object
+	 * @return a kernel initialized with the personalization
 	 */
-	private static Personalization getPerso(String identifier){
+	private static PersoSimKernel getKernel(String identifier){
 
 		String filePath = "";
 		int personalizationNumber = 0;
@@ -246,18 +262,7 @@ public class CommandParser {
 				return null;
 			}
 			log(CommandParser.class, "trying to load personalization profile no: " + personalizationNumber, INFO);
-			Bundle plugin = Activator.getContext().getBundle();
-			
-			URL url = plugin.getEntry (PERSO_PATH);
-			URL resolvedUrl;
-			File folder = null;
-			
-			try {
-				resolvedUrl = FileLocator.resolve(url);
-				folder = new File(resolvedUrl.getFile());
-			} catch (IOException e) {
-				log(CommandParser.class, e.getMessage(), ERROR);
-			}
+			File folder = getProfileFolder();
 			if (personalizationNumber < 10) {
 				identifier = "0" + personalizationNumber;
 			}
@@ -266,7 +271,8 @@ public class CommandParser {
 		
 		//actually load perso from the identified file
 		try{
-			return parsePersonalization(filePath);
+			log(CommandParser.class, "Loading personalization from file " + filePath, INFO);
+			return profileRegistry.getKernel(filePath);
 		} catch(FileNotFoundException e) {
 			log(CommandParser.class, "unable to set personalization, reason is: " + e.getMessage(), ERROR);
 			log(CommandParser.class, "simulation is stopped", ERROR);
@@ -274,8 +280,56 @@ public class CommandParser {
 		}
 	} 
 	
+	/**
+	 * @return the folder containing the profiles bundled with the simulator
+	 *         or null if it can not be determined
+	 */
+	public static File getProfileFolder() {
+		if (Activator.getContext() == null) {
+			return null;
+		}
+		Bundle plugin = Activator.getContext().getBundle();
+		
+		URL url = plugin.getEntry (PERSO_PATH);
+		try {
+			URL resolvedUrl = FileLocator.resolve(url);
+			return new File(resolvedUrl.getFile());
+		} catch (IOException e) {
+			log(CommandParser.class, e.getMessage(), ERROR);
+			return null;
+		}
+	}
+	
+	/**
+	 * This method preloads the profiles configured by {@link #PROPERTY_PRELOAD}
+	 * into the {@link ProfileRegistry}, several profiles are loaded concurrently.
+	 * @return the results of the preloaded profiles
+	 */
+	public static List<ProfileInfo> preloadProfiles() {
+		String configuration = System.getProperty(PROPERTY_PRELOAD);
+		int threads = Runtime.getRuntime().availableProcessors();
+		
+		if (configuration == null) {
+			File folder = getProfileFolder();
+			if (folder == null) {
+				log(CommandParser.class, "profile folder not available, no profiles preloaded", WARN);
+				return Collections.emptyList();
+			}
+			return profileRegistry.preloadFolder(folder, threads);
+		}
+		
+		List<String> paths = new ArrayList<>();
+		for (String path : configuration.split(",")) {
+			if (!path.trim().isEmpty() && !path.trim().equals(PRELOAD_NONE)) {
+				paths.add(path.trim());
+			}
+		}
+		return profileRegistry.preload(paths, threads);
+	}
+	
 	/**
 	 * This method parses a {@link Personalization} object from a file identified by its name.
+	 * Previously parsed files are restored from the {@link PersonalizationCache} unless modified.
 	 * @param persoFileName the name of the file to contain the personalization
 	 * @return the parsed personalization
 	 * @throws FileNotFoundException 
@@ -283,7 +337,21 @@ public class CommandParser {
 	 */
 	public static Personalization parsePersonalization(String persoFileName) throws FileNotFoundException {
 		log(CommandParser.class, "Parsing personalization from file " + persoFileName, INFO);
-		return (Personalization) PersonalizationFactory.unmarshal(persoFileName);
+		return profileRegistry.getPersonalization(persoFileName);
+	}
+	
+	/**
+	 * @return the registry of the profiles loaded on startup
+	 */
+	public static ProfileRegistry getProfileRegistry() {
+		return profileRegistry;
+	}
+	
+	/**
+	 * @return the cache used when loading personalizations from files
+	 */
+	public static PersonalizationCache getPersonalizationCache() {
+		return personalizationCache;
 	}
 	
 	public static void executeUserCommands(String... args) {
@@ -2,6 +2,7 @@ package de.persosim.simulator;
 
 import static org.globaltester.logging.BasicLogger.INFO;
 import static org.globaltester.logging.BasicLogger.UI;
+import static org.globaltester.logging.BasicLogger.WARN;
 import static org.globaltester.logging.BasicLogger.log;
 import static org.globaltester.logging.BasicLogger.logException;
 
@@ -9,8 +10,14 @@ import org.globaltester.logging.BasicLogger;
 import org.globaltester.simulator.Simulator;
 
 import de.persosim.simulator.exception.AccessDeniedException;
+import de.persosim.simulator.metrics.SimulatorMetrics;
 import de.persosim.simulator.perso.Personalization;
+import de.persosim.simulator.perso.PersonalizationCache;
+import de.persosim.simulator.platform.CardStateSnapshot;
+import de.persosim.simulator.platform.Iso7816;
 import de.persosim.simulator.platform.PersoSimKernel;
+import de.persosim.simulator.utils.StartupTimer;
+import de.persosim.simulator.utils.Utils;
 
 /**
  * This class provides access to and control of the actual simulator. It can be
@@ -36,7 +43,17 @@ public class PersoSim implements Simulator {
 	public static final String LOG_NO_OPERATION = "nothing to process";
 	public static final String LOG_SIM_EXIT     = "simulator exit";
 	
+	/**
+	 * System property holding a seed for deterministic randomness of all
+	 * loaded cards, see {@link PersoSimKernel#setRandomSeed(long)}. For
+	 * testing only, e.g. to record sessions that can be replayed. The property
+	 * is read once when the simulator is created.
+	 */
+	public static final String PROPERTY_RANDOM_SEED = "persosim.random.seed";
+	
+	private final Long randomSeed = readRandomSeed();
 	private PersoSimKernel kernel;
+	private CardStateSnapshot snapshot;
 	private boolean running = false;
 	
 	/**
@@ -99,18 +116,72 @@ public class PersoSim implements Simulator {
 	 * @return true, if the profile loading was successful, otherwise false
 	 */
 	public boolean loadPersonalization(Personalization personalization) {
-		currentPersonalization = personalization;
-		
+		PersoSimKernel newKernel;
 		try {
-			kernel = new PersoSimKernel();
+			newKernel = new PersoSimKernel();
 		} catch (AccessDeniedException e) {
 			logException(this.getClass(), e, BasicLogger.ERROR);
 			return false;
 		}
-		kernel.init(currentPersonalization);
+		newKernel.init(personalization);
+		activate(newKernel);
+		currentPersonalization = personalization;
+		
+		return true;
+	}
+	
+	/**
+	 * This method loads a card from a kernel that has already been
+	 * initialized, e.g. by {@link PersonalizationCache#getKernel(String)}.
+	 * 
+	 * @param initializedKernel the kernel to be used
+	 * @return true, if the kernel was loaded successfully, otherwise false
+	 */
+	public boolean loadKernel(PersoSimKernel initializedKernel) {
+		activate(initializedKernel);
+		currentPersonalization = null;
 		
 		return true;
 	}
+	
+	/**
+	 * Replaces the current kernel by the given initialized one. The previous
+	 * kernel is handed back to the {@link PersonalizationCache} for reuse.
+	 */
+	private void activate(PersoSimKernel newKernel) {
+		if (kernel != null && kernel != newKernel) {
+			CommandParser.getPersonalizationCache().releaseKernel(kernel);
+		}
+		kernel = newKernel;
+		snapshot = null;
+		
+		if (randomSeed != null) {
+			kernel.setRandomSeed(randomSeed);
+		}
+		SimulatorMetrics.setGauge(SimulatorMetrics.GAUGE_SESSION_CONTEXTS,
+				"Session contexts stored in the security status of the most recently loaded card",
+				kernel::getSessionContextCount);
+		StartupTimer.phase(StartupTimer.PHASE_PERSONALIZATION_LOADED);
+	}
+
+	/**
+	 * Reads the seed configured by {@link #PROPERTY_RANDOM_SEED}. Invalid
+	 * values are logged and ignored.
+	 * 
+	 * @return the seed or null if none is configured
+	 */
+	private static Long readRandomSeed() {
+		String seed = System.getProperty(PROPERTY_RANDOM_SEED);
+		if (seed == null) {
+			return null;
+		}
+		try {
+			return Long.valueOf(seed.trim());
+		} catch (NumberFormatException e) {
+			log(PersoSim.class, "Ignoring invalid random seed \"" + seed + "\" configured by " + PROPERTY_RANDOM_SEED, WARN);
+			return null;
+		}
+	}
 
 	@Override
 	public byte[] processCommand(byte[] apdu) {
@@ -124,7 +195,9 @@ public class PersoSim implements Simulator {
 			return new byte[]{0x6f, 0x78};
 		}
 		
-		return kernel.process(apdu);
+		byte[] response = kernel.process(apdu);
+		StartupTimer.apduProcessed();
+		return response;
 	}
 
 	@Override
@@ -142,7 +215,9 @@ public class PersoSim implements Simulator {
 			log(this.getClass(), "The simulator is not initialized, attempt to power up ignored", INFO);
 			return new byte[]{0x6f, (byte)0x82};
 		}
-		return kernel.powerOn();
+		byte[] response = kernel.powerOn();
+		StartupTimer.phase(StartupTimer.PHASE_FIRST_POWER_UP);
+		return response;
 	}
 
 	@Override
@@ -170,4 +245,47 @@ public class PersoSim implements Simulator {
 		}
 		return kernel.reset();
 	}
+
+	/**
+	 * Records the current state of the simulated card, replacing any
+	 * previously recorded state. It can be restored by {@link #cardRollback()}.
+	 * 
+	 * @return the status word of the operation
+	 */
+	public byte[] cardSnapshot() {
+		if (!running){
+			log(this.getClass(), "The simulator is stopped, attempt to create a snapshot ignored", INFO);
+			return new byte[]{0x6f, (byte)0x86};
+		}
+		if (kernel == null){
+			log(this.getClass(), "The simulator is not initialized, attempt to create a snapshot ignored", INFO);
+			return new byte[]{0x6f, (byte)0x87};
+		}
+		snapshot = kernel.createSnapshot();
+		return Utils.toUnsignedByteArray(Iso7816.SW_9000_NO_ERROR);
+	}
+
+	/**
+	 * Restores the state of the simulated card recorded by the last call of
+	 * {@link #cardSnapshot()}. The recorded state is kept and can be restored
+	 * again.
+	 * 
+	 * @return the status word of the operation
+	 */
+	public byte[] cardRollback() {
+		if (!running){
+			log(this.getClass(), "The simulator is stopped, attempt to roll back ignored", INFO);
+			return new byte[]{0x6f, (byte)0x88};
+		}
+		if (kernel == null){
+			log(this.getClass(), "The simulator is not initialized, attempt to roll back ignored", INFO);
+			return new byte[]{0x6f, (byte)0x89};
+		}
+		if (snapshot == null){
+			log(this.getClass(), "No snapshot available, attempt to roll back ignored", INFO);
+			return Utils.toUnsignedByteArray(Iso7816.SW_6985_CONDITIONS_OF_USE_NOT_SATISFIED);
+		}
+		kernel.restoreSnapshot(snapshot);
+		return Utils.toUnsignedByteArray(Iso7816.SW_9000_NO_ERROR);
+	}
 }
@@ -1,6 +1,7 @@
 package de.persosim.simulator.apdu;
 
 import de.persosim.simulator.platform.Iso7816Lib;
+import de.persosim.simulator.tlv.TlvEncoder;
 import de.persosim.simulator.tlv.TlvValue;
 import de.persosim.simulator.utils.HexString;
 import de.persosim.simulator.utils.Utils;
@@ -54,13 +55,15 @@ public class ResponseApdu {
 	}
 
 	public byte[] toByteArray() {
-		byte[] swArray = Utils.toUnsignedByteArray(statusWord);
-		
-		if (data != null) {
-			return Utils.concatByteArrays(data.toByteArray(), swArray);
-		} else {
-			return swArray;
+		if (data == null) {
+			return Utils.toUnsignedByteArray(statusWord);
 		}
+		
+		/* encode the data field directly in front of the status word */
+		byte[] apdu = TlvEncoder.encode(data, 2);
+		apdu[apdu.length - 2] = (byte) (statusWord >>> 8);
+		apdu[apdu.length - 1] = (byte) statusWord;
+		return apdu;
 	}
 	
 	@Override
@@ -91,6 +91,18 @@ public abstract class AbstractCardObject implements CardObject {
 		return lifeCycleState;
 	}
 
+	/**
+	 * Sets the life cycle state without checking whether the transition is
+	 * allowed. This is only intended for restoring a previously recorded
+	 * state, see {@link de.persosim.simulator.platform.CardStateSnapshot}.
+	 * 
+	 * @param state
+	 *            the recorded life cycle state
+	 */
+	protected void restoreLifeCycleState(Iso7816LifeCycleState state) {
+		lifeCycleState = state;
+	}
+
 	@Override
 	public void updateLifeCycleState(Iso7816LifeCycleState state) throws AccessDeniedException {
 		if (lifeCycleState.isPersonalizationPhase() && 
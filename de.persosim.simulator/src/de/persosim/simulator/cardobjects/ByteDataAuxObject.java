@@ -8,7 +8,6 @@ import de.persosim.simulator.exception.AccessDeniedException;
 import de.persosim.simulator.protocols.RoleOid;
 import de.persosim.simulator.protocols.auxVerification.AuxOid;
 import de.persosim.simulator.protocols.ta.AuthenticatedAuxiliaryData;
-import de.persosim.simulator.protocols.ta.Authorization;
 import de.persosim.simulator.protocols.ta.TerminalAuthenticationMechanism;
 import de.persosim.simulator.protocols.ta.TerminalType;
 import de.persosim.simulator.secstatus.EffectiveAuthorizationMechanism;
@@ -64,13 +63,7 @@ public class ByteDataAuxObject extends AuxDataObject {
 			}
 			
 			if(taMechanism.getTerminalType().equals(TerminalType.AT)) {
-				Authorization auth = authMechanism.getAuthorization(RoleOid.id_AT);
-				
-				if(auth == null) {
-					throw new AccessDeniedException("Community ID verification not allowed");
-				}
-				
-				if(!auth.getAuthorization().getBit(1)) {
+				if(!authMechanism.isAuthorizationBitSet(RoleOid.id_AT, 1)) {
 					throw new AccessDeniedException("Community ID verification not allowed");
 				}
 			}
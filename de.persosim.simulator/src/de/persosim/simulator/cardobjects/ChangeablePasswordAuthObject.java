@@ -1,6 +1,7 @@
 package de.persosim.simulator.cardobjects;
 
 import de.persosim.simulator.exception.AccessDeniedException;
+import de.persosim.simulator.platform.CardStateHolder;
 import de.persosim.simulator.seccondition.OrSecCondition;
 import de.persosim.simulator.seccondition.SecCondition;
 
@@ -12,7 +13,22 @@ import de.persosim.simulator.seccondition.SecCondition;
  * @author slutters
  * 
  */
-public class ChangeablePasswordAuthObject extends PasswordAuthObject {
+public class ChangeablePasswordAuthObject extends PasswordAuthObject
+		implements CardStateHolder<ChangeablePasswordAuthObject.PasswordState> {
+	
+	/**
+	 * Recorded state of a password, the password array is never modified but
+	 * replaced when the password is changed.
+	 */
+	protected static class PasswordState {
+		final byte[] password;
+		final Iso7816LifeCycleState lifeCycleState;
+		
+		protected PasswordState(ChangeablePasswordAuthObject authObject) {
+			password = authObject.password;
+			lifeCycleState = authObject.getLifeCycleState();
+		}
+	}
 	
 	protected int minLengthOfPasswordInBytes;
 	protected int maxLengthOfPasswordInBytes;
@@ -64,6 +80,21 @@ public class ChangeablePasswordAuthObject extends PasswordAuthObject {
 		}
 	}
 
+	@Override
+	public PasswordState saveState() {
+		return new PasswordState(this);
+	}
+	
+	@Override
+	public boolean restoreState(PasswordState state) {
+		if (state.password == password && state.lifeCycleState == getLifeCycleState()) {
+			return false;
+		}
+		password = state.password;
+		restoreLifeCycleState(state.lifeCycleState);
+		return true;
+	}
+
 	public SecCondition getPinManagementCondition() {
 		return pinManagementCondition;
 	}
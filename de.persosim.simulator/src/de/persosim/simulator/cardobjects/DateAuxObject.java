@@ -8,7 +8,6 @@ import de.persosim.simulator.exception.AccessDeniedException;
 import de.persosim.simulator.protocols.RoleOid;
 import de.persosim.simulator.protocols.auxVerification.AuxOid;
 import de.persosim.simulator.protocols.ta.AuthenticatedAuxiliaryData;
-import de.persosim.simulator.protocols.ta.Authorization;
 import de.persosim.simulator.protocols.ta.TerminalAuthenticationMechanism;
 import de.persosim.simulator.protocols.ta.TerminalType;
 import de.persosim.simulator.secstatus.EffectiveAuthorizationMechanism;
@@ -65,9 +64,7 @@ public class DateAuxObject extends AuxDataObject {
 				}
 				
 				if (taMechanism.getTerminalType().equals(TerminalType.AT)) {
-					Authorization auth = authMechanism.getAuthorization(RoleOid.id_AT);
-					
-					if(!auth.getAuthorization().getBit(0)) {
+					if(!authMechanism.isAuthorizationBitSet(RoleOid.id_AT, 0)) {
 							throw new AccessDeniedException("Age verification not allowed");
 					}
 				}
@@ -2,6 +2,7 @@ package de.persosim.simulator.cardobjects;
 
 import java.util.Date;
 
+import de.persosim.simulator.platform.CardStateHolder;
 
 /**
  * This {@link CardObject} stores a date and time.
@@ -9,7 +10,7 @@ import java.util.Date;
  * @author mboonk
  *
  */
-public class DateTimeCardObject extends AbstractCardObject {
+public class DateTimeCardObject extends AbstractCardObject implements CardStateHolder<Date> {
 
 	Date currentDate;
 
@@ -32,6 +33,24 @@ public class DateTimeCardObject extends AbstractCardObject {
 		currentDate = new Date(date.getTime());
 	}
 	
+	/**
+	 * The stored date is replaced on update and never modified, so it is
+	 * recorded without copying it.
+	 */
+	@Override
+	public Date saveState() {
+		return currentDate;
+	}
+	
+	@Override
+	public boolean restoreState(Date state) {
+		if (state == currentDate) {
+			return false;
+		}
+		currentDate = state;
+		return true;
+	}
+	
 	@Override
 	public String toString() {
 		return "DateTimeCardObject (" + currentDate + ")";
@@ -1,10 +1,12 @@
 package de.persosim.simulator.cardobjects;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 
 import de.persosim.simulator.exception.AccessDeniedException;
+import de.persosim.simulator.platform.CardStateHolder;
 import de.persosim.simulator.seccondition.SecCondition;
 import de.persosim.simulator.secstatus.SecStatus;
 import de.persosim.simulator.tlv.ConstructedTlvDataObject;
@@ -19,10 +21,18 @@ import de.persosim.simulator.utils.Utils;
  * @author mboonk
  *
  */
-public class ElementaryFile extends AbstractFile {
+public class ElementaryFile extends AbstractFile implements CardStateHolder<Object> {
 
 	private byte[] content;
 	
+	private SidecarContent sidecarContent;
+	
+	/**
+	 * Marks the content array as shared with other files holding identical
+	 * contents, it must be copied before it is modified.
+	 */
+	private transient boolean contentShared;
+	
 	private ShortFileIdentifier shortFileIdentifier;
 
 	private SecCondition readingConditions;
@@ -158,11 +168,39 @@ public class ElementaryFile extends AbstractFile {
 	 */
 	public byte[] getContent() throws AccessDeniedException {
 		if (securityStatus == null || (readingConditions != null && securityStatus.checkAccessConditions(getLifeCycleState(), readingConditions))) {
+			if (content == null) {
+				return sidecarContent.toByteArray();
+			}
 			return Arrays.copyOf(content, content.length);
 		}
 		throw new AccessDeniedException("Reading forbidden");
 	}
 
+	/**
+	 * Reads a part of the files internal data without copying the remaining
+	 * contents.
+	 * 
+	 * @param offset
+	 *            the first byte to read
+	 * @param length
+	 *            the maximum number of bytes to read, fewer bytes (possibly
+	 *            none) are returned if the file ends before
+	 * @return a read-only view of the requested bytes, only valid until the
+	 *         contents are modified
+	 */
+	public ByteBuffer getContent(int offset, int length) throws AccessDeniedException {
+		if (securityStatus == null || (readingConditions != null && securityStatus.checkAccessConditions(getLifeCycleState(), readingConditions))) {
+			if (offset < 0 || length < 0) {
+				throw new IllegalArgumentException("offset and length must not be negative");
+			}
+			ByteBuffer buffer = (content != null) ? ByteBuffer.wrap(content) : sidecarContent.getBuffer();
+			buffer.position(Math.min(offset, buffer.limit()));
+			buffer.limit(buffer.position() + Math.min(length, buffer.remaining()));
+			return buffer.slice().asReadOnlyBuffer();
+		}
+		throw new AccessDeniedException("Reading forbidden");
+	}
+
 	/**
 	 * Replaces the files internal data.
 	 * 
@@ -171,6 +209,7 @@ public class ElementaryFile extends AbstractFile {
 	 */
 	public void update(int offset, byte[] data) throws AccessDeniedException {
 		if (securityStatus == null || (writingConditions != null && securityStatus.checkAccessConditions(getLifeCycleState(), writingConditions))){
+			copyContent();
 			for(int i = 0; i < data.length; i++) {
 				content[i + offset] = data[i];
 			}
@@ -222,10 +261,51 @@ public class ElementaryFile extends AbstractFile {
 	public void setContent(byte[] content) throws AccessDeniedException{
 		if (SecStatus.checkAccessConditions(getLifeCycleState())) {
 			this.content = content;
+			this.sidecarContent = null;
+			this.contentShared = false;
+			return;
+		}
+		throw new AccessDeniedException("Setting content forbidden");
+	}
+	
+	/**
+	 * Sets contents stored outside of the personalization. They are read from
+	 * the external file on first access and shared until they are modified
+	 * for the first time, which creates a private copy.
+	 * 
+	 * @param sidecarContent
+	 *            the contents to be used
+	 */
+	public void setContent(SidecarContent sidecarContent) throws AccessDeniedException{
+		if (SecStatus.checkAccessConditions(getLifeCycleState())) {
+			this.content = null;
+			this.sidecarContent = sidecarContent;
+			this.contentShared = false;
 			return;
 		}
 		throw new AccessDeniedException("Setting content forbidden");
 	}
+	
+	/**
+	 * @return the length of the files internal data
+	 */
+	public int getContentLength() {
+		return (content != null) ? content.length : sidecarContent.getLength();
+	}
+	
+	/**
+	 * Replaces external or shared contents by a private copy, so they can be
+	 * modified.
+	 */
+	private void copyContent() {
+		if (content == null) {
+			content = sidecarContent.toByteArray();
+			sidecarContent = null;
+		} else if (contentShared) {
+			content = Arrays.copyOf(content, content.length);
+		}
+		contentShared = false;
+	}
 
 	/**
 	 * Completely replaces the files internal data.
@@ -236,11 +316,42 @@ public class ElementaryFile extends AbstractFile {
 	public void replace(byte[] data) throws AccessDeniedException {
 		if (SecStatus.checkAccessConditions(getLifeCycleState())) {
 			content = Arrays.copyOf(data, data.length);
+			sidecarContent = null;
+			contentShared = false;
 			return;
 		}
 		throw new AccessDeniedException("Updating forbidden");
 	}
 
+	/**
+	 * The recorded state is the contents array or the external contents. The
+	 * array is shared with the snapshot and copied before it is modified.
+	 */
+	@Override
+	public Object saveState() {
+		if (content == null) {
+			return sidecarContent;
+		}
+		contentShared = true;
+		return content;
+	}
+
+	@Override
+	public boolean restoreState(Object state) {
+		if (state == content || state == sidecarContent) {
+			return false;
+		}
+		if (state instanceof SidecarContent) {
+			content = null;
+			sidecarContent = (SidecarContent) state;
+		} else {
+			content = (byte[]) state;
+			sidecarContent = null;
+			contentShared = true;
+		}
+		return true;
+	}
+
 	@Override
 	public void addChild(CardObject newChild) {
 	}
@@ -250,7 +361,7 @@ public class ElementaryFile extends AbstractFile {
 		ConstructedTlvDataObject result = super.getFileControlParameterDataObject();
 
 		result.addTlvDataObject(new PrimitiveTlvDataObject(new TlvTag((byte) 0x80),
-				Utils.removeLeadingZeroBytes(Utils.toUnsignedByteArray(content.length))));
+				Utils.removeLeadingZeroBytes(Utils.toUnsignedByteArray(getContentLength()))));
 
 		if(shortFileIdentifier != null) {
 			result.addTlvDataObject(new PrimitiveTlvDataObject(new TlvTag((byte) 0x88),
@@ -302,11 +413,13 @@ public class ElementaryFile extends AbstractFile {
 	public void erase(int startingOffset, int endingOffset) throws AccessDeniedException {
 		if (securityStatus == null || (erasingConditions != null && securityStatus.checkAccessConditions(getLifeCycleState(), erasingConditions))) {
 
-			if (startingOffset < 0 | endingOffset > content.length | endingOffset < startingOffset) {
+			if (startingOffset < 0 | endingOffset > getContentLength() | endingOffset < startingOffset) {
 				throw new IllegalArgumentException(
 						"The given offset combination (" + startingOffset + "," + endingOffset + ") is not feasible");
 			}
 
+			copyContent();
+
 			for (int i = startingOffset; i < endingOffset; i++) {
 				content[i] = 0;
 			}
@@ -322,7 +435,7 @@ public class ElementaryFile extends AbstractFile {
 	 * @throws AccessDeniedException
 	 */
 	public void erase() throws AccessDeniedException {
-		erase(0, content.length);
+		erase(0, getContentLength());
 	}
 
 	/**
@@ -337,7 +450,7 @@ public class ElementaryFile extends AbstractFile {
 	 *             the file
 	 */
 	public void erase(int startingOffset) throws AccessDeniedException {
-		erase(startingOffset, content.length);
+		erase(startingOffset, getContentLength());
 	}
 	
 	@Override
@@ -1,5 +1,7 @@
 package de.persosim.simulator.cardobjects;
 
+import java.nio.ByteBuffer;
+
 import de.persosim.simulator.exception.AccessDeniedException;
 
 /**
@@ -57,6 +59,15 @@ public class ElementaryFileWithReadWriteCounter extends ElementaryFile {
 		return content;
 	}
 	
+	@Override
+	public ByteBuffer getContent(int offset, int length) throws AccessDeniedException {
+		ByteBuffer content = super.getContent(offset, length);
+		if(getLifeCycleState().isOperational()) {
+			readCounter++;
+		}
+		return content;
+	}
+	
 	@Override
 	public void update(int offset, byte[] data) throws AccessDeniedException {
 		super.update(offset, data);
@@ -65,6 +76,39 @@ public class ElementaryFileWithReadWriteCounter extends ElementaryFile {
 		}
 	}
 	
+	/**
+	 * Recorded state of the file, i.e. the state recorded by
+	 * {@link ElementaryFile} together with the counters.
+	 */
+	private static final class CounterState {
+		final Object contentState;
+		final int readCounter;
+		final int writeCounter;
+		
+		CounterState(Object contentState, int readCounter, int writeCounter) {
+			this.contentState = contentState;
+			this.readCounter = readCounter;
+			this.writeCounter = writeCounter;
+		}
+	}
+	
+	@Override
+	public Object saveState() {
+		return new CounterState(super.saveState(), readCounter, writeCounter);
+	}
+	
+	@Override
+	public boolean restoreState(Object state) {
+		CounterState counterState = (CounterState) state;
+		boolean changed = super.restoreState(counterState.contentState);
+		if (readCounter != counterState.readCounter || writeCounter != counterState.writeCounter) {
+			readCounter = counterState.readCounter;
+			writeCounter = counterState.writeCounter;
+			changed = true;
+		}
+		return changed;
+	}
+	
 	/**
 	 * @return true if the file was read at least once.
 	 */
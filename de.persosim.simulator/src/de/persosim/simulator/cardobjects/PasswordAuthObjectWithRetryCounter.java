@@ -58,6 +58,34 @@ public class PasswordAuthObjectWithRetryCounter extends ChangeablePasswordAuthOb
 		}
 	}
 
+	/**
+	 * Recorded state of a password including its retry counter.
+	 */
+	protected static class RetryCounterState extends PasswordState {
+		final int retryCounter;
+		
+		protected RetryCounterState(PasswordAuthObjectWithRetryCounter authObject) {
+			super(authObject);
+			retryCounter = authObject.retryCounterCurrentValue;
+		}
+	}
+	
+	@Override
+	public PasswordState saveState() {
+		return new RetryCounterState(this);
+	}
+	
+	@Override
+	public boolean restoreState(PasswordState state) {
+		boolean changed = super.restoreState(state);
+		int retryCounter = ((RetryCounterState) state).retryCounter;
+		if (retryCounter != retryCounterCurrentValue) {
+			retryCounterCurrentValue = retryCounter;
+			changed = true;
+		}
+		return changed;
+	}
+
 	public int getRetryCounterCurrentValue() {
 		return retryCounterCurrentValue;
 	}
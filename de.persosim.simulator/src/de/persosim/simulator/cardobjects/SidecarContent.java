@@ -0,0 +1,110 @@
+package de.persosim.simulator.cardobjects;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class references file contents stored in a region of an external file,
+ * e.g. a sidecar file of a personalization. The region is read on first
+ * access, so the contents neither need to be decoded when loading the
+ * personalization nor occupy the heap for files that are never read.
+ * <p/>
+ * The external file is only open while the region is read. It is not mapped
+ * into memory, as mappings can not be released explicitly and would keep the
+ * file locked on some platforms.
+ *
+ */
+public class SidecarContent {
+
+	private String file;
+	private long offset;
+	private int length;
+
+	private transient ByteBuffer buffer;
+
+	/**
+	 * @param file
+	 *            path of the file containing the contents
+	 * @param offset
+	 *            position of the contents within the file
+	 * @param length
+	 *            length of the contents
+	 */
+	public SidecarContent(String file, long offset, int length) {
+		if (offset < 0 || length < 0) {
+			throw new IllegalArgumentException("offset and length must not be negative");
+		}
+		this.file = file;
+		this.offset = offset;
+		this.length = length;
+	}
+
+	public String getFile() {
+		return file;
+	}
+
+	public long getOffset() {
+		return offset;
+	}
+
+	public int getLength() {
+		return length;
+	}
+
+	/**
+	 * Returns a read-only view of the contents. The file is read on the first
+	 * call of this method.
+	 *
+	 * @return a new read-only buffer positioned at the start of the contents
+	 * @throws IllegalStateException
+	 *             if the file can not be read
+	 */
+	public ByteBuffer getBuffer() {
+		ByteBuffer loaded;
+		synchronized (this) {
+			if (buffer == null) {
+				buffer = load();
+			}
+			loaded = buffer;
+		}
+		return loaded.duplicate();
+	}
+
+	/**
+	 * @return a copy of the contents
+	 * @throws IllegalStateException
+	 *             if the file can not be read
+	 */
+	public byte[] toByteArray() {
+		byte[] result = new byte[length];
+		getBuffer().get(result);
+		return result;
+	}
+
+	private ByteBuffer load() {
+		try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+			if (offset + length > channel.size()) {
+				throw new IllegalStateException("file " + file + " is too short for the contents at offset " + offset);
+			}
+			ByteBuffer loaded = ByteBuffer.allocate(length);
+			while (loaded.hasRemaining()) {
+				if (channel.read(loaded, offset + loaded.position()) < 0) {
+					throw new IllegalStateException("file " + file + " ended while reading the contents");
+				}
+			}
+			loaded.flip();
+			return loaded.asReadOnlyBuffer();
+		} catch (IOException e) {
+			throw new IllegalStateException("file " + file + " could not be read", e);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return length + " bytes at offset " + offset + " of " + file;
+	}
+
+}
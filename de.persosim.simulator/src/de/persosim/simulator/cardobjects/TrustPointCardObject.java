@@ -4,6 +4,7 @@ import java.util.Collection;
 
 import de.persosim.simulator.crypto.certificates.CardVerifiableCertificate;
 import de.persosim.simulator.exception.CertificateUpdateException;
+import de.persosim.simulator.platform.CardStateHolder;
 import de.persosim.simulator.secstatus.SecStatus;
 
 /**
@@ -14,7 +15,7 @@ import de.persosim.simulator.secstatus.SecStatus;
  * @author mboonk
  * 
  */
-public class TrustPointCardObject extends AbstractCardObject {
+public class TrustPointCardObject extends AbstractCardObject implements CardStateHolder<CardVerifiableCertificate[]> {
 	
 	CardVerifiableCertificate currentCertificate;
 	CardVerifiableCertificate previousCertificate;
@@ -71,6 +72,24 @@ public class TrustPointCardObject extends AbstractCardObject {
 		currentCertificate = newCertificate;
 	}
 	
+	/**
+	 * The recorded state holds the current and the previous certificate.
+	 */
+	@Override
+	public CardVerifiableCertificate[] saveState() {
+		return new CardVerifiableCertificate[] { currentCertificate, previousCertificate };
+	}
+
+	@Override
+	public boolean restoreState(CardVerifiableCertificate[] state) {
+		if (state[0] == currentCertificate && state[1] == previousCertificate) {
+			return false;
+		}
+		currentCertificate = state[0];
+		previousCertificate = state[1];
+		return true;
+	}
+	
 	/**
 	 * Clears the content of this object, e.g. removes all certificates. This is
 	 * only possible if the {@link Iso7816LifeCycleState} allows this
@@ -0,0 +1,61 @@
+package de.persosim.simulator.crypto;
+
+import java.nio.ByteBuffer;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.security.SecureRandom;
+
+/**
+ * TEST MODE ONLY: {@link RandomProvider} returning predictable values.
+ * <p/>
+ * Each stream uses its own generator seeded from the seed and the stream
+ * number, so cards with the same personalization and seed respond identically
+ * to the same sequence of APDUs, independent of the order in which their
+ * protocols consume random values. The generators never access the system
+ * entropy source which makes them cheap to create, e.g. for load tests with
+ * many cards.
+ * <p/>
+ * Never use this for cards accessed by productive systems.
+ */
+public class DeterministicRandomProvider implements RandomProvider {
+
+	private final long seed;
+
+	/**
+	 * @param seed
+	 *            the seed shared by all streams
+	 */
+	public DeterministicRandomProvider(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * @return the seed shared by all streams
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	@Override
+	public SecureRandom getSecureRandom(int stream) {
+		try {
+			SecureRandom random = SecureRandom.getInstance("SHA1PRNG", "SUN");
+			// seeding before first use replaces the self seeding
+			random.setSeed(ByteBuffer.allocate(12).putLong(seed).putInt(stream).array());
+			return random;
+		} catch (NoSuchAlgorithmException | NoSuchProviderException e) {
+			throw new IllegalStateException("SHA1PRNG is not available", e);
+		}
+	}
+
+	@Override
+	public boolean isDeterministic() {
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return "deterministic test randomness derived from seed " + seed;
+	}
+
+}
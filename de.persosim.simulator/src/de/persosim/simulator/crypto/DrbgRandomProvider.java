@@ -0,0 +1,68 @@
+package de.persosim.simulator.crypto;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+
+/**
+ * Default {@link RandomProvider} using one DRBG per card for all its
+ * protocols.
+ * <p/>
+ * The DRBG is seeded once on first use by the JRE, which derives the seeds of
+ * further instances from an internal seeder. Cards therefore neither block on
+ * the system entropy source nor contend on the shared native generator used by
+ * <code>new SecureRandom()</code>.
+ */
+public class DrbgRandomProvider implements RandomProvider {
+
+	/**
+	 * The preferred algorithm, available from Java 9 on
+	 */
+	public static final String ALGORITHM_DRBG = "DRBG";
+
+	/**
+	 * The fallback algorithm for older runtimes
+	 */
+	public static final String ALGORITHM_SHA1PRNG = "SHA1PRNG";
+
+	private static final DrbgRandomProvider SHARED = new DrbgRandomProvider();
+
+	private final SecureRandom secureRandom;
+
+	public DrbgRandomProvider() {
+		secureRandom = createDrbg();
+	}
+
+	/**
+	 * Returns the provider used by protocols until the kernel assigns the
+	 * provider of their card, e.g. when they are used without a kernel.
+	 * 
+	 * @return the provider shared by all those protocols
+	 */
+	public static DrbgRandomProvider getShared() {
+		return SHARED;
+	}
+
+	private static SecureRandom createDrbg() {
+		try {
+			return SecureRandom.getInstance(ALGORITHM_DRBG);
+		} catch (NoSuchAlgorithmException e) {
+			try {
+				return SecureRandom.getInstance(ALGORITHM_SHA1PRNG);
+			} catch (NoSuchAlgorithmException e1) {
+				// every JRE is required to provide a strong default generator
+				return new SecureRandom();
+			}
+		}
+	}
+
+	@Override
+	public SecureRandom getSecureRandom(int stream) {
+		return secureRandom;
+	}
+
+	@Override
+	public boolean isDeterministic() {
+		return false;
+	}
+
+}
@@ -0,0 +1,35 @@
+package de.persosim.simulator.crypto;
+
+import java.security.SecureRandom;
+
+/**
+ * Source of all random values generated by the protocols of a simulated card,
+ * e.g. nonces, challenges and ephemeral keys.
+ * <p/>
+ * The kernel assigns one provider to each card, see
+ * {@link de.persosim.simulator.platform.PersoSimKernel#setRandomProvider(RandomProvider)}.
+ * 
+ * @see DrbgRandomProvider
+ * @see DeterministicRandomProvider
+ */
+public interface RandomProvider {
+
+	/**
+	 * This method returns the generator to be used by one consumer of the
+	 * card, e.g. a protocol. Providers may return the same generator for all
+	 * streams.
+	 * 
+	 * @param stream
+	 *            distinguishes the consumers of one card, must be assigned in
+	 *            a reproducible order
+	 * @return the random number generator
+	 */
+	SecureRandom getSecureRandom(int stream);
+
+	/**
+	 * @return true iff the generated values are predictable, i.e. the provider
+	 *         must be used for testing only
+	 */
+	boolean isDeterministic();
+
+}
@@ -1,8 +1,8 @@
 package de.persosim.simulator.crypto;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.globaltester.logging.BasicLogger;
 import org.osgi.framework.ServiceReference;
@@ -15,6 +15,7 @@ import de.persosim.simulator.tlv.ConstructedTlvDataObject;
 import de.persosim.simulator.tlv.PrimitiveTlvDataObject;
 import de.persosim.simulator.tlv.TlvConstants;
 import de.persosim.simulator.utils.HexString;
+import de.persosim.simulator.utils.StartupTimer;
 import de.persosim.simulator.utils.Utils;
 
 /**
@@ -28,58 +29,66 @@ public class StandardizedDomainParameters{
 	
 	public static final int NO_OF_STANDARDIZED_DOMAIN_PARAMETERS = 32;
 	
-	static private List<StandardizedDomainParameterProvider> providers = new ArrayList<>();
-	
-	static private ServiceTracker<StandardizedDomainParameterProvider, StandardizedDomainParameterProvider> serviceTracker;
-	
-	static {
-		if (Activator.getContext() != null){
-			ServiceTrackerCustomizer<StandardizedDomainParameterProvider, StandardizedDomainParameterProvider> customizer = new ServiceTrackerCustomizer<StandardizedDomainParameterProvider, StandardizedDomainParameterProvider>() {
+	/**
+	 * Providers registered as OSGi services are tracked from the first access
+	 * on, not from loading this class.
+	 */
+	private static class Providers {
+		static final List<StandardizedDomainParameterProvider> providers = new CopyOnWriteArrayList<>();
+
+		static ServiceTracker<StandardizedDomainParameterProvider, StandardizedDomainParameterProvider> serviceTracker;
+
+		static {
+			long start = System.nanoTime();
+			if (Activator.getContext() != null){
+				ServiceTrackerCustomizer<StandardizedDomainParameterProvider, StandardizedDomainParameterProvider> customizer = new ServiceTrackerCustomizer<StandardizedDomainParameterProvider, StandardizedDomainParameterProvider>() {
 				
-				@Override
-				public void removedService(
-						ServiceReference<StandardizedDomainParameterProvider> reference,
-						StandardizedDomainParameterProvider service) {
-					providers.remove(service);
-				}
+					@Override
+					public void removedService(
+							ServiceReference<StandardizedDomainParameterProvider> reference,
+							StandardizedDomainParameterProvider service) {
+						providers.remove(service);
+					}
 				
-				@Override
-				public void modifiedService(
-						ServiceReference<StandardizedDomainParameterProvider> reference,
-						StandardizedDomainParameterProvider service) {
-					//Nothing to be done
-				}
+					@Override
+					public void modifiedService(
+							ServiceReference<StandardizedDomainParameterProvider> reference,
+							StandardizedDomainParameterProvider service) {
+						//Nothing to be done
+					}
 				
-				@Override
-				public StandardizedDomainParameterProvider addingService(
-						ServiceReference<StandardizedDomainParameterProvider> reference) {
-					StandardizedDomainParameterProvider provider = Activator.getContext().getService(reference); 
-					providers.add(provider);
-					return provider;
-				}
-			};
+					@Override
+					public StandardizedDomainParameterProvider addingService(
+							ServiceReference<StandardizedDomainParameterProvider> reference) {
+						StandardizedDomainParameterProvider provider = Activator.getContext().getService(reference); 
+						providers.add(provider);
+						return provider;
+					}
+				};
 			
-			serviceTracker = new ServiceTracker<StandardizedDomainParameterProvider, StandardizedDomainParameterProvider>(Activator.getContext(), StandardizedDomainParameterProvider.class.getName(), customizer);
-			serviceTracker.open();
+				serviceTracker = new ServiceTracker<StandardizedDomainParameterProvider, StandardizedDomainParameterProvider>(Activator.getContext(), StandardizedDomainParameterProvider.class.getName(), customizer);
+				serviceTracker.open();
 			
-			ServiceReference<StandardizedDomainParameterProvider> references [] = serviceTracker.getServiceReferences();
+				ServiceReference<StandardizedDomainParameterProvider> references [] = serviceTracker.getServiceReferences();
 			
-			if (references != null){
-				for(ServiceReference<StandardizedDomainParameterProvider> providerReference : references){
-					providers.add(Activator.getContext().getService(providerReference));	
-				}	
-			}
+				if (references != null){
+					for(ServiceReference<StandardizedDomainParameterProvider> providerReference : references){
+						providers.add(Activator.getContext().getService(providerReference));	
+					}	
+				}
 					
-		} else {
-			BasicLogger.log(StandardizedDomainParameters.class, "No OSGi context is available, no additional domain parameters are supported", BasicLogger.INFO);
+			} else {
+				BasicLogger.log(StandardizedDomainParameters.class, "No OSGi context is available, no additional domain parameters are supported", BasicLogger.INFO);
+			}
+			providers.add(new StandardizedDomainParameterDefaultProvider());
+			StartupTimer.classInit(StandardizedDomainParameters.class, start);
 		}
-		providers.add(new StandardizedDomainParameterDefaultProvider());
-    }
+	}
 		
 	static private HashMap<Integer, StandardizedDomainParameterProvider> getCurrentlySupportedParameters(){
 		HashMap<Integer, StandardizedDomainParameterProvider> supported = new HashMap<>();
 		
-		for (StandardizedDomainParameterProvider provider : providers) {
+		for (StandardizedDomainParameterProvider provider : Providers.providers) {
 			for (Integer i : provider.getSupportedDomainParameters()){
 				supported.put(i, provider);
 			}
@@ -118,7 +127,7 @@ public class StandardizedDomainParameters{
 	public static ConstructedTlvDataObject simplifyAlgorithmIdentifier(
 			ConstructedTlvDataObject algIdentifier) {
 		
-		for (StandardizedDomainParameterProvider provider : providers){
+		for (StandardizedDomainParameterProvider provider : Providers.providers){
 			String algIdHexString = HexString.encode(algIdentifier.toByteArray());
 			Integer current = provider.getSimplifiedAlgorithm(algIdHexString);
 			if (current != null){
@@ -141,7 +150,7 @@ public class StandardizedDomainParameters{
 	 *         supported
 	 */
 	public static Integer getDomainParameterSetId(ConstructedTlvDataObject algIdentifier){
-		for (StandardizedDomainParameterProvider provider : providers){
+		for (StandardizedDomainParameterProvider provider : Providers.providers){
 			String algIdHexString = HexString.encode(algIdentifier.toByteArray());
 			Integer current = provider.getSimplifiedAlgorithm(algIdHexString);
 			return current;
@@ -0,0 +1,197 @@
+package de.persosim.simulator.log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.osgi.service.log.LogEntry;
+import org.osgi.service.log.LogListener;
+
+import de.persosim.simulator.metrics.Counter;
+import de.persosim.simulator.metrics.SimulatorMetrics;
+
+/**
+ * Decouples the threads logging, e.g. while processing APDUs, from slow
+ * {@link LogListener}s like the UI console or log files.
+ * <p/>
+ * Registered with the LogReaderService instead of the actual listeners, this
+ * only appends each entry to a lock-free bounded queue. A single daemon thread
+ * takes the entries from the queue and dispatches them in batches to the
+ * listeners added to this dispatcher, so filtering and formatting happen on
+ * that thread as well. Entries arriving while the queue is full are dropped
+ * and counted instead of delaying the logging thread.
+ * <p/>
+ * Entries are only dispatched after {@link #start()}.
+ */
+public class AsyncLogDispatcher implements LogListener {
+
+	public static final int DEFAULT_CAPACITY = 16384;
+	public static final int DEFAULT_BATCH_SIZE = 512;
+
+	/**
+	 * Maximum time the dispatcher thread waits without being notified, only
+	 * relevant if a notification is missed during shutdown
+	 */
+	private static final long MAX_IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+	private static final Counter DROPPED = SimulatorMetrics.getCounter(SimulatorMetrics.COUNTER_LOG_ENTRIES_DROPPED,
+			"Log entries dropped because the asynchronous dispatch queue was full");
+
+	private final int capacity;
+	private final int batchSize;
+	private final ConcurrentLinkedQueue<LogEntry> queue = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger size = new AtomicInteger();
+	private final LongAdder dropped = new LongAdder();
+	private final CopyOnWriteArrayList<LogListener> listeners = new CopyOnWriteArrayList<>();
+	private final AtomicBoolean idle = new AtomicBoolean();
+
+	private volatile boolean running;
+	private volatile Thread dispatcher;
+
+	public AsyncLogDispatcher() {
+		this(DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE);
+	}
+
+	/**
+	 * @param capacity
+	 *            the maximum number of queued entries
+	 * @param batchSize
+	 *            the maximum number of entries dispatched at once
+	 */
+	public AsyncLogDispatcher(int capacity, int batchSize) {
+		if (capacity <= 0 || batchSize <= 0) {
+			throw new IllegalArgumentException("capacity and batch size must be positive");
+		}
+		this.capacity = capacity;
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * @param listener
+	 *            the listener to receive all entries dispatched from now on,
+	 *            ignored if it was already added
+	 */
+	public void addListener(LogListener listener) {
+		listeners.addIfAbsent(listener);
+	}
+
+	/**
+	 * @param listener
+	 *            the listener to not receive entries anymore
+	 */
+	public void removeListener(LogListener listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Start the dispatcher thread, does nothing if already running.
+	 */
+	public synchronized void start() {
+		if (running) {
+			return;
+		}
+		running = true;
+		dispatcher = new Thread(this::dispatch, "PersoSim log dispatcher");
+		dispatcher.setDaemon(true);
+		dispatcher.start();
+	}
+
+	/**
+	 * Stop the dispatcher thread after dispatching all queued entries.
+	 */
+	public synchronized void stop() {
+		Thread thread = dispatcher;
+		if (!running) {
+			return;
+		}
+		running = false;
+		LockSupport.unpark(thread);
+		try {
+			thread.join(TimeUnit.SECONDS.toMillis(5));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		dispatcher = null;
+	}
+
+	/**
+	 * @return true iff the dispatcher thread is running
+	 */
+	public boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * @return the number of entries dropped because the queue was full
+	 */
+	public long getDropped() {
+		return dropped.sum();
+	}
+
+	/**
+	 * @return the number of entries waiting to be dispatched
+	 */
+	public int getQueued() {
+		return size.get();
+	}
+
+	@Override
+	public void logged(LogEntry entry) {
+		if (size.incrementAndGet() > capacity) {
+			size.decrementAndGet();
+			dropped.increment();
+			DROPPED.increment();
+			return;
+		}
+		queue.offer(entry);
+		if (idle.get()) {
+			LockSupport.unpark(dispatcher);
+		}
+	}
+
+	private void dispatch() {
+		List<LogEntry> batch = new ArrayList<>(batchSize);
+		while (running || !queue.isEmpty()) {
+			LogEntry entry;
+			while (batch.size() < batchSize && (entry = queue.poll()) != null) {
+				batch.add(entry);
+			}
+			if (batch.isEmpty()) {
+				idle.set(true);
+				// recheck after announcing the idle state, producers only notify when idle
+				if (running && queue.isEmpty()) {
+					LockSupport.parkNanos(this, MAX_IDLE_NANOS);
+				}
+				idle.set(false);
+				continue;
+			}
+			size.addAndGet(-batch.size());
+			for (LogListener listener : listeners) {
+				dispatch(listener, batch);
+			}
+			batch.clear();
+		}
+	}
+
+	private static void dispatch(LogListener listener, List<LogEntry> batch) {
+		try {
+			if (listener instanceof BatchLogListener) {
+				((BatchLogListener) listener).logged(batch);
+			} else {
+				for (LogEntry entry : batch) {
+					listener.logged(entry);
+				}
+			}
+		} catch (RuntimeException e) {
+			// logging the failure would feed it back into this dispatcher
+			e.printStackTrace();
+		}
+	}
+
+}
@@ -0,0 +1,23 @@
+package de.persosim.simulator.log;
+
+import java.util.List;
+
+import org.osgi.service.log.LogEntry;
+import org.osgi.service.log.LogListener;
+
+/**
+ * {@link LogListener} that processes entries in batches when registered with
+ * an {@link AsyncLogDispatcher}, e.g. to update a view or flush a file once
+ * per batch instead of once per entry.
+ */
+public interface BatchLogListener extends LogListener {
+
+	/**
+	 * Process the given entries in the order they were logged.
+	 * 
+	 * @param entries
+	 *            the entries, must not be modified or kept after returning
+	 */
+	void logged(List<LogEntry> entries);
+
+}
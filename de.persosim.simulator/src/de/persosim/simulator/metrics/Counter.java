@@ -0,0 +1,35 @@
+package de.persosim.simulator.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Monotonically increasing, lock free counter of simulator events.
+ */
+public class Counter {
+
+	private final String help;
+	private final LongAdder value = new LongAdder();
+
+	Counter(String help) {
+		this.help = help;
+	}
+
+	public void increment() {
+		value.increment();
+	}
+
+	/**
+	 * @return the number of events counted so far
+	 */
+	public long get() {
+		return value.sum();
+	}
+
+	/**
+	 * @return human readable description of the counted events
+	 */
+	public String getHelp() {
+		return help;
+	}
+
+}
@@ -0,0 +1,32 @@
+package de.persosim.simulator.metrics;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Current value of a simulator property, read on demand.
+ */
+public class Gauge {
+
+	private final String help;
+	private final LongSupplier value;
+
+	Gauge(String help, LongSupplier value) {
+		this.help = help;
+		this.value = value;
+	}
+
+	/**
+	 * @return the current value, read without locking
+	 */
+	public long get() {
+		return value.getAsLong();
+	}
+
+	/**
+	 * @return human readable description of the value
+	 */
+	public String getHelp() {
+		return help;
+	}
+
+}
@@ -0,0 +1,141 @@
+package de.persosim.simulator.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of latencies in nanoseconds with log-linear buckets, similar to an
+ * HdrHistogram with one significant decimal digit.
+ * <p/>
+ * Values below 16 ns have their own bucket, every larger power of two is split
+ * into 16 buckets of equal width. Percentiles are therefore reported with a
+ * relative error of at most 1/16. Values above 2^41 ns (about 36 minutes) are
+ * counted in the highest bucket.
+ * <p/>
+ * Recording is lock free and does not allocate, so the histogram can be
+ * updated concurrently from any thread. Reading while recording gives a
+ * consistent enough view for monitoring but is not an atomic snapshot.
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int MAX_MAGNITUDE = 40;
+	static final int BUCKET_COUNT = SUB_BUCKETS + (MAX_MAGNITUDE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+	private static final long MAX_VALUE = (1L << (MAX_MAGNITUDE + 1)) - 1;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sum = new LongAdder();
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+	/**
+	 * Record a single latency.
+	 *
+	 * @param nanos
+	 *            the latency in nanoseconds, negative values are recorded as 0
+	 */
+	public void record(long nanos) {
+		long value = Math.max(nanos, 0);
+		counts.incrementAndGet(getBucketIndex(value));
+		count.increment();
+		sum.add(value);
+		max.accumulate(value);
+	}
+
+	/**
+	 * Discard all recorded values. Values recorded concurrently may be partly
+	 * kept.
+	 */
+	public void reset() {
+		count.reset();
+		sum.reset();
+		max.reset();
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			counts.set(i, 0);
+		}
+	}
+
+	/**
+	 * @return the number of recorded values
+	 */
+	public long getCount() {
+		return count.sum();
+	}
+
+	/**
+	 * @return the sum of all recorded values in nanoseconds
+	 */
+	public long getSum() {
+		return sum.sum();
+	}
+
+	/**
+	 * @return the highest recorded value in nanoseconds, 0 if none was
+	 *         recorded
+	 */
+	public long getMax() {
+		return max.get();
+	}
+
+	/**
+	 * @return the mean of all recorded values in nanoseconds, 0 if none was
+	 *         recorded
+	 */
+	public double getMean() {
+		long currentCount = getCount();
+		return currentCount == 0 ? 0 : getSum() / (double) currentCount;
+	}
+
+	/**
+	 * @param percentile
+	 *            the percentile in the range (0, 100]
+	 * @return the upper bound of the bucket containing the value at the given
+	 *         percentile, but at most the highest recorded value, 0 if no value
+	 *         was recorded
+	 */
+	public long getPercentile(double percentile) {
+		long[] snapshot = new long[BUCKET_COUNT];
+		long total = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			snapshot[i] = counts.get(i);
+			total += snapshot[i];
+		}
+		if (total == 0) {
+			return 0;
+		}
+		// nearest rank
+		long rank = Math.max((long) Math.ceil(percentile / 100 * total), 1);
+		long seen = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			seen += snapshot[i];
+			if (seen >= rank) {
+				return Math.min(getBucketUpperBound(i), getMax());
+			}
+		}
+		return getMax();
+	}
+
+	static int getBucketIndex(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		long clamped = Math.min(value, MAX_VALUE);
+		int magnitude = 63 - Long.numberOfLeadingZeros(clamped);
+		int shift = magnitude - SUB_BUCKET_BITS;
+		int subBucket = (int) (clamped >>> shift) & (SUB_BUCKETS - 1);
+		return SUB_BUCKETS + shift * SUB_BUCKETS + subBucket;
+	}
+
+	static long getBucketUpperBound(int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+		int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+		int subBucket = (index - SUB_BUCKETS) % SUB_BUCKETS;
+		long lowerBound = (long) (SUB_BUCKETS + subBucket) << shift;
+		return lowerBound + (1L << shift) - 1;
+	}
+
+}
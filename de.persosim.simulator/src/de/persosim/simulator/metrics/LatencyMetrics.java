@@ -0,0 +1,171 @@
+package de.persosim.simulator.metrics;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import de.persosim.simulator.utils.HexString;
+
+/**
+ * Latencies of one processing stage, e.g. the kernel, a layer or a protocol,
+ * in total and per processed command, i.e. combination of instruction byte and
+ * status word.
+ * <p/>
+ * The histograms are indexed by primitive keys, so recording a command seen
+ * before does not allocate.
+ */
+public class LatencyMetrics implements LatencyMetricsMXBean {
+
+	/**
+	 * Histograms of a single instruction byte keyed by status word. Only a
+	 * handful of status words occur per instruction, so the entries are kept
+	 * in an array that is replaced when a status word is added.
+	 */
+	private static class InsHistograms {
+
+		private volatile int[] statusWords = new int[0];
+		private volatile LatencyHistogram[] histograms = new LatencyHistogram[0];
+
+		LatencyHistogram get(int statusWord) {
+			LatencyHistogram[] currentHistograms = histograms;
+			int[] currentStatusWords = statusWords;
+			for (int i = 0; i < currentHistograms.length; i++) {
+				if (currentStatusWords[i] == statusWord) {
+					return currentHistograms[i];
+				}
+			}
+			return add(statusWord);
+		}
+
+		private synchronized LatencyHistogram add(int statusWord) {
+			for (int i = 0; i < histograms.length; i++) {
+				if (statusWords[i] == statusWord) {
+					return histograms[i];
+				}
+			}
+			int[] newStatusWords = Arrays.copyOf(statusWords, statusWords.length + 1);
+			LatencyHistogram[] newHistograms = Arrays.copyOf(histograms, histograms.length + 1);
+			newStatusWords[statusWords.length] = statusWord;
+			newHistograms[histograms.length] = new LatencyHistogram();
+			/* status words are published first, readers take the histograms first */
+			statusWords = newStatusWords;
+			histograms = newHistograms;
+			return newHistograms[newHistograms.length - 1];
+		}
+
+	}
+
+	/**
+	 * Value to be passed for an unknown instruction byte or status word
+	 */
+	public static final int UNKNOWN = -1;
+
+	private final LatencyHistogram total = new LatencyHistogram();
+	/* indexed by instruction byte, UNKNOWN at the last index */
+	private final AtomicReferenceArray<InsHistograms> byIns = new AtomicReferenceArray<>(0x101);
+
+	/**
+	 * Record the processing time of a single command.
+	 *
+	 * @param ins
+	 *            the instruction byte of the command APDU or {@link #UNKNOWN}
+	 * @param statusWord
+	 *            the status word of the response APDU or {@link #UNKNOWN}
+	 * @param nanos
+	 *            the processing time in nanoseconds
+	 */
+	public void record(int ins, int statusWord, long nanos) {
+		total.record(nanos);
+
+		int index = ins == UNKNOWN ? 0x100 : ins & 0xFF;
+		InsHistograms insHistograms = byIns.get(index);
+		if (insHistograms == null) {
+			byIns.compareAndSet(index, null, new InsHistograms());
+			insHistograms = byIns.get(index);
+		}
+		insHistograms.get(statusWord == UNKNOWN ? UNKNOWN : statusWord & 0xFFFF).record(nanos);
+	}
+
+	/**
+	 * @return the histogram of all recorded latencies
+	 */
+	public LatencyHistogram getTotalHistogram() {
+		return total;
+	}
+
+	@Override
+	public LatencySummary getTotal() {
+		return LatencySummary.of(total);
+	}
+
+	@Override
+	public Map<String, LatencySummary> getByCommand() {
+		Map<String, LatencySummary> result = new TreeMap<>();
+		for (Map.Entry<Integer, LatencyHistogram> current : getHistogramsByKey().entrySet()) {
+			result.put(getCommandName(current.getKey()), LatencySummary.of(current.getValue()));
+		}
+		return result;
+	}
+
+	/**
+	 * @return the histograms keyed as by {@link #getByCommand()}
+	 */
+	public Map<String, LatencyHistogram> getCommandHistograms() {
+		Map<String, LatencyHistogram> result = new TreeMap<>();
+		for (Map.Entry<Integer, LatencyHistogram> current : getHistogramsByKey().entrySet()) {
+			result.put(getCommandName(current.getKey()), current.getValue());
+		}
+		return result;
+	}
+
+	/**
+	 * @return the histograms keyed by the internal command key, see
+	 *         {@link #getIns(int)} and {@link #getStatusWord(int)}
+	 */
+	Map<Integer, LatencyHistogram> getHistogramsByKey() {
+		Map<Integer, LatencyHistogram> result = new HashMap<>();
+		for (int index = 0; index < byIns.length(); index++) {
+			InsHistograms insHistograms = byIns.get(index);
+			if (insHistograms == null) {
+				continue;
+			}
+			LatencyHistogram[] histograms = insHistograms.histograms;
+			int[] statusWords = insHistograms.statusWords;
+			for (int i = 0; i < histograms.length; i++) {
+				result.put((index << 17) | (statusWords[i] & 0x1FFFF), histograms[i]);
+			}
+		}
+		return result;
+	}
+
+	static int getIns(int key) {
+		int ins = key >>> 17;
+		return ins > 0xFF ? UNKNOWN : ins;
+	}
+
+	static int getStatusWord(int key) {
+		int statusWord = key & 0x1FFFF;
+		return statusWord > 0xFFFF ? UNKNOWN : statusWord;
+	}
+
+	@Override
+	public void reset() {
+		total.reset();
+		for (int index = 0; index < byIns.length(); index++) {
+			byIns.set(index, null);
+		}
+	}
+
+	private static String getCommandName(int key) {
+		int ins = getIns(key);
+		int statusWord = getStatusWord(key);
+		String name = ins == UNKNOWN ? "??" : HexString.hexifyByte(ins);
+		if (statusWord != UNKNOWN) {
+			name += " " + HexString.hexifyShort(statusWord);
+		}
+		return name;
+	}
+
+}
@@ -0,0 +1,26 @@
+package de.persosim.simulator.metrics;
+
+import java.util.Map;
+
+/**
+ * Management interface of {@link LatencyMetrics}.
+ */
+public interface LatencyMetricsMXBean {
+
+	/**
+	 * @return the summary of all recorded latencies
+	 */
+	LatencySummary getTotal();
+
+	/**
+	 * @return the summaries of the recorded latencies keyed by instruction
+	 *         and status word of the processed APDUs, e.g. "B0 9000"
+	 */
+	Map<String, LatencySummary> getByCommand();
+
+	/**
+	 * Discard all recorded latencies.
+	 */
+	void reset();
+
+}
@@ -0,0 +1,75 @@
+package de.persosim.simulator.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Immutable summary of a {@link LatencyHistogram}, mapped to a composite type
+ * when accessed through JMX. All latencies are given in microseconds.
+ */
+public class LatencySummary {
+
+	private final long count;
+	private final double mean;
+	private final double p50;
+	private final double p95;
+	private final double p99;
+	private final double max;
+
+	@ConstructorProperties({ "count", "mean", "p50", "p95", "p99", "max" })
+	public LatencySummary(long count, double mean, double p50, double p95, double p99, double max) {
+		this.count = count;
+		this.mean = mean;
+		this.p50 = p50;
+		this.p95 = p95;
+		this.p99 = p99;
+		this.max = max;
+	}
+
+	/**
+	 * Create the summary of the current values of the given histogram.
+	 *
+	 * @param histogram
+	 *            the histogram to summarize
+	 * @return the summary
+	 */
+	public static LatencySummary of(LatencyHistogram histogram) {
+		return new LatencySummary(histogram.getCount(), toMicros(histogram.getMean()),
+				toMicros(histogram.getPercentile(50)), toMicros(histogram.getPercentile(95)),
+				toMicros(histogram.getPercentile(99)), toMicros(histogram.getMax()));
+	}
+
+	private static double toMicros(double nanos) {
+		return nanos / 1000;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public double getMean() {
+		return mean;
+	}
+
+	public double getP50() {
+		return p50;
+	}
+
+	public double getP95() {
+		return p95;
+	}
+
+	public double getP99() {
+		return p99;
+	}
+
+	public double getMax() {
+		return max;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("count=%d mean=%.1fus p50=%.1fus p95=%.1fus p99=%.1fus max=%.1fus", count, mean, p50,
+				p95, p99, max);
+	}
+
+}
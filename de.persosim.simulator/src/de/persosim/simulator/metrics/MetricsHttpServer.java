@@ -0,0 +1,150 @@
+package de.persosim.simulator.metrics;
+
+import static org.globaltester.logging.BasicLogger.INFO;
+import static org.globaltester.logging.BasicLogger.log;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Minimal HTTP server publishing the {@link SimulatorMetrics} in Prometheus
+ * text format at {@value #PATH}.
+ * <p/>
+ * The server is started on demand only, see {@link #PROPERTY_PORT}, and uses
+ * a single daemon thread so it never keeps the simulator alive.
+ */
+public class MetricsHttpServer {
+
+	public static final String PATH = "/metrics";
+	public static final String DEFAULT_HOST = "127.0.0.1";
+
+	/**
+	 * System property selecting the port of the endpoint, the server is only
+	 * started if this property is set
+	 */
+	public static final String PROPERTY_PORT = "persosim.metrics.port";
+
+	/**
+	 * System property selecting the address the endpoint is bound to,
+	 * defaults to {@value #DEFAULT_HOST}
+	 */
+	public static final String PROPERTY_HOST = "persosim.metrics.host";
+
+	private HttpServer server;
+	private ExecutorService executor;
+
+	/**
+	 * Start the server on the given address.
+	 *
+	 * @param host
+	 *            the address to bind to, e.g. {@link #DEFAULT_HOST}
+	 * @param port
+	 *            the port to bind to, 0 selects an ephemeral port
+	 * @throws IOException
+	 *             if the server can not be bound
+	 */
+	public synchronized void start(String host, int port) throws IOException {
+		if (server != null) {
+			throw new IllegalStateException("metrics server is already running");
+		}
+
+		HttpServer newServer = HttpServer.create(new InetSocketAddress(host, port), 0);
+		newServer.createContext(PATH, this::handle);
+		executor = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "PersoSim metrics");
+			thread.setDaemon(true);
+			return thread;
+		});
+		newServer.setExecutor(executor);
+		newServer.start();
+		server = newServer;
+
+		log(MetricsHttpServer.class, "Metrics available at http://" + host + ":" + getPort() + PATH, INFO);
+	}
+
+	/**
+	 * Start the server as configured by the system properties
+	 * {@value #PROPERTY_PORT} and {@value #PROPERTY_HOST}.
+	 *
+	 * @return true iff the server has been started, i.e. a port is configured
+	 * @throws IOException
+	 *             if the server can not be bound
+	 */
+	public boolean startConfigured() throws IOException {
+		String port = System.getProperty(PROPERTY_PORT);
+		if (port == null || port.trim().isEmpty()) {
+			return false;
+		}
+		try {
+			start(System.getProperty(PROPERTY_HOST, DEFAULT_HOST), Integer.parseInt(port.trim()));
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("invalid metrics port: " + port, e);
+		}
+		return true;
+	}
+
+	/**
+	 * Stop the server if running.
+	 */
+	public synchronized void stop() {
+		if (server != null) {
+			server.stop(0);
+			executor.shutdownNow();
+			server = null;
+			executor = null;
+		}
+	}
+
+	/**
+	 * @return true iff the server is running
+	 */
+	public synchronized boolean isRunning() {
+		return server != null;
+	}
+
+	/**
+	 * @return the port the server is bound to
+	 */
+	public synchronized int getPort() {
+		if (server == null) {
+			throw new IllegalStateException("metrics server is not running");
+		}
+		return server.getAddress().getPort();
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try {
+			String method = exchange.getRequestMethod();
+			if (!"GET".equals(method) && !"HEAD".equals(method)) {
+				exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+				exchange.sendResponseHeaders(405, -1);
+				return;
+			}
+			if (!PATH.equals(exchange.getRequestURI().getPath())) {
+				exchange.sendResponseHeaders(404, -1);
+				return;
+			}
+
+			byte[] body = PrometheusFormat.render().getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", PrometheusFormat.CONTENT_TYPE);
+			if ("HEAD".equals(method)) {
+				exchange.sendResponseHeaders(200, -1);
+				return;
+			}
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		} finally {
+			exchange.close();
+		}
+	}
+
+}
@@ -0,0 +1,146 @@
+package de.persosim.simulator.metrics;
+
+import java.util.Locale;
+import java.util.Map;
+
+import de.persosim.simulator.utils.HexString;
+
+/**
+ * Renders the {@link SimulatorMetrics} in the Prometheus text exposition
+ * format (version 0.0.4).
+ * <p/>
+ * All values are read without locking, so rendering never blocks the
+ * processing of APDUs. Latencies are published as summaries in seconds.
+ * <p/>
+ * The numbers of processed APDUs are derived from the latency histograms,
+ * which are discarded by {@link SimulatorMetrics#reset()}. They are therefore
+ * published as gauges, only the {@link Counter}s are published as counters.
+ */
+public final class PrometheusFormat {
+
+	public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+	private static final String PREFIX = "persosim_";
+	private static final double[] QUANTILES = { 0.5, 0.95, 0.99 };
+
+	private PrometheusFormat() {
+		// static access only
+	}
+
+	/**
+	 * @return all simulator metrics in Prometheus text format
+	 */
+	public static String render() {
+		StringBuilder out = new StringBuilder(4096);
+
+		LatencyMetrics kernel = SimulatorMetrics.getKernel();
+		writeHeader(out, "apdus", "gauge", "APDUs processed by the kernel since the last reset");
+		for (Map.Entry<Integer, LatencyHistogram> current : kernel.getHistogramsByKey().entrySet()) {
+			writeSample(out, "apdus", getCommandLabels(current.getKey()), current.getValue().getCount());
+		}
+		writeHeader(out, "apdu_duration_seconds", "summary", "Processing time of APDUs by the kernel");
+		writeSummary(out, "apdu_duration_seconds", "", kernel.getTotalHistogram());
+
+		writeHeader(out, "layer_duration_seconds", "summary", "Processing time of APDUs by a single layer");
+		writeLayers(out, true);
+		writeLayers(out, false);
+
+		Map<String, LatencyMetrics> protocols = SimulatorMetrics.getProtocols();
+		writeHeader(out, "protocol_apdus", "gauge",
+				"APDUs handled by a protocol since the last reset, successful if answered with 9000 or 61XX");
+		for (Map.Entry<String, LatencyMetrics> protocol : protocols.entrySet()) {
+			long success = 0;
+			long failure = 0;
+			for (Map.Entry<Integer, LatencyHistogram> current : protocol.getValue().getHistogramsByKey().entrySet()) {
+				if (isSuccess(LatencyMetrics.getStatusWord(current.getKey()))) {
+					success += current.getValue().getCount();
+				} else {
+					failure += current.getValue().getCount();
+				}
+			}
+			String labels = "protocol=\"" + escape(protocol.getKey()) + "\"";
+			writeSample(out, "protocol_apdus", labels + ",result=\"success\"", success);
+			writeSample(out, "protocol_apdus", labels + ",result=\"failure\"", failure);
+		}
+		writeHeader(out, "protocol_duration_seconds", "summary", "Processing time of APDUs handled by a protocol");
+		for (Map.Entry<String, LatencyMetrics> protocol : protocols.entrySet()) {
+			writeSummary(out, "protocol_duration_seconds", "protocol=\"" + escape(protocol.getKey()) + "\"",
+					protocol.getValue().getTotalHistogram());
+		}
+
+		for (Map.Entry<String, Counter> current : SimulatorMetrics.getCounters().entrySet()) {
+			String name = current.getKey() + "_total";
+			writeHeader(out, name, "counter", current.getValue().getHelp());
+			writeSample(out, name, "", current.getValue().get());
+		}
+		for (Map.Entry<String, Gauge> current : SimulatorMetrics.getGauges().entrySet()) {
+			writeHeader(out, current.getKey(), "gauge", current.getValue().getHelp());
+			writeSample(out, current.getKey(), "", current.getValue().get());
+		}
+
+		return out.toString();
+	}
+
+	private static void writeLayers(StringBuilder out, boolean ascending) {
+		String direction = ascending ? SimulatorMetrics.ASCENDING : SimulatorMetrics.DESCENDING;
+		for (Map.Entry<String, LatencyMetrics> layer : SimulatorMetrics.getLayers(ascending).entrySet()) {
+			writeSummary(out, "layer_duration_seconds",
+					"layer=\"" + escape(layer.getKey()) + "\",direction=\"" + direction + "\"",
+					layer.getValue().getTotalHistogram());
+		}
+	}
+
+	static boolean isSuccess(int statusWord) {
+		return statusWord == 0x9000 || (statusWord & 0xFF00) == 0x6100;
+	}
+
+	private static String getCommandLabels(int key) {
+		int ins = LatencyMetrics.getIns(key);
+		int statusWord = LatencyMetrics.getStatusWord(key);
+		return "ins=\"" + (ins == LatencyMetrics.UNKNOWN ? "" : HexString.hexifyByte(ins)) + "\",sw=\""
+				+ (statusWord == LatencyMetrics.UNKNOWN ? "" : HexString.hexifyShort(statusWord)) + "\"";
+	}
+
+	private static void writeHeader(StringBuilder out, String name, String type, String help) {
+		out.append("# HELP ").append(PREFIX).append(name).append(' ').append(help.replace("\\", "\\\\").replace("\n", "\\n"))
+				.append('\n');
+		out.append("# TYPE ").append(PREFIX).append(name).append(' ').append(type).append('\n');
+	}
+
+	private static void writeSummary(StringBuilder out, String name, String labels, LatencyHistogram histogram) {
+		String separator = labels.isEmpty() ? "" : ",";
+		for (double quantile : QUANTILES) {
+			writeSample(out, name, labels + separator + "quantile=\"" + quantile + "\"",
+					toSeconds(histogram.getPercentile(quantile * 100)));
+		}
+		writeSample(out, name + "_sum", labels, toSeconds(histogram.getSum()));
+		writeSample(out, name + "_count", labels, histogram.getCount());
+	}
+
+	private static void writeSample(StringBuilder out, String name, String labels, long value) {
+		writeName(out, name, labels);
+		out.append(value).append('\n');
+	}
+
+	private static void writeSample(StringBuilder out, String name, String labels, double value) {
+		writeName(out, name, labels);
+		out.append(String.format(Locale.ROOT, "%.9f", value)).append('\n');
+	}
+
+	private static void writeName(StringBuilder out, String name, String labels) {
+		out.append(PREFIX).append(name);
+		if (!labels.isEmpty()) {
+			out.append('{').append(labels).append('}');
+		}
+		out.append(' ');
+	}
+
+	private static double toSeconds(long nanos) {
+		return nanos / 1e9;
+	}
+
+	private static String escape(String labelValue) {
+		return labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+	}
+
+}
@@ -0,0 +1,238 @@
+package de.persosim.simulator.metrics;
+
+import static org.globaltester.logging.BasicLogger.WARN;
+import static org.globaltester.logging.BasicLogger.log;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import de.persosim.simulator.processing.ProcessingData;
+
+/**
+ * Process wide latency metrics of the simulator, exposed as platform MBeans in
+ * the domain {@value #DOMAIN}:
+ * <ul>
+ * <li>PersoSim:type=Kernel - complete processing of an APDU by the kernel</li>
+ * <li>PersoSim:type=Layer,name=&lt;layer&gt;,direction=&lt;ascending|descending&gt; -
+ * processing by a single layer</li>
+ * <li>PersoSim:type=Protocol,name=&lt;protocol&gt; - processing by a single
+ * protocol</li>
+ * </ul>
+ * All kernels of the process record into the same metrics. The MBeans are
+ * registered when the metrics are first used.
+ * <p/>
+ * Additionally named {@link Counter}s and {@link Gauge}s can be registered by
+ * the components of the simulator, these are published by the
+ * {@link MetricsHttpServer}.
+ * <p/>
+ * Recording can be disabled by setting the system property
+ * {@value #PROPERTY_ENABLED} to false or by calling
+ * {@link #setEnabled(boolean)}.
+ */
+public final class SimulatorMetrics {
+
+	public static final String DOMAIN = "PersoSim";
+	public static final String PROPERTY_ENABLED = "persosim.metrics";
+	public static final String ASCENDING = "ascending";
+	public static final String DESCENDING = "descending";
+
+	public static final String COUNTER_SM_SESSIONS = "sm_sessions";
+	public static final String COUNTER_SOCKET_CONNECTIONS = "socket_connections";
+	public static final String COUNTER_LOG_ENTRIES_DROPPED = "log_entries_dropped";
+	public static final String GAUGE_SESSION_CONTEXTS = "secstatus_session_contexts";
+	public static final String GAUGE_OPEN_SOCKET_CONNECTIONS = "socket_connections_open";
+
+	private static volatile boolean enabled = !"false".equalsIgnoreCase(System.getProperty(PROPERTY_ENABLED));
+
+	private static final LatencyMetrics KERNEL = register(new LatencyMetrics(), DOMAIN + ":type=Kernel");
+	private static final Map<String, LatencyMetrics> ASCENDING_LAYERS = new ConcurrentHashMap<>();
+	private static final Map<String, LatencyMetrics> DESCENDING_LAYERS = new ConcurrentHashMap<>();
+	private static final Map<String, LatencyMetrics> PROTOCOLS = new ConcurrentHashMap<>();
+	private static final Map<String, Counter> COUNTERS = new ConcurrentHashMap<>();
+	private static final Map<String, Gauge> GAUGES = new ConcurrentHashMap<>();
+
+	private SimulatorMetrics() {
+		// static access only
+	}
+
+	/**
+	 * @return true iff latencies are to be recorded
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * @param enabled
+	 *            whether latencies are to be recorded
+	 */
+	public static void setEnabled(boolean enabled) {
+		SimulatorMetrics.enabled = enabled;
+	}
+
+	/**
+	 * @return the metrics of the complete APDU processing
+	 */
+	public static LatencyMetrics getKernel() {
+		return KERNEL;
+	}
+
+	/**
+	 * @param layerName
+	 *            the name of the layer as returned by its getLayerName()
+	 * @param ascending
+	 *            true for the processing of the command APDU, false for the
+	 *            response APDU
+	 * @return the metrics of the layer in the given direction
+	 */
+	public static LatencyMetrics getLayer(String layerName, boolean ascending) {
+		Map<String, LatencyMetrics> layers = ascending ? ASCENDING_LAYERS : DESCENDING_LAYERS;
+		LatencyMetrics metrics = layers.get(layerName);
+		if (metrics == null) {
+			metrics = layers.computeIfAbsent(layerName, name -> register(new LatencyMetrics(), DOMAIN
+					+ ":type=Layer,name=" + ObjectName.quote(name) + ",direction=" + (ascending ? ASCENDING : DESCENDING)));
+		}
+		return metrics;
+	}
+
+	/**
+	 * @param protocolName
+	 *            the name of the protocol as returned by its getProtocolName()
+	 * @return the metrics of the protocol
+	 */
+	public static LatencyMetrics getProtocol(String protocolName) {
+		LatencyMetrics metrics = PROTOCOLS.get(protocolName);
+		if (metrics == null) {
+			metrics = PROTOCOLS.computeIfAbsent(protocolName, name -> register(new LatencyMetrics(),
+					DOMAIN + ":type=Protocol,name=" + ObjectName.quote(name)));
+		}
+		return metrics;
+	}
+
+	/**
+	 * @param ascending
+	 *            selects the direction
+	 * @return the metrics of all layers used so far in the given direction,
+	 *         keyed by layer name
+	 */
+	public static Map<String, LatencyMetrics> getLayers(boolean ascending) {
+		return Collections.unmodifiableMap(new TreeMap<>(ascending ? ASCENDING_LAYERS : DESCENDING_LAYERS));
+	}
+
+	/**
+	 * @return the metrics of all protocols used so far, keyed by protocol name
+	 */
+	public static Map<String, LatencyMetrics> getProtocols() {
+		return Collections.unmodifiableMap(new TreeMap<>(PROTOCOLS));
+	}
+
+	/**
+	 * Get the counter with the given name, it is created on first access.
+	 *
+	 * @param name
+	 *            the name of the counter, e.g. {@link #COUNTER_SM_SESSIONS}
+	 * @param help
+	 *            description of the counted events, only used on creation
+	 * @return the counter
+	 */
+	public static Counter getCounter(String name, String help) {
+		Counter counter = COUNTERS.get(name);
+		if (counter == null) {
+			counter = COUNTERS.computeIfAbsent(name, key -> new Counter(help));
+		}
+		return counter;
+	}
+
+	/**
+	 * Register a gauge, replacing any gauge registered with the same name.
+	 *
+	 * @param name
+	 *            the name of the gauge, e.g. {@link #GAUGE_SESSION_CONTEXTS}
+	 * @param help
+	 *            description of the value
+	 * @param value
+	 *            supplies the current value, called from the thread reading
+	 *            the metrics and thus must not block
+	 */
+	public static void setGauge(String name, String help, LongSupplier value) {
+		GAUGES.put(name, new Gauge(help, value));
+	}
+
+	/**
+	 * @return all counters keyed by name
+	 */
+	public static Map<String, Counter> getCounters() {
+		return Collections.unmodifiableMap(new TreeMap<>(COUNTERS));
+	}
+
+	/**
+	 * @return all gauges keyed by name
+	 */
+	public static Map<String, Gauge> getGauges() {
+		return Collections.unmodifiableMap(new TreeMap<>(GAUGES));
+	}
+
+	/**
+	 * Discard the recorded latencies of all metrics. Counters and gauges are
+	 * not affected.
+	 */
+	public static void reset() {
+		KERNEL.reset();
+		for (LatencyMetrics current : ASCENDING_LAYERS.values()) {
+			current.reset();
+		}
+		for (LatencyMetrics current : DESCENDING_LAYERS.values()) {
+			current.reset();
+		}
+		for (LatencyMetrics current : PROTOCOLS.values()) {
+			current.reset();
+		}
+	}
+
+	/**
+	 * @param processingData
+	 *            the processing data of the current APDU
+	 * @return the instruction byte of the command APDU or
+	 *         {@link LatencyMetrics#UNKNOWN} if not yet parsed
+	 */
+	public static int getIns(ProcessingData processingData) {
+		if (processingData.getCommandApdu() == null) {
+			return LatencyMetrics.UNKNOWN;
+		}
+		return processingData.getCommandApdu().getIns() & 0xFF;
+	}
+
+	/**
+	 * @param processingData
+	 *            the processing data of the current APDU
+	 * @return the status word of the response APDU or
+	 *         {@link LatencyMetrics#UNKNOWN} if not yet set
+	 */
+	public static int getStatusWord(ProcessingData processingData) {
+		if (processingData.getResponseApdu() == null) {
+			return LatencyMetrics.UNKNOWN;
+		}
+		return processingData.getResponseApdu().getStatusWord() & 0xFFFF;
+	}
+
+	private static LatencyMetrics register(LatencyMetrics metrics, String name) {
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, new ObjectName(name));
+		} catch (InstanceAlreadyExistsException e) {
+			// registered by another instance of this class, e.g. from a different class loader
+			log(SimulatorMetrics.class, "MBean " + name + " already registered, metrics of this instance are not exposed", WARN);
+		} catch (JMException | RuntimeException e) {
+			log(SimulatorMetrics.class, "MBean " + name + " could not be registered: " + e.getMessage(), WARN);
+		}
+		return metrics;
+	}
+
+}
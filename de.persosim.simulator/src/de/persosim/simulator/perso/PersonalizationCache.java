@@ -0,0 +1,321 @@
+package de.persosim.simulator.perso;
+
+import static org.globaltester.logging.BasicLogger.WARN;
+import static org.globaltester.logging.BasicLogger.log;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import de.persosim.simulator.exception.AccessDeniedException;
+import de.persosim.simulator.perso.binary.BinaryPersonalizationFormat;
+import de.persosim.simulator.platform.CardStateSnapshot;
+import de.persosim.simulator.platform.PersoSimKernel;
+
+/**
+ * Bounded cache of personalizations loaded from files.
+ * <p/>
+ * For each file the pristine state of the parsed personalization is kept in
+ * the binary format (see {@link BinaryPersonalizationFormat}). Requesting a
+ * cached personalization again returns a new copy restored from this image,
+ * which is considerably faster than parsing the XML. Entries are invalidated
+ * when the modification time or size of the file changes. When the capacity
+ * is exceeded the least recently used personalization is evicted.
+ * <p/>
+ * Additionally kernels initialized with a cached personalization can be
+ * requested by {@link #getKernel(String)}. A kernel handed back by
+ * {@link #releaseKernel(PersoSimKernel)} is kept with its entry and reused by
+ * the next request for the same file, after restoring the state recorded right
+ * after its initialization. This avoids restoring and initializing the
+ * personalization again when switching between profiles.
+ */
+public class PersonalizationCache {
+
+	public static final int DEFAULT_CAPACITY = 16;
+
+	private static class CacheEntry {
+		final FileTime lastModified;
+		final long size;
+		final byte[] image;
+		/* kernel released for reuse, restored to its initial state */
+		PersoSimKernel kernel;
+		KernelOrigin kernelOrigin;
+
+		CacheEntry(FileTime lastModified, long size, byte[] image) {
+			this.lastModified = lastModified;
+			this.size = size;
+			this.image = image;
+		}
+
+		boolean isCurrent(FileTime lastModified, long size) {
+			return this.lastModified.equals(lastModified) && this.size == size;
+		}
+	}
+
+	/**
+	 * The file a kernel was initialized from and its state after
+	 * initialization.
+	 */
+	private static class KernelOrigin {
+		final String key;
+		final FileTime lastModified;
+		final long size;
+		final CardStateSnapshot initialState;
+
+		KernelOrigin(String key, FileTime lastModified, long size, CardStateSnapshot initialState) {
+			this.key = key;
+			this.lastModified = lastModified;
+			this.size = size;
+			this.initialState = initialState;
+		}
+	}
+
+	private LinkedHashMap<String, CacheEntry> entries;
+	/* kernels currently in use, forgotten if they are never released */
+	private final WeakHashMap<PersoSimKernel, KernelOrigin> kernelsInUse = new WeakHashMap<>();
+	private int capacity;
+	private long hitCount = 0;
+	private long missCount = 0;
+
+	public PersonalizationCache() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * @param capacity
+	 *            the maximum number of personalizations to be cached, must be
+	 *            positive
+	 */
+	public PersonalizationCache(int capacity) {
+		setCapacity(capacity);
+		entries = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+				return size() > PersonalizationCache.this.capacity;
+			}
+		};
+	}
+
+	/**
+	 * Returns the personalization stored in the given file. Each call returns
+	 * a new personalization in its pristine state, which is only parsed from
+	 * the file if it is not cached or the file has been modified.
+	 *
+	 * @param path
+	 *            the path of the file containing the personalization
+	 * @return the personalization
+	 * @throws FileNotFoundException
+	 *             if the file does not exist
+	 */
+	public Personalization getPersonalization(String path) throws FileNotFoundException {
+		File file = new File(path);
+		BasicFileAttributes attributes;
+		String key;
+		try {
+			key = file.getCanonicalPath();
+			attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+		} catch (IOException e) {
+			throw new FileNotFoundException("File at " + path + " NOT found");
+		}
+		return getPersonalization(path, key, attributes);
+	}
+
+	private Personalization getPersonalization(String path, String key, BasicFileAttributes attributes)
+			throws FileNotFoundException {
+		CacheEntry entry;
+		synchronized (this) {
+			entry = entries.get(key);
+			if (entry != null && entry.isCurrent(attributes.lastModifiedTime(), attributes.size())) {
+				hitCount++;
+			} else {
+				entry = null;
+				missCount++;
+			}
+		}
+
+		if (entry != null) {
+			return (Personalization) PersonalizationFactory.unmarshalBinary(ByteBuffer.wrap(entry.image));
+		}
+
+		// parse outside of the lock to allow concurrent loading of different files
+		Personalization personalization = (Personalization) PersonalizationFactory.unmarshal(path);
+		try {
+			byte[] image = PersonalizationFactory.marshalBinary(personalization);
+			synchronized (this) {
+				entries.put(key, new CacheEntry(attributes.lastModifiedTime(), attributes.size(), image));
+			}
+		} catch (PersoCreationFailedException e) {
+			log(getClass(), "personalization from " + path + " can not be cached: " + e.getMessage(), WARN);
+		}
+		return personalization;
+	}
+
+	/**
+	 * Returns a kernel initialized with the personalization stored in the
+	 * given file. If a kernel initialized from the unmodified file has been
+	 * released it is reused, otherwise a new kernel is initialized with the
+	 * personalization returned by {@link #getPersonalization(String)}.
+	 *
+	 * @param path
+	 *            the path of the file containing the personalization
+	 * @return the initialized kernel, in the state after its initialization
+	 * @throws FileNotFoundException
+	 *             if the file does not exist
+	 */
+	public PersoSimKernel getKernel(String path) throws FileNotFoundException {
+		return getKernel(path, null);
+	}
+
+	/**
+	 * Returns a kernel as {@link #getKernel(String)}, interning newly loaded
+	 * personalizations with the given interner.
+	 */
+	PersoSimKernel getKernel(String path, PersonalizationInterner interner) throws FileNotFoundException {
+		File file = new File(path);
+		BasicFileAttributes attributes;
+		String key;
+		try {
+			key = file.getCanonicalPath();
+			attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+		} catch (IOException e) {
+			throw new FileNotFoundException("File at " + path + " NOT found");
+		}
+		FileTime lastModified = attributes.lastModifiedTime();
+
+		synchronized (this) {
+			CacheEntry entry = entries.get(key);
+			if (entry != null && entry.kernel != null && entry.isCurrent(lastModified, attributes.size())) {
+				PersoSimKernel kernel = entry.kernel;
+				kernelsInUse.put(kernel, entry.kernelOrigin);
+				entry.kernel = null;
+				entry.kernelOrigin = null;
+				hitCount++;
+				return kernel;
+			}
+		}
+
+		Personalization personalization = getPersonalization(path, key, attributes);
+		if (interner != null) {
+			interner.intern(personalization);
+		}
+		PersoSimKernel kernel;
+		try {
+			kernel = new PersoSimKernel();
+		} catch (AccessDeniedException e) {
+			throw new PersoCreationFailedException("Kernel could not be created", e);
+		}
+		kernel.init(personalization);
+		KernelOrigin origin = new KernelOrigin(key, lastModified, attributes.size(), kernel.createSnapshot());
+		synchronized (this) {
+			kernelsInUse.put(kernel, origin);
+		}
+		return kernel;
+	}
+
+	/**
+	 * Hands back a kernel returned by {@link #getKernel(String)} that is no
+	 * longer used. Its state is restored to the state after its initialization
+	 * and it is kept for reuse as long as its personalization is cached and
+	 * the file has not been modified. Other kernels are ignored.
+	 *
+	 * @param kernel
+	 *            the kernel not to be used by the caller any more
+	 */
+	public void releaseKernel(PersoSimKernel kernel) {
+		KernelOrigin origin;
+		synchronized (this) {
+			origin = kernelsInUse.remove(kernel);
+			if (origin == null || !canKeep(origin)) {
+				return;
+			}
+		}
+
+		kernel.powerOff();
+		kernel.restoreSnapshot(origin.initialState);
+
+		synchronized (this) {
+			if (canKeep(origin)) {
+				CacheEntry entry = entries.get(origin.key);
+				entry.kernel = kernel;
+				entry.kernelOrigin = origin;
+			}
+		}
+	}
+
+	private boolean canKeep(KernelOrigin origin) {
+		CacheEntry entry = entries.get(origin.key);
+		return entry != null && entry.kernel == null && entry.isCurrent(origin.lastModified, origin.size);
+	}
+
+	/**
+	 * Removes all cached personalizations.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+	}
+
+	/**
+	 * @return the number of currently cached personalizations
+	 */
+	public synchronized int getSize() {
+		return entries.size();
+	}
+
+	/**
+	 * @return the maximum number of personalizations to be cached
+	 */
+	public synchronized int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Sets the maximum number of personalizations to be cached. If the cache
+	 * currently holds more personalizations the least recently used ones are
+	 * evicted.
+	 *
+	 * @param capacity
+	 *            the new capacity, must be positive
+	 * @throws IllegalArgumentException
+	 *             if the capacity is not positive
+	 */
+	public synchronized void setCapacity(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("The capacity of the personalization cache must be positive.");
+		}
+		this.capacity = capacity;
+
+		if (entries != null) {
+			Iterator<String> keyIterator = entries.keySet().iterator();
+			while (entries.size() > capacity) {
+				keyIterator.next();
+				keyIterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * @return the number of requests served from the cache
+	 */
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+
+	/**
+	 * @return the number of requests that required parsing the file
+	 */
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+
+}
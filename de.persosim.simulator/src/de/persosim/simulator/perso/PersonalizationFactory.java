@@ -1,31 +1,60 @@
 package de.persosim.simulator.perso;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Reader;
 import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.globaltester.lib.xstream.XstreamFactory;
 import org.globaltester.logging.BasicLogger;
+import org.osgi.framework.BundleContext;
 import org.osgi.framework.ServiceReference;
 import org.osgi.util.tracker.ServiceTracker;
 
 import com.thoughtworks.xstream.XStream;
 import com.thoughtworks.xstream.converters.Converter;
+import com.thoughtworks.xstream.converters.DataHolder;
 import com.thoughtworks.xstream.core.util.CompositeClassLoader;
-import com.thoughtworks.xstream.io.xml.DomDriver;
 
 import de.persosim.simulator.Activator;
+import de.persosim.simulator.cardobjects.CardObject;
+import de.persosim.simulator.cardobjects.ElementaryFile;
+import de.persosim.simulator.cardobjects.SidecarContent;
+import de.persosim.simulator.exception.AccessDeniedException;
+import de.persosim.simulator.perso.binary.BinaryPersonalizationFormat;
+import de.persosim.simulator.perso.binary.BinaryPersonalizationReader;
+import de.persosim.simulator.perso.binary.BinaryPersonalizationWriter;
+import de.persosim.simulator.perso.xstream.BitFieldConverter;
 import de.persosim.simulator.perso.xstream.CommandProcessorConverter;
 import de.persosim.simulator.perso.xstream.ECParameterSpecConverter;
 import de.persosim.simulator.perso.xstream.EncodedByteArrayConverter;
+import de.persosim.simulator.perso.xstream.KeyClassSuppressingReflectionConverter;
 import de.persosim.simulator.perso.xstream.KeyConverter;
 import de.persosim.simulator.perso.xstream.KeyPairConverter;
+import de.persosim.simulator.perso.xstream.PrettyPrintStaxDriver;
 import de.persosim.simulator.perso.xstream.ProtocolConverter;
+import de.persosim.simulator.perso.xstream.SidecarContentConverter;
 import de.persosim.simulator.perso.xstream.TlvConverter;
+import de.persosim.simulator.platform.CommandProcessor;
+import de.persosim.simulator.platform.PersonalizationHelper;
 
 /**
  * This class provides methods that serializes/deserializes personalization objects
@@ -35,47 +64,94 @@ import de.persosim.simulator.perso.xstream.TlvConverter;
  */
 public class PersonalizationFactory {
 	
+	public static final String SIDECAR_SUFFIX = ".content";
+	
 	/**
 	 * This method serializes the personalization object and writes it into a given writer
 	 * @param pers object which contains the whole personalization
 	 * @param writer object which will be filled with the serialized personalization
 	 */
 	public static void marshal(Object pers, StringWriter writer) throws NullPointerException {
+		marshal(pers, (Writer) writer);
+	}
+	
+	/**
+	 * This method serializes the personalization object and streams it into a given writer
+	 * @param pers object which contains the whole personalization
+	 * @param writer object which will be filled with the serialized personalization
+	 */
+	public static void marshal(Object pers, Writer writer) throws NullPointerException {
 		if (pers == null) {
 			throw new NullPointerException ("Personalization object is null!");
 		}
-		XStream xstream = getXStream();
-		xstream.autodetectAnnotations(true);
-		
-		StringWriter xmlWriter = new StringWriter();
-		xstream.toXML (pers, xmlWriter);
-		
-		//TODO find a alternative to suppress the class attribute, created by xStream, if element is a type of Key
-		String xmlRepresentation = xmlWriter.toString();
-		xmlRepresentation = xmlRepresentation.replaceAll("class=\"org.*[Kk]ey\"", "");
-		writer.append(xmlRepresentation);
+		if (writer == null) {
+			throw new NullPointerException ("Writer object is null!");
+		}
+		getXStream().toXML(pers, writer);
 	}
 	
 	public static void marshal (Object pers, String path) {		
-		FileWriter fileWriter;
-		try {
-			fileWriter = new FileWriter (path);
-			marshal (pers, fileWriter);
+		try (Writer writer = Files.newBufferedWriter(Paths.get(path), StandardCharsets.UTF_8)) {
+			marshal (pers, writer);
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
 	}	
 	
+	/**
+	 * This method serializes the personalization object into the given file.
+	 * Contents of elementary files with at least the given size are moved into
+	 * a sidecar file next to it (with {@link #SIDECAR_SUFFIX} appended to the
+	 * path), they are read on first access when the personalization is
+	 * loaded. The given personalization is not modified.
+	 * @param pers object which contains the whole personalization
+	 * @param path of the file to write the personalization to
+	 * @param sidecarThreshold minimum size of file contents to be moved into the sidecar file
+	 */
+	public static void marshal(Personalization pers, String path, int sidecarThreshold) throws IOException {
+		Personalization copy = (Personalization) unmarshalBinary(ByteBuffer.wrap(marshalBinary(pers)));
+		
+		CommandProcessor commandProcessor = PersonalizationHelper.getUniqueCompatibleLayer(copy.getLayerList(), CommandProcessor.class);
+		if (commandProcessor != null) {
+			Path sidecar = Paths.get(path + SIDECAR_SUFFIX);
+			String sidecarName = sidecar.getFileName().toString();
+			try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(sidecar))) {
+				long offset = 0;
+				for (ElementaryFile file : getElementaryFiles(commandProcessor.getMasterFile())) {
+					if (file.getContentLength() >= sidecarThreshold) {
+						byte[] content = file.getContent();
+						output.write(content);
+						file.setContent(new SidecarContent(sidecarName, offset, content.length));
+						offset += content.length;
+					}
+				}
+			} catch (AccessDeniedException e) {
+				throw new PersoCreationFailedException("File contents could not be moved to " + sidecar, e);
+			}
+		}
+		
+		try (Writer writer = Files.newBufferedWriter(Paths.get(path), StandardCharsets.UTF_8)) {
+			marshal (copy, writer);
+		}
+	}
+	
+	private static List<ElementaryFile> getElementaryFiles(CardObject parent) {
+		List<ElementaryFile> files = new ArrayList<>();
+		for (CardObject child : parent.getChildren()) {
+			if (child instanceof ElementaryFile) {
+				files.add((ElementaryFile) child);
+			}
+			files.addAll(getElementaryFiles(child));
+		}
+		return files;
+	}
+	
 	public static void marshal (Object pers, FileWriter file) throws NullPointerException {
-		StringWriter writer = new StringWriter();
-		marshal (pers, writer);
 		if (file == null) {
 			throw new NullPointerException ("FileWriter object is null!");
 		} 
-		try {
-			file.write (writer.toString());
-			file.flush();
-			file.close();
+		try (Writer writer = new BufferedWriter(file)) {
+			marshal (pers, writer);
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
@@ -94,6 +170,20 @@ public class PersonalizationFactory {
 		return xstream.fromXML (reader);
 	}
 	
+	/**
+	 * This method deserializes the personalization object, the encoding is
+	 * taken from the XML declaration and defaults to UTF-8
+	 * @param input stream containing the personalization
+	 * @return a object with a deserialized personalization
+	 */
+	public static Object unmarshal (InputStream input) throws NullPointerException {
+		if (input == null) {
+			throw new NullPointerException ("InputStream object is null!");
+		}
+		XStream xstream = getXStream();
+		return xstream.fromXML (input);
+	}
+	
 	public static Object unmarshal (String path) throws FileNotFoundException {	
 		File xmlFile = new File(path);
 		if (xmlFile.exists()) {
@@ -101,35 +191,197 @@ public class PersonalizationFactory {
 		} else{
 			throw new FileNotFoundException ("File at " + path + " NOT found");
 		}
-		return unmarshal (new FileReader(path));
+		
+		if (isBinaryPersonalization(xmlFile)) {
+			return unmarshalBinary(path);
+		}
+		
+		InputStream input = new BufferedInputStream(new FileInputStream(xmlFile));
+		try {
+			// contents stored in sidecar files are referenced relative to the personalization
+			XStreamConfiguration configuration = getXStreamConfiguration();
+			DataHolder dataHolder = configuration.xstream.newDataHolder();
+			dataHolder.put(SidecarContentConverter.BASE_DIRECTORY, xmlFile.getAbsoluteFile().getParentFile());
+			return configuration.xstream.unmarshal(configuration.driver.createReader(input), null, dataHolder);
+		} finally {
+			try {
+				input.close();
+			} catch (IOException e) {
+				// the personalization has already been read completely
+			}
+		}
 	}
 	
 	/**
-	 * This method creates a xStream object with all necessary configuration
+	 * This method serializes the personalization object into the compact
+	 * binary format, see {@link BinaryPersonalizationFormat}
+	 * @param pers object which contains the whole personalization
+	 * @return the binary representation of the personalization
+	 */
+	public static byte[] marshalBinary(Object pers) throws NullPointerException {
+		if (pers == null) {
+			throw new NullPointerException ("Personalization object is null!");
+		}
+		XStream xstream = getXStream();
+		return new BinaryPersonalizationWriter(xstream.getReflectionProvider(), xstream.getMapper()).write(pers);
+	}
+	
+	public static void marshalBinary(Object pers, String path) throws IOException {
+		Files.write(Paths.get(path), marshalBinary(pers));
+	}
+	
+	/**
+	 * This method deserializes a personalization object from the compact
+	 * binary format, see {@link BinaryPersonalizationFormat}
+	 * @param buffer containing the binary personalization at its current position
+	 * @return a object with a deserialized personalization
+	 */
+	public static Object unmarshalBinary(ByteBuffer buffer) throws NullPointerException {
+		if (buffer == null) {
+			throw new NullPointerException ("ByteBuffer object is null!");
+		}
+		XStream xstream = getXStream();
+		return new BinaryPersonalizationReader(xstream.getReflectionProvider(), xstream.getClassLoader()).read(buffer);
+	}
+	
+	private static Object unmarshalBinary(String path) {
+		try {
+			return unmarshalBinary(ByteBuffer.wrap(Files.readAllBytes(Paths.get(path))));
+		} catch (IOException e) {
+			throw new PersoCreationFailedException("File at " + path + " could not be read", e);
+		}
+	}
+	
+	/**
+	 * @return true, iff the given file starts with the header of the binary personalization format
+	 */
+	private static boolean isBinaryPersonalization(File file) {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			ByteBuffer header = ByteBuffer.allocate(BinaryPersonalizationFormat.HEADER_LENGTH);
+			while (header.hasRemaining() && channel.read(header) >= 0) {
+				// read until the header is complete or the file ends
+			}
+			header.flip();
+			return BinaryPersonalizationFormat.isBinaryPersonalization(header);
+		} catch (IOException e) {
+			return false;
+		}
+	}
+	
+	/**
+	 * This class holds a configured XStream and its driver together with the
+	 * state of the converter services it was built from.
+	 */
+	private static class XStreamConfiguration {
+		final XStream xstream;
+		final PrettyPrintStaxDriver driver;
+		final BundleContext context;
+		final int converterTrackingCount;
+
+		XStreamConfiguration(XStream xstream, PrettyPrintStaxDriver driver, BundleContext context,
+				int converterTrackingCount) {
+			this.xstream = xstream;
+			this.driver = driver;
+			this.context = context;
+			this.converterTrackingCount = converterTrackingCount;
+		}
+	}
+
+	private static final Object xstreamLock = new Object();
+	private static volatile XStreamConfiguration xstreamConfiguration;
+	private static volatile ServiceTracker<Converter, Converter> converterTracker;
+	private static BundleContext trackedContext;
+	
+	/**
+	 * This method returns a xStream object with all necessary configuration.
+	 * <p/>
+	 * The object is created on first use and shared afterwards, as XStream
+	 * instances are thread safe once configured. It is rebuilt if the set of
+	 * available {@link Converter} services changes.
 	 * @return a xStream object
 	 */
 	private static XStream getXStream() {
+		return getXStreamConfiguration().xstream;
+	}
+	
+	private static XStreamConfiguration getXStreamConfiguration() {
+		XStreamConfiguration configuration = xstreamConfiguration;
+		if (isUpToDate(configuration)) {
+			return configuration;
+		}
+
+		synchronized (xstreamLock) {
+			configuration = xstreamConfiguration;
+			if (!isUpToDate(configuration)) {
+				configuration = createXStreamConfiguration();
+				xstreamConfiguration = configuration;
+			}
+			return configuration;
+		}
+	}
+	
+	private static boolean isUpToDate(XStreamConfiguration configuration) {
+		if (configuration == null || configuration.context != Activator.getContext()) {
+			return false;
+		}
+		ServiceTracker<Converter, Converter> tracker = converterTracker;
+		return tracker == null || tracker.getTrackingCount() == configuration.converterTrackingCount;
+	}
+	
+	private static XStreamConfiguration createXStreamConfiguration() {
+		BundleContext context = Activator.getContext();
+		
+		if (context != trackedContext) {
+			// the bundle has been (re)started or stopped, track the services of the current context
+			if (converterTracker != null) {
+				try {
+					converterTracker.close();
+				} catch (IllegalStateException e) {
+					// context of the tracker is no longer valid
+				}
+				converterTracker = null;
+			}
+			if (context != null) {
+				converterTracker = new ServiceTracker<Converter, Converter>(context, Converter.class.getName(), null);
+				converterTracker.open();
+			}
+			trackedContext = context;
+		}
+		
+		int trackingCount = (converterTracker != null) ? converterTracker.getTrackingCount() : -1;
+		PrettyPrintStaxDriver driver = new PrettyPrintStaxDriver();
+		return new XStreamConfiguration(createXStream(driver, converterTracker), driver, context, trackingCount);
+	}
+	
+	/**
+	 * This method creates a xStream object with all necessary configuration
+	 * @param driver the driver used to read and write XML
+	 * @param serviceTracker tracker providing the converter services to register, may be null
+	 * @return a xStream object
+	 */
+	private static XStream createXStream(PrettyPrintStaxDriver driver, ServiceTracker<Converter, Converter> serviceTracker) {
 		
-		DomDriver domDriver = new DomDriver("UTF-8");
 		ShouldSerializeMemberImpl ssm = new ShouldSerializeMemberImpl();
-		XStream xstream = XstreamFactory.get(domDriver, ssm, PersonalizationFactory.class.getClassLoader());
+		XStream xstream = XstreamFactory.get(driver, ssm, PersonalizationFactory.class.getClassLoader());
 
 		xstream.setMode(XStream.XPATH_RELATIVE_REFERENCES);
 		xstream.setMode(XStream.ID_REFERENCES);
+		xstream.autodetectAnnotations(true);
 		
 		xstream.registerConverter(new EncodedByteArrayConverter());
+		xstream.registerConverter(new BitFieldConverter());
 		xstream.registerConverter(new ProtocolConverter());
 		xstream.registerConverter(new KeyPairConverter());
 		xstream.registerConverter(new ECParameterSpecConverter());
 		xstream.registerConverter(new KeyConverter());
 		xstream.registerConverter(new TlvConverter());
 		xstream.registerConverter(new CommandProcessorConverter());
+		xstream.registerConverter(new SidecarContentConverter());
+		xstream.registerConverter(new KeyClassSuppressingReflectionConverter(xstream.getMapper(),
+				xstream.getReflectionProvider()), XStream.PRIORITY_VERY_LOW + 1);
 		
 		// get converters as services
-		if (Activator.getContext() != null) {
-			ServiceTracker<Converter, Converter> serviceTracker = new ServiceTracker<Converter, Converter>(
-					Activator.getContext(), Converter.class.getName(), null);
-			serviceTracker.open();
+		if (serviceTracker != null) {
 			ServiceReference<Converter>[] allServiceReferences = serviceTracker.getServiceReferences();
 			StringBuilder availableConverters = new StringBuilder();
 			availableConverters.append("Available xstream converter services:");
@@ -144,7 +396,6 @@ public class PersonalizationFactory {
 			} else {
 				availableConverters.append(" none");
 			}
-			serviceTracker.close();
 
 			BasicLogger.log(PersonalizationFactory.class, availableConverters.toString());
 		} else {
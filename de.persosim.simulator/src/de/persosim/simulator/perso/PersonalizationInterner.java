@@ -0,0 +1,467 @@
+package de.persosim.simulator.perso;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import de.persosim.simulator.cardobjects.CardObjectIdentifier;
+import de.persosim.simulator.cardobjects.ElementaryFile;
+import de.persosim.simulator.crypto.DomainParameterSet;
+import de.persosim.simulator.crypto.certificates.Body;
+import de.persosim.simulator.crypto.certificates.CardVerifiableCertificate;
+import de.persosim.simulator.crypto.certificates.CertificateExtension;
+import de.persosim.simulator.crypto.certificates.CvKey;
+import de.persosim.simulator.crypto.certificates.PublicKeyReference;
+import de.persosim.simulator.protocols.Oid;
+import de.persosim.simulator.protocols.ta.Authorization;
+import de.persosim.simulator.protocols.ta.CertificateHolderAuthorizationTemplate;
+import de.persosim.simulator.seccondition.SecCondition;
+import de.persosim.simulator.utils.BitField;
+
+/**
+ * This class deduplicates immutable values within personalizations, so that
+ * a process holding many personalizations or card instances keeps only one
+ * copy of the data they have in common.
+ * <p/>
+ * Values are {@link SecCondition}s, {@link Authorization}s, {@link BitField}s,
+ * {@link CardObjectIdentifier}s, {@link Oid}s, {@link DomainParameterSet}s and
+ * card verifiable certificates including their parts. Two values are
+ * considered identical if they are of the same class and all their fields are
+ * identical, domain parameter sets are compared by their equals method.
+ * Additionally the contents of {@link ElementaryFile}s are shared, the files
+ * are marked to copy them before modifying them.
+ * <p/>
+ * All personalizations interned by the same instance share the values. The
+ * instance references the values weakly, values no longer used by any
+ * personalization are forgotten once they have been garbage collected.
+ */
+public class PersonalizationInterner {
+
+	private static final Class<?>[] VALUE_TYPES = { SecCondition.class, Authorization.class, BitField.class,
+			CardObjectIdentifier.class, Oid.class, DomainParameterSet.class, CardVerifiableCertificate.class,
+			Body.class, CertificateExtension.class, CvKey.class, PublicKeyReference.class,
+			CertificateHolderAuthorizationTemplate.class };
+
+	private static final Map<Class<?>, Boolean> IS_VALUE_TYPE = new ConcurrentHashMap<>();
+	private static final Map<Class<?>, Field[]> FIELDS = new ConcurrentHashMap<>();
+
+	private static final Field ELEMENTARY_FILE_CONTENT;
+	private static final Field ELEMENTARY_FILE_CONTENT_SHARED;
+
+	static {
+		try {
+			ELEMENTARY_FILE_CONTENT = ElementaryFile.class.getDeclaredField("content");
+			ELEMENTARY_FILE_CONTENT.setAccessible(true);
+			ELEMENTARY_FILE_CONTENT_SHARED = ElementaryFile.class.getDeclaredField("contentShared");
+			ELEMENTARY_FILE_CONTENT_SHARED.setAccessible(true);
+		} catch (NoSuchFieldException e) {
+			throw new IllegalStateException("contents of elementary files can not be shared", e);
+		}
+	}
+
+	private final Map<Object, CanonicalReference> values = new ConcurrentHashMap<>();
+	private final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+
+	public PersonalizationInterner() {
+		clear();
+	}
+
+	/**
+	 * Replaces all values reachable from the given root by identical values
+	 * already known to this instance. Values not known yet are added.
+	 *
+	 * @param root
+	 *            the root of the object graph, usually a
+	 *            {@link Personalization}
+	 * @return the number of replaced references
+	 */
+	public int intern(Object root) {
+		expungeCollectedValues();
+		IdentityHashMap<Object, Object> canonicals = new IdentityHashMap<>();
+		IdentityHashMap<Object, Boolean> visited = new IdentityHashMap<>();
+		ArrayDeque<Object> pending = new ArrayDeque<>();
+		pending.add(root);
+		int replaced = 0;
+
+		while (!pending.isEmpty()) {
+			Object current = pending.poll();
+			if (visited.put(current, Boolean.TRUE) != null) {
+				continue;
+			}
+
+			if (current instanceof Object[]) {
+				Object[] array = (Object[]) current;
+				for (int i = 0; i < array.length; i++) {
+					Object canonical = canonicalize(array[i], canonicals);
+					if (canonical != array[i]) {
+						array[i] = canonical;
+						replaced++;
+					} else if (isTraversed(canonical)) {
+						pending.add(canonical);
+					}
+				}
+			} else if (current instanceof List) {
+				replaced += internElements((List<?>) current, canonicals, pending);
+			} else if (current instanceof Map) {
+				for (Map.Entry<?, ?> entry : ((Map<?, ?>) current).entrySet()) {
+					replaced += internValue(entry, canonicals, pending);
+					if (isTraversed(entry.getKey())) {
+						pending.add(entry.getKey());
+					}
+				}
+			} else if (current instanceof Collection) {
+				for (Object element : (Collection<?>) current) {
+					if (isTraversed(element)) {
+						pending.add(element);
+					}
+				}
+			} else {
+				replaced += internFields(current, canonicals, pending);
+			}
+		}
+
+		return replaced;
+	}
+
+	/**
+	 * @return the number of distinct values known to this instance
+	 */
+	public int getSize() {
+		expungeCollectedValues();
+		return values.size();
+	}
+
+	/**
+	 * Forgets all known values. Personalizations interned afterwards do not
+	 * share values with personalizations interned before.
+	 */
+	public void clear() {
+		values.clear();
+		// unmarshalled personalizations contain copies of these constants
+		canonicalize(SecCondition.ALLOWED, new IdentityHashMap<Object, Object>());
+		canonicalize(SecCondition.DENIED, new IdentityHashMap<Object, Object>());
+	}
+
+	private int internFields(Object object, IdentityHashMap<Object, Object> canonicals, ArrayDeque<Object> pending) {
+		int replaced = 0;
+		try {
+			for (Field field : getFields(object.getClass())) {
+				if (field.getType().isPrimitive()) {
+					continue;
+				}
+				Object value = field.get(object);
+				Object canonical;
+				if (field.equals(ELEMENTARY_FILE_CONTENT) && value != null) {
+					canonical = canonicalize(new WeakContent(value), value);
+					ELEMENTARY_FILE_CONTENT_SHARED.setBoolean(object, true);
+				} else {
+					canonical = canonicalize(value, canonicals);
+				}
+
+				if (canonical != value) {
+					field.set(object, canonical);
+					replaced++;
+				} else if (isTraversed(value)) {
+					pending.add(value);
+				}
+			}
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(object.getClass().getName() + " can not be interned", e);
+		}
+		return replaced;
+	}
+
+	@SuppressWarnings("unchecked")
+	private int internElements(List<?> list, IdentityHashMap<Object, Object> canonicals,
+			ArrayDeque<Object> pending) {
+		int replaced = 0;
+		ListIterator<Object> iterator = (ListIterator<Object>) list.listIterator();
+		while (iterator.hasNext()) {
+			Object element = iterator.next();
+			Object canonical = canonicalize(element, canonicals);
+			if (canonical != element && set(iterator, canonical)) {
+				replaced++;
+			} else if (isTraversed(element)) {
+				pending.add(element);
+			}
+		}
+		return replaced;
+	}
+
+	@SuppressWarnings("unchecked")
+	private int internValue(Map.Entry<?, ?> entry, IdentityHashMap<Object, Object> canonicals,
+			ArrayDeque<Object> pending) {
+		Object value = entry.getValue();
+		Object canonical = canonicalize(value, canonicals);
+		if (canonical != value) {
+			try {
+				((Map.Entry<Object, Object>) entry).setValue(canonical);
+				return 1;
+			} catch (UnsupportedOperationException e) {
+				// unmodifiable maps keep their own copies
+			}
+		}
+		if (isTraversed(value)) {
+			pending.add(value);
+		}
+		return 0;
+	}
+
+	private static boolean set(ListIterator<Object> iterator, Object element) {
+		try {
+			iterator.set(element);
+			return true;
+		} catch (UnsupportedOperationException e) {
+			// unmodifiable lists keep their own copies
+			return false;
+		}
+	}
+
+	/**
+	 * @return the known value identical to the given one, the given object
+	 *         itself if it is no value or not known yet
+	 */
+	private Object canonicalize(Object object, IdentityHashMap<Object, Object> canonicals) {
+		if (object == null || !isValueType(object.getClass())) {
+			return object;
+		}
+
+		Object canonical = canonicals.get(object);
+		if (canonical == null) {
+			Object key = (object instanceof DomainParameterSet) ? new WeakContent(object) : createKey(object, canonicals);
+			canonical = canonicalize(key, object);
+			canonicals.put(object, canonical);
+		}
+		return canonical;
+	}
+
+	private Object canonicalize(Object key, Object value) {
+		CanonicalReference reference = new CanonicalReference(key, value, collected);
+		while (true) {
+			CanonicalReference known = values.putIfAbsent(key, reference);
+			if (known == null) {
+				return value;
+			}
+			Object canonical = known.get();
+			if (canonical != null) {
+				return canonical;
+			}
+			values.remove(key, known);
+		}
+	}
+
+	private void expungeCollectedValues() {
+		Reference<?> reference;
+		while ((reference = collected.poll()) != null) {
+			CanonicalReference canonical = (CanonicalReference) reference;
+			values.remove(canonical.key, canonical);
+		}
+	}
+
+	/**
+	 * Creates the key identifying the given value. Values referenced by it
+	 * are canonicalized first, so they can be compared by identity. As the
+	 * given value may itself become the canonical one, its references are
+	 * updated accordingly.
+	 */
+	private Object createKey(Object value, IdentityHashMap<Object, Object> canonicals) {
+		Field[] fields = getFields(value.getClass());
+		Object[] components = new Object[fields.length + 1];
+		components[0] = value.getClass();
+		try {
+			for (int i = 0; i < fields.length; i++) {
+				Object fieldValue = fields[i].get(value);
+				Object component = createComponent(fieldValue, canonicals);
+				if (component instanceof Identity && ((Identity) component).object != fieldValue) {
+					fields[i].set(value, ((Identity) component).object);
+				}
+				components[i + 1] = component;
+			}
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(value.getClass().getName() + " can not be interned", e);
+		}
+		return Arrays.asList(components);
+	}
+
+	private Object createComponent(Object object, IdentityHashMap<Object, Object> canonicals) {
+		if (object == null) {
+			return null;
+		}
+		if (isValueType(object.getClass())) {
+			return new Identity(canonicalize(object, canonicals));
+		}
+		if (object.getClass().isArray()) {
+			if (object.getClass().getComponentType().isPrimitive()) {
+				return new ArrayContent(object);
+			}
+			Object[] array = (Object[]) object;
+			List<Object> components = new ArrayList<>(array.length);
+			for (int i = 0; i < array.length; i++) {
+				Object component = createComponent(array[i], canonicals);
+				if (component instanceof Identity && ((Identity) component).object != array[i]) {
+					array[i] = ((Identity) component).object;
+				}
+				components.add(component);
+			}
+			return components;
+		}
+		if (object instanceof List) {
+			List<Object> components = new ArrayList<>();
+			for (Object element : (List<?>) object) {
+				components.add(createComponent(element, canonicals));
+			}
+			return components;
+		}
+		// strings, enums, dates, keys and other library objects
+		return object;
+	}
+
+	private static boolean isValueType(Class<?> type) {
+		Boolean result = IS_VALUE_TYPE.get(type);
+		if (result == null) {
+			result = Boolean.FALSE;
+			for (Class<?> valueType : VALUE_TYPES) {
+				if (valueType.isAssignableFrom(type)) {
+					result = Boolean.TRUE;
+					break;
+				}
+			}
+			IS_VALUE_TYPE.put(type, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Only objects of the simulator itself, collections and arrays can contain
+	 * values.
+	 */
+	private static boolean isTraversed(Object object) {
+		if (object == null || object instanceof Enum) {
+			return false;
+		}
+		Class<?> type = object.getClass();
+		if (type.isArray()) {
+			return !type.getComponentType().isPrimitive();
+		}
+		return object instanceof Collection || object instanceof Map || type.getName().startsWith("de.persosim.");
+	}
+
+	private static Field[] getFields(Class<?> type) {
+		Field[] fields = FIELDS.get(type);
+		if (fields == null) {
+			List<Field> fieldList = new ArrayList<>();
+			for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+				for (Field field : current.getDeclaredFields()) {
+					if (!Modifier.isStatic(field.getModifiers())) {
+						field.setAccessible(true);
+						fieldList.add(field);
+					}
+				}
+			}
+			fields = fieldList.toArray(new Field[fieldList.size()]);
+			FIELDS.put(type, fields);
+		}
+		return fields;
+	}
+
+	/**
+	 * Compares canonical values by identity.
+	 */
+	private static final class Identity {
+		private final Object object;
+
+		Identity(Object object) {
+			this.object = object;
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(object);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof Identity && ((Identity) obj).object == object;
+		}
+	}
+
+	/**
+	 * Weak reference to a canonical value, remembering the key it is stored
+	 * with so that the entry can be removed once the value is collected.
+	 */
+	private static final class CanonicalReference extends WeakReference<Object> {
+		private final Object key;
+
+		CanonicalReference(Object key, Object value, ReferenceQueue<Object> queue) {
+			super(value, queue);
+			this.key = key;
+		}
+	}
+
+	/**
+	 * Key comparing the contents of a value that serves as its own key, i.e.
+	 * domain parameter sets and file contents. The value is referenced weakly,
+	 * otherwise the key would keep the canonical value alive.
+	 */
+	private static final class WeakContent extends WeakReference<Object> {
+		private final int hashCode;
+
+		WeakContent(Object value) {
+			super(value);
+			hashCode = Arrays.deepHashCode(new Object[] { value });
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (obj == this) {
+				return true;
+			}
+			if (!(obj instanceof WeakContent)) {
+				return false;
+			}
+			Object value = get();
+			Object other = ((WeakContent) obj).get();
+			return value != null && other != null
+					&& Arrays.deepEquals(new Object[] { value }, new Object[] { other });
+		}
+	}
+
+	/**
+	 * Compares arrays of primitive types by their contents.
+	 */
+	private static final class ArrayContent {
+		private final Object array;
+
+		ArrayContent(Object array) {
+			this.array = array;
+		}
+
+		@Override
+		public int hashCode() {
+			return Arrays.deepHashCode(new Object[] { array });
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof ArrayContent && Arrays.deepEquals(new Object[] { array },
+					new Object[] { ((ArrayContent) obj).array });
+		}
+	}
+
+}
@@ -0,0 +1,312 @@
+package de.persosim.simulator.perso;
+
+import static org.globaltester.logging.BasicLogger.INFO;
+import static org.globaltester.logging.BasicLogger.WARN;
+import static org.globaltester.logging.BasicLogger.log;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import de.persosim.simulator.cardobjects.MasterFile;
+import de.persosim.simulator.platform.CommandProcessor;
+import de.persosim.simulator.platform.PersoSimKernel;
+import de.persosim.simulator.platform.PersonalizationHelper;
+import de.persosim.simulator.protocols.Protocol;
+import de.persosim.simulator.protocols.SecInfoPublicity;
+import de.persosim.simulator.tlv.TlvDataObjectContainer;
+
+/**
+ * This class keeps track of the personalization files known to the simulator.
+ * <p/>
+ * Profiles can be preloaded concurrently, which parses them into the
+ * {@link PersonalizationCache} and validates them. The outcome of the last
+ * load of each profile, including its duration, is published as
+ * {@link ProfileInfo}.
+ * <p/>
+ * Personalizations handed out by the registry share their immutable values,
+ * see {@link PersonalizationInterner}.
+ */
+public class ProfileRegistry {
+
+	public static final String FILE_EXTENSION = ".perso";
+
+	private static final int FID_EF_CARD_ACCESS = 0x011C;
+
+	/**
+	 * Outcome of loading a single profile.
+	 */
+	public static class ProfileInfo {
+		private final String path;
+		private final long loadTimeNanos;
+		private final Exception failure;
+
+		ProfileInfo(String path, long loadTimeNanos, Exception failure) {
+			this.path = path;
+			this.loadTimeNanos = loadTimeNanos;
+			this.failure = failure;
+		}
+
+		public String getPath() {
+			return path;
+		}
+
+		public String getName() {
+			return new File(path).getName();
+		}
+
+		/**
+		 * @return the time needed to parse and validate the profile in
+		 *         milliseconds
+		 */
+		public long getLoadTimeMillis() {
+			return TimeUnit.NANOSECONDS.toMillis(loadTimeNanos);
+		}
+
+		/**
+		 * @return the reason why the profile could not be loaded, null if it
+		 *         is valid
+		 */
+		public Exception getFailure() {
+			return failure;
+		}
+
+		public boolean isValid() {
+			return failure == null;
+		}
+
+		@Override
+		public String toString() {
+			return getName() + ": " + (isValid() ? "valid" : "invalid (" + failure.getMessage() + ")") + ", "
+					+ getLoadTimeMillis() + " ms";
+		}
+	}
+
+	private final PersonalizationCache cache;
+	private final PersonalizationInterner interner = new PersonalizationInterner();
+	private final Map<String, ProfileInfo> profiles = new LinkedHashMap<>();
+
+	/**
+	 * @param cache
+	 *            the cache to store the parsed personalizations in
+	 */
+	public ProfileRegistry(PersonalizationCache cache) {
+		this.cache = cache;
+	}
+
+	/**
+	 * Returns the personalization stored in the given file, see
+	 * {@link PersonalizationCache#getPersonalization(String)}. Its immutable
+	 * values are shared with all other personalizations returned by this
+	 * registry.
+	 *
+	 * @param path
+	 *            the path of the file containing the personalization
+	 * @return the personalization
+	 * @throws FileNotFoundException
+	 *             if the file does not exist
+	 */
+	public Personalization getPersonalization(String path) throws FileNotFoundException {
+		Personalization personalization = cache.getPersonalization(path);
+		interner.intern(personalization);
+		return personalization;
+	}
+
+	/**
+	 * Returns a kernel initialized with the personalization stored in the
+	 * given file, see {@link PersonalizationCache#getKernel(String)}. Newly
+	 * loaded personalizations are interned as by
+	 * {@link #getPersonalization(String)}.
+	 *
+	 * @param path
+	 *            the path of the file containing the personalization
+	 * @return the initialized kernel
+	 * @throws FileNotFoundException
+	 *             if the file does not exist
+	 */
+	public PersoSimKernel getKernel(String path) throws FileNotFoundException {
+		return cache.getKernel(path, interner);
+	}
+
+	/**
+	 * @return the interner sharing the values of the returned
+	 *         personalizations
+	 */
+	public PersonalizationInterner getInterner() {
+		return interner;
+	}
+
+	/**
+	 * Parses and validates the given profiles concurrently and publishes the
+	 * results. Profiles are parsed into the cache, so loading them afterwards
+	 * does not require parsing them again as long as they remain cached.
+	 *
+	 * @param paths
+	 *            the paths of the personalization files to be loaded
+	 * @param threads
+	 *            the maximum number of profiles to be loaded at the same time
+	 * @return the results in the order of the given paths
+	 */
+	public List<ProfileInfo> preload(Collection<String> paths, int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("at least one thread is required for preloading profiles");
+		}
+		if (paths.isEmpty()) {
+			return Collections.emptyList();
+		}
+
+		long start = System.nanoTime();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, paths.size()));
+		try {
+			List<Future<ProfileInfo>> futures = new ArrayList<>();
+			for (final String path : paths) {
+				futures.add(executor.submit(new Callable<ProfileInfo>() {
+					@Override
+					public ProfileInfo call() {
+						return load(path);
+					}
+				}));
+			}
+
+			List<ProfileInfo> results = new ArrayList<>();
+			for (Future<ProfileInfo> future : futures) {
+				results.add(future.get());
+			}
+
+			StringBuilder report = new StringBuilder("Preloaded " + results.size() + " profiles in "
+					+ TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms:");
+			for (ProfileInfo result : results) {
+				report.append("\n ").append(result);
+			}
+			log(getClass(), report.toString(), INFO);
+
+			return results;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("preloading of profiles interrupted", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("preloading of profiles failed", e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Preloads all personalization files within the given folder and its sub
+	 * folders, see {@link #preload(Collection, int)}.
+	 *
+	 * @param folder
+	 *            the folder to search for personalization files
+	 * @param threads
+	 *            the maximum number of profiles to be loaded at the same time
+	 * @return the results ordered by path
+	 */
+	public List<ProfileInfo> preloadFolder(File folder, int threads) {
+		List<String> paths = new ArrayList<>();
+		collectProfiles(folder, paths);
+		Collections.sort(paths);
+		return preload(paths, threads);
+	}
+
+	private static void collectProfiles(File folder, List<String> paths) {
+		File[] files = folder.listFiles();
+		if (files == null) {
+			return;
+		}
+		for (File file : files) {
+			if (file.isDirectory()) {
+				collectProfiles(file, paths);
+			} else if (file.getName().endsWith(FILE_EXTENSION)) {
+				paths.add(file.getAbsolutePath());
+			}
+		}
+	}
+
+	/**
+	 * @param path
+	 *            the path of a personalization file
+	 * @return the result of the last load of the profile, null if it has not
+	 *         been loaded by this registry
+	 */
+	public ProfileInfo getProfile(String path) {
+		String key = getKey(path);
+		synchronized (profiles) {
+			return profiles.get(key);
+		}
+	}
+
+	/**
+	 * @return the results of all profiles loaded by this registry
+	 */
+	public List<ProfileInfo> getProfiles() {
+		synchronized (profiles) {
+			return new ArrayList<>(profiles.values());
+		}
+	}
+
+	private ProfileInfo load(String path) {
+		long start = System.nanoTime();
+		Exception failure = null;
+		try {
+			validate(cache.getPersonalization(path));
+		} catch (Exception e) {
+			failure = e;
+		}
+
+		ProfileInfo result = new ProfileInfo(path, System.nanoTime() - start, failure);
+		if (failure != null) {
+			log(getClass(), "profile " + path + " is invalid: " + failure, WARN);
+		}
+		synchronized (profiles) {
+			profiles.put(getKey(path), result);
+		}
+		return result;
+	}
+
+	/**
+	 * Checks that the personalization provides an object tree, that the
+	 * protocols are able to provide their SecInfos (which requires their keys
+	 * to be reconstructed) and that EF.CardAccess is well-formed.
+	 * <p/>
+	 * No simulator is initialized or powered on with the personalization, as
+	 * this would be visible to APDU recordings and metrics like any card
+	 * actually used.
+	 */
+	private static void validate(Personalization perso) throws Exception {
+		CommandProcessor commandProcessor = PersonalizationHelper.getUniqueCompatibleLayer(perso.getLayerList(),
+				CommandProcessor.class);
+		if (commandProcessor == null || commandProcessor.getMasterFile() == null) {
+			throw new PersoCreationFailedException("personalization does not provide an object tree");
+		}
+
+		MasterFile mf = commandProcessor.getMasterFile();
+		for (Protocol protocol : commandProcessor.getProtocolList()) {
+			protocol.getSecInfos(SecInfoPublicity.PRIVILEGED, mf);
+		}
+
+		byte[] cardAccess = PersonalizationHelper.getFileFromPerso(perso, FID_EF_CARD_ACCESS, null);
+		new TlvDataObjectContainer(cardAccess);
+	}
+
+	private static String getKey(String path) {
+		File file = new File(path);
+		try {
+			return file.getCanonicalPath();
+		} catch (IOException e) {
+			return file.getAbsolutePath();
+		}
+	}
+
+}
@@ -0,0 +1,504 @@
+package de.persosim.simulator.perso;
+
+import static org.globaltester.logging.BasicLogger.INFO;
+import static org.globaltester.logging.BasicLogger.log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import de.persosim.simulator.crypto.CryptoUtil;
+import de.persosim.simulator.crypto.DomainParameterSet;
+import de.persosim.simulator.crypto.StandardizedDomainParameters;
+import de.persosim.simulator.documents.Mrz;
+
+/**
+ * This class creates large numbers of distinct personalizations, e.g. for load
+ * tests of eID servers.
+ * <p/>
+ * Every {@link Identity} is derived deterministically from the seed of the
+ * generator and its index, so the same seed always yields the same cards.
+ * Family names and document numbers encode the index and are therefore
+ * unique for all identities of a generator. The RI sector keys are generated
+ * individually for every card from the same deterministic source.
+ * <p/>
+ * Everything identity-independent (EF.CardAccess, EF.CardSecurity,
+ * EF.ChipSecurity, the document type and the CA keys) is taken from a
+ * template profile and shared by all created personalizations. EF.CardSecurity
+ * and EF.ChipSecurity contain the signed CA public keys of the template, so
+ * individual CA keys (see {@link #setIndividualCaKeys(boolean)}) are only
+ * usable with terminals that do not verify these files.
+ */
+public class SyntheticPersonalizationGenerator {
+
+	public static final int DOMAIN_PARAMETER_SET_ID = 13;
+
+	private static final String RANDOM_ALGORITHM = "SHA1PRNG";
+
+	private static final String DOCUMENT_NUMBER_ALPHABET = "CFGHJKLMNPRTVWXYZ0123456789";
+	private static final String[] NAME_SYLLABLES = { "BER", "DAN", "FEL", "GOR", "HAN", "KEM", "LIN", "MAR", "NOT",
+			"PER", "RAU", "SEN", "TAL", "VOS", "WIN", "ZEL" };
+	private static final int MIN_NAME_SYLLABLES = 3;
+	private static final String[] GIVEN_NAMES_FEMALE = { "ANNA", "CLARA", "EMMA", "ERIKA", "GRETA", "HANNA", "LENA",
+			"LILLY", "MARIA", "SOPHIE" };
+	private static final String[] GIVEN_NAMES_MALE = { "ANDRE", "BEN", "FELIX", "HANS", "JONAS", "KARL", "LUKAS",
+			"MAX", "PAUL", "THEO" };
+	private static final String[] PLACES_OF_BIRTH = { "BERLIN", "BREMERHAVEN", "FRANKFURT (ODER)", "MÜNCHEN",
+			"SAARBRÜCKEN", "TRIER" };
+	private static final String[] STREETS = { "HEIDESTRASSE", "MARIENSTRAßE", "HAUPTSTRASSE", "BAHNHOFSTRASSE",
+			"SCHULWEG" };
+	/** city, zip code and community ID of the supported addresses */
+	private static final String[][] COMMUNITIES = { { "KÖLN", "51147", "02760503150000" },
+			{ "BERLIN", "12059", "02761100000000" }, { "MANNHEIM", "68159", "02760802220000" },
+			{ "DRESDEN", "01129", "02761406120000" }, { "HAMBURG", "22043", "02760200000000" },
+			{ "EISENACH", "99817", "02761600560000" } };
+
+	/**
+	 * Receives the personalizations created by
+	 * {@link SyntheticPersonalizationGenerator#generate(int, int, int, Sink)}.
+	 * Implementations are called concurrently and must be thread-safe.
+	 */
+	public interface Sink {
+		void accept(Identity identity, Personalization personalization) throws IOException;
+	}
+
+	/**
+	 * The identity-dependent data of a synthetic card.
+	 */
+	public static class Identity {
+		private final int index;
+		private final String givenNames;
+		private final String familyName;
+		private final String sex;
+		private final String dateOfBirth;
+		private final String dateOfExpiry;
+		private final String placeOfBirth;
+		private final String street;
+		private final String city;
+		private final String zipCode;
+		private final String communityId;
+		private final String documentNumber;
+		private final String pin;
+		private final String can;
+		private final String puk;
+
+		Identity(int index, String givenNames, String familyName, String sex, String dateOfBirth,
+				String dateOfExpiry, String placeOfBirth, String street, String city, String zipCode,
+				String communityId, String documentNumber, String pin, String can, String puk) {
+			this.index = index;
+			this.givenNames = givenNames;
+			this.familyName = familyName;
+			this.sex = sex;
+			this.dateOfBirth = dateOfBirth;
+			this.dateOfExpiry = dateOfExpiry;
+			this.placeOfBirth = placeOfBirth;
+			this.street = street;
+			this.city = city;
+			this.zipCode = zipCode;
+			this.communityId = communityId;
+			this.documentNumber = documentNumber;
+			this.pin = pin;
+			this.can = can;
+			this.puk = puk;
+		}
+
+		public int getIndex() {
+			return index;
+		}
+
+		public String getGivenNames() {
+			return givenNames;
+		}
+
+		public String getFamilyName() {
+			return familyName;
+		}
+
+		public String getSex() {
+			return sex;
+		}
+
+		/**
+		 * @return the date of birth in the format YYYYMMDD
+		 */
+		public String getDateOfBirth() {
+			return dateOfBirth;
+		}
+
+		/**
+		 * @return the date of expiry in the format YYYYMMDD
+		 */
+		public String getDateOfExpiry() {
+			return dateOfExpiry;
+		}
+
+		public String getPlaceOfBirth() {
+			return placeOfBirth;
+		}
+
+		public String getStreet() {
+			return street;
+		}
+
+		public String getCity() {
+			return city;
+		}
+
+		public String getZipCode() {
+			return zipCode;
+		}
+
+		public String getCommunityId() {
+			return communityId;
+		}
+
+		public String getDocumentNumber() {
+			return documentNumber;
+		}
+
+		public String getPin() {
+			return pin;
+		}
+
+		public String getCan() {
+			return can;
+		}
+
+		public String getPuk() {
+			return puk;
+		}
+
+		/**
+		 * @return the third line of the MRZ containing the names
+		 */
+		public String getMrzLine3() {
+			StringBuilder line = new StringBuilder(familyName);
+			line.append(Mrz.Filler).append(Mrz.Filler).append(givenNames);
+			while (line.length() < 30) {
+				line.append(Mrz.Filler);
+			}
+			return line.substring(0, 30);
+		}
+
+		@Override
+		public String toString() {
+			return index + ": " + givenNames + " " + familyName + ", " + documentNumber;
+		}
+	}
+
+	private final long seed;
+	private final PersonalizationDataContainer template;
+	private final DomainParameterSet domainParameters;
+	private final char documentNumberPrefix;
+	private boolean individualCaKeys = false;
+
+	/**
+	 * Creates a generator using {@link Profile01} as template.
+	 *
+	 * @param seed
+	 *            the seed all identities are derived from
+	 */
+	public SyntheticPersonalizationGenerator(long seed) {
+		this(seed, new Profile01());
+	}
+
+	/**
+	 * @param seed
+	 *            the seed all identities are derived from
+	 * @param template
+	 *            the profile providing the identity-independent data
+	 */
+	public SyntheticPersonalizationGenerator(long seed, AbstractProfile template) {
+		this.seed = seed;
+		template.initPersonalizationDataContainer();
+		this.template = template.persoDataContainer;
+		this.domainParameters = StandardizedDomainParameters.getDomainParameterSetById(DOMAIN_PARAMETER_SET_ID);
+
+		// distinguishes the document numbers of generators with different seeds
+		String letters = DOCUMENT_NUMBER_ALPHABET.substring(0, DOCUMENT_NUMBER_ALPHABET.indexOf('0'));
+		this.documentNumberPrefix = letters.charAt((int) Math.floorMod(seed, (long) letters.length()));
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public boolean isIndividualCaKeys() {
+		return individualCaKeys;
+	}
+
+	/**
+	 * @param individualCaKeys
+	 *            true to generate individual CA keys for every card instead of
+	 *            sharing the keys of the template
+	 */
+	public void setIndividualCaKeys(boolean individualCaKeys) {
+		this.individualCaKeys = individualCaKeys;
+	}
+
+	/**
+	 * Derives the identity with the given index without creating a
+	 * personalization for it.
+	 *
+	 * @param index
+	 *            the index of the identity
+	 * @return the identity
+	 */
+	public Identity getIdentity(int index) {
+		return createIdentity(index, getRandom(index));
+	}
+
+	/**
+	 * Creates the personalization for the identity with the given index.
+	 *
+	 * @param index
+	 *            the index of the identity
+	 * @return the personalization
+	 */
+	public SyntheticProfile generate(int index) {
+		SecureRandom random = getRandom(index);
+		Identity identity = createIdentity(index, random);
+		return new SyntheticProfile(identity, createContainer(identity, random));
+	}
+
+	/**
+	 * Creates the personalizations for a range of identities concurrently and
+	 * passes them to the sink. The personalizations are not retained, so the
+	 * number of identities is only limited by the sink.
+	 *
+	 * @param first
+	 *            the index of the first identity
+	 * @param count
+	 *            the number of identities
+	 * @param threads
+	 *            the maximum number of personalizations to be created at the
+	 *            same time
+	 * @param sink
+	 *            the receiver of the personalizations
+	 * @throws IOException
+	 *             if the sink fails
+	 */
+	public void generate(int first, int count, int threads, final Sink sink) throws IOException {
+		if (first < 0 || count < 0) {
+			throw new IllegalArgumentException("first index and count must not be negative");
+		}
+		if (threads < 1) {
+			throw new IllegalArgumentException("at least one thread is required for generating personalizations");
+		}
+		if (count == 0) {
+			return;
+		}
+
+		long start = System.nanoTime();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, count));
+		try {
+			List<Future<Void>> futures = new ArrayList<>();
+			for (int i = first; i < first + count; i++) {
+				final int index = i;
+				futures.add(executor.submit(new Callable<Void>() {
+					@Override
+					public Void call() throws IOException {
+						SyntheticProfile profile = generate(index);
+						sink.accept(profile.getIdentity(), profile);
+						return null;
+					}
+				}));
+			}
+
+			for (Future<Void> future : futures) {
+				future.get();
+			}
+
+			log(getClass(), "Generated " + count + " synthetic personalizations in "
+					+ TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms", INFO);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("generation of personalizations interrupted", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new PersoCreationFailedException("generation of personalizations failed", e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * @param folder
+	 *            the folder to write the personalizations to
+	 * @return a sink writing every personalization as XML file named after
+	 *         its index
+	 */
+	public static Sink xmlSink(final File folder) {
+		return new Sink() {
+			@Override
+			public void accept(Identity identity, Personalization personalization) throws IOException {
+				PersonalizationFactory.marshal(personalization, getFile(folder, identity).getPath(), Integer.MAX_VALUE);
+			}
+		};
+	}
+
+	/**
+	 * @param folder
+	 *            the folder to write the personalizations to
+	 * @return a sink writing every personalization in the binary format to a
+	 *         file named after its index
+	 */
+	public static Sink binarySink(final File folder) {
+		return new Sink() {
+			@Override
+			public void accept(Identity identity, Personalization personalization) throws IOException {
+				PersonalizationFactory.marshalBinary(personalization, getFile(folder, identity).getPath());
+			}
+		};
+	}
+
+	private static File getFile(File folder, Identity identity) {
+		return new File(folder, String.format("Synthetic%08d", identity.getIndex()) + ProfileRegistry.FILE_EXTENSION);
+	}
+
+	/**
+	 * Every identity uses its own random source seeded with the seed of the
+	 * generator and its index, so the result does not depend on the order in
+	 * which identities are created.
+	 */
+	private SecureRandom getRandom(int index) {
+		try {
+			SecureRandom random = SecureRandom.getInstance(RANDOM_ALGORITHM);
+			random.setSeed(ByteBuffer.allocate(12).putLong(seed).putInt(index).array());
+			return random;
+		} catch (NoSuchAlgorithmException e) {
+			throw new PersoCreationFailedException("random source " + RANDOM_ALGORITHM + " is not available", e);
+		}
+	}
+
+	private Identity createIdentity(int index, SecureRandom random) {
+		if (index < 0) {
+			throw new IllegalArgumentException("index must not be negative");
+		}
+
+		String sex = random.nextBoolean() ? "F" : "M";
+		String givenNames = pick(random, sex.equals("F") ? GIVEN_NAMES_FEMALE : GIVEN_NAMES_MALE);
+		String dateOfBirth = getDate(random, 1940, 65);
+		String dateOfExpiry = getDate(random, 2030, 10);
+		String placeOfBirth = pick(random, PLACES_OF_BIRTH);
+		String street = pick(random, STREETS) + " " + (1 + random.nextInt(199));
+		String[] community = COMMUNITIES[random.nextInt(COMMUNITIES.length)];
+
+		return new Identity(index, givenNames, getFamilyName(index), sex, dateOfBirth, dateOfExpiry, placeOfBirth,
+				street, community[0], community[1], community[2], getDocumentNumber(index), getDigits(random, 6),
+				getDigits(random, 6), getDigits(random, 10));
+	}
+
+	private PersonalizationDataContainer createContainer(Identity identity, SecureRandom random) {
+		PersonalizationDataContainer container = new PersonalizationDataContainer();
+
+		container.setDg1PlainData(template.getDg1PlainData());
+		container.setDg2PlainData(template.getDg2PlainData());
+		container.setDg3PlainData(identity.getDateOfExpiry());
+		container.setDg4PlainData(identity.getGivenNames());
+		container.setDg5PlainData(identity.getFamilyName());
+		container.setDg6PlainData(template.getDg6PlainData());
+		container.setDg7PlainData(template.getDg7PlainData());
+		container.setDg8PlainData(identity.getDateOfBirth());
+		container.setDg9PlainData(identity.getPlaceOfBirth());
+		container.setDg10PlainData(template.getDg10PlainData());
+		container.setDg13PlainData("");
+		container.setDg17StreetPlainData(identity.getStreet());
+		container.setDg17CityPlainData(identity.getCity());
+		container.setDg17CountryPlainData("D");
+		container.setDg17ZipPlainData(identity.getZipCode());
+		container.setDg18PlainData(identity.getCommunityId());
+		container.setDg19PlainData(template.getDg19PlainData());
+		container.setDg20PlainData(template.getDg20PlainData());
+		container.setEfCardAccess(template.getEfCardAccess());
+		container.setEfCardSecurity(template.getEfCardSecurity());
+		container.setEfChipSecurity(template.getEfChipSecurity());
+
+		String mrz = container.createMrzFromDgs(identity.getDocumentNumber(), identity.getSex(),
+				identity.getMrzLine3());
+		container.setMrz(mrz);
+		container.setEpassDg1PlainData(mrz);
+
+		List<KeyPair> caKeys = template.getCaKeys();
+		for (int i = 0; i < caKeys.size(); i++) {
+			KeyPair caKey = individualCaKeys ? generateKeyPair(random) : caKeys.get(i);
+			container.addCaKeyPair(caKey, template.getCaKeyIds().get(i), template.getCaKeyPrivileges().get(i));
+		}
+
+		for (int i = 0; i < template.getRiKeys().size(); i++) {
+			container.addRiKeyPair(generateKeyPair(random), template.getRiKeyIds().get(i),
+					template.getRiKeyAuthorizedOnly().get(i));
+		}
+
+		return container;
+	}
+
+	private KeyPair generateKeyPair(SecureRandom random) {
+		try {
+			return CryptoUtil.generateKeyPair(domainParameters, random);
+		} catch (GeneralSecurityException e) {
+			throw new PersoCreationFailedException("key pair could not be generated", e);
+		}
+	}
+
+	/**
+	 * The syllables of the family name are the hexadecimal digits of the
+	 * index, so the name is unique.
+	 */
+	private static String getFamilyName(int index) {
+		StringBuilder name = new StringBuilder();
+		int remaining = index;
+		for (int i = 0; i < MIN_NAME_SYLLABLES || remaining > 0; i++) {
+			name.insert(0, NAME_SYLLABLES[remaining % NAME_SYLLABLES.length]);
+			remaining /= NAME_SYLLABLES.length;
+		}
+		return name.toString();
+	}
+
+	private String getDocumentNumber(int index) {
+		char[] number = new char[9];
+		number[0] = documentNumberPrefix;
+		long remaining = index;
+		for (int i = number.length - 1; i > 0; i--) {
+			number[i] = DOCUMENT_NUMBER_ALPHABET.charAt((int) (remaining % DOCUMENT_NUMBER_ALPHABET.length()));
+			remaining /= DOCUMENT_NUMBER_ALPHABET.length();
+		}
+		return new String(number);
+	}
+
+	private static String pick(SecureRandom random, String[] values) {
+		return values[random.nextInt(values.length)];
+	}
+
+	private static String getDigits(SecureRandom random, int length) {
+		StringBuilder digits = new StringBuilder(length);
+		for (int i = 0; i < length; i++) {
+			digits.append((char) ('0' + random.nextInt(10)));
+		}
+		return digits.toString();
+	}
+
+	/**
+	 * @return a date in the format YYYYMMDD within the given years, days are
+	 *         limited to 28 to be valid in every month
+	 */
+	private static String getDate(SecureRandom random, int firstYear, int years) {
+		return String.format("%04d%02d%02d", firstYear + random.nextInt(years), 1 + random.nextInt(12),
+				1 + random.nextInt(28));
+	}
+
+}
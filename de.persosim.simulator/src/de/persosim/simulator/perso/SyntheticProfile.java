@@ -0,0 +1,72 @@
+package de.persosim.simulator.perso;
+
+import de.persosim.simulator.perso.SyntheticPersonalizationGenerator.Identity;
+
+/**
+ * Profile of a synthetic identity created by
+ * {@link SyntheticPersonalizationGenerator}.
+ * <p/>
+ * The identity is only needed while building the object tree, afterwards all
+ * its data is stored within the card objects. Only its passwords are kept, so
+ * they are still available after unmarshalling.
+ */
+public class SyntheticProfile extends AbstractProfile {
+
+	private transient Identity identity;
+	private transient PersonalizationDataContainer container;
+	private String pin;
+	private String can;
+	private String puk;
+
+	/**
+	 * @param identity
+	 *            the identity providing the passwords
+	 * @param container
+	 *            the data container describing the card contents
+	 */
+	public SyntheticProfile(Identity identity, PersonalizationDataContainer container) {
+		// the layers can only be built once the identity is known, see buildLayerList()
+		this.identity = identity;
+		this.container = container;
+		pin = identity.getPin();
+		can = identity.getCan();
+		puk = identity.getPuk();
+		buildLayerList();
+	}
+
+	@Override
+	protected void buildLayerList() {
+		if (identity != null) {
+			super.buildLayerList();
+		}
+	}
+
+	@Override
+	public void setPersoDataContainer() {
+		persoDataContainer = container;
+	}
+
+	@Override
+	public String getPin() {
+		return pin;
+	}
+
+	@Override
+	public String getCan() {
+		return can;
+	}
+
+	@Override
+	public String getPuk() {
+		return puk;
+	}
+
+	/**
+	 * @return the identity this profile was created for, null if the profile
+	 *         was unmarshalled
+	 */
+	public Identity getIdentity() {
+		return identity;
+	}
+
+}
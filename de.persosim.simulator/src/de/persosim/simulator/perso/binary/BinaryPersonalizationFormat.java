@@ -0,0 +1,82 @@
+package de.persosim.simulator.perso.binary;
+
+import java.nio.ByteBuffer;
+
+/**
+ * This class defines the constants of the compact binary personalization
+ * format written by {@link BinaryPersonalizationWriter} and read by
+ * {@link BinaryPersonalizationReader}.
+ * <p/>
+ * A binary personalization starts with {@link #MAGIC} followed by the two byte
+ * {@link #VERSION} and a single tagged value containing the serialized object
+ * graph. Classes and field layouts are written once on first use and
+ * referenced by index afterwards, shared objects are written once and
+ * referenced by id.
+ */
+public final class BinaryPersonalizationFormat {
+
+	/** leading bytes identifying a binary personalization ("PSBP") */
+	public static final byte[] MAGIC = { 0x50, 0x53, 0x42, 0x50 };
+
+	/** version of the format written by this implementation */
+	public static final short VERSION = 1;
+
+	public static final int HEADER_LENGTH = MAGIC.length + 2;
+
+	static final byte TAG_NULL = 0;
+	static final byte TAG_REFERENCE = 1;
+	static final byte TAG_BOOLEAN = 2;
+	static final byte TAG_BYTE = 3;
+	static final byte TAG_SHORT = 4;
+	static final byte TAG_CHAR = 5;
+	static final byte TAG_INT = 6;
+	static final byte TAG_LONG = 7;
+	static final byte TAG_FLOAT = 8;
+	static final byte TAG_DOUBLE = 9;
+	static final byte TAG_STRING = 10;
+	static final byte TAG_ENUM = 11;
+	static final byte TAG_BIG_INTEGER = 12;
+	static final byte TAG_CLASS = 13;
+	static final byte TAG_BYTE_ARRAY = 14;
+	static final byte TAG_ARRAY = 15;
+	static final byte TAG_DATE = 16;
+	static final byte TAG_BIT_FIELD = 17;
+	static final byte TAG_PRIMITIVE_TLV = 18;
+	static final byte TAG_CONSTRUCTED_TLV = 19;
+	static final byte TAG_PROTOCOL = 20;
+	static final byte TAG_COMMAND_PROCESSOR = 21;
+	static final byte TAG_KEY_PAIR = 22;
+	static final byte TAG_PUBLIC_KEY = 23;
+	static final byte TAG_PRIVATE_KEY = 24;
+	static final byte TAG_EC_PARAMETER_SPEC = 25;
+	static final byte TAG_COLLECTION = 26;
+	static final byte TAG_MAP = 27;
+	static final byte TAG_OBJECT = 28;
+
+	private BinaryPersonalizationFormat() {
+		// constants only
+	}
+
+	/**
+	 * Checks whether the given buffer starts with the header of a binary
+	 * personalization. The position of the buffer is not modified.
+	 *
+	 * @param buffer
+	 *            the data to check
+	 * @return true, iff the buffer starts with {@link #MAGIC}
+	 */
+	public static boolean isBinaryPersonalization(ByteBuffer buffer) {
+		if (buffer.remaining() < HEADER_LENGTH) {
+			return false;
+		}
+
+		int position = buffer.position();
+		for (int i = 0; i < MAGIC.length; i++) {
+			if (buffer.get(position + i) != MAGIC[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
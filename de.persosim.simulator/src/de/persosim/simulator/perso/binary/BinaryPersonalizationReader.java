@@ -0,0 +1,469 @@
+package de.persosim.simulator.perso.binary;
+
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.MAGIC;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_ARRAY;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_BIG_INTEGER;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_BIT_FIELD;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_BOOLEAN;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_BYTE;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_BYTE_ARRAY;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_CHAR;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_CLASS;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_COLLECTION;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_COMMAND_PROCESSOR;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_CONSTRUCTED_TLV;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_DATE;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_DOUBLE;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_EC_PARAMETER_SPEC;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_ENUM;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_FLOAT;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_INT;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_KEY_PAIR;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_LONG;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_MAP;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_NULL;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_OBJECT;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_PRIMITIVE_TLV;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_PRIVATE_KEY;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_PROTOCOL;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_PUBLIC_KEY;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_REFERENCE;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_SHORT;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_STRING;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.VERSION;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.ECFieldFp;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.EllipticCurve;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.globaltester.cryptoprovider.Crypto;
+
+import com.thoughtworks.xstream.XStreamException;
+import com.thoughtworks.xstream.converters.reflection.ReflectionProvider;
+
+import de.persosim.simulator.cardobjects.MasterFile;
+import de.persosim.simulator.exception.AccessDeniedException;
+import de.persosim.simulator.perso.PersoCreationFailedException;
+import de.persosim.simulator.platform.CommandProcessor;
+import de.persosim.simulator.protocols.Protocol;
+import de.persosim.simulator.tlv.ConstructedTlvDataObject;
+import de.persosim.simulator.tlv.PrimitiveTlvDataObject;
+import de.persosim.simulator.utils.BitField;
+
+/**
+ * This class rebuilds personalization objects from the binary format described
+ * in {@link BinaryPersonalizationFormat}.
+ * <p/>
+ * Objects are created and filled using the {@link ReflectionProvider} of the
+ * XStream instance used for the XML format, classes are loaded using its
+ * class loader. Objects created by XStream converters during XML
+ * deserialization (e.g. protocols, keys and command processors) are created
+ * the same way by this reader.
+ * <p/>
+ * Binary personalizations may be exchanged between users, so only classes of
+ * the simulator and the JDK types emitted by the writer are resolved and all
+ * lengths are checked against the remaining data before allocating memory.
+ * <p/>
+ * Instances are not thread safe but may be reused for subsequent calls of
+ * {@link #read(ByteBuffer)}.
+ */
+public class BinaryPersonalizationReader {
+
+	private static final String SIMULATOR_PACKAGE_PREFIX = "de.persosim.simulator.";
+
+	/**
+	 * JDK classes the {@link BinaryPersonalizationWriter} names in its output,
+	 * i.e. containers rebuilt from their elements and value types
+	 */
+	private static final Set<String> JDK_CLASSES = new HashSet<>(Arrays.asList(
+			"java.lang.Object", "java.lang.String", "java.lang.Boolean", "java.lang.Byte", "java.lang.Short",
+			"java.lang.Character", "java.lang.Integer", "java.lang.Long", "java.lang.Float", "java.lang.Double",
+			"java.math.BigInteger", "java.util.Date",
+			"java.util.ArrayList", "java.util.LinkedList", "java.util.Vector", "java.util.Stack",
+			"java.util.HashSet", "java.util.LinkedHashSet", "java.util.TreeSet",
+			"java.util.HashMap", "java.util.LinkedHashMap", "java.util.TreeMap", "java.util.Hashtable"));
+
+	/* a varint encodes 7 bits per byte, an int needs up to 5 bytes */
+	private static final int MAX_VAR_INT_LENGTH = 5;
+
+	/*
+	 * nesting of values read recursively, far above the nesting of the
+	 * provided personalizations but well below exhausting the stack
+	 */
+	static final int MAX_NESTING_DEPTH = 256;
+
+	private final ReflectionProvider reflectionProvider;
+	private final ClassLoader classLoader;
+
+	private final HashMap<String, KeyFactory> keyFactories = new HashMap<>();
+
+	private ByteBuffer in;
+	private List<Object> objects;
+	private List<Class<?>> classes;
+	private HashMap<Class<?>, Field[]> fieldLayouts;
+	private int depth;
+
+	public BinaryPersonalizationReader(ReflectionProvider reflectionProvider, ClassLoader classLoader) {
+		this.reflectionProvider = reflectionProvider;
+		this.classLoader = classLoader;
+	}
+
+	/**
+	 * Reads the object graph contained in the given buffer, starting at its
+	 * current position. The position of the given buffer is not modified.
+	 *
+	 * @param buffer
+	 *            the binary representation including the format header
+	 * @return the deserialized root object, usually a personalization
+	 * @throws PersoCreationFailedException
+	 *             if the buffer does not contain a valid binary
+	 *             personalization of a supported version
+	 */
+	public Object read(ByteBuffer buffer) {
+		if (!BinaryPersonalizationFormat.isBinaryPersonalization(buffer)) {
+			throw new PersoCreationFailedException("Data does not contain a binary personalization");
+		}
+
+		in = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+		in.position(in.position() + MAGIC.length);
+		short version = in.getShort();
+		if (version != VERSION) {
+			throw new PersoCreationFailedException("Binary personalization version " + version + " is not supported");
+		}
+
+		objects = new ArrayList<>();
+		classes = new ArrayList<>();
+		fieldLayouts = new HashMap<>();
+		depth = 0;
+
+		try {
+			return readValue();
+		} catch (ReflectiveOperationException | GeneralSecurityException | AccessDeniedException e) {
+			throw new PersoCreationFailedException("Binary personalization could not be read", e);
+		} catch (BufferUnderflowException | IndexOutOfBoundsException | XStreamException | IllegalArgumentException
+				| ClassCastException | NegativeArraySizeException e) {
+			throw new PersoCreationFailedException("Binary personalization is malformed", e);
+		} finally {
+			in = null;
+			objects = null;
+			classes = null;
+			fieldLayouts = null;
+		}
+	}
+
+	private Object readValue() throws ReflectiveOperationException, GeneralSecurityException, AccessDeniedException {
+		if (depth >= MAX_NESTING_DEPTH) {
+			throw new IllegalArgumentException("Values are nested deeper than " + MAX_NESTING_DEPTH + " levels");
+		}
+		depth++;
+		try {
+			return readTaggedValue(in.get());
+		} finally {
+			depth--;
+		}
+	}
+
+	private Object readTaggedValue(byte tag) throws ReflectiveOperationException, GeneralSecurityException, AccessDeniedException {
+		switch (tag) {
+		case TAG_NULL:
+			return null;
+		case TAG_REFERENCE:
+			return objects.get(readVarInt());
+		case TAG_BOOLEAN:
+			return in.get() != 0;
+		case TAG_BYTE:
+			return in.get();
+		case TAG_SHORT:
+			return in.getShort();
+		case TAG_CHAR:
+			return in.getChar();
+		case TAG_INT:
+			return in.getInt();
+		case TAG_LONG:
+			return in.getLong();
+		case TAG_FLOAT:
+			return in.getFloat();
+		case TAG_DOUBLE:
+			return in.getDouble();
+		case TAG_STRING:
+			return readString();
+		case TAG_ENUM:
+			return readEnum(readClass(), readString());
+		case TAG_BIG_INTEGER:
+			return readBigInteger();
+		case TAG_CLASS:
+			return readClass();
+		default:
+			return readObject(tag);
+		}
+	}
+
+	/**
+	 * Reads values that are subject to reference tracking.
+	 */
+	private Object readObject(byte tag) throws ReflectiveOperationException, GeneralSecurityException, AccessDeniedException {
+		int id = objects.size();
+		objects.add(null);
+
+		switch (tag) {
+		case TAG_BYTE_ARRAY:
+			return register(id, readBytes());
+		case TAG_ARRAY:
+			return readArray(id);
+		case TAG_DATE:
+			return register(id, new Date(in.getLong()));
+		case TAG_BIT_FIELD:
+			int numberOfBits = readVarInt();
+			long[] words = new long[readLength(Long.BYTES)];
+			if (numberOfBits > words.length * Long.SIZE) {
+				throw new IllegalArgumentException("Bit field of " + numberOfBits + " bits exceeds its " + words.length + " words");
+			}
+			for (int i = 0; i < words.length; i++) {
+				words[i] = in.getLong();
+			}
+			return register(id, new BitField(numberOfBits, words));
+		case TAG_PRIMITIVE_TLV:
+			return register(id, new PrimitiveTlvDataObject(readBytes()));
+		case TAG_CONSTRUCTED_TLV:
+			return register(id, new ConstructedTlvDataObject(readBytes()));
+		case TAG_PROTOCOL:
+			Class<?> protocol = readClass();
+			if (!Protocol.class.isAssignableFrom(protocol)) {
+				throw new ClassCastException("Class " + protocol + " is not assignable to " + Protocol.class);
+			}
+			return register(id, protocol.newInstance());
+		case TAG_COMMAND_PROCESSOR:
+			MasterFile masterFile = (MasterFile) readValue();
+			@SuppressWarnings("unchecked")
+			List<Protocol> protocols = (List<Protocol>) readValue();
+			return register(id, new CommandProcessor(protocols, masterFile));
+		case TAG_KEY_PAIR:
+			PublicKey publicKey = (PublicKey) readValue();
+			PrivateKey privateKey = (PrivateKey) readValue();
+			return register(id, new KeyPair(publicKey, privateKey));
+		case TAG_PUBLIC_KEY:
+			String publicKeyAlgorithm = readString();
+			return register(id, getKeyFactory(publicKeyAlgorithm).generatePublic(new X509EncodedKeySpec(readBytes())));
+		case TAG_PRIVATE_KEY:
+			String privateKeyAlgorithm = readString();
+			return register(id, getKeyFactory(privateKeyAlgorithm).generatePrivate(new PKCS8EncodedKeySpec(readBytes())));
+		case TAG_EC_PARAMETER_SPEC:
+			EllipticCurve curve = new EllipticCurve(new ECFieldFp(readBigInteger()), readBigInteger(), readBigInteger());
+			ECPoint generator = new ECPoint(readBigInteger(), readBigInteger());
+			return register(id, new ECParameterSpec(curve, generator, readBigInteger(), readVarInt()));
+		case TAG_COLLECTION:
+			return readCollection(id);
+		case TAG_MAP:
+			return readMap(id);
+		case TAG_OBJECT:
+			return readFields(id);
+		default:
+			throw new IllegalArgumentException("Unknown tag " + tag);
+		}
+	}
+
+	private Object register(int id, Object object) {
+		objects.set(id, object);
+		return object;
+	}
+
+	private Object readArray(int id) throws ReflectiveOperationException, GeneralSecurityException, AccessDeniedException {
+		Class<?> type = readClass();
+		if (!type.isArray()) {
+			throw new IllegalArgumentException("Class " + type.getName() + " is not an array");
+		}
+		int length = readLength(1);
+		Object array = register(id, Array.newInstance(type.getComponentType(), length));
+		for (int i = 0; i < length; i++) {
+			Array.set(array, i, readValue());
+		}
+		return array;
+	}
+
+	private Object readCollection(int id) throws ReflectiveOperationException, GeneralSecurityException, AccessDeniedException {
+		@SuppressWarnings("unchecked")
+		Collection<Object> collection = (Collection<Object>) register(id, readClass().newInstance());
+		int size = readLength(1);
+		for (int i = 0; i < size; i++) {
+			collection.add(readValue());
+		}
+		return collection;
+	}
+
+	private Object readMap(int id) throws ReflectiveOperationException, GeneralSecurityException, AccessDeniedException {
+		@SuppressWarnings("unchecked")
+		Map<Object, Object> map = (Map<Object, Object>) register(id, readClass().newInstance());
+		int size = readLength(2);
+		for (int i = 0; i < size; i++) {
+			Object key = readValue();
+			map.put(key, readValue());
+		}
+		return map;
+	}
+
+	private Object readFields(int id) throws ReflectiveOperationException, GeneralSecurityException, AccessDeniedException {
+		Class<?> type = readClass();
+		Field[] fields = readFieldLayout(type);
+		Object object = register(id, reflectionProvider.newInstance(type));
+		for (Field field : fields) {
+			field.set(object, readValue());
+		}
+		return object;
+	}
+
+	/**
+	 * Returns the fields of the given class, reading them on first use of the
+	 * class. Only instance fields declared by the class or its superclasses
+	 * are accepted.
+	 */
+	private Field[] readFieldLayout(Class<?> type) {
+		Field[] fields = fieldLayouts.get(type);
+		if (fields == null) {
+			fields = new Field[readLength(2)];
+			for (int i = 0; i < fields.length; i++) {
+				Class<?> definedIn = readClass();
+				if (!definedIn.isAssignableFrom(type) || definedIn.isInterface()) {
+					throw new IllegalArgumentException("Class " + definedIn.getName() + " is not a superclass of " + type.getName());
+				}
+				Field field = reflectionProvider.getField(definedIn, readString());
+				int modifiers = field.getModifiers();
+				if (Modifier.isStatic(modifiers) || Modifier.isFinal(modifiers)) {
+					throw new IllegalArgumentException("Field " + field + " must not be set");
+				}
+				field.setAccessible(true);
+				fields[i] = field;
+			}
+			fieldLayouts.put(type, fields);
+		}
+		return fields;
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static Object readEnum(Class<?> type, String name) {
+		return Enum.valueOf((Class) type, name);
+	}
+
+	private KeyFactory getKeyFactory(String algorithm) throws GeneralSecurityException {
+		KeyFactory keyFactory = keyFactories.get(algorithm);
+		if (keyFactory == null) {
+			keyFactory = KeyFactory.getInstance(algorithm, Crypto.getCryptoProvider());
+			keyFactories.put(algorithm, keyFactory);
+		}
+		return keyFactory;
+	}
+
+	private Class<?> readClass() {
+		int index = readVarInt();
+		if (index < classes.size()) {
+			return classes.get(index);
+		}
+		if (index > classes.size()) {
+			throw new IllegalArgumentException("Class index " + index + " is not defined");
+		}
+
+		String className = readString();
+		if (!isAllowedClass(className)) {
+			throw new PersoCreationFailedException("Class " + className + " is not allowed in binary personalizations");
+		}
+		try {
+			Class<?> type = Class.forName(className, false, classLoader);
+			classes.add(type);
+			return type;
+		} catch (ClassNotFoundException e) {
+			throw new PersoCreationFailedException("Class " + className + " used in binary personalization is unknown", e);
+		}
+	}
+
+	/**
+	 * Returns whether the named class may be resolved, i.e. is a simulator
+	 * class, a known JDK class or an array of those or of primitives.
+	 */
+	static boolean isAllowedClass(String className) {
+		String componentName = className;
+		while (componentName.startsWith("[")) {
+			componentName = componentName.substring(1);
+		}
+		if (componentName.length() < className.length()) {
+			if (componentName.length() == 1) {
+				/* array of primitives */
+				return "ZBCSIJFD".contains(componentName);
+			}
+			if (!componentName.startsWith("L") || !componentName.endsWith(";")) {
+				return false;
+			}
+			componentName = componentName.substring(1, componentName.length() - 1);
+		}
+		return componentName.startsWith(SIMULATOR_PACKAGE_PREFIX) || JDK_CLASSES.contains(componentName);
+	}
+
+	private String readString() {
+		return new String(readBytes(), StandardCharsets.UTF_8);
+	}
+
+	private BigInteger readBigInteger() {
+		return new BigInteger(readBytes());
+	}
+
+	private byte[] readBytes() {
+		byte[] bytes = new byte[readLength(1)];
+		in.get(bytes);
+		return bytes;
+	}
+
+	/**
+	 * Reads the number of elements of a value, each occupying at least the
+	 * given number of bytes. The length is checked against the remaining data
+	 * before anything is allocated for the elements.
+	 */
+	private int readLength(int minBytesPerElement) {
+		int length = readVarInt();
+		if (length > in.remaining() / minBytesPerElement) {
+			throw new IllegalArgumentException("Length " + length + " exceeds the remaining data");
+		}
+		return length;
+	}
+
+	private int readVarInt() {
+		int value = 0;
+		int shift = 0;
+		byte current;
+		do {
+			if (shift >= 7 * MAX_VAR_INT_LENGTH) {
+				throw new IllegalArgumentException("Variable length integer exceeds " + MAX_VAR_INT_LENGTH + " bytes");
+			}
+			current = in.get();
+			value |= (current & 0x7F) << shift;
+			shift += 7;
+		} while ((current & 0x80) != 0);
+		if (value < 0) {
+			throw new IllegalArgumentException("Variable length integer is negative");
+		}
+		return value;
+	}
+
+}
@@ -0,0 +1,405 @@
+package de.persosim.simulator.perso.binary;
+
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.MAGIC;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_ARRAY;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_BIG_INTEGER;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_BIT_FIELD;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_BOOLEAN;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_BYTE;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_BYTE_ARRAY;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_CHAR;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_CLASS;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_COLLECTION;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_COMMAND_PROCESSOR;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_CONSTRUCTED_TLV;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_DATE;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_DOUBLE;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_EC_PARAMETER_SPEC;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_ENUM;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_FLOAT;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_INT;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_KEY_PAIR;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_LONG;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_MAP;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_NULL;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_OBJECT;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_PRIMITIVE_TLV;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_PRIVATE_KEY;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_PROTOCOL;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_PUBLIC_KEY;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_REFERENCE;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_SHORT;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.TAG_STRING;
+import static de.persosim.simulator.perso.binary.BinaryPersonalizationFormat.VERSION;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.ECFieldFp;
+import java.security.spec.ECParameterSpec;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.SortedSet;
+
+import com.thoughtworks.xstream.converters.reflection.ReflectionProvider;
+import com.thoughtworks.xstream.mapper.Mapper;
+
+import de.persosim.simulator.crypto.certificates.CvKey;
+import de.persosim.simulator.perso.PersoCreationFailedException;
+import de.persosim.simulator.platform.AbstractCommandProcessor;
+import de.persosim.simulator.protocols.Protocol;
+import de.persosim.simulator.tlv.ConstructedTlvDataObject;
+import de.persosim.simulator.tlv.TlvDataObject;
+import de.persosim.simulator.utils.BitField;
+
+/**
+ * This class serializes personalization objects into the binary format
+ * described in {@link BinaryPersonalizationFormat}.
+ * <p/>
+ * The set of serialized fields is determined by the {@link ReflectionProvider}
+ * and {@link Mapper} of the XStream instance used for the XML format, so both
+ * formats contain the same information. Types handled by the XStream
+ * converters in de.persosim.simulator.perso.xstream are encoded the same way
+ * those converters do, e.g. protocols are stored by class only and keys by
+ * their encoding.
+ * <p/>
+ * Instances are not thread safe but may be reused for subsequent calls of
+ * {@link #write(Object)}.
+ */
+public class BinaryPersonalizationWriter {
+
+	private final ReflectionProvider reflectionProvider;
+	private final Mapper mapper;
+
+	private final HashMap<Class<?>, Field[]> fieldLayouts = new HashMap<>();
+	private final HashMap<Class<?>, Boolean> containerTypes = new HashMap<>();
+
+	private DataOutputStream out;
+	private IdentityHashMap<Object, Integer> objectIds;
+	private HashMap<Class<?>, Integer> classIndices;
+	private HashMap<Class<?>, Field[]> writtenFieldLayouts;
+
+	public BinaryPersonalizationWriter(ReflectionProvider reflectionProvider, Mapper mapper) {
+		this.reflectionProvider = reflectionProvider;
+		this.mapper = mapper;
+	}
+
+	/**
+	 * Serializes the object graph starting at the given root object.
+	 *
+	 * @param root
+	 *            the object to serialize, usually a personalization
+	 * @return the binary representation including the format header
+	 */
+	public byte[] write(Object root) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 * 1024);
+		out = new DataOutputStream(bytes);
+		objectIds = new IdentityHashMap<>();
+		classIndices = new HashMap<>();
+		writtenFieldLayouts = new HashMap<>();
+
+		try {
+			out.write(MAGIC);
+			out.writeShort(VERSION);
+			writeValue(root);
+			out.flush();
+		} catch (IOException | IllegalAccessException e) {
+			throw new PersoCreationFailedException("Personalization could not be serialized", e);
+		} finally {
+			out = null;
+			objectIds = null;
+			classIndices = null;
+			writtenFieldLayouts = null;
+		}
+
+		return bytes.toByteArray();
+	}
+
+	private void writeValue(Object value) throws IOException, IllegalAccessException {
+		if (value == null) {
+			out.writeByte(TAG_NULL);
+			return;
+		}
+
+		if (writeImmutableValue(value)) {
+			return;
+		}
+
+		Integer id = objectIds.get(value);
+		if (id != null) {
+			out.writeByte(TAG_REFERENCE);
+			writeVarInt(id);
+			return;
+		}
+		objectIds.put(value, objectIds.size());
+
+		Class<?> type = value.getClass();
+		if (type == byte[].class) {
+			byte[] array = (byte[]) value;
+			out.writeByte(TAG_BYTE_ARRAY);
+			writeVarInt(array.length);
+			out.write(array);
+		} else if (type.isArray()) {
+			int length = Array.getLength(value);
+			out.writeByte(TAG_ARRAY);
+			writeClass(type);
+			writeVarInt(length);
+			for (int i = 0; i < length; i++) {
+				writeValue(Array.get(value, i));
+			}
+		} else if (type == Date.class) {
+			out.writeByte(TAG_DATE);
+			out.writeLong(((Date) value).getTime());
+		} else if (value instanceof BitField) {
+			BitField bitField = (BitField) value;
+			long[] words = bitField.toLongArray();
+			out.writeByte(TAG_BIT_FIELD);
+			writeVarInt(bitField.getNumberOfBits());
+			writeVarInt(words.length);
+			for (long word : words) {
+				out.writeLong(word);
+			}
+		} else if (value instanceof TlvDataObject) {
+			byte[] encoding = ((TlvDataObject) value).toByteArray();
+			out.writeByte((value instanceof ConstructedTlvDataObject) ? TAG_CONSTRUCTED_TLV : TAG_PRIMITIVE_TLV);
+			writeVarInt(encoding.length);
+			out.write(encoding);
+		} else if (value instanceof Protocol) {
+			out.writeByte(TAG_PROTOCOL);
+			writeClass(type);
+		} else if (value instanceof AbstractCommandProcessor) {
+			AbstractCommandProcessor commandProcessor = (AbstractCommandProcessor) value;
+			out.writeByte(TAG_COMMAND_PROCESSOR);
+			writeValue(commandProcessor.getMasterFile());
+			writeValue(commandProcessor.getProtocolList());
+		} else if (type == KeyPair.class) {
+			KeyPair keyPair = (KeyPair) value;
+			out.writeByte(TAG_KEY_PAIR);
+			writeValue(keyPair.getPublic());
+			writeValue(keyPair.getPrivate());
+		} else if (isEncodedKey(value)) {
+			Key key = (Key) value;
+			out.writeByte((value instanceof PublicKey) ? TAG_PUBLIC_KEY : TAG_PRIVATE_KEY);
+			writeString(key.getAlgorithm());
+			byte[] encoding = key.getEncoded();
+			writeVarInt(encoding.length);
+			out.write(encoding);
+		} else if (isPrimeFieldParameterSpec(value)) {
+			ECParameterSpec spec = (ECParameterSpec) value;
+			out.writeByte(TAG_EC_PARAMETER_SPEC);
+			writeBigInteger(((ECFieldFp) spec.getCurve().getField()).getP());
+			writeBigInteger(spec.getCurve().getA());
+			writeBigInteger(spec.getCurve().getB());
+			writeBigInteger(spec.getGenerator().getAffineX());
+			writeBigInteger(spec.getGenerator().getAffineY());
+			writeBigInteger(spec.getOrder());
+			writeVarInt(spec.getCofactor());
+		} else if ((value instanceof Collection) && isContainer(value)) {
+			Collection<?> collection = (Collection<?>) value;
+			out.writeByte(TAG_COLLECTION);
+			writeClass(type);
+			writeVarInt(collection.size());
+			for (Object element : collection) {
+				writeValue(element);
+			}
+		} else if ((value instanceof Map) && isContainer(value)) {
+			Map<?, ?> map = (Map<?, ?>) value;
+			out.writeByte(TAG_MAP);
+			writeClass(type);
+			writeVarInt(map.size());
+			for (Map.Entry<?, ?> entry : map.entrySet()) {
+				writeValue(entry.getKey());
+				writeValue(entry.getValue());
+			}
+		} else {
+			out.writeByte(TAG_OBJECT);
+			writeClass(type);
+			for (Field field : writeFieldLayout(value)) {
+				writeValue(field.get(value));
+			}
+		}
+	}
+
+	/**
+	 * Writes values that are not subject to reference tracking.
+	 *
+	 * @return true, iff the value has been written
+	 */
+	private boolean writeImmutableValue(Object value) throws IOException {
+		Class<?> type = value.getClass();
+		if (type == String.class) {
+			out.writeByte(TAG_STRING);
+			writeString((String) value);
+		} else if (type == Integer.class) {
+			out.writeByte(TAG_INT);
+			out.writeInt((Integer) value);
+		} else if (type == Boolean.class) {
+			out.writeByte(TAG_BOOLEAN);
+			out.writeBoolean((Boolean) value);
+		} else if (type == Byte.class) {
+			out.writeByte(TAG_BYTE);
+			out.writeByte((Byte) value);
+		} else if (type == Short.class) {
+			out.writeByte(TAG_SHORT);
+			out.writeShort((Short) value);
+		} else if (type == Character.class) {
+			out.writeByte(TAG_CHAR);
+			out.writeChar((Character) value);
+		} else if (type == Long.class) {
+			out.writeByte(TAG_LONG);
+			out.writeLong((Long) value);
+		} else if (type == Float.class) {
+			out.writeByte(TAG_FLOAT);
+			out.writeFloat((Float) value);
+		} else if (type == Double.class) {
+			out.writeByte(TAG_DOUBLE);
+			out.writeDouble((Double) value);
+		} else if (value instanceof Enum) {
+			out.writeByte(TAG_ENUM);
+			writeClass(((Enum<?>) value).getDeclaringClass());
+			writeString(((Enum<?>) value).name());
+		} else if (type == BigInteger.class) {
+			out.writeByte(TAG_BIG_INTEGER);
+			writeBigInteger((BigInteger) value);
+		} else if (type == Class.class) {
+			out.writeByte(TAG_CLASS);
+			writeClass((Class<?>) value);
+		} else {
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Keys are encoded like the {@link de.persosim.simulator.perso.xstream.KeyConverter} does.
+	 */
+	private static boolean isEncodedKey(Object value) {
+		return !(value instanceof CvKey) && ((value instanceof PublicKey) || (value instanceof PrivateKey));
+	}
+
+	private static boolean isPrimeFieldParameterSpec(Object value) {
+		return (value.getClass() == ECParameterSpec.class)
+				&& (((ECParameterSpec) value).getCurve().getField() instanceof ECFieldFp);
+	}
+
+	/**
+	 * Collections and maps from java.util that can be rebuilt by adding their
+	 * elements to a new instance are stored by their elements. Other
+	 * implementations are stored field by field.
+	 */
+	private boolean isContainer(Object value) {
+		if ((value instanceof SortedMap) && ((SortedMap<?, ?>) value).comparator() != null) {
+			return false;
+		}
+		if ((value instanceof SortedSet) && ((SortedSet<?>) value).comparator() != null) {
+			return false;
+		}
+
+		Class<?> type = value.getClass();
+		Boolean container = containerTypes.get(type);
+		if (container == null) {
+			container = false;
+			if (type.getName().startsWith("java.util.") && Modifier.isPublic(type.getModifiers())) {
+				try {
+					container = Modifier.isPublic(type.getConstructor().getModifiers());
+				} catch (NoSuchMethodException e) {
+					// no default constructor, store fields instead
+				}
+			}
+			containerTypes.put(type, container);
+		}
+		return container;
+	}
+
+	/**
+	 * Returns the serializable fields of the given object and writes them on
+	 * first use of its class.
+	 */
+	private Field[] writeFieldLayout(Object value) throws IOException {
+		Class<?> type = value.getClass();
+		Field[] fields = writtenFieldLayouts.get(type);
+		if (fields != null) {
+			return fields;
+		}
+
+		fields = getFieldLayout(value);
+		writeVarInt(fields.length);
+		for (Field field : fields) {
+			writeClass(field.getDeclaringClass());
+			writeString(field.getName());
+		}
+		writtenFieldLayouts.put(type, fields);
+		return fields;
+	}
+
+	private Field[] getFieldLayout(Object value) {
+		Field[] fields = fieldLayouts.get(value.getClass());
+		if (fields == null) {
+			final List<Field> fieldList = new ArrayList<>();
+			reflectionProvider.visitSerializableFields(value, new ReflectionProvider.Visitor() {
+
+				@Override
+				public void visit(String fieldName, @SuppressWarnings("rawtypes") Class fieldType,
+						@SuppressWarnings("rawtypes") Class definedIn, Object fieldValue) {
+					if (mapper.shouldSerializeMember(definedIn, fieldName)) {
+						Field field = reflectionProvider.getField(definedIn, fieldName);
+						field.setAccessible(true);
+						fieldList.add(field);
+					}
+				}
+			});
+			fields = fieldList.toArray(new Field[fieldList.size()]);
+			fieldLayouts.put(value.getClass(), fields);
+		}
+		return fields;
+	}
+
+	private void writeClass(Class<?> type) throws IOException {
+		Integer index = classIndices.get(type);
+		if (index != null) {
+			writeVarInt(index);
+			return;
+		}
+
+		index = classIndices.size();
+		classIndices.put(type, index);
+		writeVarInt(index);
+		writeString(type.getName());
+	}
+
+	private void writeString(String value) throws IOException {
+		byte[] encoding = value.getBytes(StandardCharsets.UTF_8);
+		writeVarInt(encoding.length);
+		out.write(encoding);
+	}
+
+	private void writeBigInteger(BigInteger value) throws IOException {
+		byte[] encoding = value.toByteArray();
+		writeVarInt(encoding.length);
+		out.write(encoding);
+	}
+
+	private void writeVarInt(int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+
+}
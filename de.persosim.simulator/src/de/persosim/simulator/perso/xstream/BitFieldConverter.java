@@ -0,0 +1,57 @@
+package de.persosim.simulator.perso.xstream;
+
+import com.thoughtworks.xstream.converters.ConversionException;
+import com.thoughtworks.xstream.converters.Converter;
+import com.thoughtworks.xstream.converters.MarshallingContext;
+import com.thoughtworks.xstream.converters.UnmarshallingContext;
+import com.thoughtworks.xstream.io.HierarchicalStreamReader;
+import com.thoughtworks.xstream.io.HierarchicalStreamWriter;
+
+import de.persosim.simulator.utils.BitField;
+
+/**
+ * This class is a converter which is responsible for converting
+ * {@link BitField}s. It keeps the representation of one boolean per bit, that
+ * was used by the previous implementation of {@link BitField}, so that
+ * existing personalizations remain readable.
+ * 
+ */
+public class BitFieldConverter implements Converter {
+
+	private static final String NODE_NAME = "storedBits";
+
+	public boolean canConvert(@SuppressWarnings("rawtypes") Class type) {
+		return type.equals(BitField.class);
+	}
+
+	public void marshal(Object value, HierarchicalStreamWriter writer,
+			MarshallingContext context) {
+		BitField bitField = (BitField) value;
+		boolean[] bits = new boolean[bitField.getNumberOfBits()];
+		for (int i = 0; i < bits.length; i++) {
+			bits[i] = bitField.getBit(i);
+		}
+		
+		writer.startNode(NODE_NAME);
+		context.convertAnother(bits);
+		writer.endNode();
+	}
+
+	public Object unmarshal(HierarchicalStreamReader reader,
+			UnmarshallingContext context) {
+		boolean[] bits = null;
+		
+		while (reader.hasMoreChildren()) {
+			reader.moveDown();
+			if (reader.getNodeName().equals(NODE_NAME)) {
+				bits = (boolean[]) context.convertAnother(null, boolean[].class);
+			}
+			reader.moveUp();
+		}
+		
+		if (bits == null) {
+			throw new ConversionException("BitField does not contain any bits");
+		}
+		return new BitField(bits);
+	}
+}
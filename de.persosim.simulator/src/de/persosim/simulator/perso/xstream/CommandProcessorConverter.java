@@ -29,8 +29,13 @@ import de.persosim.simulator.protocols.Protocol;
 
 public class CommandProcessorConverter implements Converter {
 
-	private MasterFile masterFile;
-	private List<Protocol> protocols;
+	/**
+	 * Values read from the XML representation of a command processor
+	 */
+	private static class CommandProcessorValues {
+		MasterFile masterFile;
+		List<Protocol> protocols;
+	}
 
 	@Override
 	public boolean canConvert(@SuppressWarnings("rawtypes") Class clazz) {
@@ -54,21 +59,21 @@ public class CommandProcessorConverter implements Converter {
 	}
 
 	@SuppressWarnings("unchecked")
-	public void getValuesFromXML(HierarchicalStreamReader reader, UnmarshallingContext context) {
+	private void getValuesFromXML(HierarchicalStreamReader reader, UnmarshallingContext context, CommandProcessorValues values) {
 		while (reader.hasMoreChildren()) {
 			reader.moveDown();
 			String nodeName = reader.getNodeName();
 			switch (nodeName) {
 			case "masterFile":
-				masterFile = (MasterFile) context.convertAnother(reader, MasterFile.class);
+				values.masterFile = (MasterFile) context.convertAnother(reader, MasterFile.class);
 				break;
 			case "protocols":
-				protocols = (List<Protocol>) context.convertAnother(reader, ArrayList.class);
+				values.protocols = (List<Protocol>) context.convertAnother(reader, ArrayList.class);
 				break;
 			}
 
 			if (reader.hasMoreChildren()) {
-				getValuesFromXML(reader, context);
+				getValuesFromXML(reader, context, values);
 			}
 			reader.moveUp();
 		}
@@ -76,17 +81,18 @@ public class CommandProcessorConverter implements Converter {
 
 	@Override
 	public Object unmarshal(HierarchicalStreamReader reader, UnmarshallingContext context) {
+		CommandProcessorValues values = new CommandProcessorValues();
 		if (reader.getNodeName().toLowerCase().endsWith("commandprocessor")) {
-			getValuesFromXML(reader, context);
+			getValuesFromXML(reader, context, values);
 		}
 
-		if (masterFile == null || protocols == null) {
+		if (values.masterFile == null || values.protocols == null) {
 			String message = "can not create CommandProcessor object, unmarshal failed!";
 			log(getClass(), message, ERROR);
 			throw new XStreamException(message);
 		}
 		try {
-			return new CommandProcessor(protocols, masterFile);
+			return new CommandProcessor(values.protocols, values.masterFile);
 		} catch (AccessDeniedException e) {
 			String message = "can not create CommandProcessor object, unmarshal failed!";
 			log(getClass(), message, ERROR);
@@ -24,10 +24,15 @@ import com.thoughtworks.xstream.io.HierarchicalStreamWriter;
  */
 public class ECParameterSpecConverter implements Converter {
 	
-	int h = 0;
-	BigInteger n = null;
-	EllipticCurve curve = null;
-	ECPoint point = null;
+	/**
+	 * Values read from the XML representation of an ECParameterSpec
+	 */
+	private static class ParameterSpecValues {
+		int h = 0;
+		BigInteger n = null;
+		EllipticCurve curve = null;
+		ECPoint point = null;
+	}
 	
 	@Override
 	public boolean canConvert(@SuppressWarnings("rawtypes") Class clazz) {
@@ -61,27 +66,27 @@ public class ECParameterSpecConverter implements Converter {
 		writer.endNode();
 	}
 
-	public void getValuesFromXML(HierarchicalStreamReader reader, UnmarshallingContext context) {
+	private void getValuesFromXML(HierarchicalStreamReader reader, UnmarshallingContext context, ParameterSpecValues values) {
 		while (reader.hasMoreChildren()) {
 			reader.moveDown();
 			String nodeName = reader.getNodeName();
 			switch(nodeName) {
 			case "curve":
-				curve = (EllipticCurve) context.convertAnother(reader, EllipticCurve.class, new CurveConverter());
+				values.curve = (EllipticCurve) context.convertAnother(reader, EllipticCurve.class, new CurveConverter());
 				break;
 			case "point":
-				point = (ECPoint) context.convertAnother(reader, ECPoint.class, new PointConverter());
+				values.point = (ECPoint) context.convertAnother(reader, ECPoint.class, new PointConverter());
 				break;
 			case "n":
-				n = new BigInteger(reader.getValue());
+				values.n = new BigInteger(reader.getValue());
 				break;
 			case "h":
-				h = Integer.parseInt(reader.getValue());
+				values.h = Integer.parseInt(reader.getValue());
 				break;
 			}
 			
 			if(reader.hasMoreChildren()) {
-				getValuesFromXML(reader, context);
+				getValuesFromXML(reader, context, values);
 			}
 			reader.moveUp();
 		}
@@ -90,16 +95,16 @@ public class ECParameterSpecConverter implements Converter {
 	@Override
 	public Object unmarshal(HierarchicalStreamReader reader,
 			UnmarshallingContext context) {
-		
+		ParameterSpecValues values = new ParameterSpecValues();
 		if (reader.getNodeName().toLowerCase().endsWith("ecparameterspec")) {
-			getValuesFromXML(reader, context);
+			getValuesFromXML(reader, context, values);
 		}
 
-		if(point == null || curve == null || n == null) {
+		if(values.point == null || values.curve == null || values.n == null) {
 			String message = "can not create ParameterSpec object, unmarshal failed!";
 			log(getClass(), message, ERROR);
 			throw new XStreamException (message);
 		}
-		return new ECParameterSpec(curve, point, n, h);
+		return new ECParameterSpec(values.curve, values.point, values.n, values.h);
 	}
 }
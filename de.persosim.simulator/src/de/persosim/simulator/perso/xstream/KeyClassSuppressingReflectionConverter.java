@@ -0,0 +1,54 @@
+package de.persosim.simulator.perso.xstream;
+
+import java.security.Key;
+
+import com.thoughtworks.xstream.converters.MarshallingContext;
+import com.thoughtworks.xstream.converters.reflection.ReflectionConverter;
+import com.thoughtworks.xstream.converters.reflection.ReflectionProvider;
+import com.thoughtworks.xstream.io.HierarchicalStreamWriter;
+import com.thoughtworks.xstream.io.WriterWrapper;
+import com.thoughtworks.xstream.mapper.CannotResolveClassException;
+import com.thoughtworks.xstream.mapper.Mapper;
+
+import de.persosim.simulator.crypto.certificates.CvKey;
+
+/**
+ * This converter replaces the default reflection converter. It omits the
+ * class attribute of fields containing keys that are handled by the
+ * {@link KeyConverter}, e.g. provider specific implementations like
+ * org.bouncycastle...BCECPublicKey. Those keys are restored from their
+ * encoding, so their class is not needed to unmarshal them.
+ * 
+ */
+public class KeyClassSuppressingReflectionConverter extends ReflectionConverter {
+
+	private final String classAttribute;
+
+	public KeyClassSuppressingReflectionConverter(Mapper mapper, ReflectionProvider reflectionProvider) {
+		super(mapper, reflectionProvider);
+		classAttribute = mapper.aliasForSystemAttribute("class");
+	}
+
+	@Override
+	public void marshal(Object original, HierarchicalStreamWriter writer, MarshallingContext context) {
+		super.marshal(original, new WriterWrapper(writer) {
+			@Override
+			public void addAttribute(String name, String value) {
+				if (name.equals(classAttribute) && isConvertedKey(value)) {
+					return;
+				}
+				super.addAttribute(name, value);
+			}
+		}, context);
+	}
+
+	private boolean isConvertedKey(String serializedClass) {
+		try {
+			Class<?> type = mapper.realClass(serializedClass);
+			return Key.class.isAssignableFrom(type) && !CvKey.class.isAssignableFrom(type);
+		} catch (CannotResolveClassException e) {
+			return false;
+		}
+	}
+
+}
@@ -32,10 +32,15 @@ import de.persosim.simulator.utils.HexString;
  *
  */
 public class KeyConverter implements Converter {
-	String keyType = "";
-	String algorithmValue = "";
-	String byteValue = "";
 	
+	/**
+	 * Values read from the XML representation of a key
+	 */
+	private static class KeyValues {
+		String keyType = "";
+		String algorithmValue = "";
+		String byteValue = "";
+	}
 	
 	@Override
 	public boolean canConvert(@SuppressWarnings("rawtypes") Class type) {
@@ -63,22 +68,22 @@ public class KeyConverter implements Converter {
 		writer.endNode();
 	}
 	
-	public void getValuesFromXML(HierarchicalStreamReader reader, UnmarshallingContext context) {
+	private void getValuesFromXML(HierarchicalStreamReader reader, UnmarshallingContext context, KeyValues values) {
 		while (reader.hasMoreChildren()) {
-			keyType = reader.getNodeName().toLowerCase();
+			values.keyType = reader.getNodeName().toLowerCase();
 			reader.moveDown();
 			String nodeName = reader.getNodeName();
 			switch(nodeName) {
 			case "algorithm":
-				algorithmValue  = reader.getValue().replace("\n", "").replace(" ", "");
+				values.algorithmValue = reader.getValue().replace("\n", "").replace(" ", "");
 				break;
 			case "value":
-				byteValue = reader.getValue().replace("\n", "").replace(" ", "");
+				values.byteValue = reader.getValue().replace("\n", "").replace(" ", "");
 				break;
 			}
 			
 			if(reader.hasMoreChildren()) {
-				getValuesFromXML(reader, context);
+				getValuesFromXML(reader, context, values);
 			}
 			reader.moveUp();
 		}
@@ -91,7 +96,11 @@ public class KeyConverter implements Converter {
 		PrivateKey sk = null;
 		PublicKey pk = null;
 		
-		getValuesFromXML (reader, context);
+		KeyValues values = new KeyValues();
+		getValuesFromXML(reader, context, values);
+		String keyType = values.keyType;
+		String algorithmValue = values.algorithmValue;
+		String byteValue = values.byteValue;
 		
 		if (byteValue == null || algorithmValue == null || algorithmValue.equals("") || byteValue.equals("")) {
 			log(getClass(), "can not create "+ keyType +" object, unmarshal failed", ERROR);
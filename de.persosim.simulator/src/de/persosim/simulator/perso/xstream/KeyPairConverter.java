@@ -21,8 +21,14 @@ import com.thoughtworks.xstream.io.HierarchicalStreamWriter;
  *
  */
 public class KeyPairConverter implements Converter {
-	PrivateKey sk = null;
-	PublicKey pk = null;
+	
+	/**
+	 * Keys read from the XML representation of a key pair
+	 */
+	private static class KeyPairValues {
+		PrivateKey sk = null;
+		PublicKey pk = null;
+	}
 
 	@Override
 	public boolean canConvert(@SuppressWarnings("rawtypes") Class clazz) {
@@ -47,21 +53,21 @@ public class KeyPairConverter implements Converter {
 		writer.endNode();
 	}
 	
-	public void getValuesFromXML(HierarchicalStreamReader reader, UnmarshallingContext context) {
+	private void getValuesFromXML(HierarchicalStreamReader reader, UnmarshallingContext context, KeyPairValues values) {
 		while (reader.hasMoreChildren()) {
 			reader.moveDown();
 			String nodeName = reader.getNodeName();
 			switch(nodeName) {
 			case "privateKey":
-				sk = (PrivateKey) context.convertAnother(reader, PrivateKey.class, new KeyConverter());
+				values.sk = (PrivateKey) context.convertAnother(reader, PrivateKey.class, new KeyConverter());
 				break;
 			case "publicKey":
-				pk = (PublicKey) context.convertAnother(reader, PublicKey.class, new KeyConverter());
+				values.pk = (PublicKey) context.convertAnother(reader, PublicKey.class, new KeyConverter());
 				break;
 			}
 			
 			if(reader.hasMoreChildren()) {
-				getValuesFromXML(reader, context);
+				getValuesFromXML(reader, context, values);
 			}
 			reader.moveUp();
 		}
@@ -70,17 +76,17 @@ public class KeyPairConverter implements Converter {
 	@Override
 	public Object unmarshal(HierarchicalStreamReader reader,
 			UnmarshallingContext context) {
-
+		KeyPairValues values = new KeyPairValues();
 		if (reader.getNodeName().toLowerCase().endsWith("keypair")) {
-			getValuesFromXML (reader, context);
+			getValuesFromXML(reader, context, values);
 		}
 		
-		if (pk == null || sk == null) {
+		if (values.pk == null || values.sk == null) {
 			String message = "can not create keypair object, unmarshal failed!";
 			log(getClass(), message, ERROR);
 			throw new XStreamException (message);
 		}
-		return new KeyPair(pk, sk);
+		return new KeyPair(values.pk, values.sk);
 	}
 
 }
@@ -0,0 +1,30 @@
+package de.persosim.simulator.perso.xstream;
+
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import com.thoughtworks.xstream.io.HierarchicalStreamWriter;
+import com.thoughtworks.xstream.io.xml.PrettyPrintWriter;
+import com.thoughtworks.xstream.io.xml.StandardStaxDriver;
+
+/**
+ * This driver reads XML using the streaming StAX parser of the JRE and writes
+ * it using a {@link PrettyPrintWriter}. Neither direction builds a document
+ * tree, and the output is formatted the same way the DomDriver formatted it.
+ * 
+ */
+public class PrettyPrintStaxDriver extends StandardStaxDriver {
+
+	@Override
+	public HierarchicalStreamWriter createWriter(Writer out) {
+		return new PrettyPrintWriter(out, getNameCoder());
+	}
+
+	@Override
+	public HierarchicalStreamWriter createWriter(OutputStream out) {
+		return createWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+	}
+
+}
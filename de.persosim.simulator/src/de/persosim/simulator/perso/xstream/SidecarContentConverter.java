@@ -0,0 +1,84 @@
+package de.persosim.simulator.perso.xstream;
+
+import java.io.File;
+
+import com.thoughtworks.xstream.converters.ConversionException;
+import com.thoughtworks.xstream.converters.Converter;
+import com.thoughtworks.xstream.converters.MarshallingContext;
+import com.thoughtworks.xstream.converters.UnmarshallingContext;
+import com.thoughtworks.xstream.io.HierarchicalStreamReader;
+import com.thoughtworks.xstream.io.HierarchicalStreamWriter;
+
+import de.persosim.simulator.cardobjects.SidecarContent;
+
+/**
+ * This class is a converter which is responsible for serializing/deserializing
+ * {@link SidecarContent} objects.
+ * <p/>
+ * Relative file names are resolved against the directory stored under
+ * {@link #BASE_DIRECTORY} in the data holder of the unmarshalling context,
+ * usually the directory of the personalization file.
+ *
+ */
+public class SidecarContentConverter implements Converter {
+
+	public static final String BASE_DIRECTORY = SidecarContentConverter.class.getName() + ".baseDirectory";
+
+	@Override
+	public boolean canConvert(@SuppressWarnings("rawtypes") Class type) {
+		return type.equals(SidecarContent.class);
+	}
+
+	@Override
+	public void marshal(Object source, HierarchicalStreamWriter writer, MarshallingContext context) {
+		SidecarContent content = (SidecarContent) source;
+
+		writer.startNode("file");
+		writer.setValue(content.getFile());
+		writer.endNode();
+
+		writer.startNode("offset");
+		writer.setValue(String.valueOf(content.getOffset()));
+		writer.endNode();
+
+		writer.startNode("length");
+		writer.setValue(String.valueOf(content.getLength()));
+		writer.endNode();
+	}
+
+	@Override
+	public Object unmarshal(HierarchicalStreamReader reader, UnmarshallingContext context) {
+		String file = null;
+		long offset = 0;
+		int length = 0;
+
+		while (reader.hasMoreChildren()) {
+			reader.moveDown();
+			switch (reader.getNodeName()) {
+			case "file":
+				file = reader.getValue();
+				break;
+			case "offset":
+				offset = Long.parseLong(reader.getValue());
+				break;
+			case "length":
+				length = Integer.parseInt(reader.getValue());
+				break;
+			}
+			reader.moveUp();
+		}
+
+		if (file == null) {
+			throw new ConversionException("can not create SidecarContent object, file is missing");
+		}
+
+		File resolved = new File(file);
+		Object baseDirectory = context.get(BASE_DIRECTORY);
+		if (!resolved.isAbsolute() && baseDirectory instanceof File) {
+			resolved = new File((File) baseDirectory, file);
+		}
+
+		return new SidecarContent(resolved.getAbsolutePath(), offset, length);
+	}
+
+}
@@ -6,6 +6,7 @@ import static org.globaltester.logging.BasicLogger.logException;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.NoSuchElementException;
@@ -14,6 +15,7 @@ import de.persosim.simulator.apdu.ResponseApdu;
 import de.persosim.simulator.cardobjects.MasterFile;
 import de.persosim.simulator.exception.AccessDeniedException;
 import de.persosim.simulator.exception.ProcessingException;
+import de.persosim.simulator.metrics.SimulatorMetrics;
 import de.persosim.simulator.processing.UpdatePropagation;
 import de.persosim.simulator.protocols.Protocol;
 import de.persosim.simulator.protocols.ProtocolStateMachine;
@@ -103,6 +105,22 @@ public abstract class AbstractCommandProcessor extends Layer implements
 	protected transient SecStatus securityStatus;
 	protected MasterFile masterFile;
 
+	/**
+	 * @return the security status of this card, available after
+	 *         initialization
+	 */
+	public SecStatus getSecStatus() {
+		return securityStatus;
+	}
+
+	/**
+	 * @return the available protocols in the order they are matched against
+	 *         incoming APDUs
+	 */
+	public List<Protocol> getProtocols() {
+		return Collections.unmodifiableList(protocols);
+	}
+
 	/**
 	 * Adds a new protocol to the list of available protocols. The new protocol
 	 * is added at the end of the list.
@@ -210,7 +228,19 @@ public abstract class AbstractCommandProcessor extends Layer implements
 
 	public void currentProtocolProcess() {
 		log(this, "protocol chosen for processing is: " + getCurrentlyActiveProtocol().getProtocolName()); 
+		if (!SimulatorMetrics.isEnabled()) {
+			getCurrentlyActiveProtocol().process(processingData);
+			return;
+		}
+		long start = System.nanoTime();
 		getCurrentlyActiveProtocol().process(processingData);
+		long duration = System.nanoTime() - start;
+		// only APDUs actually handled count for the protocol, others are passed on to the next one
+		if (!processingData.isProcessingFinished()) {
+			return;
+		}
+		SimulatorMetrics.getProtocol(getCurrentlyActiveProtocol().getProtocolName()).record(
+				SimulatorMetrics.getIns(processingData), SimulatorMetrics.getStatusWord(processingData), duration);
 	}
 
 	/**
@@ -0,0 +1,32 @@
+package de.persosim.simulator.platform;
+
+/**
+ * Implemented by objects holding card state that changes while the card is in
+ * use, e.g. retry counters or file contents. Their state is recorded and
+ * restored by a {@link CardStateSnapshot}.
+ *
+ * @param <S>
+ *            the type of the recorded state
+ */
+public interface CardStateHolder<S> {
+
+	/**
+	 * Records the current state. The returned state is not modified later on,
+	 * so it may share data with this object as long as this object copies the
+	 * data before modifying it.
+	 *
+	 * @return the current state
+	 */
+	S saveState();
+
+	/**
+	 * Restores a state previously returned by {@link #saveState()}. The state
+	 * stays valid and can be restored again.
+	 *
+	 * @param state
+	 *            the state to restore
+	 * @return true, iff the current state differed from the restored one
+	 */
+	boolean restoreState(S state);
+
+}
@@ -0,0 +1,132 @@
+package de.persosim.simulator.platform;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import de.persosim.simulator.cardobjects.CardObject;
+import de.persosim.simulator.secstatus.SecStatus;
+
+/**
+ * In-memory snapshot of the mutable state of a card, i.e. the state of all
+ * {@link CardStateHolder}s of the object tree and the {@link SecStatus} of a
+ * {@link PersoSimKernel}. This covers retry counters and passwords, trust
+ * points, the stored date, file contents including their access counters, the
+ * security contexts and the stored session contexts.
+ * <p/>
+ * Each holder records its state without copying it, data is shared with the
+ * snapshot and copied by the holder before it is modified. Restoring only
+ * replaces the state of holders that changed since, so its costs are
+ * proportional to the changes.
+ * <p/>
+ * The structure of the object tree is not recorded, objects added or removed
+ * after creating the snapshot are not affected by restoring it. The state of
+ * the protocols and the secure messaging layer is not recorded either, it only
+ * lasts for a session and is discarded when the card is reset.
+ */
+public class CardStateSnapshot {
+
+	private final Object root;
+	private final List<RecordedState<?>> states = new ArrayList<>();
+
+	/**
+	 * Records the current state of the card simulated by the given layers.
+	 *
+	 * @param layers
+	 *            the layers of a kernel, containing a {@link CommandProcessor}
+	 * @throws IllegalArgumentException
+	 *             if the layers do not contain a command processor
+	 */
+	public CardStateSnapshot(List<Layer> layers) {
+		this(layers, getCommandProcessor(layers).getMasterFile(), getCommandProcessor(layers).getSecStatus());
+	}
+
+	/**
+	 * Records the current state of the given object tree and security status.
+	 *
+	 * @param root
+	 *            the object identifying the card the state belongs to
+	 * @param objectTree
+	 *            the root of the object tree
+	 * @param secStatus
+	 *            the security status of the card, may be null
+	 */
+	CardStateSnapshot(Object root, CardObject objectTree, SecStatus secStatus) {
+		this.root = Objects.requireNonNull(root);
+		if (secStatus != null) {
+			states.add(record(secStatus));
+			states.add(record(secStatus.getSessionContextStore()));
+		}
+		recordTree(objectTree);
+	}
+
+	private static CommandProcessor getCommandProcessor(List<Layer> layers) {
+		CommandProcessor commandProcessor = PersonalizationHelper.getUniqueCompatibleLayer(layers,
+				CommandProcessor.class);
+		if (commandProcessor == null) {
+			throw new IllegalArgumentException("layers do not contain a command processor");
+		}
+		return commandProcessor;
+	}
+
+	private void recordTree(CardObject cardObject) {
+		if (cardObject instanceof CardStateHolder) {
+			states.add(record((CardStateHolder<?>) cardObject));
+		}
+		for (CardObject child : cardObject.getChildren()) {
+			recordTree(child);
+		}
+	}
+
+	private static <S> RecordedState<S> record(CardStateHolder<S> holder) {
+		return new RecordedState<>(holder, holder.saveState());
+	}
+
+	/**
+	 * @return the object identifying the card the state belongs to
+	 */
+	public Object getRoot() {
+		return root;
+	}
+
+	/**
+	 * @return the number of objects recorded in this snapshot
+	 */
+	public int getObjectCount() {
+		return states.size();
+	}
+
+	/**
+	 * Restores the recorded state of all objects. The snapshot stays valid and
+	 * can be restored again.
+	 *
+	 * @return the number of objects whose state was changed
+	 */
+	public int restore() {
+		int restored = 0;
+		for (RecordedState<?> state : states) {
+			if (state.restore()) {
+				restored++;
+			}
+		}
+		return restored;
+	}
+
+	/**
+	 * The state of a single holder, keeping their types in line.
+	 */
+	private static final class RecordedState<S> {
+		private final CardStateHolder<S> holder;
+		private final S state;
+
+		RecordedState(CardStateHolder<S> holder, S state) {
+			this.holder = holder;
+			this.state = state;
+		}
+
+		boolean restore() {
+			return holder.restoreState(state);
+		}
+	}
+
+}
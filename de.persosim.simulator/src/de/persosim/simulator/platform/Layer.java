@@ -8,6 +8,7 @@ import org.globaltester.logging.InfoSource;
 
 import de.persosim.simulator.apdu.ResponseApdu;
 import de.persosim.simulator.exception.GeneralException;
+import de.persosim.simulator.metrics.SimulatorMetrics;
 import de.persosim.simulator.processing.ProcessingData;
 
 /**
@@ -54,6 +55,8 @@ public abstract class Layer implements Iso7816, InfoSource {
 	 * @param pData processingData collected during processing of the APDU
 	 */
 	public final void processAscending(ProcessingData pData) {
+		boolean recordMetrics = SimulatorMetrics.isEnabled();
+		long start = recordMetrics ? System.nanoTime() : 0;
 		try{
 			this.processingData = pData;
 			processAscending();
@@ -65,6 +68,9 @@ public abstract class Layer implements Iso7816, InfoSource {
 			ResponseApdu resp = new ResponseApdu(e.getStatusWord());
 			pData.updateResponseAPDU(this, "Generic error handling", resp);
 		}
+		if (recordMetrics) {
+			recordMetrics(pData, true, start);
+		}
 	}
 	
 	/**
@@ -86,6 +92,8 @@ public abstract class Layer implements Iso7816, InfoSource {
 	 * @param pData processingData collected during processing of the APDU
 	 */
 	public final void processDescending(ProcessingData pData) {
+		boolean recordMetrics = SimulatorMetrics.isEnabled();
+		long start = recordMetrics ? System.nanoTime() : 0;
 		try{
 			this.processingData = pData;
 			this.processDescending();
@@ -96,6 +104,15 @@ public abstract class Layer implements Iso7816, InfoSource {
 			ResponseApdu resp = new ResponseApdu(e.getStatusWord());
 			pData.updateResponseAPDU(this, "Generic error handling", resp);
 		}
+		if (recordMetrics) {
+			recordMetrics(pData, false, start);
+		}
+	}
+
+	private void recordMetrics(ProcessingData pData, boolean ascending, long start) {
+		long duration = System.nanoTime() - start;
+		SimulatorMetrics.getLayer(getLayerName(), ascending).record(SimulatorMetrics.getIns(pData),
+				SimulatorMetrics.getStatusWord(pData), duration);
 	}
 
 	/**
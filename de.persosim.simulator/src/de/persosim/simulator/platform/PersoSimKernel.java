@@ -1,18 +1,29 @@
 package de.persosim.simulator.platform;
 
 import static org.globaltester.logging.BasicLogger.TRACE;
+import static org.globaltester.logging.BasicLogger.WARN;
 import static org.globaltester.logging.BasicLogger.log;
 
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.globaltester.logging.InfoSource;
 import org.globaltester.simulator.LogTags;
 
+import de.persosim.simulator.crypto.DeterministicRandomProvider;
+import de.persosim.simulator.crypto.DrbgRandomProvider;
+import de.persosim.simulator.crypto.RandomProvider;
 import de.persosim.simulator.exception.AccessDeniedException;
+import de.persosim.simulator.metrics.LatencyMetrics;
+import de.persosim.simulator.metrics.SimulatorMetrics;
 import de.persosim.simulator.perso.Personalization;
 import de.persosim.simulator.processing.ProcessingData;
 import de.persosim.simulator.processing.UpdatePropagation;
+import de.persosim.simulator.protocols.Protocol;
+import de.persosim.simulator.protocols.RandomizedProtocol;
+import de.persosim.simulator.recording.ApduRecorder;
+import de.persosim.simulator.securemessaging.PlainApduPropagation;
 import de.persosim.simulator.utils.HexString;
 import de.persosim.simulator.utils.Utils;
 
@@ -26,7 +37,11 @@ import de.persosim.simulator.utils.Utils;
  */
 public class PersoSimKernel implements InfoSource {
 
+	private static final AtomicInteger NEXT_SLOT = new AtomicInteger();
+
+	private final int slot = NEXT_SLOT.incrementAndGet();
 	private List<Layer> layers;
+	private RandomProvider randomProvider;
 	
 	/**
 	 * Constructor that provides the inital {@link Personalization}
@@ -45,20 +60,30 @@ public class PersoSimKernel implements InfoSource {
 		
 		perso.initialize();
 		layers = perso.getLayerList();
+		setRandomProvider(new DrbgRandomProvider());
 		
 		log(this, "init finished", TRACE);
 	}
 
 	public byte[] powerOff() {
+		ApduRecorder recorder = ApduRecorder.getActive();
+		long start = recorder != null ? System.nanoTime() : 0;
+		
 		//power off all Layers from top to bottom
 		for (int curLayerId = layers.size()-1; curLayerId >= 0; curLayerId--) {
 			layers.get(curLayerId).powerOff();	
 		}
 		
+		if (recorder != null) {
+			recorder.record(slot, start, System.nanoTime() - start, ApduRecorder.NO_DATA, ApduRecorder.NO_DATA, null, null);
+		}
 		return Utils.toUnsignedByteArray(Iso7816.SW_9000_NO_ERROR);
 	}
 
 	public byte[] powerOn() {
+		ApduRecorder recorder = ApduRecorder.getActive();
+		long start = recorder != null ? System.nanoTime() : 0;
+		
 		//power on all Layers from bottom
 		for (int curLayerId = 0; curLayerId < layers.size(); curLayerId++) {
 			layers.get(curLayerId).powerOn();	
@@ -67,7 +92,12 @@ public class PersoSimKernel implements InfoSource {
 		//TODO AMY move atr definition to Personalization
 		String atr = "3BE800008131FE00506572736F53696D" + "AA";
 		//                            P e r s o S i m      XOR Checksum (required for T=1)
-		return HexString.toByteArray(atr);
+		byte[] atrData = HexString.toByteArray(atr);
+		
+		if (recorder != null) {
+			recorder.record(slot, start, System.nanoTime() - start, ApduRecorder.NO_DATA, atrData, null, null);
+		}
+		return atrData;
 	}
 
 	public byte[] reset() {
@@ -77,6 +107,112 @@ public class PersoSimKernel implements InfoSource {
 		return powerOn();
 	}
 
+	/**
+	 * Records the current state of the card, i.e. the state of the card
+	 * objects and the security status, see {@link CardStateSnapshot}.
+	 * 
+	 * @return the snapshot, to be restored by {@link #restoreSnapshot(CardStateSnapshot)}
+	 */
+	public CardStateSnapshot createSnapshot() {
+		CardStateSnapshot snapshot = new CardStateSnapshot(layers);
+		log(this, "snapshot of " + snapshot.getObjectCount() + " objects created", TRACE);
+		return snapshot;
+	}
+
+	/**
+	 * Restores the state of all layers recorded in the given snapshot. The
+	 * session state of the protocols is not recorded, reset the card to
+	 * discard it.
+	 * 
+	 * @param snapshot
+	 *            a snapshot created by {@link #createSnapshot()} of this kernel
+	 * @throws IllegalArgumentException
+	 *             if the snapshot was created from another kernel or
+	 *             personalization
+	 */
+	public void restoreSnapshot(CardStateSnapshot snapshot) {
+		if (snapshot.getRoot() != layers) {
+			throw new IllegalArgumentException("snapshot does not belong to this kernel");
+		}
+		int restored = snapshot.restore();
+		log(this, "snapshot restored, " + restored + " values changed", TRACE);
+	}
+
+	/**
+	 * Set the source of all random values generated by the protocols of this
+	 * card. {@link #init(Personalization)} sets a new
+	 * {@link DrbgRandomProvider}, so this must be called after initialization.
+	 * 
+	 * @param randomProvider
+	 *            the provider to use from now on
+	 */
+	public void setRandomProvider(RandomProvider randomProvider) {
+		this.randomProvider = randomProvider;
+		AbstractCommandProcessor commandProcessor = PersonalizationHelper.getUniqueCompatibleLayer(layers,
+				AbstractCommandProcessor.class);
+		if (commandProcessor != null) {
+			int stream = 0;
+			for (Protocol protocol : commandProcessor.getProtocols()) {
+				if (protocol instanceof RandomizedProtocol) {
+					((RandomizedProtocol) protocol).setSecureRandom(randomProvider.getSecureRandom(stream));
+				}
+				stream++;
+			}
+		}
+		if (randomProvider.isDeterministic()) {
+			log(this, "TEST MODE, protocols use " + randomProvider, WARN);
+		}
+	}
+
+	/**
+	 * @return the source of all random values generated by the protocols of
+	 *         this card or null if not initialized
+	 */
+	public RandomProvider getRandomProvider() {
+		return randomProvider;
+	}
+
+	/**
+	 * Replace the randomness of all protocols by a
+	 * {@link DeterministicRandomProvider} using the given seed. Kernels
+	 * initialized with the same personalization and seed respond identically
+	 * to the same sequence of APDUs, e.g. when replaying recorded sessions.
+	 * <p/>
+	 * This makes all generated nonces and keys predictable, use for testing
+	 * only.
+	 * 
+	 * @param seed
+	 *            the seed
+	 */
+	public void setRandomSeed(long seed) {
+		setRandomProvider(new DeterministicRandomProvider(seed));
+	}
+
+	/**
+	 * @return the number of session contexts currently stored in the security
+	 *         status, 0 if not initialized
+	 */
+	public int getSessionContextCount() {
+		List<Layer> currentLayers = layers;
+		if (currentLayers == null) {
+			return 0;
+		}
+		AbstractCommandProcessor commandProcessor = PersonalizationHelper.getUniqueCompatibleLayer(currentLayers,
+				AbstractCommandProcessor.class);
+		if (commandProcessor == null || commandProcessor.getSecStatus() == null) {
+			return 0;
+		}
+		return commandProcessor.getSecStatus().getSessionContextStore().getSize();
+	}
+
+	/**
+	 * @return the id of this kernel, unique within the process, used to
+	 *         distinguish simulated cards in recorded APDUs
+	 */
+	public int getSlot() {
+		return slot;
+	}
+
 	@Override
 	public String getIDString() {
 		return "PersoSimKernel";
@@ -91,6 +227,9 @@ public class PersoSimKernel implements InfoSource {
 	 *            the APDU that was recently received
 	 */
 	public byte[] process(byte[] commandApduData) {
+		boolean recordMetrics = SimulatorMetrics.isEnabled();
+		ApduRecorder recorder = ApduRecorder.getActive();
+		long start = recordMetrics || recorder != null ? System.nanoTime() : 0;
 		
 		log(this, "processing incoming APDU", TRACE);
 		log("Processing APDU: " + HexString.encode(commandApduData));
@@ -128,7 +267,31 @@ public class PersoSimKernel implements InfoSource {
 		log(this, "finished processing APDU");
 		log(this, "outgoing APDU:\n" + HexString.dump(responseApduData), TRACE);
 		log(HexString.encode(responseApduData), LogTags.APDU_TAG_OUT);
+		
+		long duration = recordMetrics || recorder != null ? System.nanoTime() - start : 0;
+		if (recorder != null) {
+			record(recorder, processingData, commandApduData, responseApduData, start, duration);
+		}
+		if (recordMetrics) {
+			int ins = commandApduData.length > 1 ? commandApduData[1] & 0xFF : LatencyMetrics.UNKNOWN;
+			int statusWord = responseApduData.length > 1 ? (responseApduData[responseApduData.length - 2] & 0xFF) << 8
+					| responseApduData[responseApduData.length - 1] & 0xFF : LatencyMetrics.UNKNOWN;
+			SimulatorMetrics.getKernel().record(ins, statusWord, duration);
+		}
 		return responseApduData;
 		
 	}
+
+	private void record(ApduRecorder recorder, ProcessingData processingData, byte[] commandApduData,
+			byte[] responseApduData, long start, long duration) {
+		byte[] plainCommand = null;
+		byte[] plainResponse = null;
+		LinkedList<UpdatePropagation> plainApdus = processingData.getUpdatePropagations(PlainApduPropagation.class);
+		if (!plainApdus.isEmpty()) {
+			PlainApduPropagation plain = (PlainApduPropagation) plainApdus.getLast();
+			plainCommand = plain.getCommandApdu().toByteArray();
+			plainResponse = plain.getResponseApdu().toByteArray();
+		}
+		recorder.record(slot, start, duration, commandApduData, responseApduData, plainCommand, plainResponse);
+	}
 }
@@ -0,0 +1,24 @@
+package de.persosim.simulator.protocols;
+
+import java.security.SecureRandom;
+
+/**
+ * Implemented by {@link Protocol}s generating random values, e.g. nonces,
+ * challenges or ephemeral keys.
+ * <p/>
+ * The kernel provides the source of randomness from the
+ * {@link de.persosim.simulator.crypto.RandomProvider} of the card, which also
+ * allows reproducible responses, e.g. for replaying recorded sessions.
+ *
+ */
+public interface RandomizedProtocol {
+
+	/**
+	 * Replace the source of all random values generated by this protocol.
+	 *
+	 * @param secureRandom
+	 *            the source to use from now on
+	 */
+	public abstract void setSecureRandom(SecureRandom secureRandom);
+
+}
@@ -3,11 +3,11 @@ package de.persosim.simulator.protocols;
 import java.security.Key;
 import java.security.PublicKey;
 import java.text.DecimalFormat;
-import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
 import java.util.TimeZone;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.globaltester.logging.BasicLogger;
 import org.osgi.framework.ServiceReference;
@@ -25,6 +25,7 @@ import de.persosim.simulator.tlv.TlvConstants;
 import de.persosim.simulator.tlv.TlvDataObjectContainer;
 import de.persosim.simulator.tlv.TlvTag;
 import de.persosim.simulator.utils.HexString;
+import de.persosim.simulator.utils.StartupTimer;
 
 /**
  * XXX MBK replace TaOid with OID according to our own OID class hierarchy 
@@ -36,46 +37,53 @@ import de.persosim.simulator.utils.HexString;
 public class Tr03110Utils implements TlvConstants {
 	public static final int ACCESS_RIGHTS_AT_CAN_ALLOWED_BIT = 4;
 	
-static private List<Tr03110UtilsProvider> providers = new ArrayList<>();
-	
-	static private ServiceTracker<Tr03110UtilsProvider, Tr03110UtilsProvider> serviceTracker;
-	
-	static {
-		if (Activator.getContext() != null){
-			ServiceTrackerCustomizer<Tr03110UtilsProvider, Tr03110UtilsProvider> customizer = new ServiceTrackerCustomizer<Tr03110UtilsProvider, Tr03110UtilsProvider>() {
+	/**
+	 * Providers registered as OSGi services are tracked from the first use of
+	 * a provider based method on.
+	 */
+	private static class Providers {
+		static final List<Tr03110UtilsProvider> providers = new CopyOnWriteArrayList<>();
+
+		static ServiceTracker<Tr03110UtilsProvider, Tr03110UtilsProvider> serviceTracker;
+
+		static {
+			long start = System.nanoTime();
+			if (Activator.getContext() != null){
+				ServiceTrackerCustomizer<Tr03110UtilsProvider, Tr03110UtilsProvider> customizer = new ServiceTrackerCustomizer<Tr03110UtilsProvider, Tr03110UtilsProvider>() {
 				
-				@Override
-				public void removedService(
-						ServiceReference<Tr03110UtilsProvider> reference,
-						Tr03110UtilsProvider service) {
-					providers.remove(service);
-				}
+					@Override
+					public void removedService(
+							ServiceReference<Tr03110UtilsProvider> reference,
+							Tr03110UtilsProvider service) {
+						providers.remove(service);
+					}
 				
-				@Override
-				public void modifiedService(
-						ServiceReference<Tr03110UtilsProvider> reference,
-						Tr03110UtilsProvider service) {
-					//Nothing to be done
-				}
+					@Override
+					public void modifiedService(
+							ServiceReference<Tr03110UtilsProvider> reference,
+							Tr03110UtilsProvider service) {
+						//Nothing to be done
+					}
 				
-				@Override
-				public Tr03110UtilsProvider addingService(
-						ServiceReference<Tr03110UtilsProvider> reference) {
-					Tr03110UtilsProvider provider = Activator.getContext().getService(reference); 
-					providers.add(provider);
-					return provider;
-				}
-			};
+					@Override
+					public Tr03110UtilsProvider addingService(
+							ServiceReference<Tr03110UtilsProvider> reference) {
+						Tr03110UtilsProvider provider = Activator.getContext().getService(reference); 
+						providers.add(provider);
+						return provider;
+					}
+				};
 			
-			serviceTracker = new ServiceTracker<Tr03110UtilsProvider, Tr03110UtilsProvider>(Activator.getContext(), Tr03110UtilsProvider.class, customizer);
-			serviceTracker.open();
+				serviceTracker = new ServiceTracker<Tr03110UtilsProvider, Tr03110UtilsProvider>(Activator.getContext(), Tr03110UtilsProvider.class, customizer);
+				serviceTracker.open();
 					
-		} else {
-			BasicLogger.log(Tr03110Utils.class, "No OSGi context is available, no additional TR03110 functionalities are supported", BasicLogger.INFO);
+			} else {
+				BasicLogger.log(Tr03110Utils.class, "No OSGi context is available, no additional TR03110 functionalities are supported", BasicLogger.INFO);
+			}
+			providers.add(new Tr03110UtilsDefaultProvider());
+			StartupTimer.classInit(Tr03110Utils.class, start);
 		}
-		providers.add(new Tr03110UtilsDefaultProvider());
-
-    }
+	}
 	
 	/**
 	 * This method parses a public key encoded within a CV certificate
@@ -83,7 +91,7 @@ static private List<Tr03110UtilsProvider> providers = new ArrayList<>();
 	 * @return a key matching the encoding from a CV certificate
 	 */
 	public static CvPublicKey parseCvPublicKey(ConstructedTlvDataObject publicKeyData) {
-		for (Tr03110UtilsProvider provider : providers) {
+		for (Tr03110UtilsProvider provider : Providers.providers) {
 			try {
 				CvPublicKey key = provider.parseCvPublicKey(publicKeyData);
 				if (key != null) {
@@ -126,7 +134,7 @@ static private List<Tr03110UtilsProvider> providers = new ArrayList<>();
 	 * @return the extracted domain parameter information
 	 */
 	public static DomainParameterSet getDomainParameterSetFromKey(Key key) {
-		for(Tr03110UtilsProvider provider : providers){
+		for(Tr03110UtilsProvider provider : Providers.providers){
 			DomainParameterSet domainParameters = provider.getDomainParameterSetFromKey(key);
 			if (domainParameters != null){
 				return domainParameters;
@@ -32,6 +32,7 @@ import de.persosim.simulator.cardobjects.MasterFile;
 import de.persosim.simulator.cardobjects.OidIdentifier;
 import de.persosim.simulator.crypto.CryptoSupport;
 import de.persosim.simulator.crypto.DomainParameterSet;
+import de.persosim.simulator.crypto.DrbgRandomProvider;
 import de.persosim.simulator.crypto.KeyDerivationFunction;
 import de.persosim.simulator.crypto.StandardizedDomainParameters;
 import de.persosim.simulator.exception.CryptoException;
@@ -41,6 +42,7 @@ import de.persosim.simulator.platform.PlatformUtil;
 import de.persosim.simulator.protocols.AbstractProtocolStateMachine;
 import de.persosim.simulator.protocols.Oid;
 import de.persosim.simulator.protocols.ProtocolUpdate;
+import de.persosim.simulator.protocols.RandomizedProtocol;
 import de.persosim.simulator.protocols.SecInfoPublicity;
 import de.persosim.simulator.protocols.Tr03110;
 import de.persosim.simulator.protocols.Tr03110Utils;
@@ -72,7 +74,7 @@ import de.persosim.simulator.utils.Utils;
  * 
  */
 //XXX SLS generalize code overlapping with {@link AbstractPaceProtocol} where possible.
-public abstract class AbstractCaProtocol extends AbstractProtocolStateMachine implements Ca, TlvConstants {
+public abstract class AbstractCaProtocol extends AbstractProtocolStateMachine implements Ca, RandomizedProtocol, TlvConstants {
 	protected SecureRandom secureRandom;
 	
 	protected CaOid caOid;
@@ -95,7 +97,12 @@ public abstract class AbstractCaProtocol extends AbstractProtocolStateMachine im
 	public AbstractCaProtocol() {
 		super("CA");
 		
-		secureRandom = new SecureRandom();
+		secureRandom = DrbgRandomProvider.getShared().getSecureRandom(0);
+	}
+	
+	@Override
+	public void setSecureRandom(SecureRandom secureRandom) {
+		this.secureRandom = secureRandom;
 	}
 	
 	@Override
@@ -1,6 +1,7 @@
 package de.persosim.simulator.protocols.file;
 
 import java.io.FileNotFoundException;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 import org.globaltester.simulator.SimulatorConfiguration;
@@ -18,7 +19,6 @@ import de.persosim.simulator.cardobjects.NullCardObject;
 import de.persosim.simulator.cardobjects.ShortFileIdentifier;
 import de.persosim.simulator.exception.AccessDeniedException;
 import de.persosim.simulator.exception.FileIdentifierIncorrectValueException;
-import de.persosim.simulator.exception.FileToShortException;
 import de.persosim.simulator.exception.ProcessingException;
 import de.persosim.simulator.exception.TagNotFoundException;
 import de.persosim.simulator.platform.CardStateAccessor;
@@ -476,29 +476,6 @@ public abstract class AbstractFileProtocol extends AbstractProtocolStateMachine
 		}
 	}
 	
-	/**
-	 * Utility method to read a part of a file.
-	 * 
-	 * @param offset
-	 *            the offset in the file contents
-	 * @param ne
-	 *            the NE fields value
-	 * @param rawFileContents
-	 *            the file contents
-	 * @return the file contents starting with the offset and containing up to
-	 *         NE value bytes of the file
-	 * @throws FileToShortException
-	 */
-	private static byte [] getFileContents(int offset, int ne, byte [] rawFileContents) throws FileToShortException{
-		int bytesToBeRead = Math.min(ne, rawFileContents.length - offset);
-		
-		if (bytesToBeRead < 0) {
-			throw new FileToShortException();
-		}
-
-		return Arrays.copyOfRange(rawFileContents, offset, offset + bytesToBeRead);
-	}
-	
 	protected void processCommandReadBinary() {
 		byte ins = processingData.getCommandApdu().getIns();
 
@@ -530,9 +507,11 @@ public abstract class AbstractFileProtocol extends AbstractProtocolStateMachine
 			ElementaryFile binaryFile = (ElementaryFile) file;
 			
 			try {
-				if (offset < binaryFile.getContent().length) {
+				ByteBuffer contents = binaryFile.getContent(offset, ne);
+				if (offset < binaryFile.getContentLength()) {
 					
-					byte [] data = getFileContents(offset, ne, binaryFile.getContent());
+					byte [] data = new byte [contents.remaining()];
+					contents.get(data);
 					boolean shortRead = !zeroEncoded && data.length < ne;
 					TlvValue toSend = null;
 	
@@ -557,11 +536,6 @@ public abstract class AbstractFileProtocol extends AbstractProtocolStateMachine
 					this.processingData.updateResponseAPDU(this,
 							"offset behind end of file", resp);
 				}
-			} catch (FileToShortException e) {
-				ResponseApdu resp = new ResponseApdu(
-						Iso7816.SW_6282_END_OF_FILE_REACHED_BEFORE_READING_NE_BYTES);
-				this.processingData.updateResponseAPDU(this,
-						"file too short", resp);
 			} catch (AccessDeniedException e) {
 				ResponseApdu resp = new ResponseApdu(
 						Iso7816.SW_6985_CONDITIONS_OF_USE_NOT_SATISFIED);
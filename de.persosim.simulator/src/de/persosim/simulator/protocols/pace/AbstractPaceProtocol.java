@@ -41,6 +41,7 @@ import de.persosim.simulator.cardobjects.TrustPointCardObject;
 import de.persosim.simulator.cardobjects.TrustPointIdentifier;
 import de.persosim.simulator.crypto.CryptoSupport;
 import de.persosim.simulator.crypto.DomainParameterSet;
+import de.persosim.simulator.crypto.DrbgRandomProvider;
 import de.persosim.simulator.crypto.KeyDerivationFunction;
 import de.persosim.simulator.crypto.certificates.PublicKeyReference;
 import de.persosim.simulator.exception.AccessDeniedException;
@@ -53,6 +54,7 @@ import de.persosim.simulator.platform.Iso7816Lib;
 import de.persosim.simulator.protocols.AbstractProtocolStateMachine;
 import de.persosim.simulator.protocols.Oid;
 import de.persosim.simulator.protocols.ProtocolUpdate;
+import de.persosim.simulator.protocols.RandomizedProtocol;
 import de.persosim.simulator.protocols.ResponseData;
 import de.persosim.simulator.protocols.SecInfoPublicity;
 import de.persosim.simulator.protocols.Tr03110Utils;
@@ -82,7 +84,7 @@ import de.persosim.simulator.utils.HexString;
  * @author slutters
  *
  */
-public abstract class AbstractPaceProtocol extends AbstractProtocolStateMachine implements Pace, TlvConstants {
+public abstract class AbstractPaceProtocol extends AbstractProtocolStateMachine implements Pace, RandomizedProtocol, TlvConstants {
 	
 	/*--------------------------------------------------------------------------------*/
 	
@@ -136,7 +138,12 @@ public abstract class AbstractPaceProtocol extends AbstractProtocolStateMachine
 	public AbstractPaceProtocol() {
 		super("PACE");
 		
-		secureRandom = new SecureRandom();
+		secureRandom = DrbgRandomProvider.getShared().getSecureRandom(0);
+	}
+	
+	@Override
+	public void setSecureRandom(SecureRandom secureRandom) {
+		this.secureRandom = secureRandom;
 	}
 	
 	/**
@@ -462,7 +469,7 @@ public abstract class AbstractPaceProtocol extends AbstractProtocolStateMachine
 	 */
 	public void processCommandMapNonce() {
 		// create and initialize mapping
-		Mapping mapping = paceOid.getMapping();
+		Mapping mapping = paceOid.getMapping(secureRandom);
 		String keyAgreementName = paceDomainParametersUnmapped.getKeyAgreementAlgorithm();
 		
 		/*
@@ -20,9 +20,18 @@ import de.persosim.simulator.crypto.DomainParameterSet;
  */
 public abstract class GenericMapping implements Mapping {
 	
+	private final SecureRandom secureRandom;
+	
+	/**
+	 * @param secureRandom the source of the ephemeral key generated by the PICC
+	 */
+	public GenericMapping(SecureRandom secureRandom) {
+		this.secureRandom = secureRandom;
+	}
+	
 	@Override
 	public MappingResult performMapping(DomainParameterSet domainParametersUnmapped, byte[] sNonce, byte[] publicKeyComponentPcd) throws NoSuchAlgorithmException, NoSuchProviderException, InvalidAlgorithmParameterException, InvalidKeySpecException {
-		KeyPair keyPairPiccUnmapped = CryptoUtil.generateKeyPair(domainParametersUnmapped, new SecureRandom());
+		KeyPair keyPairPiccUnmapped = CryptoUtil.generateKeyPair(domainParametersUnmapped, secureRandom);
 		PublicKey publicKeyPcdUnMapped = domainParametersUnmapped.reconstructPublicKey(publicKeyComponentPcd);
 		
 		byte[] secretPointOfKeyAgreementEncoding = performKeyAgreement(domainParametersUnmapped, keyPairPiccUnmapped.getPrivate(), publicKeyPcdUnMapped);
@@ -6,6 +6,7 @@ import static org.globaltester.logging.BasicLogger.log;
 import java.math.BigInteger;
 import java.security.PrivateKey;
 import java.security.PublicKey;
+import java.security.SecureRandom;
 import java.security.interfaces.ECPrivateKey;
 import java.security.interfaces.ECPublicKey;
 import java.security.spec.ECPoint;
@@ -25,6 +26,10 @@ import de.persosim.simulator.utils.Utils;
  */
 public class GenericMappingEcdh extends GenericMapping {
 	
+	public GenericMappingEcdh(SecureRandom secureRandom) {
+		super(secureRandom);
+	}
+	
 	/* (non-Javadoc)
      * 
      * The common secret as generated by the key agreement must be encoded as follows.
@@ -1,6 +1,7 @@
 package de.persosim.simulator.protocols.pace;
 
 import java.security.InvalidParameterException;
+import java.security.SecureRandom;
 import java.util.Arrays;
 
 import de.persosim.simulator.crypto.CryptoSupport;
@@ -80,12 +81,13 @@ public class PaceOid extends GenericOid implements Pace {
 	
 	/**
 	 * This method returns the mapping function to be used for mapping.
+	 * @param secureRandom the source of the random values generated by the mapping
 	 * @return the mapping function to be used for mapping
 	 */
-	public Mapping getMapping() {
+	public Mapping getMapping(SecureRandom secureRandom) {
 		switch (this.getKeyAgreementAndMappingAsByte()) {
 		case Pace.ECDH_GM:
-			return new GenericMappingEcdh();
+			return new GenericMappingEcdh(secureRandom);
 		default:
 			throw new InvalidParameterException("selected mapping not supported");
 		}
@@ -36,7 +36,6 @@ import de.persosim.simulator.protocols.Oid;
 import de.persosim.simulator.protocols.Protocol;
 import de.persosim.simulator.protocols.RoleOid;
 import de.persosim.simulator.protocols.SecInfoPublicity;
-import de.persosim.simulator.protocols.ta.Authorization;
 import de.persosim.simulator.protocols.ta.TerminalAuthenticationMechanism;
 import de.persosim.simulator.protocols.ta.TerminalType;
 import de.persosim.simulator.secstatus.EffectiveAuthorizationMechanism;
@@ -319,8 +318,6 @@ public class RiProtocol implements Protocol, Iso7816, ApduSpecificationConstants
 					return;
 				}
 				
-				Authorization auth = authMechanism.getAuthorization(RoleOid.id_AT);
-				
 				if (!(taMechanism.getTerminalType().equals(TerminalType.AT))) {
 					// create and propagate response APDU
 					ResponseApdu resp = new ResponseApdu(Iso7816.SW_6985_CONDITIONS_OF_USE_NOT_SATISFIED);
@@ -355,7 +352,7 @@ public class RiProtocol implements Protocol, Iso7816, ApduSpecificationConstants
 				
 				// check for Restricted Identification bit
 				if(staticKeyObject.isPrivilegedOnly()) {
-					if ((auth == null) || (!(auth.getAuthorization().getBit(2)))) {
+					if (!authMechanism.isAuthorizationBitSet(RoleOid.id_AT, 2)) {
 						// create and propagate response APDU
 						ResponseApdu resp = new ResponseApdu(Iso7816.SW_6982_SECURITY_STATUS_NOT_SATISFIED);
 						processingData.updateResponseAPDU(this, "Restricted Identification only allowed for authorized terminals", resp);
@@ -28,6 +28,7 @@ import de.persosim.simulator.cardobjects.TrustPointCardObject;
 import de.persosim.simulator.cardobjects.TrustPointIdentifier;
 import de.persosim.simulator.cardobjects.TypeIdentifier;
 import de.persosim.simulator.crypto.CryptoUtil;
+import de.persosim.simulator.crypto.DrbgRandomProvider;
 import de.persosim.simulator.crypto.certificates.CardVerifiableCertificate;
 import de.persosim.simulator.crypto.certificates.CertificateExtension;
 import de.persosim.simulator.crypto.certificates.ExtensionOid;
@@ -39,6 +40,7 @@ import de.persosim.simulator.platform.Iso7816;
 import de.persosim.simulator.protocols.AbstractProtocolStateMachine;
 import de.persosim.simulator.protocols.GenericOid;
 import de.persosim.simulator.protocols.Oid;
+import de.persosim.simulator.protocols.RandomizedProtocol;
 import de.persosim.simulator.protocols.SecInfoPublicity;
 import de.persosim.simulator.secstatus.AuthorizationStore;
 import de.persosim.simulator.secstatus.ConfinedAuthorizationMechanism;
@@ -63,7 +65,7 @@ import de.persosim.simulator.utils.Utils;
  * 
  * FIXME MBK add javadoc
  */
-public abstract class AbstractTaProtocol extends AbstractProtocolStateMachine implements TlvConstants {
+public abstract class AbstractTaProtocol extends AbstractProtocolStateMachine implements RandomizedProtocol, TlvConstants {
 
 	/*--------------------------------------------------------------------------------*/
 
@@ -86,7 +88,7 @@ public abstract class AbstractTaProtocol extends AbstractProtocolStateMachine im
 
 	public static final byte MASK_SFI_BYTE = (byte) 0x80;
 	
-	private SecureRandom secureRandom = new SecureRandom();
+	private SecureRandom secureRandom = DrbgRandomProvider.getShared().getSecureRandom(0);
 	private CardVerifiableCertificate currentCertificate;
 	private CardVerifiableCertificate mostRecentTemporaryCertificate;
 
@@ -138,6 +140,11 @@ public abstract class AbstractTaProtocol extends AbstractProtocolStateMachine im
 		return true;
 	}
 	
+	@Override
+	public void setSecureRandom(SecureRandom secureRandom) {
+		this.secureRandom = secureRandom;
+	}
+	
 	protected void processCommandGetChallenge() {
 		if (!checkSecureMessagingApdu()){
 			return;
@@ -0,0 +1,104 @@
+package de.persosim.simulator.recording;
+
+/**
+ * A single command/response exchange as read from a capture written by the
+ * {@link ApduRecorder}.
+ */
+public class ApduRecord {
+
+	private final long timestamp;
+	private final long duration;
+	private final int slot;
+	private final int connection;
+	private final byte[] command;
+	private final byte[] response;
+	private final byte[] plainCommand;
+	private final byte[] plainResponse;
+
+	public ApduRecord(long timestamp, long duration, int slot, int connection, byte[] command, byte[] response,
+			byte[] plainCommand, byte[] plainResponse) {
+		this.timestamp = timestamp;
+		this.duration = duration;
+		this.slot = slot;
+		this.connection = connection;
+		this.command = command;
+		this.response = response;
+		this.plainCommand = plainCommand;
+		this.plainResponse = plainResponse;
+	}
+
+	/**
+	 * @return the time the command was received in nanoseconds since the
+	 *         epoch
+	 */
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	/**
+	 * @return the processing time in nanoseconds
+	 */
+	public long getDuration() {
+		return duration;
+	}
+
+	/**
+	 * @return the id of the simulated card that processed the command
+	 */
+	public int getSlot() {
+		return slot;
+	}
+
+	/**
+	 * @return the id of the connection the command was received on or
+	 *         {@link ApduRecorder#NO_CONNECTION}
+	 */
+	public int getConnection() {
+		return connection;
+	}
+
+	/**
+	 * @return true iff this records a power on, the response holds the ATR
+	 */
+	public boolean isPowerOn() {
+		return command.length == 0 && response.length > 0;
+	}
+
+	/**
+	 * @return true iff this records a power off
+	 */
+	public boolean isPowerOff() {
+		return command.length == 0 && response.length == 0;
+	}
+
+	/**
+	 * @return the command APDU as received
+	 */
+	public byte[] getCommand() {
+		return command;
+	}
+
+	/**
+	 * @return the response APDU as sent
+	 */
+	public byte[] getResponse() {
+		return response;
+	}
+
+	/**
+	 * @return the command APDU after removal of secure messaging or null if
+	 *         not secured
+	 */
+	public byte[] getPlainCommand() {
+		return plainCommand;
+	}
+
+	/**
+	 * @return the response APDU before applying secure messaging or null if
+	 *         not secured
+	 */
+	public byte[] getPlainResponse() {
+		return plainResponse;
+	}
+
+}
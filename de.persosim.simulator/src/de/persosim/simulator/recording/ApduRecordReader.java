@@ -0,0 +1,222 @@
+package de.persosim.simulator.recording;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import de.persosim.simulator.utils.HexString;
+
+/**
+ * Reads captures written by the {@link ApduRecorder}.
+ * <p/>
+ * The main method converts captures to text or CSV:
+ *
+ * <pre>
+ * ApduRecordReader [-csv] &lt;file or directory&gt;...
+ * </pre>
+ *
+ * Directories are expanded to the captures they contain, oldest first.
+ */
+public class ApduRecordReader implements Closeable {
+
+	public static final String CSV_HEADER = "timestamp,slot,connection,duration_ns,command,response,plain_command,plain_response";
+
+	private static final String USAGE = "usage: ApduRecordReader [-csv] <file or directory>...";
+
+	private final DataInputStream in;
+
+	/**
+	 * @param in
+	 *            the capture, positioned at its start
+	 * @throws IOException
+	 *             if the stream does not start with a supported header
+	 */
+	public ApduRecordReader(InputStream in) throws IOException {
+		this.in = new DataInputStream(new BufferedInputStream(in));
+		if (this.in.readInt() != ApduRecorder.MAGIC) {
+			throw new IOException("not an APDU capture");
+		}
+		int version = this.in.readInt();
+		if (version != ApduRecorder.VERSION) {
+			throw new IOException("unsupported capture version " + version);
+		}
+	}
+
+	/**
+	 * Read the next record. A record truncated at the end of the capture, e.g.
+	 * because the simulator was killed, is ignored.
+	 *
+	 * @return the record or null if the end of the capture is reached
+	 * @throws IOException
+	 *             if reading the capture fails
+	 */
+	public ApduRecord read() throws IOException {
+		try {
+			in.readInt(); // record length, only needed to skip records
+			long timestamp = in.readLong();
+			long duration = in.readLong();
+			int slot = in.readInt();
+			int connection = in.readInt();
+			byte[] command = readBytes();
+			byte[] response = readBytes();
+			byte[] plainCommand = readBytes();
+			byte[] plainResponse = readBytes();
+			return new ApduRecord(timestamp, duration, slot, connection, command, response, plainCommand,
+					plainResponse);
+		} catch (EOFException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @return all remaining records
+	 * @throws IOException
+	 *             if reading the capture fails
+	 */
+	public List<ApduRecord> readAll() throws IOException {
+		List<ApduRecord> records = new ArrayList<>();
+		ApduRecord record;
+		while ((record = read()) != null) {
+			records.add(record);
+		}
+		return records;
+	}
+
+	private byte[] readBytes() throws IOException {
+		int length = in.readInt();
+		if (length < 0) {
+			return null;
+		}
+		byte[] data = new byte[length];
+		in.readFully(data);
+		return data;
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+	/**
+	 * @param record
+	 *            the record to format
+	 * @return the record as human readable, multi line text
+	 */
+	public static String toText(ApduRecord record) {
+		StringBuilder text = new StringBuilder();
+		text.append(toInstant(record.getTimestamp())).append(" slot ").append(record.getSlot());
+		if (record.getConnection() != ApduRecorder.NO_CONNECTION) {
+			text.append(" connection ").append(record.getConnection());
+		}
+		text.append(String.format(Locale.ROOT, " %.1fus", record.getDuration() / 1000.0)).append('\n');
+		if (record.isPowerOn()) {
+			return text.append("power on, ATR ").append(HexString.encode(record.getResponse())).append('\n').toString();
+		}
+		if (record.isPowerOff()) {
+			return text.append("power off\n").toString();
+		}
+		text.append("> ").append(HexString.encode(record.getCommand())).append('\n');
+		if (record.getPlainCommand() != null) {
+			text.append(">> ").append(HexString.encode(record.getPlainCommand())).append('\n');
+		}
+		if (record.getPlainResponse() != null) {
+			text.append("<< ").append(HexString.encode(record.getPlainResponse())).append('\n');
+		}
+		text.append("< ").append(HexString.encode(record.getResponse())).append('\n');
+		return text.toString();
+	}
+
+	/**
+	 * @param record
+	 *            the record to format
+	 * @return the record as CSV line matching {@link #CSV_HEADER}
+	 */
+	public static String toCsv(ApduRecord record) {
+		return toInstant(record.getTimestamp()) + "," + record.getSlot() + "," + record.getConnection() + ","
+				+ record.getDuration() + "," + HexString.encode(record.getCommand()) + ","
+				+ HexString.encode(record.getResponse()) + "," + encodeOptional(record.getPlainCommand()) + ","
+				+ encodeOptional(record.getPlainResponse());
+	}
+
+	private static String encodeOptional(byte[] data) {
+		return data == null ? "" : HexString.encode(data);
+	}
+
+	private static Instant toInstant(long epochNanos) {
+		return Instant.ofEpochSecond(Math.floorDiv(epochNanos, 1000000000L), Math.floorMod(epochNanos, 1000000000L));
+	}
+
+	public static void main(String[] args) {
+		boolean csv = false;
+		List<File> files = new ArrayList<>();
+		for (String arg : args) {
+			if ("-csv".equals(arg)) {
+				csv = true;
+			} else if (arg.startsWith("-")) {
+				System.err.println(USAGE);
+				return;
+			} else {
+				File file = new File(arg);
+				if (file.isDirectory()) {
+					for (File current : ApduRecorder.getCaptureFiles(file)) {
+						files.add(current);
+					}
+				} else {
+					files.add(file);
+				}
+			}
+		}
+		if (files.isEmpty()) {
+			System.err.println(USAGE);
+			return;
+		}
+
+		try {
+			convert(files, csv, System.out);
+		} catch (IOException e) {
+			System.err.println(e.getMessage());
+		}
+	}
+
+	/**
+	 * Convert the given captures into one text or CSV document.
+	 *
+	 * @param files
+	 *            the captures in the order to be converted
+	 * @param csv
+	 *            true for CSV, false for text
+	 * @param out
+	 *            the stream to write to
+	 * @throws IOException
+	 *             if reading a capture fails
+	 */
+	public static void convert(List<File> files, boolean csv, PrintStream out) throws IOException {
+		if (csv) {
+			out.println(CSV_HEADER);
+		}
+		for (File file : files) {
+			try (ApduRecordReader reader = new ApduRecordReader(new FileInputStream(file))) {
+				ApduRecord record;
+				while ((record = reader.read()) != null) {
+					if (csv) {
+						out.println(toCsv(record));
+					} else {
+						out.print(toText(record));
+					}
+				}
+			}
+		}
+		out.flush();
+	}
+
+}
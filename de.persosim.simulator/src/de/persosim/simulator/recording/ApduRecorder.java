@@ -0,0 +1,438 @@
+package de.persosim.simulator.recording;
+
+import static org.globaltester.logging.BasicLogger.ERROR;
+import static org.globaltester.logging.BasicLogger.INFO;
+import static org.globaltester.logging.BasicLogger.WARN;
+import static org.globaltester.logging.BasicLogger.log;
+import static org.globaltester.logging.BasicLogger.logException;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records all command/response pairs processed by the simulator into a
+ * compact binary capture, see {@link ApduRecordReader} for reading it.
+ * <p/>
+ * Recording is designed to stay enabled permanently: the processing thread
+ * only copies the APDUs into a preallocated ring buffer, a background thread
+ * writes the buffer to files in the configured directory. A new file is
+ * started when the current one would exceed the maximum file size, only the
+ * newest files are kept. If the buffer is full, e.g. because the disk is too
+ * slow, records are dropped instead of delaying the processing.
+ * <p/>
+ * Each file starts with the {@link #MAGIC} "PSRC" and the format
+ * {@link #VERSION} as int, followed by records of the form (big endian):
+ *
+ * <pre>
+ * int   length of the remaining record
+ * long  time the command was received, nanoseconds since the epoch
+ * long  processing time in nanoseconds
+ * int   slot, i.e. id of the simulated card
+ * int   connection id
+ * int   length of the command APDU, followed by its bytes
+ * int   length of the response APDU, followed by its bytes
+ * int   length of the plain command APDU or -1 if not secured, followed by its bytes
+ * int   length of the plain response APDU or -1 if not secured, followed by its bytes
+ * </pre>
+ *
+ * Power events are recorded with an empty command, the response is the ATR
+ * for power on and empty for power off.
+ */
+public class ApduRecorder {
+
+	/**
+	 * System property selecting the directory captures are written to by
+	 * {@link #startConfigured()}, defaults to {@link #getDefaultDirectory()}
+	 */
+	public static final String PROPERTY_DIRECTORY = "persosim.recorder.dir";
+
+	/**
+	 * Value of {@link #PROPERTY_DIRECTORY} disabling recording
+	 */
+	public static final String DIRECTORY_NONE = "none";
+
+	public static final String DEFAULT_DIRECTORY_NAME = "persosim-apdus";
+
+	public static final int NO_CONNECTION = 0;
+
+	/**
+	 * Empty command or response of a power event
+	 */
+	public static final byte[] NO_DATA = new byte[0];
+
+	public static final String FILE_PREFIX = "apdus-";
+	public static final String FILE_SUFFIX = ".psrec";
+
+	public static final int MAGIC = 0x50535243;
+	public static final int VERSION = 1;
+	static final int HEADER_LENGTH = 8;
+
+	public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+	public static final long DEFAULT_MAX_FILE_SIZE = 16L << 20;
+	public static final int DEFAULT_MAX_FILES = 10;
+
+	private static final long FLUSH_INTERVAL_MILLIS = 200;
+	private static final int FIXED_RECORD_LENGTH = 4 + 8 + 8 + 4 + 4 + 4 * 4;
+
+	private static volatile ApduRecorder active;
+	private static final ThreadLocal<Integer> CONNECTION = ThreadLocal.withInitial(() -> NO_CONNECTION);
+
+	private final File directory;
+	private final long maxFileSize;
+	private final int maxFiles;
+	private final long epochNanosBase = System.currentTimeMillis() * 1000000L;
+	private final long nanoTimeBase = System.nanoTime();
+
+	// ring buffer, positions are increasing counters masked on access
+	private final Object lock = new Object();
+	private final byte[] buffer;
+	private final int mask;
+	private long head;
+	private long tail;
+	private boolean running;
+
+	private final byte[] drainBuffer;
+	private final LongAdder dropped = new LongAdder();
+	private Thread flusher;
+	private OutputStream out;
+	private long fileSize;
+	private int fileSequence;
+
+	/**
+	 * Create a recorder with default buffer and file sizes.
+	 *
+	 * @param directory
+	 *            the directory captures are written to, created if needed
+	 */
+	public ApduRecorder(File directory) {
+		this(directory, DEFAULT_BUFFER_SIZE, DEFAULT_MAX_FILE_SIZE, DEFAULT_MAX_FILES);
+	}
+
+	/**
+	 * @param directory
+	 *            the directory captures are written to, created if needed
+	 * @param bufferSize
+	 *            size of the ring buffer in bytes, a power of two
+	 * @param maxFileSize
+	 *            size in bytes after which a new file is started
+	 * @param maxFiles
+	 *            number of files to keep in the directory, older files are
+	 *            deleted
+	 */
+	public ApduRecorder(File directory, int bufferSize, long maxFileSize, int maxFiles) {
+		if (bufferSize <= 0 || Integer.bitCount(bufferSize) != 1) {
+			throw new IllegalArgumentException("buffer size must be a power of two");
+		}
+		if (maxFiles < 1) {
+			throw new IllegalArgumentException("at least one file must be kept");
+		}
+		this.directory = directory;
+		this.maxFileSize = maxFileSize;
+		this.maxFiles = maxFiles;
+		buffer = new byte[bufferSize];
+		drainBuffer = new byte[bufferSize];
+		mask = bufferSize - 1;
+	}
+
+	/**
+	 * @return the recorder APDUs are currently recorded with or null
+	 */
+	public static ApduRecorder getActive() {
+		return active;
+	}
+
+	/**
+	 * @return the directory captures are written to if
+	 *         {@value #PROPERTY_DIRECTORY} is not set, located in the
+	 *         temporary directory of the system
+	 */
+	public static File getDefaultDirectory() {
+		return new File(System.getProperty("java.io.tmpdir"), DEFAULT_DIRECTORY_NAME);
+	}
+
+	/**
+	 * Start recording into the directory given by the system property
+	 * {@value #PROPERTY_DIRECTORY} or into {@link #getDefaultDirectory()} if
+	 * it is not set. Recording is disabled by setting the property to
+	 * {@value #DIRECTORY_NONE}.
+	 *
+	 * @return the started recorder or null if recording is disabled
+	 * @throws IOException
+	 *             if the directory can not be created
+	 */
+	public static ApduRecorder startConfigured() throws IOException {
+		String directory = System.getProperty(PROPERTY_DIRECTORY, "").trim();
+		if (DIRECTORY_NONE.equalsIgnoreCase(directory)) {
+			return null;
+		}
+		File dir = directory.isEmpty() ? getDefaultDirectory() : new File(directory);
+		ApduRecorder recorder = new ApduRecorder(dir);
+		recorder.start();
+		return recorder;
+	}
+
+	/**
+	 * Associate all APDUs subsequently processed by the current thread with
+	 * the given connection.
+	 *
+	 * @param connection
+	 *            the connection id or {@link #NO_CONNECTION}
+	 */
+	public static void setConnection(int connection) {
+		CONNECTION.set(connection);
+	}
+
+	/**
+	 * Start the background thread and make this the active recorder,
+	 * stopping the previously active one.
+	 *
+	 * @throws IOException
+	 *             if the directory can not be created
+	 */
+	public void start() throws IOException {
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("unable to create directory " + directory);
+		}
+
+		synchronized (ApduRecorder.class) {
+			synchronized (lock) {
+				if (running || flusher != null) {
+					throw new IllegalStateException("recorder has already been started");
+				}
+				running = true;
+			}
+			flusher = new Thread(this::flushLoop, "PersoSim APDU recorder");
+			flusher.setDaemon(true);
+			flusher.start();
+
+			if (active != null) {
+				active.stop();
+			}
+			active = this;
+		}
+		log(ApduRecorder.class, "Recording APDUs to " + directory.getAbsolutePath(), INFO);
+	}
+
+	/**
+	 * Stop recording, all records accepted so far are written before this
+	 * method returns.
+	 */
+	public void stop() {
+		synchronized (ApduRecorder.class) {
+			if (active == this) {
+				active = null;
+			}
+		}
+		synchronized (lock) {
+			if (!running) {
+				return;
+			}
+			running = false;
+			lock.notifyAll();
+		}
+		try {
+			flusher.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (dropped.sum() > 0) {
+			log(ApduRecorder.class, dropped.sum() + " APDUs could not be recorded", WARN);
+		}
+	}
+
+	/**
+	 * Record a processed command. This only copies the data into the ring
+	 * buffer and never blocks on I/O.
+	 *
+	 * @param slot
+	 *            the id of the simulated card
+	 * @param start
+	 *            {@link System#nanoTime()} when the command was received
+	 * @param duration
+	 *            the processing time in nanoseconds
+	 * @param command
+	 *            the command APDU as received
+	 * @param response
+	 *            the response APDU as sent
+	 * @param plainCommand
+	 *            the command APDU without secure messaging or null
+	 * @param plainResponse
+	 *            the response APDU without secure messaging or null
+	 */
+	public void record(int slot, long start, long duration, byte[] command, byte[] response, byte[] plainCommand,
+			byte[] plainResponse) {
+		int length = FIXED_RECORD_LENGTH + length(command) + length(response) + length(plainCommand)
+				+ length(plainResponse);
+		long timestamp = epochNanosBase + (start - nanoTimeBase);
+		int connection = CONNECTION.get();
+
+		synchronized (lock) {
+			if (!running || length > buffer.length - (head - tail)) {
+				dropped.increment();
+				return;
+			}
+			putInt(length - 4);
+			putLong(timestamp);
+			putLong(duration);
+			putInt(slot);
+			putInt(connection);
+			putBytes(command);
+			putBytes(response);
+			putBytes(plainCommand);
+			putBytes(plainResponse);
+
+			if (head - tail > buffer.length / 2) {
+				lock.notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * @return the number of records dropped because the buffer was full
+	 */
+	public long getDropped() {
+		return dropped.sum();
+	}
+
+	/**
+	 * @return the directory captures are written to
+	 */
+	public File getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * @return all capture files in the given directory, oldest first
+	 */
+	public static File[] getCaptureFiles(File directory) {
+		File[] files = directory.listFiles((dir, name) -> name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX));
+		if (files == null) {
+			return new File[0];
+		}
+		Arrays.sort(files);
+		return files;
+	}
+
+	private static int length(byte[] data) {
+		return data == null ? 0 : data.length;
+	}
+
+	private void putBytes(byte[] data) {
+		if (data == null) {
+			putInt(-1);
+			return;
+		}
+		putInt(data.length);
+		int offset = (int) (head & mask);
+		int first = Math.min(data.length, buffer.length - offset);
+		System.arraycopy(data, 0, buffer, offset, first);
+		System.arraycopy(data, first, buffer, 0, data.length - first);
+		head += data.length;
+	}
+
+	private void putInt(int value) {
+		for (int shift = 24; shift >= 0; shift -= 8) {
+			buffer[(int) (head++ & mask)] = (byte) (value >>> shift);
+		}
+	}
+
+	private void putLong(long value) {
+		for (int shift = 56; shift >= 0; shift -= 8) {
+			buffer[(int) (head++ & mask)] = (byte) (value >>> shift);
+		}
+	}
+
+	/**
+	 * Copy all buffered records into the drain buffer.
+	 *
+	 * @return the number of bytes copied
+	 */
+	private int drain() {
+		int length = (int) (head - tail);
+		int offset = (int) (tail & mask);
+		int first = Math.min(length, buffer.length - offset);
+		System.arraycopy(buffer, offset, drainBuffer, 0, first);
+		System.arraycopy(buffer, 0, drainBuffer, first, length - first);
+		tail = head;
+		return length;
+	}
+
+	private void flushLoop() {
+		try {
+			while (true) {
+				int length;
+				boolean finished;
+				synchronized (lock) {
+					if (running && head - tail <= buffer.length / 2) {
+						lock.wait(FLUSH_INTERVAL_MILLIS);
+					}
+					length = drain();
+					finished = !running;
+				}
+				if (length > 0) {
+					write(length);
+				}
+				if (finished) {
+					break;
+				}
+			}
+		} catch (IOException e) {
+			logException(ApduRecorder.class, e, ERROR);
+			log(ApduRecorder.class, "APDU recording stopped", ERROR);
+			synchronized (lock) {
+				running = false;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			closeFile();
+		}
+	}
+
+	private void write(int length) throws IOException {
+		if (out == null || (fileSize > HEADER_LENGTH && fileSize + length > maxFileSize)) {
+			rotate();
+		}
+		out.write(drainBuffer, 0, length);
+		out.flush();
+		fileSize += length;
+	}
+
+	private void rotate() throws IOException {
+		closeFile();
+
+		String name = FILE_PREFIX + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + "-"
+				+ String.format("%04d", fileSequence++) + FILE_SUFFIX;
+		DataOutputStream header = new DataOutputStream(new FileOutputStream(new File(directory, name)));
+		header.writeInt(MAGIC);
+		header.writeInt(VERSION);
+		out = header;
+		fileSize = HEADER_LENGTH;
+
+		File[] files = getCaptureFiles(directory);
+		for (int i = 0; i < files.length - maxFiles; i++) {
+			if (!files[i].delete()) {
+				log(ApduRecorder.class, "unable to delete old capture " + files[i], WARN);
+			}
+		}
+	}
+
+	private void closeFile() {
+		if (out != null) {
+			try {
+				out.close();
+			} catch (IOException e) {
+				logException(ApduRecorder.class, e, ERROR);
+			}
+			out = null;
+		}
+	}
+
+}
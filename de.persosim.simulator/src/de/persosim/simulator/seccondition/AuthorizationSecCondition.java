@@ -4,7 +4,6 @@ import java.util.ArrayList;
 import java.util.Collection;
 
 import de.persosim.simulator.protocols.Oid;
-import de.persosim.simulator.protocols.ta.Authorization;
 import de.persosim.simulator.secstatus.EffectiveAuthorizationMechanism;
 import de.persosim.simulator.secstatus.SecMechanism;
 
@@ -33,11 +32,8 @@ public class AuthorizationSecCondition implements SecCondition {
 		for(SecMechanism secMechanism:mechanisms) {
 			if(secMechanism instanceof EffectiveAuthorizationMechanism) {
 				EffectiveAuthorizationMechanism authMechanism = (EffectiveAuthorizationMechanism) secMechanism;
-				Authorization auth = authMechanism.getAuthorization(oid);
 				
-				if (auth == null) return false;
-				
-				return auth.getAuthorization().getBit(bit);
+				return authMechanism.isAuthorizationBitSet(oid, bit);
 			}
 		}
 		
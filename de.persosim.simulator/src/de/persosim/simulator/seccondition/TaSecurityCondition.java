@@ -61,9 +61,9 @@ public class TaSecurityCondition implements SecCondition {
 					return true;
 				} else {
 					if(authorizationMechanism != null) {
-						Authorization auth = authorizationMechanism.getAuthorization(terminalType.getAsOid());
-						BitField tempField = authorization.getAuthorization().or(auth.getAuthorization());
-						if (tempField.equals(auth.getAuthorization())) {
+						BitField required = authorization.getAuthorization();
+						BitField granted = authorizationMechanism.getAuthorization(terminalType.getAsOid()).getAuthorization();
+						if (required.getNumberOfBits() <= granted.getNumberOfBits() && granted.containsAll(required)) {
 							return true;
 						}
 					}
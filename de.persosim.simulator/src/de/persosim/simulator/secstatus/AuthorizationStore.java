@@ -1,68 +1,218 @@
 package de.persosim.simulator.secstatus;
 
+import static org.globaltester.logging.BasicLogger.WARN;
+import static org.globaltester.logging.BasicLogger.log;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
 
+import de.persosim.simulator.exception.BitFieldOutOfBoundsException;
 import de.persosim.simulator.protocols.Oid;
 import de.persosim.simulator.protocols.ta.Authorization;
+import de.persosim.simulator.utils.BitField;
 
 /**
  * This class provides an updatable container for storing authorization information.
- * Authorization information is stored within this object backed by a HashMap mapping
- * OIDs to objects of type {@link Authorization}.
- * 
+ *
+ * Authorization information is stored in a compact representation. All OIDs
+ * are interned to small indices and the authorization for each index is held
+ * in {@link #WORDS_PER_AUTHORIZATION} long words. Updating authorizations and
+ * checking single bits thus only needs bitwise operations on these words. The
+ * {@link Authorization} objects returned by {@link #getAuthorization(Oid)} are
+ * views on this representation.
+ * <p/>
+ * An index is only reserved while a store references it, indices of OIDs no
+ * longer used by any store are reused.
+ *
  * @author slutters
  *
  */
 public class AuthorizationStore {
-	
-private HashMap<Oid, Authorization> authorizations;
-	
+
+	/**
+	 * Number of long words used to store a single authorization, this limits
+	 * the supported length of authorizations to 128 bits.
+	 */
+	public static final int WORDS_PER_AUTHORIZATION = 2;
+
+	public static final int MAX_NUMBER_OF_BITS = WORDS_PER_AUTHORIZATION * Long.SIZE;
+
+	private static final ConcurrentHashMap<Oid, IndexReference> oidIndices = new ConcurrentHashMap<>();
+	private static final ReferenceQueue<OidIndex> collectedIndices = new ReferenceQueue<>();
+	/** indices currently assigned to an OID, guarded by oidIndices */
+	private static final BitSet assignedIndices = new BitSet();
+
+	/** indices of all OIDs an authorization is registered for */
+	private BitSet registeredIndices;
+	private long[] words;
+	private int[] numberOfBits;
+	private Authorization[] views;
+	/** keeps the indices of registered OIDs reserved */
+	private OidIndex[] oids;
+
 	public AuthorizationStore() {
-		authorizations = new HashMap<>();
+		registeredIndices = new BitSet();
+		words = new long[0];
+		numberOfBits = new int[0];
+		views = new Authorization[0];
+		oids = new OidIndex[0];
 	}
-	
+
 	public AuthorizationStore(HashMap<Oid, Authorization> authorizations) {
 		this();
-		
+
 		for(Oid currentOid:authorizations.keySet()) {
-			this.authorizations.put(currentOid, authorizations.get(currentOid));
+			putAuthorization(getIndex(currentOid), authorizations.get(currentOid));
 		}
 	}
-	
+
 	public AuthorizationStore(AuthorizationStore authStore) {
-		this(authStore.authorizations);
+		registeredIndices = (BitSet) authStore.registeredIndices.clone();
+		words = authStore.words.clone();
+		numberOfBits = authStore.numberOfBits.clone();
+		views = authStore.views.clone();
+		oids = authStore.oids.clone();
 	}
-	
-	public Authorization getAuthorization(Oid oid) {
-		return authorizations.get(oid);
+
+	/**
+	 * Returns the index the given OID is interned to. Indices are assigned on
+	 * first use and stay valid as long as the returned object is referenced.
+	 *
+	 * @param oid
+	 *            the OID to get the index for
+	 * @return the index of the OID
+	 */
+	private static OidIndex getIndex(Oid oid) {
+		OidIndex index = getInternedIndex(oid);
+		if (index != null) {
+			return index;
+		}
+
+		synchronized (oidIndices) {
+			expungeCollectedIndices();
+			index = getInternedIndex(oid);
+			if (index == null) {
+				index = new OidIndex(oid, assignedIndices.nextClearBit(0));
+				assignedIndices.set(index.index);
+				oidIndices.put(oid, new IndexReference(index, collectedIndices));
+			}
+			return index;
+		}
+	}
+
+	private static OidIndex getInternedIndex(Oid oid) {
+		IndexReference reference = oidIndices.get(oid);
+		return (reference == null) ? null : reference.get();
 	}
-	
+
 	/**
-	 * This method updates the authorization information stored within this
-	 * object. If authorization information is already registered for the
-	 * provided OID, it will be updated to the effective authorization resulting
-	 * from present and provided authorization information, see
-	 * {@link Authorization#buildEffectiveAuthorization(Authorization)}} for
-	 * details.
-	 * 
+	 * Releases the indices of OIDs no longer referenced by any store, must be
+	 * called while holding the lock on oidIndices.
+	 */
+	private static void expungeCollectedIndices() {
+		Reference<? extends OidIndex> reference;
+		while ((reference = collectedIndices.poll()) != null) {
+			IndexReference collected = (IndexReference) reference;
+			oidIndices.remove(collected.oid, collected);
+			assignedIndices.clear(collected.index);
+		}
+	}
+
+	/**
+	 * Returns the index of the given OID if it is registered in this store.
+	 *
 	 * @param oid
-	 *            the OID for which authorization information is to be updated
-	 * @param authorization
-	 *            the information authorization to be used for the update
+	 *            the OID to look up
+	 * @return the index of the OID or -1 if no authorization is registered
 	 */
-	private void updateAuthorization(Oid oid, Authorization authorization) {
-		Authorization auth = authorizations.get(oid);
+	private int getRegisteredIndex(Oid oid) {
+		OidIndex index = getInternedIndex(oid);
+		if ((index == null) || !registeredIndices.get(index.index) || (oids[index.index] != index)) {
+			return -1;
+		}
+		return index.index;
+	}
 
-		//do not add new authorizations on the fly
-		if(auth == null) {
+	private void ensureCapacity(int index) {
+		if (index < numberOfBits.length) {
 			return;
 		}
-		
-		Authorization newAuthorization = auth.buildEffectiveAuthorization(authorization);
-		authorizations.put(oid, newAuthorization);
+
+		int newLength = Math.max(index + 1, numberOfBits.length * 2);
+		words = Arrays.copyOf(words, newLength * WORDS_PER_AUTHORIZATION);
+		numberOfBits = Arrays.copyOf(numberOfBits, newLength);
+		views = Arrays.copyOf(views, newLength);
+		oids = Arrays.copyOf(oids, newLength);
 	}
-	
+
+	private void putAuthorization(OidIndex oidIndex, Authorization authorization) {
+		int index = oidIndex.index;
+		BitField bitField = authorization.getAuthorization();
+		int bits = bitField.getNumberOfBits();
+		if (bits > MAX_NUMBER_OF_BITS) {
+			throw new IllegalArgumentException("authorizations must not exceed " + MAX_NUMBER_OF_BITS + " bits");
+		}
+
+		ensureCapacity(index);
+		int offset = index * WORDS_PER_AUTHORIZATION;
+		long[] bitFieldWords = bitField.toLongArray();
+		Arrays.fill(words, offset, offset + WORDS_PER_AUTHORIZATION, 0);
+		System.arraycopy(bitFieldWords, 0, words, offset, bitFieldWords.length);
+
+		numberOfBits[index] = bits;
+		views[index] = authorization;
+		oids[index] = oidIndex;
+		registeredIndices.set(index);
+	}
+
+	public Authorization getAuthorization(Oid oid) {
+		int index = getRegisteredIndex(oid);
+		if (index < 0) {
+			return null;
+		}
+
+		if (views[index] == null) {
+			int offset = index * WORDS_PER_AUTHORIZATION;
+			long[] bitFieldWords = Arrays.copyOfRange(words, offset, offset + WORDS_PER_AUTHORIZATION);
+			views[index] = new Authorization(new BitField(numberOfBits[index], bitFieldWords));
+		}
+		return views[index];
+	}
+
+	/**
+	 * This method checks a single bit of the authorization registered for the
+	 * provided OID without building an {@link Authorization} object.
+	 *
+	 * @param oid
+	 *            the OID identifying the authorization
+	 * @param bit
+	 *            the zero based index of the bit to check
+	 * @return true, iff an authorization is registered for the OID and the
+	 *         given bit is set
+	 * @throws BitFieldOutOfBoundsException
+	 *             if the bit is outside of the registered authorization
+	 */
+	public boolean isAuthorizationBitSet(Oid oid, int bit) {
+		int index = getRegisteredIndex(oid);
+		if (index < 0) {
+			return false;
+		}
+
+		if (bit < 0 || bit >= numberOfBits[index]) {
+			throw new BitFieldOutOfBoundsException();
+		}
+		return isSet(index, bit);
+	}
+
+	private boolean isSet(int index, int bit) {
+		return (words[index * WORDS_PER_AUTHORIZATION + (bit / Long.SIZE)] & (1L << bit)) != 0;
+	}
+
 	/**
 	 * This method updates the authorization information stored within this
 	 * object. If authorization information is already registered for one of the
@@ -72,39 +222,47 @@ private HashMap<Oid, Authorization> authorizations;
 	 * details. If the set of provided information lacks information that is
 	 * registered within this object, the information is also removed from this
 	 * object.
-	 * 
+	 *
 	 * @param authorizations the authorization information to be used for the update
 	 */
 	public void updateAuthorization(HashMap<Oid, Authorization> authorizations) {
-		for(Oid currentOid:authorizations.keySet()) {
-			updateAuthorization(currentOid, authorizations.get(currentOid));
-		}
-		
-		Iterator<Oid> iter = this.authorizations.keySet().iterator();
-		
-		while (iter.hasNext()){
-			Oid currentOid = iter.next();
-			if(authorizations.get(currentOid) == null) {
-				iter.remove();
-			}
-		}
+		updateAuthorization(new AuthorizationStore(authorizations));
 	}
-	
+
 	/**
 	 * This method updates the authorization information stored within this
 	 * object. See {@link #updateAuthorization(HashMap)} for details.
-	 * 
+	 *
 	 * @param authStore the authorization information to be used for the update
 	 */
 	public void updateAuthorization(AuthorizationStore authStore) {
-		updateAuthorization(authStore.authorizations);
+		for (int index = registeredIndices.nextSetBit(0); index >= 0; index = registeredIndices.nextSetBit(index + 1)) {
+			if (!authStore.registeredIndices.get(index)) {
+				// remove information that is not present in the update
+				registeredIndices.clear(index);
+				views[index] = null;
+				oids[index] = null;
+				continue;
+			}
+
+			if (numberOfBits[index] != authStore.numberOfBits[index]) {
+				log(this.getClass(), "updating authorizations of different length", WARN);
+			}
+
+			int offset = index * WORDS_PER_AUTHORIZATION;
+			for (int i = offset; i < offset + WORDS_PER_AUTHORIZATION; i++) {
+				words[i] &= authStore.words[i];
+			}
+			numberOfBits[index] = Math.max(numberOfBits[index], authStore.numberOfBits[index]);
+			views[index] = null;
+		}
 	}
-	
+
 	@Override
 	public AuthorizationStore clone() {
 		return new AuthorizationStore(this);
 	}
-	
+
 	@Override
 	public boolean equals(Object obj) {
 		if (this == obj)
@@ -114,50 +272,67 @@ private HashMap<Oid, Authorization> authorizations;
 		if (getClass() != obj.getClass())
 			return false;
 		AuthorizationStore other = (AuthorizationStore) obj;
-		
-		Authorization currentAuthThis, currentAuthOther;
-		
-		for(Oid currentOid:authorizations.keySet()) {
-			currentAuthThis = getAuthorization(currentOid);
-			currentAuthOther = other.getAuthorization(currentOid);
-			
-			if(currentAuthThis != currentAuthOther) {
-				if(!currentAuthThis.equals(currentAuthOther)) {
-					return false;
-				}
-			}
+
+		if (!registeredIndices.equals(other.registeredIndices)) {
+			return false;
 		}
-		
-		for(Oid currentOid:other.authorizations.keySet()) {
-			currentAuthThis = getAuthorization(currentOid);
-			currentAuthOther = other.getAuthorization(currentOid);
-			
-			if(currentAuthOther != currentAuthThis) {
-				if(!currentAuthOther.equals(currentAuthThis)) {
-					return false;
-				}
+
+		for (int index = registeredIndices.nextSetBit(0); index >= 0; index = registeredIndices.nextSetBit(index + 1)) {
+			Oid currentOid = oids[index].oid;
+			if (!getAuthorization(currentOid).equals(other.getAuthorization(currentOid))) {
+				return false;
 			}
 		}
-		
+
 		return true;
-		
+
 	}
-	
+
 	@Override
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
-		
+
 		boolean first = true;
-		for(Oid oid:authorizations.keySet()) {
+		for (int index = registeredIndices.nextSetBit(0); index >= 0; index = registeredIndices.nextSetBit(index + 1)) {
 			if(first) {
 				first = false;
 			} else{
 				sb.append("\n");
 			}
-			sb.append(oid + " --> " + authorizations.get(oid));
+			Oid oid = oids[index].oid;
+			sb.append(oid + " --> " + getAuthorization(oid));
 		}
-		
+
 		return sb.toString();
 	}
-	
+
+	/**
+	 * The index an OID is interned to. Stores reference it for each registered
+	 * OID, so the index is not reused while any store needs it.
+	 */
+	private static final class OidIndex {
+		private final Oid oid;
+		private final int index;
+
+		OidIndex(Oid oid, int index) {
+			this.oid = oid;
+			this.index = index;
+		}
+	}
+
+	/**
+	 * Weak reference to an interned index, remembering the OID and index so
+	 * that both can be released once no store references it anymore.
+	 */
+	private static final class IndexReference extends WeakReference<OidIndex> {
+		private final Oid oid;
+		private final int index;
+
+		IndexReference(OidIndex referent, ReferenceQueue<OidIndex> queue) {
+			super(referent, queue);
+			oid = referent.oid;
+			index = referent.index;
+		}
+	}
+
 }
@@ -33,6 +33,13 @@ public class ConfinedAuthorizationMechanism extends AbstractSecMechanism {
 		return authorizationStore.getAuthorization(oid);
 	}
 	
+	/**
+	 * @see AuthorizationStore#isAuthorizationBitSet(Oid, int)
+	 */
+	public boolean isAuthorizationBitSet(Oid oid, int bit) {
+		return authorizationStore.isAuthorizationBitSet(oid, bit);
+	}
+	
 	public AuthorizationStore getAuthorizationStore() {
 		return authorizationStore.clone();
 	}
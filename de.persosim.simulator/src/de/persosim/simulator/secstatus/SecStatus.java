@@ -2,14 +2,17 @@ package de.persosim.simulator.secstatus;
 
 import java.util.Collection;
 import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map.Entry;
 
 import org.globaltester.logging.InfoSource;
 
 import de.persosim.simulator.apdu.ResponseApdu;
 import de.persosim.simulator.cardobjects.CardObject;
 import de.persosim.simulator.cardobjects.Iso7816LifeCycleState;
+import de.persosim.simulator.platform.CardStateHolder;
 import de.persosim.simulator.platform.CommandProcessor;
 import de.persosim.simulator.platform.Iso7816;
 import de.persosim.simulator.processing.ProcessingData;
@@ -28,7 +31,8 @@ import de.persosim.simulator.securemessaging.SmDataProviderGenerator;
  * @author amay
  * 
  */
-public class SecStatus implements InfoSource{
+public class SecStatus
+		implements InfoSource, CardStateHolder<EnumMap<SecStatus.SecContext, HashMap<Class<? extends SecMechanism>, SecMechanism>>> {
 	
 	public enum SecContext {
 		GLOBAL, APPLICATION, FILE, COMMAND, PERSISTANT
@@ -37,9 +41,33 @@ public class SecStatus implements InfoSource{
 	EnumMap<SecContext, HashMap<Class<? extends SecMechanism>, SecMechanism>> contexts = new EnumMap<>(
 			SecContext.class);
 
-	HashMap<Integer, EnumMap<SecContext, HashMap<Class<? extends SecMechanism>, SecMechanism>>> storedSecStatusContents = new HashMap<>();
+	SessionContextStore<EnumMap<SecContext, HashMap<Class<? extends SecMechanism>, SecMechanism>>> storedSecStatusContents = new SessionContextStore<>();
+
+	/**
+	 * Contexts whose maps are referenced by stored contents and thus must be
+	 * copied before they are modified.
+	 */
+	EnumSet<SecContext> sharedContexts = EnumSet.noneOf(SecContext.class);
+
+	/**
+	 * Reverse index of {@link #contexts}. For each {@link SecurityEvent} this
+	 * holds all mechanisms that need deletion in case of this event, grouped
+	 * by their {@link SecContext}. It is maintained on insertion of
+	 * mechanisms, so that processing an event only touches affected entries.
+	 */
+	EnumMap<SecurityEvent, EnumMap<SecContext, HashMap<Class<? extends SecMechanism>, SecMechanism>>> eventIndex = new EnumMap<>(
+			SecurityEvent.class);
 
 	public SecStatus() {
+		for (SecurityEvent curEvent : SecurityEvent.values()) {
+			EnumMap<SecContext, HashMap<Class<? extends SecMechanism>, SecMechanism>> sensitiveMechanisms = new EnumMap<>(
+					SecContext.class);
+			for (SecContext curSecContext : SecContext.values()) {
+				sensitiveMechanisms.put(curSecContext, new HashMap<Class<? extends SecMechanism>, SecMechanism>());
+			}
+			eventIndex.put(curEvent, sensitiveMechanisms);
+		}
+
 		reset();
 	}
 
@@ -64,7 +92,24 @@ public class SecStatus implements InfoSource{
 				continue;
 			}
 			contexts.put(curSecContext, new HashMap<Class<? extends SecMechanism>, SecMechanism>());
+			sharedContexts.remove(curSecContext);
+			clearEventIndex(curSecContext);
+		}
+	}
+
+	/**
+	 * Returns the map of the given context for modification. If the current
+	 * map is shared with stored contents it is copied first.
+	 * 
+	 * @param context
+	 *            the context to be modified
+	 * @return the modifiable map of the given context
+	 */
+	private HashMap<Class<? extends SecMechanism>, SecMechanism> getModifiableContext(SecContext context) {
+		if (sharedContexts.remove(context)) {
+			contexts.put(context, new HashMap<>(contexts.get(context)));
 		}
+		return contexts.get(context);
 	}
 
 	/**
@@ -103,7 +148,36 @@ public class SecStatus implements InfoSource{
 	}
 
 	private void updateContext(SecContext context, SecMechanism mechanism) {
-		contexts.get(context).put(mechanism.getKey(), mechanism);
+		getModifiableContext(context).put(mechanism.getKey(), mechanism);
+		updateEventIndex(context, mechanism);
+	}
+
+	/**
+	 * Adds the given mechanism to the reverse event index. A replaced mechanism
+	 * with the same key may differ in its sensitivity, thus all events are
+	 * updated.
+	 * 
+	 * @param context
+	 *            the context containing the mechanism
+	 * @param mechanism
+	 *            the mechanism to index
+	 */
+	private void updateEventIndex(SecContext context, SecMechanism mechanism) {
+		Class<? extends SecMechanism> key = mechanism.getKey();
+		for (SecurityEvent curEvent : SecurityEvent.values()) {
+			HashMap<Class<? extends SecMechanism>, SecMechanism> sensitiveMechanisms = eventIndex.get(curEvent).get(context);
+			if (mechanism.needsDeletionInCaseOf(curEvent)) {
+				sensitiveMechanisms.put(key, mechanism);
+			} else {
+				sensitiveMechanisms.remove(key);
+			}
+		}
+	}
+
+	private void clearEventIndex(SecContext context) {
+		for (EnumMap<SecContext, HashMap<Class<? extends SecMechanism>, SecMechanism>> sensitiveMechanisms : eventIndex.values()) {
+			sensitiveMechanisms.get(context).clear();
+		}
 	}
 
 	/**
@@ -114,19 +188,20 @@ public class SecStatus implements InfoSource{
 	 */
 	private void updateEvents(SecStatusEventUpdatePropagation... updatePropagation) {
 		for (SecStatusEventUpdatePropagation curUpdate : updatePropagation) {
-
-			SecStatusEventUpdatePropagation eventPropagation = (SecStatusEventUpdatePropagation) curUpdate;
-			for (SecContext context : contexts.keySet()) {
-				Collection<Class<? extends SecMechanism>> toBeDeleted = new HashSet<Class<? extends SecMechanism>>();
-				for (Class<? extends SecMechanism> clazz : contexts.get(context).keySet()) {
-					if (contexts.get(context).get(clazz).needsDeletionInCaseOf(eventPropagation.getEvent())) {
-						toBeDeleted.add(clazz);
-					}
+			EnumMap<SecContext, HashMap<Class<? extends SecMechanism>, SecMechanism>> affectedContexts = eventIndex.get(curUpdate.getEvent());
+			
+			for (SecContext context : SecContext.values()) {
+				HashMap<Class<? extends SecMechanism>, SecMechanism> sensitiveMechanisms = affectedContexts.get(context);
+				if (sensitiveMechanisms.isEmpty()) {
+					continue;
 				}
-
-				for (Class<? extends SecMechanism> clazz : toBeDeleted) {
-					contexts.get(context).remove(clazz);
+				
+				// entries may be stale if the mechanism was already deleted by another event, so only remove the indexed instance
+				HashMap<Class<? extends SecMechanism>, SecMechanism> currentMechanisms = getModifiableContext(context);
+				for (Entry<Class<? extends SecMechanism>, SecMechanism> curEntry : sensitiveMechanisms.entrySet()) {
+					currentMechanisms.remove(curEntry.getKey(), curEntry.getValue());
 				}
+				sensitiveMechanisms.clear();
 			}
 		}
 
@@ -156,13 +231,14 @@ public class SecStatus implements InfoSource{
 	/**
 	 * This stores all {@link SecMechanism}s currently existing in the
 	 * {@link SecStatus}. Already existing stored contents are replaced when the
-	 * same id is reused.
+	 * same id is reused. If the capacity of the {@link SessionContextStore} is
+	 * exceeded the least recently used contents are evicted.
 	 * 
 	 * @param id
 	 *            the integer id to reference the stored contents
 	 */
 	public void storeSecStatus(int id) {
-		storedSecStatusContents.put(id, createCopyForStoring(contexts));
+		storedSecStatusContents.put(id, createSnapshot());
 	}
 
 	/**
@@ -173,10 +249,7 @@ public class SecStatus implements InfoSource{
 	 * @return the id used for storing the {@link SecStatus} contents
 	 */
 	public int storeSecStatus() {
-		int freeId = 0;
-		while (storedSecStatusContents.containsKey(freeId)) {
-			freeId++;
-		}
+		int freeId = storedSecStatusContents.allocateId();
 		storeSecStatus(freeId);
 		return freeId;
 	}
@@ -201,39 +274,77 @@ public class SecStatus implements InfoSource{
 
 		reset(false);
 		for (SecContext context : toRestore.keySet()) {
-			for (SecMechanism mechanism : toRestore.get(context).values()) {
-				updateContext(context, mechanism);
+			HashMap<Class<? extends SecMechanism>, SecMechanism> restoredMechanisms = toRestore.get(context);
+			contexts.put(context, restoredMechanisms);
+			sharedContexts.add(context);
+			for (SecMechanism mechanism : restoredMechanisms.values()) {
+				updateEventIndex(context, mechanism);
 			}
 		}
 	}
 
-	// TODO move this suppression into the cast as soon as compliance level 1.8
-	// is used for this code
 	/**
-	 * Creates a copy of the data structure storing the {@link SecMechanism}s.
-	 * The returned object is a duplicate using the same references to
-	 * {@link SecMechanism} objects. This relies on the immutability of the
-	 * {@link SecMechanism}s.
+	 * Creates a snapshot of the data structure storing the
+	 * {@link SecMechanism}s. The snapshot shares the maps of the current
+	 * contexts, which are copied on their next modification. This relies on
+	 * the immutability of the {@link SecMechanism}s.
 	 * 
-	 * @param source
-	 *            the object to copy
-	 * @return the copied object
+	 * @return the snapshot of all but the {@link SecContext#PERSISTANT} context
 	 */
-	@SuppressWarnings("unchecked") // This suppression is needed because
-									// Object.clone() does not support generics
-	private EnumMap<SecContext, HashMap<Class<? extends SecMechanism>, SecMechanism>> createCopyForStoring(
-			EnumMap<SecContext, HashMap<Class<? extends SecMechanism>, SecMechanism>> source) {
-
-		EnumMap<SecContext, HashMap<Class<? extends SecMechanism>, SecMechanism>> copy = new EnumMap<>(
+	private EnumMap<SecContext, HashMap<Class<? extends SecMechanism>, SecMechanism>> createSnapshot() {
+		EnumMap<SecContext, HashMap<Class<? extends SecMechanism>, SecMechanism>> snapshot = new EnumMap<>(
 				SecContext.class);
 
-		for (SecContext context : source.keySet()) {
+		for (SecContext context : contexts.keySet()) {
 			if (context == SecContext.PERSISTANT){
 				continue;
 			}
-			copy.put(context, (HashMap<Class<? extends SecMechanism>, SecMechanism>) source.get(context).clone());
+			snapshot.put(context, contexts.get(context));
+			sharedContexts.add(context);
 		}
-		return copy;
+		return snapshot;
+	}
+
+	/**
+	 * Records all contexts, including the {@link SecContext#PERSISTANT} one.
+	 * Like stored session contexts the maps are shared and copied on their
+	 * next modification.
+	 */
+	@Override
+	public EnumMap<SecContext, HashMap<Class<? extends SecMechanism>, SecMechanism>> saveState() {
+		EnumMap<SecContext, HashMap<Class<? extends SecMechanism>, SecMechanism>> state = new EnumMap<>(contexts);
+		sharedContexts.addAll(state.keySet());
+		return state;
+	}
+
+	/**
+	 * Restores the recorded contexts, only contexts that were modified since
+	 * are replaced.
+	 */
+	@Override
+	public boolean restoreState(EnumMap<SecContext, HashMap<Class<? extends SecMechanism>, SecMechanism>> state) {
+		boolean changed = false;
+		for (SecContext context : state.keySet()) {
+			HashMap<Class<? extends SecMechanism>, SecMechanism> restoredMechanisms = state.get(context);
+			if (contexts.get(context) == restoredMechanisms) {
+				continue;
+			}
+			contexts.put(context, restoredMechanisms);
+			sharedContexts.add(context);
+			clearEventIndex(context);
+			for (SecMechanism mechanism : restoredMechanisms.values()) {
+				updateEventIndex(context, mechanism);
+			}
+			changed = true;
+		}
+		return changed;
+	}
+
+	/**
+	 * @return the store holding the session contexts of this {@link SecStatus}
+	 */
+	public SessionContextStore<?> getSessionContextStore() {
+		return storedSecStatusContents;
 	}
 	
 	/**
@@ -0,0 +1,209 @@
+package de.persosim.simulator.secstatus;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import de.persosim.simulator.platform.CardStateHolder;
+
+/**
+ * Bounded store for the session contexts of a {@link SecStatus}.
+ *
+ * Contents are referenced by integer ids, which are either provided by the
+ * caller (e.g. the session context id from MSE: Set AT) or allocated by the
+ * store in constant time. When the configured capacity is exceeded the least
+ * recently used content is evicted. The store does not copy the stored
+ * contents, callers are responsible for not modifying them afterwards.
+ *
+ * @param <T>
+ *            type of the stored contents
+ */
+public class SessionContextStore<T> implements CardStateHolder<SessionContextStore.State<T>> {
+
+	public static final int DEFAULT_CAPACITY = 32;
+
+	private LinkedHashMap<Integer, T> contents;
+	private ArrayDeque<Integer> releasedIds = new ArrayDeque<>();
+	private int nextUnusedId = 0;
+	private int capacity;
+	private long evictionCount = 0;
+
+	/**
+	 * Identifies the current contents, changed on every modification
+	 * including the access order. Restoring a recorded state restores its
+	 * version, so an unmodified store is detected without comparing contents.
+	 */
+	private long version = 0;
+	private long lastVersion = 0;
+
+	/**
+	 * Recorded state of the store, the stored contents themselves are shared
+	 * as the store does not modify them.
+	 */
+	public static final class State<T> {
+		private final LinkedHashMap<Integer, T> contents;
+		private final ArrayDeque<Integer> releasedIds;
+		private final int nextUnusedId;
+		private final long version;
+
+		State(SessionContextStore<T> store) {
+			contents = new LinkedHashMap<>(store.contents);
+			releasedIds = store.releasedIds.clone();
+			nextUnusedId = store.nextUnusedId;
+			version = store.version;
+		}
+	}
+
+	public SessionContextStore() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * @param capacity
+	 *            the maximum number of contents to be stored, must be positive
+	 */
+	public SessionContextStore(int capacity) {
+		setCapacity(capacity);
+		contents = new LinkedHashMap<Integer, T>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, T> eldest) {
+				if (size() > SessionContextStore.this.capacity) {
+					evicted(eldest.getKey());
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Stores the given content. Already existing content stored using the
+	 * same id is replaced. This may evict the least recently used content.
+	 *
+	 * @param id
+	 *            the id to reference the stored content
+	 * @param content
+	 *            the content to store
+	 */
+	void put(int id, T content) {
+		modified();
+		contents.put(id, content);
+	}
+
+	/**
+	 * Returns the content stored using the given id and marks it as recently
+	 * used.
+	 *
+	 * @param id
+	 *            the id of the stored content
+	 * @return the stored content or null if no content exists for this id
+	 */
+	T get(int id) {
+		modified();
+		return contents.get(id);
+	}
+
+	/**
+	 * Returns an id that is currently not used to reference any content. Ids
+	 * released by eviction are reused first.
+	 *
+	 * @return an unused id
+	 */
+	int allocateId() {
+		modified();
+		Integer releasedId;
+		while ((releasedId = releasedIds.poll()) != null) {
+			if (!contents.containsKey(releasedId)) {
+				return releasedId;
+			}
+		}
+
+		while (contents.containsKey(nextUnusedId)) {
+			nextUnusedId++;
+		}
+		return nextUnusedId++;
+	}
+
+	private void evicted(int id) {
+		evictionCount++;
+		releasedIds.add(id);
+	}
+
+	/**
+	 * @return the number of currently stored contents
+	 */
+	public int getSize() {
+		return contents.size();
+	}
+
+	/**
+	 * @return the maximum number of contents to be stored
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Sets the maximum number of contents to be stored. If the store currently
+	 * holds more contents the least recently used ones are evicted.
+	 *
+	 * @param capacity
+	 *            the new capacity, must be positive
+	 * @throws IllegalArgumentException
+	 *             if the capacity is not positive
+	 */
+	public void setCapacity(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("The capacity of the session context store must be positive.");
+		}
+		this.capacity = capacity;
+
+		if (contents != null) {
+			modified();
+			Iterator<Integer> idIterator = contents.keySet().iterator();
+			while (contents.size() > capacity) {
+				evicted(idIterator.next());
+				idIterator.remove();
+			}
+		}
+	}
+
+	private void modified() {
+		version = ++lastVersion;
+	}
+
+	/**
+	 * Records the stored contents, the free ids and the order of recent use.
+	 * The capacity and the eviction count are configuration and statistics,
+	 * they are not part of the recorded state.
+	 */
+	@Override
+	public State<T> saveState() {
+		return new State<>(this);
+	}
+
+	@Override
+	public boolean restoreState(State<T> state) {
+		if (state.version == version) {
+			return false;
+		}
+		contents.clear();
+		contents.putAll(state.contents);
+		releasedIds = state.releasedIds.clone();
+		nextUnusedId = state.nextUnusedId;
+		version = state.version;
+		return true;
+	}
+
+	/**
+	 * @return the number of contents evicted due to exceeding the capacity
+	 */
+	public long getEvictionCount() {
+		return evictionCount;
+	}
+
+}
@@ -0,0 +1,38 @@
+package de.persosim.simulator.securemessaging;
+
+import de.persosim.simulator.apdu.CommandApdu;
+import de.persosim.simulator.apdu.ResponseApdu;
+import de.persosim.simulator.processing.UpdatePropagation;
+
+/**
+ * This UpdatePropagation holds the plain command and response APDU of a
+ * secure messaging protected exchange, i.e. the command after unwrapping and
+ * the response before wrapping.
+ * <p/>
+ * It is only provided while an {@link de.persosim.simulator.recording.ApduRecorder}
+ * is active, the PersoSimKernel passes the plain APDUs on to the recorder.
+ */
+public class PlainApduPropagation implements UpdatePropagation {
+
+	private final CommandApdu commandApdu;
+	private final ResponseApdu responseApdu;
+
+	public PlainApduPropagation(CommandApdu commandApdu, ResponseApdu responseApdu) {
+		this.commandApdu = commandApdu;
+		this.responseApdu = responseApdu;
+	}
+
+	@Override
+	public Class<? extends UpdatePropagation> getKey() {
+		return PlainApduPropagation.class;
+	}
+
+	public CommandApdu getCommandApdu() {
+		return commandApdu;
+	}
+
+	public ResponseApdu getResponseApdu() {
+		return responseApdu;
+	}
+
+}
@@ -18,9 +18,12 @@ import de.persosim.simulator.apdu.IsoSecureMessagingCommandApdu;
 import de.persosim.simulator.apdu.ResponseApdu;
 import de.persosim.simulator.crypto.CryptoSupport;
 import de.persosim.simulator.crypto.CryptoUtil;
+import de.persosim.simulator.metrics.Counter;
+import de.persosim.simulator.metrics.SimulatorMetrics;
 import de.persosim.simulator.platform.Iso7816;
 import de.persosim.simulator.platform.Layer;
 import de.persosim.simulator.processing.UpdatePropagation;
+import de.persosim.simulator.recording.ApduRecorder;
 import de.persosim.simulator.secstatus.SecStatus.SecContext;
 import de.persosim.simulator.secstatus.SecStatusEventUpdatePropagation;
 import de.persosim.simulator.secstatus.SecStatusMechanismUpdatePropagation;
@@ -29,6 +32,7 @@ import de.persosim.simulator.tlv.PrimitiveTlvDataObject;
 import de.persosim.simulator.tlv.TlvConstants;
 import de.persosim.simulator.tlv.TlvDataObject;
 import de.persosim.simulator.tlv.TlvDataObjectContainer;
+import de.persosim.simulator.tlv.TlvEncoder;
 import de.persosim.simulator.tlv.TlvValue;
 import de.persosim.simulator.utils.HexString;
 import de.persosim.simulator.utils.Utils;
@@ -49,6 +53,9 @@ public class SecureMessaging extends Layer implements TlvConstants{
 	
 	public static final String SECUREMESSAGING = "SecureMessaging";
 	
+	private static final Counter SM_SESSIONS = SimulatorMetrics.getCounter(SimulatorMetrics.COUNTER_SM_SESSIONS,
+			"Secure messaging sessions established, i.e. session keys installed");
+	
 	/*--------------------------------------------------------------------------------*/
 	protected SmDataProvider dataProvider = null;
 	
@@ -130,6 +137,10 @@ public class SecureMessaging extends Layer implements TlvConstants{
 		log(HexString.encode(getProcessingData().getResponseApdu().toByteArray()), LogTags.APDU_TAG_DEC_OUT);
 		
 		if (isSmWrappingApplicable()){
+			if (ApduRecorder.getActive() != null) {
+				processingData.addUpdatePropagation(this, "plain APDUs for recording",
+						new PlainApduPropagation(processingData.getCommandApdu(), processingData.getResponseApdu()));
+			}
 			processOutgoingSmApdu();
 		}
 		
@@ -185,14 +196,14 @@ public class SecureMessaging extends Layer implements TlvConstants{
 		TlvDataObjectContainer container = new TlvDataObjectContainer();
 		
 		TlvValue dataObject = this.processingData.getResponseApdu().getData();
-		if((dataObject != null) && (dataObject.getLength() > 0)) {
+		/* encode once, the length check would otherwise traverse the data a second time */
+		byte[] data = (dataObject != null) ? TlvEncoder.encode(dataObject) : null;
+		if((data != null) && (data.length > 0)) {
 			log(this, "APDU to be sent contains data", TRACE);
 			
-			byte[] data, postpaddedData, paddedData, encryptedData;
+			byte[] postpaddedData, paddedData, encryptedData;
 			PrimitiveTlvDataObject primitive87;
 			
-			data = dataObject.toByteArray();
-			
 			log(this, "data to be padded is: " + HexString.encode(data), TRACE);
 			
 			paddedData = this.padData(data);
@@ -561,7 +572,7 @@ public class SecureMessaging extends Layer implements TlvConstants{
 	public byte[] padAndMac(TlvDataObjectContainer input) {
 		byte[] dataToBePadded, dataToBeMaced, macedData;
 		
-		dataToBePadded = input.toByteArray();
+		dataToBePadded = TlvEncoder.encode(input);
 		dataToBeMaced = padDataForMac(dataToBePadded);
 		log(this, "data to be maced is: " + HexString.encode(dataToBeMaced));
 		
@@ -620,6 +631,7 @@ public class SecureMessaging extends Layer implements TlvConstants{
 	private void setDataProvider(SmDataProvider newProvider) {
 		newProvider.init(dataProvider);
 		dataProvider = newProvider;
+		SM_SESSIONS.increment();
 	}
 
 	@Override
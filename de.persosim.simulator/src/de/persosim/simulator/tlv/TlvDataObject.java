@@ -1,10 +1,5 @@
 package de.persosim.simulator.tlv;
 
-import static org.globaltester.logging.BasicLogger.DEBUG;
-import static org.globaltester.logging.BasicLogger.logException;
-
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.util.Arrays;
 
 import de.persosim.simulator.exception.ISO7816Exception;
@@ -196,29 +191,19 @@ public abstract class TlvDataObject extends TlvElement implements Iso7816, Valid
 	
 	@Override
 	public int getLength() {
-		return getNoOfTagBytes() + getNoOfLengthBytes() + getNoOfValueBytes();
+		/* compute the value length only once, it is needed for the length field as well */
+		int noOfValueBytes = getNoOfValueBytes();
+		TlvLength explicitTlvLength = getExplicitTlvLength(noOfValueBytes);
+		int noOfLengthBytes = (explicitTlvLength != null) ? explicitTlvLength.getLength() : TlvLength.getMinNoOfBytesEncodingLength(noOfValueBytes);
+		
+		return getNoOfTagBytes() + noOfLengthBytes + noOfValueBytes;
 	}
 	
 	/*--------------------------------------------------------------------------------*/
 	
 	@Override
 	public byte[] toByteArray() {
-		ByteArrayOutputStream outputStream;
-		
-		outputStream = new ByteArrayOutputStream();
-		
-		try {
-			/* tag can be accessed directly */
-			outputStream.write(tlvTag.toByteArray());
-			/* length must be accessed by getter in case there is a valid override */
-			outputStream.write(getTlvLength().toByteArray());
-			/* value must be accessed by getter as values are only specified by sub classes */
-			outputStream.write(getTlvValue().toByteArray());
-		} catch (IOException e) {
-			logException(this.getClass(), e, DEBUG);
-		}
-
-		return outputStream.toByteArray();
+		return TlvEncoder.encode(this);
 	}
 	
 	/**
@@ -269,26 +254,44 @@ public abstract class TlvDataObject extends TlvElement implements Iso7816, Valid
 	 * @return the tlvLength
 	 */
 	public TlvLength getTlvLength() {
+		int noOfValueBytes = getTlvValue().getLength();
+		TlvLength explicitTlvLength = getExplicitTlvLength(noOfValueBytes);
+		
+		if(explicitTlvLength != null) {
+			return explicitTlvLength;
+		} else{
+			return new TlvLength(noOfValueBytes);
+		}
+	}
+	
+	/**
+	 * Returns the explicitly set length field if it is to be used for a value
+	 * field of the provided length, see {@link #getTlvLength()}. An explicitly
+	 * set length field not matching the value field is discarded if validity
+	 * checks are to be performed.
+	 * 
+	 * @param noOfValueBytes the actual length of the value field
+	 * @return the explicitly set length field or null if the default DER encoding is to be used
+	 */
+	TlvLength getExplicitTlvLength(int noOfValueBytes) {
 		if(tlvLength == null) {
 			/* A TLV length field has NOT been explicitly set */
-			return new TlvLength(getTlvValue().getLength());
+			return null;
+		}
+		
+		/* A TLV length field has been explicitly set */
+		if(tlvLength.getIndicatedLength() == noOfValueBytes) {
+			/* The length indicated by the length field matches the actual length of the value field */
+			return tlvLength;
+		}
+		
+		/* The length indicated by the length field does NOT match the actual length of the value field */
+		if(performValidityChecks) {
+			/* discard invalid length field */
+			tlvLength = null;
+			return null;
 		} else{
-			/* A TLV length field has been explicitly set */
-			int indicatedLength = tlvLength.getIndicatedLength();
-			
-			if(indicatedLength == getTlvValue().getLength()) {
-				/* The length indicated by the length field matches the actual length of the value field */
-				return tlvLength;
-			} else{
-				/* The length indicated by the length field does NOT match the actual length of the value field */
-				if(performValidityChecks) {
-					/* discard invalid length field */
-					tlvLength = null;
-					return new TlvLength(getTlvValue().getLength());
-				} else{
-					return tlvLength;
-				}
-			}
+			return tlvLength;
 		}
 	}
 	
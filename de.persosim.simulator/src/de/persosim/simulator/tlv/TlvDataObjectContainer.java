@@ -1,9 +1,5 @@
 package de.persosim.simulator.tlv;
 
-import static org.globaltester.logging.BasicLogger.logException;
-
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
@@ -206,21 +202,7 @@ public class TlvDataObjectContainer extends TlvValue implements Iso7816, TlvData
 	
 	@Override
 	public byte[] toByteArray() {
-		ByteArrayOutputStream outputStream;
-		byte[] tlvObjectAsByteArray;
-		
-		outputStream = new ByteArrayOutputStream();
-		
-		for(TlvDataObject tlvObject : this.tlvObjects) {
-			try {
-				tlvObjectAsByteArray = tlvObject.toByteArray();
-				outputStream.write(tlvObjectAsByteArray);
-			} catch (IOException e) {
-				logException(getClass(), e);
-			}
-		}
-
-		return outputStream.toByteArray();
+		return TlvEncoder.encode(this);
 	}
 	
 	/*--------------------------------------------------------------------------------*/
@@ -0,0 +1,172 @@
+package de.persosim.simulator.tlv;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Encodes TLV elements into a single byte array of exactly the required size.
+ * <p/>
+ * Encoding is done in two passes over the structure. The first pass computes
+ * the length of every value field bottom-up and keeps it for the second pass,
+ * which writes tag, length and value fields directly into the target array.
+ * This avoids the intermediate arrays of encoding each nesting level on its
+ * own and the repeated length computation of all descendants for every length
+ * field of a nested structure.
+ * <p/>
+ * The lengths are only kept for the duration of a single encoding, as value
+ * fields are accessible by reference and may be modified anywhere in the
+ * structure between two encodings. Explicitly set length fields are treated as
+ * described in {@link TlvDataObject#getTlvLength()}. Elements of unknown types
+ * and {@link BogusPrimitiveTlvDataObject}s are encoded by their own
+ * {@link TlvElement#toByteArray()}.
+ * <p/>
+ * Instances are not thread safe, use the static methods.
+ */
+public final class TlvEncoder {
+
+	/* value field length of each data object in encoding order */
+	private int[] valueLengths = new int[16];
+	/* explicit length field of each data object or null for DER encoding */
+	private TlvLength[] lengthFields = new TlvLength[16];
+	/* encodings of elements not encoded by this class in encoding order */
+	private List<byte[]> foreignEncodings = new ArrayList<>();
+	private int noOfDataObjects;
+	private int nextDataObject;
+	private int nextForeignEncoding;
+
+	private TlvEncoder() {
+	}
+
+	/**
+	 * Encode the provided element.
+	 * 
+	 * @param element
+	 *            the element to encode
+	 * @return the encoding, equal to {@link TlvElement#toByteArray()}
+	 */
+	public static byte[] encode(TlvElement element) {
+		return encode(element, 0);
+	}
+
+	/**
+	 * Encode the provided element into an array leaving room for trailing
+	 * data, e.g. a status word following the data field of a response APDU.
+	 * 
+	 * @param element
+	 *            the element to encode
+	 * @param noOfTrailingBytes
+	 *            the number of bytes to reserve after the encoding
+	 * @return the encoding followed by the given number of zero bytes
+	 */
+	public static byte[] encode(TlvElement element, int noOfTrailingBytes) {
+		if(element == null) {throw new NullPointerException("element must not be null");}
+		if(noOfTrailingBytes < 0) {throw new IllegalArgumentException("number of trailing bytes must not be negative");}
+		
+		TlvEncoder encoder = new TlvEncoder();
+		byte[] encoding = new byte[encoder.measure(element) + noOfTrailingBytes];
+		encoder.write(element, encoding, 0);
+		return encoding;
+	}
+
+	/**
+	 * Compute the encoded length of the element and record the value field
+	 * lengths of all contained data objects.
+	 * 
+	 * @return the number of bytes of the encoding
+	 */
+	private int measure(TlvElement element) {
+		if(element instanceof BogusPrimitiveTlvDataObject) {
+			return measureForeign(element);
+		}
+		
+		if(element instanceof TlvDataObject) {
+			TlvDataObject dataObject = (TlvDataObject) element;
+			int index = noOfDataObjects++;
+			ensureCapacity(noOfDataObjects);
+			
+			int valueLength = measure(dataObject.getTlvValue());
+			TlvLength lengthField = dataObject.getExplicitTlvLength(valueLength);
+			valueLengths[index] = valueLength;
+			lengthFields[index] = lengthField;
+			
+			int noOfLengthBytes = (lengthField != null) ? lengthField.getLength() : TlvLength.getMinNoOfBytesEncodingLength(valueLength);
+			return dataObject.getNoOfTagBytes() + noOfLengthBytes + valueLength;
+		}
+		
+		if(element instanceof TlvDataObjectContainer) {
+			int length = 0;
+			for(TlvDataObject tlvDataObject : ((TlvDataObjectContainer) element).getTlvObjects()) {
+				length += measure(tlvDataObject);
+			}
+			return length;
+		}
+		
+		if(element instanceof TlvValuePlain) {
+			return element.getLength();
+		}
+		
+		return measureForeign(element);
+	}
+
+	private int measureForeign(TlvElement element) {
+		byte[] encoding = element.toByteArray();
+		foreignEncodings.add(encoding);
+		return encoding.length;
+	}
+
+	private void ensureCapacity(int capacity) {
+		if(capacity > valueLengths.length) {
+			int newCapacity = Math.max(capacity, valueLengths.length * 2);
+			int[] newValueLengths = new int[newCapacity];
+			System.arraycopy(valueLengths, 0, newValueLengths, 0, valueLengths.length);
+			valueLengths = newValueLengths;
+			TlvLength[] newLengthFields = new TlvLength[newCapacity];
+			System.arraycopy(lengthFields, 0, newLengthFields, 0, lengthFields.length);
+			lengthFields = newLengthFields;
+		}
+	}
+
+	/**
+	 * Write the element in the same order it has been measured.
+	 * 
+	 * @return the offset following the written encoding
+	 */
+	private int write(TlvElement element, byte[] buffer, int offset) {
+		if(element instanceof BogusPrimitiveTlvDataObject) {
+			return writeForeign(buffer, offset);
+		}
+		
+		if(element instanceof TlvDataObject) {
+			TlvDataObject dataObject = (TlvDataObject) element;
+			int index = nextDataObject++;
+			
+			offset = dataObject.tlvTag.writeTo(buffer, offset);
+			if(lengthFields[index] != null) {
+				offset = lengthFields[index].writeTo(buffer, offset);
+			} else{
+				offset = TlvLength.writeLengthEncoding(valueLengths[index], buffer, offset);
+			}
+			return write(dataObject.getTlvValue(), buffer, offset);
+		}
+		
+		if(element instanceof TlvDataObjectContainer) {
+			for(TlvDataObject tlvDataObject : ((TlvDataObjectContainer) element).getTlvObjects()) {
+				offset = write(tlvDataObject, buffer, offset);
+			}
+			return offset;
+		}
+		
+		if(element instanceof TlvValuePlain) {
+			return ((TlvValuePlain) element).writeTo(buffer, offset);
+		}
+		
+		return writeForeign(buffer, offset);
+	}
+
+	private int writeForeign(byte[] buffer, int offset) {
+		byte[] encoding = foreignEncodings.get(nextForeignEncoding++);
+		System.arraycopy(encoding, 0, buffer, offset, encoding.length);
+		return offset + encoding.length;
+	}
+
+}
@@ -223,6 +223,17 @@ public class TlvLength extends TlvElement {
 		return this.lengthField.length;
 	}
 	
+	/**
+	 * Copies the length field to the provided buffer.
+	 * @param buffer the buffer to write to
+	 * @param offset the offset of the first byte to write
+	 * @return the offset following the length field
+	 */
+	int writeTo(byte[] buffer, int offset) {
+		System.arraycopy(lengthField, 0, buffer, offset, lengthField.length);
+		return offset + lengthField.length;
+	}
+	
 	@Override
 	public TlvLength clone() {
 		return new TlvLength(this.toByteArray(), SKIP_VALIDITY_CHECKS);
@@ -292,7 +303,37 @@ public class TlvLength extends TlvElement {
 	 * @return the minimum number of bytes that is needed to encode the given length
 	 */
 	public static int getMinNoOfBytesEncodingLength(int indicatedLength) {
-		return getLengthEncoding(indicatedLength).length;
+		if(indicatedLength < 0) {throw new NullPointerException("length must not be smaller than 0");}
+		
+		if(indicatedLength <= 127) {return 1;}
+		if(indicatedLength <= 0xFF) {return 2;}
+		if(indicatedLength <= 0xFFFF) {return 3;}
+		if(indicatedLength <= 0xFFFFFF) {return 4;}
+		return 5;
+	}
+	
+	/**
+	 * Writes the minimum length encoding of the provided length value to the
+	 * provided buffer, see {@link #getLengthEncoding(int)}.
+	 * @param indicatedLength the length value to be encoded
+	 * @param buffer the buffer to write to
+	 * @param offset the offset of the first byte to write
+	 * @return the offset following the length encoding
+	 */
+	static int writeLengthEncoding(int indicatedLength, byte[] buffer, int offset) {
+		int noOfBytes = getMinNoOfBytesEncodingLength(indicatedLength);
+		
+		if(noOfBytes == 1) {
+			buffer[offset] = (byte) indicatedLength;
+			return offset + 1;
+		}
+		
+		buffer[offset] = (byte) (((byte) 0x80) | (noOfBytes - 1));
+		for(int i = noOfBytes - 1; i > 0; i--) {
+			buffer[offset + i] = (byte) indicatedLength;
+			indicatedLength >>>= 8;
+		}
+		return offset + noOfBytes;
 	}
 	
 }
@@ -350,6 +350,17 @@ public final class TlvTag extends TlvElement implements Asn1 {
 		return Arrays.copyOf(tagField, tagField.length);
 	}
 	
+	/**
+	 * Copies the tag field to the provided buffer.
+	 * @param buffer the buffer to write to
+	 * @param offset the offset of the first byte to write
+	 * @return the offset following the tag field
+	 */
+	int writeTo(byte[] buffer, int offset) {
+		System.arraycopy(tagField, 0, buffer, offset, tagField.length);
+		return offset + tagField.length;
+	}
+	
 	@Override
 	public TlvTag clone() {
 		return new TlvTag(this.toByteArray(), SKIP_VALIDITY_CHECKS);
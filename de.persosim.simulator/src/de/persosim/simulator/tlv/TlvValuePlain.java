@@ -105,6 +105,17 @@ public class TlvValuePlain extends TlvValue {
 		return Arrays.copyOf(this.valueField, this.valueField.length);
 	}
 	
+	/**
+	 * Copies the value field to the provided buffer.
+	 * @param buffer the buffer to write to
+	 * @param offset the offset of the first byte to write
+	 * @return the offset following the value field
+	 */
+	int writeTo(byte[] buffer, int offset) {
+		System.arraycopy(valueField, 0, buffer, offset, valueField.length);
+		return offset + valueField.length;
+	}
+	
 	@Override
 	public TlvValuePlain copy() {
 		return new TlvValuePlain(this.valueField);
@@ -6,20 +6,24 @@ import de.persosim.simulator.exception.BitFieldOutOfBoundsException;
 
 /**
  * This class implements a little endian bitfield providing several bitwise
- * logical operations.
+ * logical operations. The bits are stored in long words, so that the logical
+ * operations process 64 bits at once.
  * 
  * @author mboonk
  * 
  */
 public class BitField {
-	boolean[] storedBits;
+	/** the bits of this field, bit i is stored in word i / 64 at position i % 64 */
+	long[] words;
+	int numberOfBits;
 
 	/**
 	 * Creates an empty (all zero bits) {@link BitField} of the given length.
 	 * @param numberOfBits
 	 */
 	public BitField(int numberOfBits){
-		storedBits = new boolean[numberOfBits];
+		this.numberOfBits = numberOfBits;
+		words = new long[getNumberOfWords(numberOfBits)];
 	}
 	
 	/**
@@ -34,13 +38,28 @@ public class BitField {
 	public BitField(int numberOfBits, int ... setBits){
 		this(numberOfBits);
 		for (int bit : setBits){
-			if (bit > numberOfBits || bit < 0){
+			if (bit >= numberOfBits || bit < 0){
 				throw new IllegalArgumentException("The bits to be set must be inside the BitField");
 			}
-			storedBits[bit] = true;
+			words[bit >>> 6] |= 1L << bit;
 		}
 	}
 	
+	/**
+	 * Creates a {@link BitField} of the given length from the given words.
+	 * Bits of the words exceeding the length are ignored.
+	 * 
+	 * @param numberOfBits
+	 * @param words
+	 *            containing bit i in word i / 64 at position i % 64
+	 * @see #toLongArray()
+	 */
+	public BitField(int numberOfBits, long[] words){
+		this(numberOfBits);
+		System.arraycopy(words, 0, this.words, 0, Math.min(words.length, this.words.length));
+		clearUnusedBits();
+	}
+	
 	/**
 	 * Create a {@link BitField} from a big endian ordered byte array.
 	 * @param numberOfBits
@@ -48,18 +67,18 @@ public class BitField {
 	 * @return
 	 */
 	public static BitField buildFromBigEndian(int numberOfBits, byte [] bitsToStore){
-		BitField result = new BitField(numberOfBits);
+		if (numberOfBits > bitsToStore.length * 8) {
+			throw new BitFieldOutOfBoundsException();
+		}
 		
-		boolean [] sourceBits = new boolean [bitsToStore.length*8];
+		BitField result = new BitField(numberOfBits);
 		
-		for (int i = 0; i < sourceBits.length; i++){
-			sourceBits[i] = ((bitsToStore[i/8] >>> 7-(i%8)) & 0b00000001) == 1;
-		}
-
-		int offset = bitsToStore.length*8 - numberOfBits;
-		for (int i = offset; i < sourceBits.length; i++){
-			result.setBit(numberOfBits - 1 - (i - offset), sourceBits[i]);
+		// the last byte contains the least significant bits
+		int numberOfBytes = getNumberOfWords(numberOfBits) * 8;
+		for (int i = 0; i < numberOfBytes && i < bitsToStore.length; i++){
+			result.words[i >>> 3] |= (bitsToStore[bitsToStore.length - 1 - i] & 0xFFL) << ((i & 7) * 8);
 		}
+		result.clearUnusedBits();
 		
 		return result;
 	}
@@ -76,18 +95,19 @@ public class BitField {
 	 */
 	public BitField(int numberOfBits, byte[] bitsToStore) {
 		this(numberOfBits);
-		for (int i = 0; i < numberOfBits; i++) {
-
-			/*
-			 * Access the next byte every 8 bits and mask away any potential
-			 * sign. Then shift this byte such that the currently interesting
-			 * bit is the LSB. Masking the other 7 bits away provides the value
-			 * that is added to the internal representation of the bit field.
-			 * This inverts bit order per byte and preserves byte order.
-			 */
-			setBit(i,
-					(((bitsToStore[i / 8] & 0xFF) >>> i % 8) & 0b00000001) == 1);
+		
+		/*
+		 * Byte k contains the bits 8k to 8k+7 with the LSB of the byte being
+		 * the bit with the lowest index. This preserves byte order.
+		 */
+		int numberOfBytes = (numberOfBits + 7) / 8;
+		if (numberOfBytes > bitsToStore.length) {
+			throw new ArrayIndexOutOfBoundsException(numberOfBytes - 1);
 		}
+		for (int i = 0; i < numberOfBytes; i++) {
+			words[i >>> 3] |= (bitsToStore[i] & 0xFFL) << ((i & 7) * 8);
+		}
+		clearUnusedBits();
 	}
 
 	/**
@@ -99,7 +119,27 @@ public class BitField {
 	 *            source data
 	 */
 	public BitField(boolean[] bitsToStore) {
-		storedBits = Arrays.copyOf(bitsToStore, bitsToStore.length);
+		this(bitsToStore.length);
+		for (int i = 0; i < bitsToStore.length; i++) {
+			if (bitsToStore[i]) {
+				words[i >>> 6] |= 1L << i;
+			}
+		}
+	}
+	
+	private static int getNumberOfWords(int numberOfBits) {
+		return (numberOfBits + Long.SIZE - 1) / Long.SIZE;
+	}
+	
+	/**
+	 * Resets all bits of the last word that exceed the number of bits, so that
+	 * word based operations can rely on them being zero.
+	 */
+	private void clearUnusedBits() {
+		int usedBitsInLastWord = numberOfBits % Long.SIZE;
+		if (usedBitsInLastWord != 0) {
+			words[words.length - 1] &= (1L << usedBitsInLastWord) - 1;
+		}
 	}
 
 	/**
@@ -112,13 +152,19 @@ public class BitField {
 	 * @return the concatenation of this object with
 	 */
 	public BitField concatenate(BitField field) {
-		boolean[] result = new boolean[field.getNumberOfBits()
-				+ getNumberOfBits()];
+		BitField result = new BitField(getNumberOfBits() + field.getNumberOfBits());
+		System.arraycopy(words, 0, result.words, 0, words.length);
 
-		System.arraycopy(storedBits, 0, result, 0, getNumberOfBits());
-		System.arraycopy(field.storedBits, 0, result, getNumberOfBits(), field.getNumberOfBits());
+		int shift = numberOfBits % Long.SIZE;
+		int offset = numberOfBits / Long.SIZE;
+		for (int i = 0; i < field.words.length; i++) {
+			result.words[offset + i] |= field.words[i] << shift;
+			if (shift != 0 && offset + i + 1 < result.words.length) {
+				result.words[offset + i + 1] |= field.words[i] >>> (Long.SIZE - shift);
+			}
+		}
 
-		return new BitField(result);
+		return result;
 	}
 
 	/**
@@ -128,13 +174,13 @@ public class BitField {
 	 * @return a new {@link BitField} containing the result
 	 */
 	public BitField or(BitField field) {
-		boolean[] result = new boolean[Math.max(getNumberOfBits(), field.getNumberOfBits())];
+		BitField result = new BitField(Math.max(getNumberOfBits(), field.getNumberOfBits()));
 
-		for (int i = 0; i < result.length; i++) {
-			result[i] = getZeroPaddedBit(i) | field.getZeroPaddedBit(i);
+		for (int i = 0; i < result.words.length; i++) {
+			result.words[i] = getZeroPaddedWord(i) | field.getZeroPaddedWord(i);
 		}
 
-		return new BitField(result);
+		return result;
 	}
 
 	/**
@@ -144,29 +190,73 @@ public class BitField {
 	 * @return a new {@link BitField} containing the result
 	 */
 	public BitField and(BitField field) {
-		boolean[] result = new boolean[Math.max(getNumberOfBits(), field.getNumberOfBits())];
+		BitField result = new BitField(Math.max(getNumberOfBits(), field.getNumberOfBits()));
 
-		for (int i = 0; i < result.length; i++) {
-			result[i] = getZeroPaddedBit(i) & field.getZeroPaddedBit(i);
+		for (int i = 0; i < result.words.length; i++) {
+			result.words[i] = getZeroPaddedWord(i) & field.getZeroPaddedWord(i);
 		}
 
-		return new BitField(result);
+		return result;
 	}
+	
+	/**
+	 * Calculate the bitwise complement of this {@link BitField}.
+	 * 
+	 * @return a new {@link BitField} of the same length containing the result
+	 */
+	public BitField not() {
+		BitField result = new BitField(getNumberOfBits());
 
-	private boolean getZeroPaddedBit(int index) {
-		if (index >= storedBits.length) {
-			return false;
+		for (int i = 0; i < result.words.length; i++) {
+			result.words[i] = ~words[i];
+		}
+		result.clearUnusedBits();
+
+		return result;
+	}
+	
+	/**
+	 * Check whether all bits set in the given {@link BitField} are also set in
+	 * this object. This is equivalent to, but cheaper than,
+	 * <code>field.or(this).equals(this)</code> for fields of the same length.
+	 * 
+	 * @param field
+	 * @return true, iff no bit is set in field that is not set in this object
+	 */
+	public boolean containsAll(BitField field) {
+		for (int i = 0; i < field.words.length; i++) {
+			if ((field.words[i] & ~getZeroPaddedWord(i)) != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * @return the number of bits set to 1 in this {@link BitField}
+	 */
+	public int cardinality() {
+		int result = 0;
+		for (long word : words) {
+			result += Long.bitCount(word);
+		}
+		return result;
+	}
+
+	private long getZeroPaddedWord(int index) {
+		if (index >= words.length) {
+			return 0;
 		}
-		return storedBits[index];
+		return words[index];
 	}
 
 	public int getNumberOfBits() {
-		return storedBits.length;
+		return numberOfBits;
 	}
 
 	public boolean getBit(int index) {
-		if (0 <= index && index < storedBits.length) {
-			return storedBits[index];
+		if (0 <= index && index < numberOfBits) {
+			return (words[index >>> 6] & (1L << index)) != 0;
 		} else {
 			throw new BitFieldOutOfBoundsException();
 		}
@@ -178,22 +268,28 @@ public class BitField {
 	 * @return
 	 */
 	public BitField flipBit(int index){
-		BitField result = new BitField(this.storedBits);
-		result.setBit(index, !result.getBit(index));
+		if (index < 0 || index >= numberOfBits) {
+			throw new BitFieldOutOfBoundsException();
+		}
+		BitField result = new BitField(numberOfBits, words);
+		result.words[index >>> 6] ^= 1L << index;
 		return result;
 	}
 	
-	private void setBit(int index, boolean value) {
-		if (0 <= index && index < storedBits.length) {
-			storedBits[index] = value;
-		} else {
-			throw new BitFieldOutOfBoundsException();
-		}
+	/**
+	 * This method returns the words storing this {@link BitField}. Bit i is
+	 * contained in word i / 64 at position i % 64, all bits exceeding the
+	 * length are zero.
+	 * 
+	 * @return a copy of the words storing this {@link BitField}
+	 */
+	public long[] toLongArray() {
+		return words.clone();
 	}
 
 	@Override
 	public int hashCode() {
-		return Arrays.hashCode(storedBits);
+		return 31 * numberOfBits + Arrays.hashCode(words);
 	}
 
 	@Override
@@ -205,7 +301,9 @@ public class BitField {
 		if (getClass() != obj.getClass())
 			return false;
 		BitField other = (BitField) obj;
-		if (!Arrays.equals(storedBits, other.storedBits))
+		if (numberOfBits != other.numberOfBits)
+			return false;
+		if (!Arrays.equals(words, other.words))
 			return false;
 		return true;
 	}
@@ -245,9 +343,8 @@ public class BitField {
 			length++;
 		}
 		byte[] result = new byte[length];
-		for (int i = 0; i < getNumberOfBits(); i++) {
-			byte temp = (byte) ((byte) (getBit(i) ? 1 : 0) << (i % 8));
-			result[result.length - 1 - (i / 8)] |= temp;
+		for (int i = 0; i < length; i++) {
+			result[length - 1 - i] = (byte) (words[i >>> 3] >>> ((i & 7) * 8));
 		}
 		return result;
 	}
@@ -17,23 +17,29 @@ import com.thoughtworks.xstream.io.xml.DomDriver;
  */
 public class Serializer {
 
-	private static XStream xstream;
-	private static HashSet<ClassLoader> loaders;
+	/**
+	 * Creating the {@link XStream} instance is expensive, it is deferred until
+	 * the first (de)serialization.
+	 */
+	private static class XstreamHolder {
+		static final HashSet<ClassLoader> loaders = new HashSet<>();
+		static final XStream xstream;
+
+		static {
+			long start = System.nanoTime();
+			CompositeClassLoader loader = new CompositeClassLoader();
+
+			loaders.add(Thread.currentThread().getContextClassLoader());
+			loaders.add(Crypto.getCryptoProvider().getClass().getClassLoader());
+
+			for (ClassLoader current : loaders) {
+				loader.add(current);
+			}
 
-	static {
-		CompositeClassLoader loader = new CompositeClassLoader();
-		
-		loaders = new HashSet<>();
-		loaders.add(Thread.currentThread().getContextClassLoader());
-		loaders.add(Crypto.getCryptoProvider().getClass().getClassLoader());
-		
-		for (ClassLoader current:loaders){
-			loader.add(current);
+			xstream = new XStream(new DomDriver("UTF-8"));
+			xstream.setClassLoader(loader);
+			StartupTimer.classInit(Serializer.class, start);
 		}
-		
-		
-		xstream = new XStream(new DomDriver("UTF-8"));
-		xstream.setClassLoader(loader);
 	}
 	
 	/**
@@ -49,9 +55,9 @@ public class Serializer {
 	private static void updateLoaders(Object object){
 		if(object != null) {
 			ClassLoader newLoader = object.getClass().getClassLoader();
-			if (!loaders.contains(newLoader)){
-				loaders.add(newLoader);
-				((CompositeClassLoader)xstream.getClassLoader()).add(newLoader);
+			if (!XstreamHolder.loaders.contains(newLoader)){
+				XstreamHolder.loaders.add(newLoader);
+				((CompositeClassLoader)XstreamHolder.xstream.getClassLoader()).add(newLoader);
 			}
 		}
 	}
@@ -66,7 +72,7 @@ public class Serializer {
 	 */
 	public static <T> Serialized<T> serialize(T toSerialize) {
 		updateLoaders(toSerialize);
-		return new XstreamSerialized<T>(xstream.toXML(toSerialize));
+		return new XstreamSerialized<T>(XstreamHolder.xstream.toXML(toSerialize));
 	}
 
 	/**
@@ -81,7 +87,7 @@ public class Serializer {
 	public static <T> T deserialize(Serialized<T> serialized) {
 		if (serialized instanceof XstreamSerialized<?>) {
 			@SuppressWarnings("unchecked")
-			T result = (T) xstream.fromXML(((XstreamSerialized<?>) serialized).getSerialization());
+			T result = (T) XstreamHolder.xstream.fromXML(((XstreamSerialized<?>) serialized).getSerialization());
 			return result;
 		}
 		throw new IllegalArgumentException("The serialization was not created using this class");
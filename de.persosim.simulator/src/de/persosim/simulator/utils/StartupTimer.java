@@ -0,0 +1,125 @@
+package de.persosim.simulator.utils;
+
+import static org.globaltester.logging.BasicLogger.INFO;
+import static org.globaltester.logging.BasicLogger.log;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the time spent from the activation of the simulator up to the
+ * processing of the first APDU.
+ * <p/>
+ * Each phase is recorded once as the time elapsed since the start, later
+ * occurrences are ignored. Expensive class initializations are recorded with
+ * their duration. Once the first APDU has been processed the report is
+ * logged, {@link #getTimeToFirstApdu()} provides the total for tracking.
+ */
+public final class StartupTimer {
+
+	public static final String PHASE_ACTIVATED = "bundle activated";
+	public static final String PHASE_PERSONALIZATION_LOADED = "personalization loaded";
+	public static final String PHASE_FIRST_POWER_UP = "first card power up";
+	public static final String PHASE_FIRST_APDU = "first APDU processed";
+
+	private static long start = System.nanoTime();
+	private static Map<String, Long> phases = new LinkedHashMap<>();
+	private static Map<String, Long> classInits = new LinkedHashMap<>();
+
+	// checked on every APDU, set once the first one has been recorded
+	private static volatile boolean firstApduRecorded = false;
+
+	private StartupTimer() {
+		// static access only
+	}
+
+	/**
+	 * Restarts the measurement, all recorded times are discarded.
+	 */
+	public static synchronized void start() {
+		start = System.nanoTime();
+		phases.clear();
+		classInits.clear();
+		firstApduRecorded = false;
+	}
+
+	/**
+	 * Records the end of a phase, if it was not already recorded.
+	 *
+	 * @param phase
+	 *            the name of the phase
+	 */
+	public static synchronized void phase(String phase) {
+		if (!phases.containsKey(phase)) {
+			phases.put(phase, System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Records the duration of an expensive class initialization.
+	 *
+	 * @param clazz
+	 *            the initialized class
+	 * @param startNanos
+	 *            the value of {@link System#nanoTime()} at the start of the
+	 *            initialization
+	 */
+	public static synchronized void classInit(Class<?> clazz, long startNanos) {
+		classInits.put(clazz.getName(), System.nanoTime() - startNanos);
+	}
+
+	/**
+	 * Records the processing of an APDU, the report is logged for the first
+	 * one.
+	 */
+	public static void apduProcessed() {
+		if (firstApduRecorded) {
+			return;
+		}
+		String report;
+		synchronized (StartupTimer.class) {
+			if (firstApduRecorded) {
+				return;
+			}
+			phase(PHASE_FIRST_APDU);
+			firstApduRecorded = true;
+			report = getReport();
+		}
+		log(StartupTimer.class, report, INFO);
+	}
+
+	/**
+	 * @return the time in milliseconds from the start until the first APDU
+	 *         was processed, -1 if no APDU was processed yet
+	 */
+	public static synchronized long getTimeToFirstApdu() {
+		Long time = phases.get(PHASE_FIRST_APDU);
+		return time == null ? -1 : TimeUnit.NANOSECONDS.toMillis(time);
+	}
+
+	/**
+	 * @return a human readable report of all recorded phases and class
+	 *         initializations
+	 */
+	public static synchronized String getReport() {
+		StringBuilder report = new StringBuilder("Startup timing:");
+		long previous = 0;
+		for (Map.Entry<String, Long> current : phases.entrySet()) {
+			report.append("\n ").append(current.getKey()).append(" after ")
+					.append(toMillis(current.getValue())).append(" ms (+")
+					.append(toMillis(current.getValue() - previous)).append(" ms)");
+			previous = current.getValue();
+		}
+		for (Map.Entry<String, Long> current : classInits.entrySet()) {
+			report.append("\n initialization of ").append(current.getKey()).append(" took ")
+					.append(toMillis(current.getValue())).append(" ms");
+		}
+		return report.toString();
+	}
+
+	private static String toMillis(long nanos) {
+		return String.format("%.1f", nanos / 1000000.0);
+	}
+
+}